@@ -0,0 +1,201 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rimmelasghar.boilerplate.springboot.exceptions.ApiExceptionResponse;
+import com.rimmelasghar.boilerplate.springboot.security.utils.TokenHashUtils;
+import com.rimmelasghar.boilerplate.springboot.service.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Makes POSTs to {@code idempotency.paths} safe to retry: a request carrying an {@code Idempotency-Key} header runs at
+ * most once per key and caller, and every retry gets the first response replayed byte for byte.
+ * <p>
+ * Runs after the security filter chain, so keys are scoped to the authenticated user. Responses below 500 are stored;
+ * after a server error the key is released and a retry executes again. The body is buffered to be hashed, up to
+ * {@code idempotency.max-body-bytes}.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String ANONYMOUS_SCOPE = "anonymous";
+
+    private final IdempotencyService idempotencyService;
+
+    private final IdempotencyProperties properties;
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !properties.getPaths().contains(path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        final String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > properties.getMaxKeyLength()) {
+            sendError(response, HttpStatus.BAD_REQUEST, IDEMPOTENCY_KEY_HEADER + " must be between 1 and " + properties.getMaxKeyLength() + " characters");
+            return;
+        }
+
+        // Read up front, since the stored response is only replayed for the same body; capped, as it is held in memory
+        final int maxBodyBytes = properties.getMaxBodyBytes();
+        final byte[] body = request.getContentLengthLong() > maxBodyBytes ? null : request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body == null || body.length > maxBodyBytes) {
+            sendError(response, HttpStatus.PAYLOAD_TOO_LARGE, "Requests with an " + IDEMPOTENCY_KEY_HEADER + " may have at most " + maxBodyBytes + " bytes of body");
+            return;
+        }
+        final String scope = request.getMethod() + ' ' + path(request) + ' ' + caller();
+        final IdempotencyService.Claim claim = idempotencyService.claim(scope, key, TokenHashUtils.sha256(body));
+
+        switch (claim.getOutcome()) {
+            case REPLAY:
+                replay(response, claim.getResponse());
+                return;
+            case KEY_REUSED:
+                sendError(response, HttpStatus.UNPROCESSABLE_ENTITY, IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+                return;
+            case IN_PROGRESS:
+                sendError(response, HttpStatus.CONFLICT, "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still being processed");
+                return;
+            default:
+                break;
+        }
+
+        final ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), responseWrapper);
+
+            if (responseWrapper.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                completed = true;
+                idempotencyService.complete(claim, new IdempotencyService.StoredResponse(responseWrapper.getStatus(), responseWrapper.getContentType(),
+                        responseWrapper.getContentAsByteArray(), claim.getRequestHash()));
+            }
+        }
+        finally {
+            if (!completed) {
+                idempotencyService.release(claim);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletResponse response, IdempotencyService.StoredResponse storedResponse) throws IOException {
+        response.setStatus(storedResponse.getStatus());
+        if (storedResponse.getContentType() != null) {
+            response.setContentType(storedResponse.getContentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+
+        final byte[] body = storedResponse.getBody() == null ? new byte[0] : storedResponse.getBody();
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void sendError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiExceptionResponse(message, status, LocalDateTime.now()));
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String caller() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return ANONYMOUS_SCOPE;
+        }
+        return authentication.getName();
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            final ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return inputStream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return inputStream.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return inputStream.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            final Charset charset = getCharacterEncoding() == null ? StandardCharsets.UTF_8 : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Paths whose POST requests honour the Idempotency-Key header.
+     */
+    private List<String> paths = new ArrayList<>(List.of("/payments", "/rentals"));
+
+    /**
+     * How long a stored response is replayed to retries of the same key.
+     */
+    private long ttlSeconds = 86_400;
+
+    /**
+     * After this long an unfinished request is presumed lost with its node, and a retry executes it again.
+     */
+    private long lockSeconds = 60;
+
+    /**
+     * How long a duplicate waits for the request already executing on this node before getting a 409.
+     */
+    private long waitMillis = 10_000;
+
+    /**
+     * Stored responses kept in memory in front of the table.
+     */
+    private long cacheSize = 10_000;
+
+    private int maxKeyLength = 255;
+
+    /**
+     * Largest request body the filter buffers to hash and hand on; larger requests with a key get a 413.
+     */
+    private int maxBodyBytes = 1_048_576;
+
+    private long purgeIntervalMillis = 600_000;
+
+    private int purgeBatchSize = 1000;
+
+}
@@ -0,0 +1,30 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "import")
+public class ImportProperties {
+
+    /**
+     * Rows validated, resolved and written per transaction. Foreign keys and duplicates are looked up once per chunk,
+     * so larger chunks mean fewer round trips but longer transactions.
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * JDBC batch size used while writing a chunk, overriding hibernate.jdbc.batch_size for the import session.
+     */
+    private int jdbcBatchSize = 500;
+
+    /**
+     * Row errors listed in the report; rows failing beyond this are still counted.
+     */
+    private int maxReportedErrors = 1000;
+
+}
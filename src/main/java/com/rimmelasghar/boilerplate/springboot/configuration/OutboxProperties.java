@@ -0,0 +1,40 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+
+    /**
+     * Whether this node relays and dispatches events; they are written to the outbox either way.
+     */
+    private boolean enabled = true;
+
+    private long pollIntervalMillis = 500;
+
+    /**
+     * Events read from the outbox per query.
+     */
+    private int batchSize = 200;
+
+    /**
+     * Capacity of the in-process ring buffer between the relay and the dispatcher, rounded up to a power of two.
+     */
+    private int ringSize = 1024;
+
+    private long leaseSeconds = 30;
+
+    /**
+     * Delay before the first retry of an event a consumer failed on; doubled on each further failure.
+     */
+    private long retryBaseMillis = 1000;
+
+    private long retryMaxMillis = 300_000;
+
+}
@@ -0,0 +1,23 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "pagination")
+public class PaginationProperties {
+
+    private int defaultLimit = 50;
+
+    private int maxLimit = 500;
+
+    /**
+     * Upper bound on rows returned by list endpoints called without {@code after} or {@code limit}.
+     */
+    private int legacyMaxResults = 1000;
+
+}
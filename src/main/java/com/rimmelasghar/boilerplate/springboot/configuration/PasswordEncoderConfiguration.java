@@ -1,16 +1,54 @@
 package com.rimmelasghar.boilerplate.springboot.configuration;
 
+import com.rimmelasghar.boilerplate.springboot.security.service.MeteredBCryptPasswordEncoder;
+import com.rimmelasghar.boilerplate.springboot.security.service.PasswordHashingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
-
+@Slf4j
 @Configuration
 public class PasswordEncoderConfiguration {
 
+	private static final int CALIBRATION_ROUNDS = 3;
+
+	private static final String CALIBRATION_PASSWORD = "calibration-password";
+
 	@Bean
-	public BCryptPasswordEncoder encoder() {
-		return new BCryptPasswordEncoder();
+	public BCryptPasswordEncoder encoder(PasswordHashingProperties passwordHashingProperties, MeterRegistry meterRegistry) {
+
+		final int strength = passwordHashingProperties.isCalibrate() ? calibrateStrength(passwordHashingProperties) : passwordHashingProperties.getStrength();
+
+		return new MeteredBCryptPasswordEncoder(strength, meterRegistry);
+	}
+
+	/**
+	 * Picks the cost whose hash time is closest to the target. Every extra round doubles the work, so one measurement at
+	 * the configured strength is enough to extrapolate. Never goes below the configured strength.
+	 */
+	private static int calibrateStrength(PasswordHashingProperties properties) {
+
+		final int baseStrength = properties.getStrength();
+		final String salt = BCrypt.gensalt(baseStrength);
+
+		// Warm up once so JIT compilation does not skew the measurement
+		BCrypt.hashpw(CALIBRATION_PASSWORD, salt);
+
+		final long start = System.nanoTime();
+		for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+			BCrypt.hashpw(CALIBRATION_PASSWORD, salt);
+		}
+		final double baseMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000.0 / CALIBRATION_ROUNDS);
+
+		final int extraRounds = (int) Math.round(Math.log(properties.getTargetHashMillis() / baseMillis) / Math.log(2));
+		final int strength = Math.min(properties.getMaxStrength(), Math.max(baseStrength, baseStrength + extraRounds));
+
+		log.info("Calibrated BCrypt strength to {} (strength {} took {} ms, target {} ms)", strength, baseStrength, Math.round(baseMillis), properties.getTargetHashMillis());
+
+		return strength;
 	}
 
 }
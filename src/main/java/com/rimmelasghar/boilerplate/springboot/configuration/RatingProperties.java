@@ -0,0 +1,31 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "rating")
+public class RatingProperties {
+
+    /**
+     * Aggregates kept in memory, across vehicles, locations and users.
+     */
+    private long cacheSize = 100_000;
+
+    /**
+     * How long another node's review writes can take to show here; this node's own writes show straight away.
+     */
+    private long cacheTtlSeconds = 60;
+
+    /**
+     * When the aggregates are recomputed from the reviews, correcting any drift; one node runs it under a lease.
+     */
+    private String rebuildCron = "0 45 3 * * *";
+
+    private long rebuildLeaseSeconds = 3600;
+
+}
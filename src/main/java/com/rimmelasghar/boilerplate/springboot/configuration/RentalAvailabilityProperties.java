@@ -0,0 +1,32 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "rental.availability")
+public class RentalAvailabilityProperties {
+
+    /**
+     * Rental statuses that do not hold the vehicle, compared case-insensitively.
+     */
+    private List<String> nonBlockingStatuses = new ArrayList<>(List.of("CANCELLED", "CANCELED", "REJECTED"));
+
+    /**
+     * Number of in-process booking locks; vehicles hash onto them, so this bounds memory, not concurrency.
+     */
+    private int lockStripes = 256;
+
+    /**
+     * How often active bookings are reloaded from RENTALS, picking up bookings made on other nodes.
+     */
+    private long refreshIntervalMillis = 60_000;
+
+}
@@ -0,0 +1,42 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "rental.lifecycle")
+public class RentalLifecycleProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Resolution of the timing wheel; transitions are applied at most this late.
+     */
+    private long tickMillis = 1000;
+
+    private int wheelSize = 64;
+
+    private int wheelLevels = 4;
+
+    /**
+     * How far ahead deadlines are loaded into the wheel on each refresh.
+     */
+    private long windowMillis = 3_600_000;
+
+    private long leaseSeconds = 30;
+
+    /**
+     * Rental ids per UPDATE statement.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Whether an active rental past its end time is completed, or marked overdue until it is returned.
+     */
+    private boolean completeOnEnd = true;
+
+}
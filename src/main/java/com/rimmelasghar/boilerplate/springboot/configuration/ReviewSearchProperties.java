@@ -0,0 +1,31 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "review.search")
+public class ReviewSearchProperties {
+
+    /**
+     * Where the index is written on shutdown and read back on startup; blank to always rebuild from the reviews.
+     */
+    private String snapshotPath = "data/review-search.snapshot";
+
+    /**
+     * How often the index is rebuilt from the reviews, picking up writes made on other nodes.
+     */
+    private long rebuildIntervalMillis = 3_600_000;
+
+    /**
+     * Reviews read per query while loading the index.
+     */
+    private int loadBatchSize = 5000;
+
+    private int maxQueryTerms = 32;
+
+}
@@ -2,6 +2,7 @@ package com.rimmelasghar.boilerplate.springboot.configuration;
 
 import com.rimmelasghar.boilerplate.springboot.security.jwt.JwtAuthenticationFilter;
 import com.rimmelasghar.boilerplate.springboot.security.jwt.JwtAuthenticationEntryPoint;
+import com.rimmelasghar.boilerplate.springboot.security.utils.PublicRoutes;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -42,7 +43,7 @@ public class SecurityConfiguration {
 				.addFilterBefore(corsFilter, ChannelProcessingFilter.class)
 				.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
 				.authorizeRequests()
-				.antMatchers("/register","/health","/login","/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/actuator/**").permitAll()
+				.antMatchers(PublicRoutes.PATTERNS).permitAll()
 				.antMatchers("/roles/**").permitAll() // Temporarily allow access to roles API for testing
 				.antMatchers("/test/**").permitAll() // Temporarily allow access to test endpoints
 				.antMatchers("/vehicles/**").permitAll() // Temporarily allow access to vehicles API for testing
@@ -0,0 +1,36 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "stats")
+public class StatsProperties {
+
+    /**
+     * Payment statuses counted as revenue, compared case-insensitively.
+     */
+    private List<String> revenueStatuses = new ArrayList<>(List.of("COMPLETED", "PAID"));
+
+    /**
+     * Days returned when a stats request gives no range, ending today.
+     */
+    private int defaultDays = 30;
+
+    private int maxDays = 366;
+
+    /**
+     * When the rollups are recomputed from the base tables, correcting any drift; one node runs it under a lease.
+     */
+    private String rebuildCron = "0 30 3 * * *";
+
+    private long rebuildLeaseSeconds = 3600;
+
+}
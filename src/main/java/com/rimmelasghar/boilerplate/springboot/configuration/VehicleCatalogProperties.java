@@ -0,0 +1,24 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "vehicle.catalog")
+public class VehicleCatalogProperties {
+
+    /**
+     * Serialized vehicles kept in memory; the full listing counts as one entry.
+     */
+    private long cacheSize = 10_000;
+
+    /**
+     * How long another node's vehicle and review writes can take to show here; this node's own writes show straight away.
+     */
+    private long cacheTtlSeconds = 60;
+
+}
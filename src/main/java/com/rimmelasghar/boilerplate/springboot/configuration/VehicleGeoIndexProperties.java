@@ -0,0 +1,36 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "vehicle.geo-index")
+public class VehicleGeoIndexProperties {
+
+    /**
+     * Edge of a grid cell in degrees; 0.05 is about 5.5 km at the equator. Smaller cells mean fewer distance checks
+     * in dense cities but more cells to visit for large radii.
+     */
+    private double cellDegrees = 0.05;
+
+    /**
+     * Vehicle statuses a nearby search may return, compared case-insensitively; empty accepts any status.
+     */
+    private List<String> availableStatuses = new ArrayList<>(List.of("AVAILABLE"));
+
+    private double defaultRadiusMeters = 10_000;
+
+    private double maxRadiusMeters = 200_000;
+
+    private int defaultLimit = 20;
+
+    private int maxLimit = 200;
+
+}
@@ -0,0 +1,19 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "vehicle.search")
+public class VehicleSearchProperties {
+
+    /**
+     * How often the index is rebuilt from the vehicles, picking up writes made on other nodes.
+     */
+    private long rebuildIntervalMillis = 600_000;
+
+}
@@ -35,6 +35,7 @@ public class WebConfiguration {
         config.addExposedHeader("Authorization");
         config.addExposedHeader("Access-Control-Allow-Origin");
         config.addExposedHeader("Access-Control-Allow-Credentials");
+        config.addExposedHeader(IdempotencyFilter.REPLAYED_HEADER);
         
         source.registerCorsConfiguration("/**", config);
         return new CorsFilter(source);
@@ -1,6 +1,8 @@
 package com.rimmelasghar.boilerplate.springboot.controller;
 
+import com.rimmelasghar.boilerplate.springboot.dto.ImportReportDto;
 import com.rimmelasghar.boilerplate.springboot.dto.LocationDto;
+import com.rimmelasghar.boilerplate.springboot.service.BulkImportService;
 import com.rimmelasghar.boilerplate.springboot.service.LocationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -9,11 +11,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.io.InputStream;
 
 @RestController
 @RequiredArgsConstructor
@@ -22,6 +27,7 @@ import javax.validation.Valid;
 public class LocationController {
 
     private final LocationService locationService;
+    private final BulkImportService bulkImportService;
 
     @Operation(summary = "Create a new location", description = "Creates a new location with the provided details")
     @ApiResponses(value = {
@@ -36,6 +42,21 @@ public class LocationController {
         return new ResponseEntity<>(createdLocation, HttpStatus.CREATED);
     }
 
+    @Operation(summary = "Import locations", description = "Streams locations from a text/csv body with a header row or an application/x-ndjson body "
+            + "and imports them in chunks. Invalid rows and locations whose name and address already exist are skipped and listed in the report")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import finished; the report lists the rejected rows",
+            content = @Content(schema = @Schema(implementation = ImportReportDto.class))),
+        @ApiResponse(responseCode = "403", description = "Caller is not an administrator"),
+        @ApiResponse(responseCode = "415", description = "Body is neither CSV nor NDJSON")
+    })
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReportDto> importLocations(InputStream body, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) {
+        ImportReportDto report = bulkImportService.importLocations(body, contentType);
+        return ResponseEntity.ok(report);
+    }
+
     @Operation(summary = "Get location by ID", description = "Returns location details for the specified ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Location found",
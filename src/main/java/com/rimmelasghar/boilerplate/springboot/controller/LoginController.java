@@ -2,12 +2,17 @@ package com.rimmelasghar.boilerplate.springboot.controller;
 
 import com.rimmelasghar.boilerplate.springboot.security.dto.LoginRequest;
 import com.rimmelasghar.boilerplate.springboot.security.dto.LoginResponse;
+import com.rimmelasghar.boilerplate.springboot.security.dto.RefreshTokenRequest;
 import com.rimmelasghar.boilerplate.springboot.security.jwt.JwtTokenService;
+import com.rimmelasghar.boilerplate.springboot.security.service.PasswordHashingService;
+import com.rimmelasghar.boilerplate.springboot.security.utils.SecurityConstants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -24,18 +29,48 @@ public class LoginController {
 
 	private final JwtTokenService jwtTokenService;
 
+	private final PasswordHashingService passwordHashingService;
+
 	@Operation(summary = "Login", description = "Authenticates a user and returns a JWT token")
 	@ApiResponses(value = {
 		@ApiResponse(responseCode = "200", description = "Successfully authenticated", 
 			content = @Content(schema = @Schema(implementation = LoginResponse.class))),
-		@ApiResponse(responseCode = "401", description = "Authentication failed")
+		@ApiResponse(responseCode = "401", description = "Authentication failed"),
+		@ApiResponse(responseCode = "429", description = "Too many concurrent logins from this address or for this account"),
+		@ApiResponse(responseCode = "503", description = "Authentication service is busy")
 	})
 	@PostMapping
-	public ResponseEntity<LoginResponse> loginRequest(@Valid @RequestBody LoginRequest loginRequest) {
+	public CompletableFuture<ResponseEntity<LoginResponse>> loginRequest(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+
+		// Password verification runs on the bounded hashing pool, releasing the request thread while it waits
+		final CompletableFuture<LoginResponse> loginResponse = passwordHashingService.submit(request.getRemoteAddr(), loginRequest.getEmail(), () -> jwtTokenService.getLoginResponse(loginRequest));
+
+		return loginResponse.thenApply(ResponseEntity::ok);
+	}
+
+	@Operation(summary = "Refresh", description = "Exchanges a refresh token for a new access token and a rotated refresh token")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Successfully refreshed",
+			content = @Content(schema = @Schema(implementation = LoginResponse.class))),
+		@ApiResponse(responseCode = "401", description = "Refresh token is invalid, expired or was already used")
+	})
+	@PostMapping("/refresh")
+	public ResponseEntity<LoginResponse> refreshRequest(@Valid @RequestBody RefreshTokenRequest refreshTokenRequest) {
 
-		final LoginResponse loginResponse = jwtTokenService.getLoginResponse(loginRequest);
+		final LoginResponse loginResponse = jwtTokenService.getRefreshResponse(refreshTokenRequest);
 
 		return ResponseEntity.ok(loginResponse);
 	}
 
+	@Operation(summary = "Logout", description = "Revokes the refresh token, every token rotated from the same login and the bearer access token if sent")
+	@ApiResponse(responseCode = "204", description = "Refresh token revoked")
+	@PostMapping("/logout")
+	public ResponseEntity<Void> logoutRequest(@Valid @RequestBody RefreshTokenRequest refreshTokenRequest,
+											  @RequestHeader(value = SecurityConstants.HEADER_STRING, required = false) String authorization) {
+
+		jwtTokenService.logout(refreshTokenRequest, authorization);
+
+		return ResponseEntity.noContent().build();
+	}
+
 }
@@ -1,5 +1,6 @@
 package com.rimmelasghar.boilerplate.springboot.controller;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.dto.PaymentDto;
 import com.rimmelasghar.boilerplate.springboot.dto.PaymentUpdateDto;
 import com.rimmelasghar.boilerplate.springboot.service.PaymentService;
@@ -59,7 +60,7 @@ public class PaymentController {
         @ApiResponse(responseCode = "200", description = "List of payments retrieved successfully")
     })
     @GetMapping
-    public ResponseEntity<List<PaymentDto>> getAllPayments(
+    public ResponseEntity<?> getAllPayments(
             @RequestParam(required = false) Long user_id,
             @RequestParam(required = false) Long rental_id,
             @RequestParam(required = false) String status,
@@ -67,7 +68,18 @@ public class PaymentController {
             @RequestParam(required = false) BigDecimal min_amount,
             @RequestParam(required = false) BigDecimal max_amount,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime payment_date_from,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime payment_date_to) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime payment_date_to,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+
+        // ?after= or ?limit= switches to keyset pagination with a next cursor
+        if (after != null || limit != null) {
+            CursorPageDto<PaymentDto> page = paymentService.getPaymentsPage(
+                    user_id, rental_id, status, payment_method,
+                    min_amount, max_amount,
+                    payment_date_from, payment_date_to, after, limit);
+            return ResponseEntity.ok(page);
+        }
         
         // If no filters are provided, return all payments
         if (user_id == null && rental_id == null && status == null && payment_method == null && 
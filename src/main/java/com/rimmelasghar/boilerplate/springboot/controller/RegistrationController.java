@@ -3,6 +3,7 @@ package com.rimmelasghar.boilerplate.springboot.controller;
 import com.rimmelasghar.boilerplate.springboot.security.dto.RegistrationRequest;
 import com.rimmelasghar.boilerplate.springboot.security.dto.RegistrationResponse;
 import com.rimmelasghar.boilerplate.springboot.security.service.AuthUserService;
+import com.rimmelasghar.boilerplate.springboot.security.service.PasswordHashingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -14,7 +15,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 // rimmel asghar
 @RestController
@@ -25,18 +28,23 @@ public class RegistrationController {
 
 	private final AuthUserService userService;
 
+	private final PasswordHashingService passwordHashingService;
+
 	@Operation(summary = "Register a new user", description = "Creates a new user account with username, email, and password")
 	@ApiResponses(value = {
 		@ApiResponse(responseCode = "201", description = "User successfully registered",
 			content = {@Content(mediaType = "application/json", schema = @Schema(implementation = RegistrationResponse.class))}),
-		@ApiResponse(responseCode = "400", description = "Invalid input or email/username already exists")
+		@ApiResponse(responseCode = "400", description = "Invalid input or email/username already exists"),
+		@ApiResponse(responseCode = "429", description = "Too many concurrent registrations from this address or for this email"),
+		@ApiResponse(responseCode = "503", description = "Registration service is busy")
 	})
 	@PostMapping
-	public ResponseEntity<RegistrationResponse> registrationRequest(@Valid @RequestBody RegistrationRequest registrationRequest) {
+	public CompletableFuture<ResponseEntity<RegistrationResponse>> registrationRequest(@Valid @RequestBody RegistrationRequest registrationRequest, HttpServletRequest request) {
 
-		final RegistrationResponse registrationResponse = userService.registration(registrationRequest);
+		// Password hashing runs on the bounded hashing pool, releasing the request thread while it waits
+		final CompletableFuture<RegistrationResponse> registrationResponse = passwordHashingService.submit(request.getRemoteAddr(), registrationRequest.getEmail(), () -> userService.registration(registrationRequest));
 
-		return ResponseEntity.status(HttpStatus.CREATED).body(registrationResponse);
+		return registrationResponse.thenApply(response -> ResponseEntity.status(HttpStatus.CREATED).body(response));
 	}
 
 }
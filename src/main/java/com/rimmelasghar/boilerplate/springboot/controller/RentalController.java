@@ -1,7 +1,13 @@
 package com.rimmelasghar.boilerplate.springboot.controller;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
+import com.rimmelasghar.boilerplate.springboot.dto.ImportReportDto;
 import com.rimmelasghar.boilerplate.springboot.dto.RentalDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteRequestDto;
 import com.rimmelasghar.boilerplate.springboot.dto.RentalUpdateDto;
+import com.rimmelasghar.boilerplate.springboot.service.BulkImportService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalPricingService;
 import com.rimmelasghar.boilerplate.springboot.service.RentalService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,11 +17,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -26,6 +35,8 @@ import java.util.List;
 public class RentalController {
 
     private final RentalService rentalService;
+    private final RentalPricingService rentalPricingService;
+    private final BulkImportService bulkImportService;
 
     @Operation(summary = "Create a new rental", description = "Creates a new rental with the provided details")
     @ApiResponses(value = {
@@ -40,6 +51,34 @@ public class RentalController {
         return new ResponseEntity<>(createdRental, HttpStatus.CREATED);
     }
 
+    @Operation(summary = "Quote rentals", description = "Prices a batch of (vehicle, period) pairs with the cheapest mix of year, month and day tariffs")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Quotes computed successfully",
+            content = @Content(schema = @Schema(implementation = RentalQuoteDto.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid period or vehicle without tariff"),
+        @ApiResponse(responseCode = "404", description = "Vehicle not found")
+    })
+    @PostMapping("/quote")
+    public ResponseEntity<List<RentalQuoteDto>> quoteRentals(@Valid @RequestBody RentalQuoteRequestDto rentalQuoteRequestDto) {
+        List<RentalQuoteDto> quotes = rentalPricingService.quote(rentalQuoteRequestDto.getItems());
+        return ResponseEntity.ok(quotes);
+    }
+
+    @Operation(summary = "Import rentals", description = "Streams rentals from a text/csv body with a header row or an application/x-ndjson body "
+            + "and imports them in chunks. Invalid rows, unknown users or vehicles, unpriceable rows and bookings that overlap are skipped and listed in the report")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import finished; the report lists the rejected rows",
+            content = @Content(schema = @Schema(implementation = ImportReportDto.class))),
+        @ApiResponse(responseCode = "403", description = "Caller is not an administrator"),
+        @ApiResponse(responseCode = "415", description = "Body is neither CSV nor NDJSON")
+    })
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReportDto> importRentals(InputStream body, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) {
+        ImportReportDto report = bulkImportService.importRentals(body, contentType);
+        return ResponseEntity.ok(report);
+    }
+
     @Operation(summary = "Get rental by ID", description = "Returns rental details for the specified ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Rental found",
@@ -57,14 +96,25 @@ public class RentalController {
         @ApiResponse(responseCode = "200", description = "List of rentals retrieved successfully")
     })
     @GetMapping
-    public ResponseEntity<List<RentalDto>> getAllRentals(
+    public ResponseEntity<?> getAllRentals(
             @RequestParam(required = false) Long user_id,
             @RequestParam(required = false) Long vehicle_id,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start_time_from,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start_time_to,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end_time_from,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end_time_to) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end_time_to,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+
+        // ?after= or ?limit= switches to keyset pagination with a next cursor
+        if (after != null || limit != null) {
+            CursorPageDto<RentalDto> page = rentalService.getRentalsPage(
+                    user_id, vehicle_id, status,
+                    start_time_from, start_time_to,
+                    end_time_from, end_time_to, after, limit);
+            return ResponseEntity.ok(page);
+        }
         
         // If no filters are provided, return all rentals
         if (user_id == null && vehicle_id == null && status == null && 
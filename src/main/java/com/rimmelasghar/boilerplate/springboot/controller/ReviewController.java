@@ -1,7 +1,11 @@
 package com.rimmelasghar.boilerplate.springboot.controller;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RatingDto;
 import com.rimmelasghar.boilerplate.springboot.dto.ReviewDto;
+import com.rimmelasghar.boilerplate.springboot.dto.ReviewSearchHitDto;
 import com.rimmelasghar.boilerplate.springboot.dto.ReviewUpdateDto;
+import com.rimmelasghar.boilerplate.springboot.service.RatingService;
 import com.rimmelasghar.boilerplate.springboot.service.ReviewService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -27,6 +31,7 @@ import java.util.List;
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final RatingService ratingService;
 
     @Operation(summary = "Create a new review", description = "Creates a new review with the provided details")
     @ApiResponses(value = {
@@ -58,13 +63,22 @@ public class ReviewController {
         @ApiResponse(responseCode = "200", description = "List of reviews retrieved successfully")
     })
     @GetMapping
-    public ResponseEntity<List<ReviewDto>> getAllReviews(
+    public ResponseEntity<?> getAllReviews(
             @RequestParam(required = false) Long user_id,
             @RequestParam(required = false) Long rental_id,
             @RequestParam(required = false) Integer min_rating,
             @RequestParam(required = false) Integer max_rating,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime created_at_from,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime created_at_to) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime created_at_to,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+
+        // ?after= or ?limit= switches to keyset pagination with a next cursor
+        if (after != null || limit != null) {
+            CursorPageDto<ReviewDto> page = reviewService.getReviewsPage(
+                    user_id, rental_id, min_rating, max_rating, created_at_from, created_at_to, after, limit);
+            return ResponseEntity.ok(page);
+        }
         
         // If no filters are provided, return all reviews
         if (user_id == null && rental_id == null && min_rating == null && max_rating == null && 
@@ -79,6 +93,27 @@ public class ReviewController {
         return ResponseEntity.ok(filteredReviews);
     }
 
+    @Operation(summary = "Search reviews", description = "Full-text search over review comments, ranked by relevance. Accents and case are ignored, "
+            + "so a query typed without Vietnamese accents still finds accented comments. Takes the same rating, date, user and rental filters as the review listing")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matching reviews, best first",
+            content = @Content(schema = @Schema(implementation = ReviewSearchHitDto.class))),
+        @ApiResponse(responseCode = "400", description = "Query missing or limit out of range")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<List<ReviewSearchHitDto>> searchReviews(
+            @RequestParam String q,
+            @RequestParam(required = false) Long user_id,
+            @RequestParam(required = false) Long rental_id,
+            @RequestParam(required = false) Integer min_rating,
+            @RequestParam(required = false) Integer max_rating,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime created_at_from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime created_at_to,
+            @RequestParam(required = false) Integer limit) {
+        List<ReviewSearchHitDto> hits = reviewService.searchReviews(q, user_id, rental_id, min_rating, max_rating, created_at_from, created_at_to, limit);
+        return ResponseEntity.ok(hits);
+    }
+
     @Operation(summary = "Get reviews by user ID", description = "Returns a list of reviews for the specified user")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "List of reviews retrieved successfully")
@@ -99,6 +134,39 @@ public class ReviewController {
         return ResponseEntity.ok(reviews);
     }
 
+    @Operation(summary = "Get a vehicle's rating", description = "Returns the review count, average and star histogram of the vehicle's rentals")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rating retrieved successfully; a count of 0 without reviews",
+            content = @Content(schema = @Schema(implementation = RatingDto.class)))
+    })
+    @GetMapping("/ratings/vehicles/{vehicle_id}")
+    public ResponseEntity<RatingDto> getVehicleRating(@PathVariable("vehicle_id") Long vehicleId) {
+        RatingDto rating = ratingService.getVehicleRating(vehicleId);
+        return ResponseEntity.ok(rating);
+    }
+
+    @Operation(summary = "Get a location's rating", description = "Returns the review count, average and star histogram of the location's vehicles")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rating retrieved successfully; a count of 0 without reviews",
+            content = @Content(schema = @Schema(implementation = RatingDto.class)))
+    })
+    @GetMapping("/ratings/locations/{location_id}")
+    public ResponseEntity<RatingDto> getLocationRating(@PathVariable("location_id") Long locationId) {
+        RatingDto rating = ratingService.getLocationRating(locationId);
+        return ResponseEntity.ok(rating);
+    }
+
+    @Operation(summary = "Get a user's ratings", description = "Returns the count, average and star histogram of the reviews the user wrote")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rating retrieved successfully; a count of 0 without reviews",
+            content = @Content(schema = @Schema(implementation = RatingDto.class)))
+    })
+    @GetMapping("/ratings/users/{user_id}")
+    public ResponseEntity<RatingDto> getUserRating(@PathVariable("user_id") Long userId) {
+        RatingDto rating = ratingService.getUserRating(userId);
+        return ResponseEntity.ok(rating);
+    }
+
     @Operation(summary = "Update review", description = "Updates an existing review with the provided details")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Review updated successfully",
@@ -1,5 +1,6 @@
 package com.rimmelasghar.boilerplate.springboot.controller;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.dto.RoleDto;
 import com.rimmelasghar.boilerplate.springboot.model.Role;
 import com.rimmelasghar.boilerplate.springboot.service.RoleService;
@@ -80,7 +81,14 @@ public class RoleController {
     @Operation(summary = "Get all roles", description = "Retrieves a list of all available roles")
     @ApiResponse(responseCode = "200", description = "List of roles retrieved successfully")
     @GetMapping
-    public ResponseEntity<List<Role>> getAllRoles() {
+    public ResponseEntity<?> getAllRoles(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        // ?after= or ?limit= switches to keyset pagination with a next cursor
+        if (after != null || limit != null) {
+            CursorPageDto<Role> page = roleService.getRolesPage(after, limit);
+            return ResponseEntity.ok(page);
+        }
         List<Role> roles = roleService.getAllRoles();
         return ResponseEntity.ok(roles);
     }
@@ -0,0 +1,71 @@
+package com.rimmelasghar.boilerplate.springboot.controller;
+
+import com.rimmelasghar.boilerplate.springboot.dto.PaymentStatusStatDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RevenueStatDto;
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleRentalStatDto;
+import com.rimmelasghar.boilerplate.springboot.service.StatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/stats")
+@Tag(name = "Stats", description = "Fleet and revenue figures served from rollup tables")
+public class StatsController {
+
+    private final StatsService statsService;
+
+    @Operation(summary = "Get daily revenue", description = "Returns revenue and payment counts per day and location for [from, to], "
+            + "by payment date and the paid rental's vehicle location. Defaults to the last 30 days")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved revenue",
+            content = @Content(schema = @Schema(implementation = RevenueStatDto.class))),
+        @ApiResponse(responseCode = "400", description = "From is after to or the range is too long")
+    })
+    @GetMapping("/revenue")
+    public ResponseEntity<List<RevenueStatDto>> getRevenue(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long location_id) {
+        List<RevenueStatDto> revenue = statsService.getRevenue(from, to, location_id);
+        return ResponseEntity.ok(revenue);
+    }
+
+    @Operation(summary = "Get daily rentals of a vehicle", description = "Returns rentals and booked revenue per start day for [from, to], "
+            + "cancelled rentals excluded. Defaults to the last 30 days")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved vehicle rentals",
+            content = @Content(schema = @Schema(implementation = VehicleRentalStatDto.class))),
+        @ApiResponse(responseCode = "400", description = "From is after to or the range is too long")
+    })
+    @GetMapping("/vehicles/{vehicle_id}/rentals")
+    public ResponseEntity<List<VehicleRentalStatDto>> getVehicleRentals(
+            @PathVariable("vehicle_id") Long vehicleId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        List<VehicleRentalStatDto> rentals = statsService.getVehicleRentals(vehicleId, from, to);
+        return ResponseEntity.ok(rentals);
+    }
+
+    @Operation(summary = "Get payment status totals", description = "Returns the number and total amount of payments per status")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved payment status totals",
+            content = @Content(schema = @Schema(implementation = PaymentStatusStatDto.class)))
+    })
+    @GetMapping("/payments/status")
+    public ResponseEntity<List<PaymentStatusStatDto>> getPaymentStatusTotals() {
+        List<PaymentStatusStatDto> totals = statsService.getPaymentStatusTotals();
+        return ResponseEntity.ok(totals);
+    }
+}
@@ -1,5 +1,6 @@
 package com.rimmelasghar.boilerplate.springboot.controller;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.dto.UserDto;
 import com.rimmelasghar.boilerplate.springboot.dto.UserUpdateDto;
 import com.rimmelasghar.boilerplate.springboot.model.Role;
@@ -108,7 +109,14 @@ public class UserController {
      * Endpoint: GET /users
      */
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        // ?after= or ?limit= switches to keyset pagination with a next cursor
+        if (after != null || limit != null) {
+            CursorPageDto<User> page = userService.getUsersPage(after, limit);
+            return ResponseEntity.ok(page);
+        }
         List<User> users = userService.getAllUsers();
         return ResponseEntity.ok(users);
     }
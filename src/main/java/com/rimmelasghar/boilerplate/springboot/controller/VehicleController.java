@@ -1,7 +1,13 @@
 package com.rimmelasghar.boilerplate.springboot.controller;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
+import com.rimmelasghar.boilerplate.springboot.dto.ImportReportDto;
+import com.rimmelasghar.boilerplate.springboot.dto.NearbyVehicleDto;
 import com.rimmelasghar.boilerplate.springboot.dto.VehicleDto;
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleSearchDto;
 import com.rimmelasghar.boilerplate.springboot.dto.VehicleUpdateDto;
+import com.rimmelasghar.boilerplate.springboot.service.BulkImportService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleCatalogService;
 import com.rimmelasghar.boilerplate.springboot.service.VehicleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,10 +16,17 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import javax.validation.Valid;
@@ -25,6 +38,8 @@ import javax.validation.Valid;
 public class VehicleController {
 
     private final VehicleService vehicleService;
+    private final BulkImportService bulkImportService;
+    private final VehicleCatalogService vehicleCatalogService;
 
     @Operation(summary = "Create a new vehicle", description = "Creates a new vehicle with the provided details")
     @ApiResponses(value = {
@@ -39,16 +54,34 @@ public class VehicleController {
         return new ResponseEntity<>(createdVehicle, HttpStatus.CREATED);
     }
 
-    @Operation(summary = "Get vehicle by ID", description = "Returns vehicle details for the specified ID")
+    @Operation(summary = "Import vehicles", description = "Streams vehicles from a text/csv body with a header row or an application/x-ndjson body "
+            + "and imports them in chunks. Invalid rows, unknown locations and license plates that already exist are skipped and listed in the report")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import finished; the report lists the rejected rows",
+            content = @Content(schema = @Schema(implementation = ImportReportDto.class))),
+        @ApiResponse(responseCode = "403", description = "Caller is not an administrator"),
+        @ApiResponse(responseCode = "415", description = "Body is neither CSV nor NDJSON")
+    })
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReportDto> importVehicles(InputStream body, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) {
+        ImportReportDto report = bulkImportService.importVehicles(body, contentType);
+        return ResponseEntity.ok(report);
+    }
+
+    @Operation(summary = "Get vehicle by ID", description = "Returns vehicle details for the specified ID, with a strong ETag. "
+            + "A matching If-None-Match gets 304 without a body")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Vehicle found",
             content = @Content(schema = @Schema(implementation = VehicleDto.class))),
+        @ApiResponse(responseCode = "304", description = "Vehicle unchanged since the ETag in If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Vehicle not found")
     })
     @GetMapping("/{vehicle_id}")
-    public ResponseEntity<VehicleDto> getVehicle(@PathVariable("vehicle_id") Long vehicleId) {
-        VehicleDto vehicleDto = vehicleService.getVehicleById(vehicleId);
-        return ResponseEntity.ok(vehicleDto);
+    public ResponseEntity<byte[]> getVehicle(
+            @PathVariable("vehicle_id") Long vehicleId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return catalogResponse(vehicleService.getVehicleJson(vehicleId), ifNoneMatch);
     }
 
     @Operation(summary = "Update vehicle", description = "Updates an existing vehicle with the provided details")
@@ -78,14 +111,89 @@ public class VehicleController {
         return ResponseEntity.noContent().build();
     }
     
-    @Operation(summary = "Get all vehicles", description = "Returns a list of all vehicles")
+    @Operation(summary = "Get all vehicles", description = "Returns a list of all vehicles. Without after or limit the list carries a strong ETag "
+            + "and a matching If-None-Match gets 304 without a body")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved all vehicles",
-            content = @Content(schema = @Schema(implementation = VehicleDto.class)))
+            content = @Content(schema = @Schema(implementation = VehicleDto.class))),
+        @ApiResponse(responseCode = "304", description = "List unchanged since the ETag in If-None-Match")
     })
     @GetMapping
-    public ResponseEntity<List<VehicleDto>> getAllVehicles() {
-        List<VehicleDto> vehicles = vehicleService.getAllVehicles();
+    public ResponseEntity<?> getAllVehicles(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // ?after= or ?limit= switches to keyset pagination with a next cursor
+        if (after != null || limit != null) {
+            CursorPageDto<VehicleDto> page = vehicleService.getVehiclesPage(after, limit);
+            return ResponseEntity.ok(page);
+        }
+        return catalogResponse(vehicleService.getAllVehiclesJson(), ifNoneMatch);
+    }
+
+    @Operation(summary = "Get available vehicles", description = "Returns vehicles with no booking overlapping [from, to), optionally at one location")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved available vehicles",
+            content = @Content(schema = @Schema(implementation = VehicleDto.class))),
+        @ApiResponse(responseCode = "400", description = "Start time is not before end time")
+    })
+    @GetMapping("/available")
+    public ResponseEntity<List<VehicleDto>> getAvailableVehicles(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long location_id) {
+        List<VehicleDto> vehicles = vehicleService.getAvailableVehicles(from, to, location_id);
         return ResponseEntity.ok(vehicles);
     }
+
+    @Operation(summary = "Search vehicles", description = "Filters vehicles by type, brand, status, location and daily price, with counts per value "
+            + "of each facet over all matches. Values within a parameter are alternatives; parameters must all match. Served from memory, "
+            + "so items carry no rating")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matching vehicles, lowest id first, with the total and facet counts",
+            content = @Content(schema = @Schema(implementation = VehicleSearchDto.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid limit or price range")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<VehicleSearchDto> searchVehicles(
+            @RequestParam(required = false) List<String> type,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) List<Long> location_id,
+            @RequestParam(required = false) BigDecimal min_price,
+            @RequestParam(required = false) BigDecimal max_price,
+            @RequestParam(required = false) Integer limit) {
+        VehicleSearchDto result = vehicleService.searchVehicles(type, brand, status, location_id, min_price, max_price, limit);
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(summary = "Get nearby vehicles", description = "Returns the nearest available vehicles within radius meters of a point, nearest first. "
+            + "Without from/to, available means not booked right now")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved nearby vehicles",
+            content = @Content(schema = @Schema(implementation = NearbyVehicleDto.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid coordinates, radius, limit or time range")
+    })
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyVehicleDto>> getNearbyVehicles(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(required = false) Double radius,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        List<NearbyVehicleDto> vehicles = vehicleService.getNearbyVehicles(lat, lon, radius, limit, from, to);
+        return ResponseEntity.ok(vehicles);
+    }
+
+    // The body is already JSON; it is written as-is, without going through Jackson again
+    private ResponseEntity<byte[]> catalogResponse(VehicleCatalogService.Entry entry, String ifNoneMatch) {
+        if (vehicleCatalogService.notModified(entry, ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.getEtag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(entry.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(entry.getBody());
+    }
 }
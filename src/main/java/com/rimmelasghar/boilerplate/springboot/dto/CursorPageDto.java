@@ -0,0 +1,27 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+
+    private List<T> items;
+
+    // Opaque; pass back as ?after= to get the next page, null on the last page
+    private String next_cursor;
+
+    public <R> CursorPageDto<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mappedItems = items.stream().map(mapper).collect(Collectors.toList());
+        return new CursorPageDto<>(mappedItems, next_cursor);
+    }
+}
@@ -0,0 +1,18 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportErrorDto {
+
+    // 1-based data row, not counting the CSV header
+    private long row;
+
+    private String message;
+}
@@ -0,0 +1,24 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReportDto {
+
+    private long total_rows;
+
+    private long imported;
+
+    private long failed;
+
+    // Capped at import.max-reported-errors; failed counts every rejected row
+    private List<ImportErrorDto> errors;
+}
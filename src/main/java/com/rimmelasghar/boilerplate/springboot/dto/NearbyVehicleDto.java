@@ -0,0 +1,17 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyVehicleDto {
+
+    private VehicleDto vehicle;
+
+    private double distance_meters;
+}
@@ -0,0 +1,21 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatusStatDto {
+
+    private String status;
+
+    private long payments;
+
+    private BigDecimal amount;
+}
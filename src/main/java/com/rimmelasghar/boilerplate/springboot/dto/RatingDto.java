@@ -0,0 +1,23 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingDto {
+
+    private long count;
+
+    // Rounded to two decimals; null without reviews
+    private Double average;
+
+    // Reviews per star rating, 1 to 5
+    private Map<Integer, Long> histogram;
+}
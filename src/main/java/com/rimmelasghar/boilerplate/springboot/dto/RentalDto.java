@@ -30,7 +30,7 @@ public class RentalDto {
     @NotNull(message = "End time is required")
     private LocalDateTime end_time;
 
-    @NotNull(message = "Total price is required")
+    // Optional; always quoted from the vehicle tariff, and a value that differs from the quote is rejected
     @DecimalMin(value = "0.0", inclusive = false, message = "Total price must be greater than 0")
     private BigDecimal total_price;
 
@@ -0,0 +1,27 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalQuoteDto {
+
+    private Long vehicle_id;
+    private LocalDateTime start_time;
+    private LocalDateTime end_time;
+
+    // Billable units of the cheapest combination; together they may cover slightly more than the rental
+    private long years;
+    private long months;
+    private long days;
+
+    private BigDecimal total_price;
+}
@@ -0,0 +1,25 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalQuoteItemDto {
+
+    @NotNull(message = "Vehicle ID is required")
+    private Long vehicle_id;
+
+    @NotNull(message = "Start time is required")
+    private LocalDateTime start_time;
+
+    @NotNull(message = "End time is required")
+    private LocalDateTime end_time;
+}
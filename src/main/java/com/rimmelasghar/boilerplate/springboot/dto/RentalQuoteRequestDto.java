@@ -0,0 +1,23 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalQuoteRequestDto {
+
+    @Valid
+    @NotEmpty(message = "At least one quote item is required")
+    @Size(max = 200, message = "At most 200 quote items are allowed per request")
+    private List<RentalQuoteItemDto> items;
+}
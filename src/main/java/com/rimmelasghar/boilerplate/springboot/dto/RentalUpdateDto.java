@@ -20,6 +20,7 @@ public class RentalUpdateDto {
     private LocalDateTime start_time;
     private LocalDateTime end_time;
     
+    // Optional; requoted when the vehicle or times change, and a value that differs from the price is rejected
     @DecimalMin(value = "0.0", inclusive = false, message = "Total price must be greater than 0")
     private BigDecimal total_price;
     
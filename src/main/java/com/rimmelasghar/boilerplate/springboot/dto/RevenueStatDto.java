@@ -0,0 +1,24 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueStatDto {
+
+    private LocalDate day;
+
+    private Long location_id;
+
+    private BigDecimal revenue;
+
+    private long payments;
+}
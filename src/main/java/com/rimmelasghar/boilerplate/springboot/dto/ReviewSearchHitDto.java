@@ -0,0 +1,18 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewSearchHitDto {
+
+    private ReviewDto review;
+
+    // BM25 relevance; only comparable within one search
+    private double score;
+}
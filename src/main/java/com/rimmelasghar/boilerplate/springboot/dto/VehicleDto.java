@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.DecimalMax;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -47,4 +48,23 @@ public class VehicleDto {
     
     @NotBlank(message = "Image is required")
     private String image;
+
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+
+    // Read only; filled in from the rating aggregates
+    private RatingDto rating;
+
+    // For DtoProjection, which selects the vehicle's own columns
+    public VehicleDto(Long id, String name, String brand, String type, String license_plate, String status, Long location_id,
+                      BigDecimal price_per_day, BigDecimal price_per_month, BigDecimal price_per_year, String image,
+                      Double latitude, Double longitude) {
+        this(id, name, brand, type, license_plate, status, location_id, price_per_day, price_per_month, price_per_year, image,
+                latitude, longitude, null);
+    }
 }
@@ -0,0 +1,25 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleRentalStatDto {
+
+    private LocalDate day;
+
+    private Long vehicle_id;
+
+    // Rentals starting that day, cancelled ones excluded
+    private long rentals;
+
+    private BigDecimal revenue;
+}
@@ -0,0 +1,25 @@
+package com.rimmelasghar.boilerplate.springboot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleSearchDto {
+
+    // Every matching vehicle, not just the ones returned
+    private int total;
+
+    // Lowest ids first; rating is not filled in
+    private List<VehicleDto> items;
+
+    // Per facet (type, brand, status, location_id), how many matching vehicles have each value, most common first
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -1,5 +1,6 @@
 package com.rimmelasghar.boilerplate.springboot.exceptions;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -20,6 +21,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(response.getStatus()).body(response);
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ApiExceptionResponse> handleBadRequestException(BadRequestException exception) {
+        ApiExceptionResponse response = new ApiExceptionResponse(
+                exception.getErrorMessage(),
+                HttpStatus.BAD_REQUEST,
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(response.getStatus()).body(response);
+    }
+
     @ExceptionHandler(ConflictException.class)
     public ResponseEntity<ApiExceptionResponse> handleConflictException(ConflictException exception) {
         ApiExceptionResponse response = new ApiExceptionResponse(
@@ -29,4 +40,24 @@ public class GlobalExceptionHandler {
         );
         return ResponseEntity.status(response.getStatus()).body(response);
     }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiExceptionResponse> handleTooManyRequestsException(TooManyRequestsException exception) {
+        ApiExceptionResponse response = new ApiExceptionResponse(
+                exception.getErrorMessage(),
+                HttpStatus.TOO_MANY_REQUESTS,
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(response.getStatus()).header(HttpHeaders.RETRY_AFTER, "1").body(response);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiExceptionResponse> handleServiceUnavailableException(ServiceUnavailableException exception) {
+        ApiExceptionResponse response = new ApiExceptionResponse(
+                exception.getErrorMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE,
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(response.getStatus()).header(HttpHeaders.RETRY_AFTER, "1").body(response);
+    }
 }
@@ -0,0 +1,10 @@
+package com.rimmelasghar.boilerplate.springboot.exceptions;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class ServiceUnavailableException extends RuntimeException {
+    private final String errorMessage;
+}
@@ -20,6 +20,7 @@ public abstract class VehicleMapper {
     @Mapping(source = "price_per_month", target = "pricePerMonth")
     @Mapping(source = "price_per_year", target = "pricePerYear")
     @Mapping(source = "image", target = "image")
+    @Mapping(target = "bookingVersion", ignore = true)
     public abstract Vehicle toVehicle(VehicleDto vehicleDto);
 
     @Mapping(source = "licensePlate", target = "license_plate")
@@ -28,6 +29,7 @@ public abstract class VehicleMapper {
     @Mapping(source = "pricePerMonth", target = "price_per_month")
     @Mapping(source = "pricePerYear", target = "price_per_year")
     @Mapping(source = "image", target = "image")
+    @Mapping(target = "rating", ignore = true)
     public abstract VehicleDto toVehicleDto(Vehicle vehicle);
 
     @Mapping(source = "license_plate", target = "licensePlate")
@@ -36,6 +38,7 @@ public abstract class VehicleMapper {
     @Mapping(source = "price_per_month", target = "pricePerMonth")
     @Mapping(source = "price_per_year", target = "pricePerYear")
     @Mapping(source = "image", target = "image")
+    @Mapping(target = "bookingVersion", ignore = true)
     public abstract void updateVehicleFromDto(VehicleUpdateDto vehicleUpdateDto, @MappingTarget Vehicle vehicle);
     
     protected Location getLocationById(Long id) {
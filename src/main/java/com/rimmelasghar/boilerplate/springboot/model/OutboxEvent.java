@@ -0,0 +1,46 @@
+package com.rimmelasghar.boilerplate.springboot.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "OUTBOX_EVENTS", indexes = {
+        @Index(name = "idx_outbox_events_available", columnList = "available_at, id")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(generator = TimeOrderedIdGenerator.NAME)
+    private Long id;
+
+    @Column(name = "aggregate_type", nullable = false, length = 32)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    // JSON of the aggregate's DTO as of the change
+    @Lob
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Not relayed before this; pushed back after each failed delivery
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(nullable = false)
+    private int attempts;
+}
@@ -0,0 +1,40 @@
+package com.rimmelasghar.boilerplate.springboot.model;
+
+/**
+ * Aggregate and event types written to the outbox. Consumers match on these strings, so they must not be renamed
+ * while events of the old name may still be pending.
+ */
+public final class OutboxEventType {
+
+    public static final String RENTAL = "RENTAL";
+
+    public static final String PAYMENT = "PAYMENT";
+
+    public static final String REVIEW = "REVIEW";
+
+    public static final String RENTAL_CREATED = "RentalCreated";
+
+    public static final String RENTAL_UPDATED = "RentalUpdated";
+
+    public static final String RENTAL_DELETED = "RentalDeleted";
+
+    public static final String RENTAL_STARTED = "RentalStarted";
+
+    public static final String RENTAL_ENDED = "RentalEnded";
+
+    public static final String PAYMENT_CREATED = "PaymentCreated";
+
+    public static final String PAYMENT_UPDATED = "PaymentUpdated";
+
+    public static final String PAYMENT_DELETED = "PaymentDeleted";
+
+    public static final String REVIEW_CREATED = "ReviewCreated";
+
+    public static final String REVIEW_UPDATED = "ReviewUpdated";
+
+    public static final String REVIEW_DELETED = "ReviewDeleted";
+
+    private OutboxEventType() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -12,18 +12,23 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "PAYMENTS")
+@Table(name = "PAYMENTS", indexes = {
+        @Index(name = "idx_payments_user_date", columnList = "user_id, payment_date"),
+        @Index(name = "idx_payments_rental_date", columnList = "rental_id, payment_date"),
+        @Index(name = "idx_payments_status_date", columnList = "status, payment_date"),
+        @Index(name = "idx_payments_date", columnList = "payment_date")
+})
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = TimeOrderedIdGenerator.NAME)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "rental_id", nullable = false)
     private Rental rental;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
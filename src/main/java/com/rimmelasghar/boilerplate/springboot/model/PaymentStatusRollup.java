@@ -0,0 +1,26 @@
+package com.rimmelasghar.boilerplate.springboot.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "STATS_PAYMENT_STATUS")
+public class PaymentStatusRollup {
+
+    // Upper-cased payment status
+    @Id
+    private String status;
+
+    @Column(nullable = false)
+    private long payments;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+}
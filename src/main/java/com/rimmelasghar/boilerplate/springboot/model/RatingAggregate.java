@@ -0,0 +1,62 @@
+package com.rimmelasghar.boilerplate.springboot.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(RatingAggregate.Key.class)
+@Table(name = "RATING_AGGREGATES")
+public class RatingAggregate {
+
+    public static final String VEHICLE = "VEHICLE";
+
+    // The reviewed rental's vehicle location
+    public static final String LOCATION = "LOCATION";
+
+    // The reviewer
+    public static final String USER = "USER";
+
+    @Id
+    @Column(length = 16)
+    private String scope;
+
+    @Id
+    @Column(name = "subject_id")
+    private Long subjectId;
+
+    @Column(nullable = false)
+    private long ratings;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "stars_1", nullable = false)
+    private long stars1;
+
+    @Column(name = "stars_2", nullable = false)
+    private long stars2;
+
+    @Column(name = "stars_3", nullable = false)
+    private long stars3;
+
+    @Column(name = "stars_4", nullable = false)
+    private long stars4;
+
+    @Column(name = "stars_5", nullable = false)
+    private long stars5;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String scope;
+        private Long subjectId;
+    }
+}
@@ -12,18 +12,24 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "RENTALS")
+@Table(name = "RENTALS", indexes = {
+        @Index(name = "idx_rentals_vehicle_time", columnList = "vehicle_id, start_time, end_time"),
+        @Index(name = "idx_rentals_user_start", columnList = "user_id, start_time"),
+        @Index(name = "idx_rentals_status_start", columnList = "status, start_time"),
+        @Index(name = "idx_rentals_status_end", columnList = "status, end_time"),
+        @Index(name = "idx_rentals_end_time", columnList = "end_time")
+})
 public class Rental {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = TimeOrderedIdGenerator.NAME)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "vehicle_id", nullable = false)
     private Vehicle vehicle;
 
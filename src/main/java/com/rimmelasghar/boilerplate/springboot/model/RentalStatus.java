@@ -0,0 +1,20 @@
+package com.rimmelasghar.boilerplate.springboot.model;
+
+/**
+ * Statuses the rental lifecycle moves rentals through. Rental.status stays a free string, so clients may still use
+ * others; these are the ones the scheduler reads and writes.
+ */
+public final class RentalStatus {
+
+    public static final String PENDING = "PENDING";
+
+    public static final String ACTIVE = "ACTIVE";
+
+    public static final String COMPLETED = "COMPLETED";
+
+    public static final String OVERDUE = "OVERDUE";
+
+    private RentalStatus() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,45 @@
+package com.rimmelasghar.boilerplate.springboot.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(RevenueDailyRollup.Key.class)
+@Table(name = "STATS_REVENUE_DAILY", indexes = {
+        @Index(name = "idx_stats_revenue_location_date", columnList = "location_id, stat_date")
+})
+public class RevenueDailyRollup {
+
+    // Payment date, not the rental's
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate day;
+
+    // The paid rental's vehicle location at the time the payment was recorded
+    @Id
+    @Column(name = "location_id")
+    private Long locationId;
+
+    @Column(nullable = false)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private long payments;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private Long locationId;
+    }
+}
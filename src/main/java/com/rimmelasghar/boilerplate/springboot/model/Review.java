@@ -11,18 +11,22 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "REVIEWS")
+@Table(name = "REVIEWS", indexes = {
+        @Index(name = "idx_reviews_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_reviews_rental_created", columnList = "rental_id, created_at"),
+        @Index(name = "idx_reviews_created", columnList = "created_at")
+})
 public class Review {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = TimeOrderedIdGenerator.NAME)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "rental_id", nullable = false)
     private Rental rental;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
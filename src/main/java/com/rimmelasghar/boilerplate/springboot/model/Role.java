@@ -1,13 +1,17 @@
 package com.rimmelasghar.boilerplate.springboot.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 import javax.persistence.*;
 
+// A lazy proxy may reach Jackson through User.role; skip its Hibernate internals
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
 @Table(name = "roles")
 public class Role {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = TimeOrderedIdGenerator.NAME)
     private Long id;
 
     @Column(unique = true, nullable = false)
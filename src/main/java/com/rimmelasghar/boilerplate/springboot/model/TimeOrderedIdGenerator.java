@@ -0,0 +1,49 @@
+package com.rimmelasghar.boilerplate.springboot.model;
+
+import com.rimmelasghar.boilerplate.springboot.utils.TimeOrderedIds;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Assigns {@link TimeOrderedIds} in the application, so persisting an entity needs no insert round trip and Hibernate
+ * can batch the inserts. Registered for the whole package in package-info.java.
+ * <p>
+ * Each node needs its own {@value #NODE_ID_SETTING}. There is no fallback: a node id guessed from the host name can
+ * collide with another node's and then hands out the same ids, so startup fails without one. The dev and test profiles
+ * set it to 0.
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator {
+
+    public static final String NAME = "time-ordered";
+
+    public static final String NODE_ID_SETTING = "hibernate.id.node_id";
+
+    private TimeOrderedIds ids;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        final Object nodeId = serviceRegistry.getService(ConfigurationService.class).getSettings().get(NODE_ID_SETTING);
+        if (Objects.isNull(nodeId) || nodeId.toString().isBlank()) {
+            throw new IllegalStateException(NODE_ID_SETTING + " is not set; give every node its own id between 0 and "
+                    + TimeOrderedIds.MAX_NODE_ID + " through ID_NODE_ID");
+        }
+        try {
+            ids = new TimeOrderedIds(Integer.parseInt(nodeId.toString().trim()));
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalStateException(NODE_ID_SETTING + " must be a number between 0 and " + TimeOrderedIds.MAX_NODE_ID + ", was " + nodeId, e);
+        }
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return ids.next();
+    }
+}
@@ -15,7 +15,7 @@ import javax.persistence.*;
 public class User {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(generator = TimeOrderedIdGenerator.NAME)
 	private Long id;
 
 	private String password;
@@ -27,9 +27,13 @@ public class User {
 	
 	private String phoneNumber;
 
-	@ManyToOne(fetch = FetchType.EAGER)
+	// Loaded by the repository methods that need it, see UserRepository
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "role_id")
 	private Role role;
+
+	@Column(name = "token_version")
+	private Long tokenVersion;
 	
 
 
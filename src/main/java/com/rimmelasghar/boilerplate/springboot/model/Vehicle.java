@@ -15,7 +15,7 @@ import java.math.BigDecimal;
 public class Vehicle {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = TimeOrderedIdGenerator.NAME)
     private Long id;
 
     @Column(nullable = false)
@@ -33,7 +33,7 @@ public class Vehicle {
     @Column(nullable = false)
     private String status;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "location_id", nullable = false)
     private Location location;
 
@@ -48,4 +48,15 @@ public class Vehicle {
 
     @Column(nullable = false)
     private String image;
+
+    // Live position when the vehicle reports one; otherwise it is placed at its location
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
+    // Bumped by every booking; the update is what serialises concurrent bookings of this vehicle
+    @Column(name = "booking_version")
+    private Long bookingVersion;
 }
@@ -0,0 +1,45 @@
+package com.rimmelasghar.boilerplate.springboot.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(VehicleRentalDailyRollup.Key.class)
+@Table(name = "STATS_VEHICLE_RENTALS_DAILY", indexes = {
+        @Index(name = "idx_stats_vehicle_rentals_vehicle_date", columnList = "vehicle_id, stat_date")
+})
+public class VehicleRentalDailyRollup {
+
+    // Rental start date
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate day;
+
+    @Id
+    @Column(name = "vehicle_id")
+    private Long vehicleId;
+
+    // Rentals holding the vehicle, i.e. not in rental.availability.non-blocking-statuses
+    @Column(nullable = false)
+    private long rentals;
+
+    @Column(nullable = false)
+    private BigDecimal revenue;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private Long vehicleId;
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * JPA entities. Their ids come from the {@link com.rimmelasghar.boilerplate.springboot.model.TimeOrderedIdGenerator}
+ * registered here, so swapping the id strategy for every entity is a one-line change.
+ */
+@GenericGenerator(name = TimeOrderedIdGenerator.NAME, strategy = "com.rimmelasghar.boilerplate.springboot.model.TimeOrderedIdGenerator")
+package com.rimmelasghar.boilerplate.springboot.model;
+
+import org.hibernate.annotations.GenericGenerator;
@@ -0,0 +1,64 @@
+package com.rimmelasghar.boilerplate.springboot.repository;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CompoundSelection;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.util.function.Function;
+
+/**
+ * Describes a DTO as a constructor expression over entity attribute paths, so list and detail queries select only the
+ * columns the DTO exposes. A path ending in {@code .id} of a to-one association reads the foreign key column and does
+ * not join the associated table.
+ *
+ * @param <E> the queried entity
+ * @param <D> the DTO, whose constructor takes the paths' values in the declared order
+ */
+public final class DtoProjection<E, D> {
+
+    private final Class<E> entityType;
+
+    private final Class<D> dtoType;
+
+    private final Function<D, Object> idOf;
+
+    private final String[][] paths;
+
+    private DtoProjection(Class<E> entityType, Class<D> dtoType, Function<D, Object> idOf, String[] paths) {
+        this.entityType = entityType;
+        this.dtoType = dtoType;
+        this.idOf = idOf;
+        this.paths = new String[paths.length][];
+        for (int i = 0; i < paths.length; i++) {
+            this.paths[i] = paths[i].split("\\.");
+        }
+    }
+
+    public static <E, D> DtoProjection<E, D> of(Class<E> entityType, Class<D> dtoType, Function<D, Object> idOf, String... paths) {
+        return new DtoProjection<>(entityType, dtoType, idOf, paths);
+    }
+
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    public Class<D> getDtoType() {
+        return dtoType;
+    }
+
+    public Object idOf(D dto) {
+        return idOf.apply(dto);
+    }
+
+    CompoundSelection<D> select(Root<E> root, CriteriaBuilder criteriaBuilder) {
+        Path<?>[] selections = new Path<?>[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            Path<?> path = root;
+            for (String attribute : paths[i]) {
+                path = path.get(attribute);
+            }
+            selections[i] = path;
+        }
+        return criteriaBuilder.construct(dtoType, selections);
+    }
+}
@@ -0,0 +1,42 @@
+package com.rimmelasghar.boilerplate.springboot.repository;
+
+import com.rimmelasghar.boilerplate.springboot.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // The primary key decides which node executes a key first
+    @Modifying
+    @Query(value = "insert ignore into idempotency_keys (key_hash, request_hash, locked_until, expires_at) " +
+            "values (:keyHash, :requestHash, :lockedUntil, :expiresAt)", nativeQuery = true)
+    int claim(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash,
+              @Param("lockedUntil") LocalDateTime lockedUntil, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("update IdempotencyRecord r set r.requestHash = :requestHash, r.statusCode = null, r.contentType = null, r.responseBody = null, " +
+            "r.lockedUntil = :lockedUntil, r.expiresAt = :expiresAt " +
+            "where r.keyHash = :keyHash and (r.expiresAt < :now or (r.statusCode is null and r.lockedUntil < :now))")
+    int takeOver(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash, @Param("now") LocalDateTime now,
+                 @Param("lockedUntil") LocalDateTime lockedUntil, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("update IdempotencyRecord r set r.statusCode = :statusCode, r.contentType = :contentType, r.responseBody = :responseBody, " +
+            "r.expiresAt = :expiresAt where r.keyHash = :keyHash and r.requestHash = :requestHash and r.statusCode is null")
+    int complete(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash, @Param("statusCode") int statusCode,
+                 @Param("contentType") String contentType, @Param("responseBody") byte[] responseBody, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.keyHash = :keyHash and r.requestHash = :requestHash and r.statusCode is null")
+    int release(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash);
+
+    @Modifying
+    @Query(value = "delete from idempotency_keys where expires_at < :now limit :limit", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
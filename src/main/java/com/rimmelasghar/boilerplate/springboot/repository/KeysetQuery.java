@@ -0,0 +1,144 @@
+package com.rimmelasghar.boilerplate.springboot.repository;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.PaginationProperties;
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
+import com.rimmelasghar.boilerplate.springboot.utils.CursorUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Runs the existing {@link Specification} filters as keyset queries ordered by id: each page is
+ * {@code WHERE <filters> AND id > :after ORDER BY id LIMIT :limit + 1}, so deep pages cost the same as the first one
+ * and no count or OFFSET query is ever issued.
+ * <p>
+ * Queries taking a {@link DtoProjection} select the DTO columns directly instead of materialising entity graphs.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class KeysetQuery {
+
+    private static final String ID_ATTRIBUTE = "id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final PaginationProperties paginationProperties;
+
+    public <E, D> CursorPageDto<D> findPage(DtoProjection<E, D> projection, Specification<E> specification, String after, Integer limit) {
+        return page(projection.getEntityType(), projection.getDtoType(), projection::select, projection::idOf, specification, after, limit);
+    }
+
+    public <E, D> List<D> findCapped(DtoProjection<E, D> projection, Specification<E> specification) {
+        return capped(projection.getEntityType(), projection.getDtoType(), projection::select, specification);
+    }
+
+    /**
+     * Uncapped; only for callers that filter the result further in memory and need every candidate row.
+     */
+    public <E, D> List<D> findAll(DtoProjection<E, D> projection, Specification<E> specification) {
+        return find(projection.getEntityType(), projection.getDtoType(), projection::select, specification, null, Integer.MAX_VALUE);
+    }
+
+    public <E, D> Optional<D> findById(DtoProjection<E, D> projection, Object id) {
+        Specification<E> byId = (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get(ID_ATTRIBUTE), id);
+        return find(projection.getEntityType(), projection.getDtoType(), projection::select, byId, null, 1).stream().findFirst();
+    }
+
+    /**
+     * @param fetchAttributes to-one associations fetch-joined into the same query
+     */
+    public <T> CursorPageDto<T> findPage(Class<T> entityType, Specification<T> specification, String after, Integer limit, String... fetchAttributes) {
+        return page(entityType, entityType, fetching(fetchAttributes), this::identifierOf, specification, after, limit);
+    }
+
+    /**
+     * Unpaginated list endpoints still answer with a plain list, but never more than the configured cap.
+     */
+    public <T> List<T> findCapped(Class<T> entityType, Specification<T> specification, String... fetchAttributes) {
+        return capped(entityType, entityType, fetching(fetchAttributes), specification);
+    }
+
+    private static <T> BiFunction<Root<T>, CriteriaBuilder, Selection<? extends T>> fetching(String... fetchAttributes) {
+        return (root, criteriaBuilder) -> {
+            for (String attribute : fetchAttributes) {
+                root.fetch(attribute, JoinType.LEFT);
+            }
+            return root;
+        };
+    }
+
+    private <E, R> CursorPageDto<R> page(Class<E> entityType, Class<R> resultType, BiFunction<Root<E>, CriteriaBuilder, Selection<? extends R>> selection,
+                                         Function<R, Object> idOf, Specification<E> specification, String after, Integer limit) {
+        int pageSize = limit == null ? paginationProperties.getDefaultLimit() : limit;
+        if (pageSize < 1 || pageSize > paginationProperties.getMaxLimit()) {
+            throw new BadRequestException("Limit must be between 1 and " + paginationProperties.getMaxLimit());
+        }
+
+        // One extra row tells whether another page exists
+        List<R> rows = find(entityType, resultType, selection, specification, CursorUtils.decode(after), pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new CursorPageDto<>(rows, null);
+        }
+
+        List<R> items = rows.subList(0, pageSize);
+        return new CursorPageDto<>(items, CursorUtils.encode(idOf.apply(items.get(pageSize - 1))));
+    }
+
+    private <E, R> List<R> capped(Class<E> entityType, Class<R> resultType, BiFunction<Root<E>, CriteriaBuilder, Selection<? extends R>> selection,
+                                  Specification<E> specification) {
+        int cap = paginationProperties.getLegacyMaxResults();
+        List<R> rows = find(entityType, resultType, selection, specification, null, cap + 1);
+        if (rows.size() <= cap) {
+            return rows;
+        }
+
+        log.warn("Unpaginated {} listing truncated to {} rows, use ?limit= and ?after= to page", entityType.getSimpleName(), cap);
+        return rows.subList(0, cap);
+    }
+
+    private <E, R> List<R> find(Class<E> entityType, Class<R> resultType, BiFunction<Root<E>, CriteriaBuilder, Selection<? extends R>> selection,
+                                Specification<E> specification, Long afterId, int maxResults) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = criteriaBuilder.createQuery(resultType);
+        Root<E> root = query.from(entityType);
+        query.select(selection.apply(root, criteriaBuilder));
+
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+        if (afterId != null) {
+            Predicate afterPredicate = criteriaBuilder.greaterThan(root.get(ID_ATTRIBUTE), afterId);
+            predicate = predicate == null ? afterPredicate : criteriaBuilder.and(predicate, afterPredicate);
+        }
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(criteriaBuilder.asc(root.get(ID_ATTRIBUTE)));
+
+        TypedQuery<R> typedQuery = entityManager.createQuery(query);
+        if (maxResults < Integer.MAX_VALUE) {
+            typedQuery.setMaxResults(maxResults);
+        }
+        return typedQuery.getResultList();
+    }
+
+    private Object identifierOf(Object entity) {
+        return entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+    }
+}
@@ -2,9 +2,35 @@ package com.rimmelasghar.boilerplate.springboot.repository;
 
 import com.rimmelasghar.boilerplate.springboot.model.Location;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long> {
     boolean existsByNameAndAddress(String name, String address);
+
+    @Query("select l.id as id, l.latitude as latitude, l.longitude as longitude from Location l " +
+            "where l.latitude is not null and l.longitude is not null")
+    List<LocationPoint> findPoints();
+
+    @Query("select l.id from Location l where l.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select l.name as name, l.address as address from Location l where l.name in :names")
+    List<LocationKey> findKeysByNameIn(@Param("names") Collection<String> names);
+
+    interface LocationPoint {
+        Long getId();
+        Double getLatitude();
+        Double getLongitude();
+    }
+
+    interface LocationKey {
+        String getName();
+        String getAddress();
+    }
 }
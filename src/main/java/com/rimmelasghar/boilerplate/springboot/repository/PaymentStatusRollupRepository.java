@@ -0,0 +1,26 @@
+package com.rimmelasghar.boilerplate.springboot.repository;
+
+import com.rimmelasghar.boilerplate.springboot.model.PaymentStatusRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface PaymentStatusRollupRepository extends JpaRepository<PaymentStatusRollup, String> {
+    List<PaymentStatusRollup> findAllByOrderByStatusAsc();
+
+    @Modifying
+    @Query(value = "insert into stats_payment_status (status, payments, amount) values (:status, :payments, :amount) " +
+            "on duplicate key update payments = payments + values(payments), amount = amount + values(amount)", nativeQuery = true)
+    int add(@Param("status") String status, @Param("payments") long payments, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "insert into stats_payment_status (status, payments, amount) " +
+            "select upper(p.status), count(*), sum(p.amount) from payments p group by upper(p.status)", nativeQuery = true)
+    int rebuild();
+}
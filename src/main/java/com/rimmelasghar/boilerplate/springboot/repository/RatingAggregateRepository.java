@@ -0,0 +1,48 @@
+package com.rimmelasghar.boilerplate.springboot.repository;
+
+import com.rimmelasghar.boilerplate.springboot.model.RatingAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RatingAggregateRepository extends JpaRepository<RatingAggregate, RatingAggregate.Key> {
+    List<RatingAggregate> findByScopeAndSubjectIdIn(String scope, Collection<Long> subjectIds);
+
+    // Applies a delta in one statement, so concurrent reviews never lose each other's updates
+    @Modifying
+    @Query(value = "insert into rating_aggregates (scope, subject_id, ratings, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5) " +
+            "values (:scope, :subjectId, :ratings, :ratingSum, :stars1, :stars2, :stars3, :stars4, :stars5) " +
+            "on duplicate key update ratings = ratings + values(ratings), rating_sum = rating_sum + values(rating_sum), " +
+            "stars_1 = stars_1 + values(stars_1), stars_2 = stars_2 + values(stars_2), stars_3 = stars_3 + values(stars_3), " +
+            "stars_4 = stars_4 + values(stars_4), stars_5 = stars_5 + values(stars_5)", nativeQuery = true)
+    int add(@Param("scope") String scope, @Param("subjectId") Long subjectId, @Param("ratings") long ratings, @Param("ratingSum") long ratingSum,
+            @Param("stars1") long stars1, @Param("stars2") long stars2, @Param("stars3") long stars3, @Param("stars4") long stars4,
+            @Param("stars5") long stars5);
+
+    @Modifying
+    @Query(value = "insert into rating_aggregates (scope, subject_id, ratings, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5) " +
+            "select 'VEHICLE', r.vehicle_id, count(*), sum(v.rating), " +
+            "sum(v.rating = 1), sum(v.rating = 2), sum(v.rating = 3), sum(v.rating = 4), sum(v.rating = 5) " +
+            "from reviews v join rentals r on r.id = v.rental_id group by r.vehicle_id", nativeQuery = true)
+    int rebuildVehicles();
+
+    @Modifying
+    @Query(value = "insert into rating_aggregates (scope, subject_id, ratings, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5) " +
+            "select 'LOCATION', h.location_id, count(*), sum(v.rating), " +
+            "sum(v.rating = 1), sum(v.rating = 2), sum(v.rating = 3), sum(v.rating = 4), sum(v.rating = 5) " +
+            "from reviews v join rentals r on r.id = v.rental_id join vehicles h on h.id = r.vehicle_id group by h.location_id", nativeQuery = true)
+    int rebuildLocations();
+
+    @Modifying
+    @Query(value = "insert into rating_aggregates (scope, subject_id, ratings, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5) " +
+            "select 'USER', v.user_id, count(*), sum(v.rating), " +
+            "sum(v.rating = 1), sum(v.rating = 2), sum(v.rating = 3), sum(v.rating = 4), sum(v.rating = 5) " +
+            "from reviews v group by v.user_id", nativeQuery = true)
+    int rebuildUsers();
+}
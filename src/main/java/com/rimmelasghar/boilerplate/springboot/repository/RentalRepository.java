@@ -3,12 +3,80 @@ package com.rimmelasghar.boilerplate.springboot.repository;
 import com.rimmelasghar.boilerplate.springboot.model.Rental;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RentalRepository extends JpaRepository<Rental, Long>, JpaSpecificationExecutor<Rental> {
     List<Rental> findByUserId(Long userId);
     List<Rental> findByVehicleId(Long vehicleId);
+
+    @Query("select v.location.id from Rental r join r.vehicle v where r.id = :id")
+    Optional<Long> findVehicleLocationIdById(@Param("id") Long id);
+
+    @Query("select v.id as vehicleId, v.location.id as locationId from Rental r join r.vehicle v where r.id = :id")
+    Optional<RentalVehicle> findVehicleById(@Param("id") Long id);
+
+    @Query("select r.id as id, r.vehicle.id as vehicleId, r.startTime as startTime, r.endTime as endTime, r.status as status " +
+            "from Rental r where r.endTime > :after")
+    List<RentalSlot> findSlotsEndingAfter(@Param("after") LocalDateTime after);
+
+    @Query("select case when count(r) > 0 then true else false end from Rental r " +
+            "where r.vehicle.id = :vehicleId and r.startTime < :endTime and r.endTime > :startTime " +
+            "and (:excludedId is null or r.id <> :excludedId) and upper(r.status) not in :nonBlockingStatuses")
+    boolean existsOverlapping(@Param("vehicleId") Long vehicleId, @Param("startTime") LocalDateTime startTime,
+                              @Param("endTime") LocalDateTime endTime, @Param("excludedId") Long excludedId,
+                              @Param("nonBlockingStatuses") Collection<String> nonBlockingStatuses);
+
+    // Served by the (status, start_time) and (status, end_time) indexes; only touches rentals due within the window
+    @Query("select r.id as id, r.status as status, r.startTime as startTime, r.endTime as endTime from Rental r " +
+            "where (r.status = :pending and r.startTime < :until) or (r.status = :active and r.endTime < :until)")
+    List<RentalDeadline> findLifecycleDeadlines(@Param("pending") String pending, @Param("active") String active,
+                                                @Param("until") LocalDateTime until);
+
+    // Locks the rentals startDue would change, so events can be published for exactly those
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from Rental r where r.id in :ids and r.status = :from and r.startTime <= :now")
+    List<Rental> findStartDueForUpdate(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from Rental r where r.id in :ids and r.status = :from and r.endTime <= :now")
+    List<Rental> findEndDueForUpdate(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Rental r set r.status = :to where r.id in :ids and r.status = :from and r.startTime <= :now")
+    int startDue(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Rental r set r.status = :to where r.id in :ids and r.status = :from and r.endTime <= :now")
+    int endDue(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to, @Param("now") LocalDateTime now);
+
+    interface RentalDeadline {
+        Long getId();
+        String getStatus();
+        LocalDateTime getStartTime();
+        LocalDateTime getEndTime();
+    }
+
+    interface RentalVehicle {
+        Long getVehicleId();
+        Long getLocationId();
+    }
+
+    interface RentalSlot {
+        Long getId();
+        Long getVehicleId();
+        LocalDateTime getStartTime();
+        LocalDateTime getEndTime();
+        String getStatus();
+    }
 }
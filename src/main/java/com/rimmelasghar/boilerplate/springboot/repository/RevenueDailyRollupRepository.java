@@ -0,0 +1,32 @@
+package com.rimmelasghar.boilerplate.springboot.repository;
+
+import com.rimmelasghar.boilerplate.springboot.model.RevenueDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RevenueDailyRollupRepository extends JpaRepository<RevenueDailyRollup, RevenueDailyRollup.Key> {
+    List<RevenueDailyRollup> findByDayBetweenOrderByDayAscLocationIdAsc(LocalDate from, LocalDate to);
+    List<RevenueDailyRollup> findByLocationIdAndDayBetweenOrderByDayAsc(Long locationId, LocalDate from, LocalDate to);
+
+    // Applies a delta in one statement, so concurrent writers never lose each other's updates
+    @Modifying
+    @Query(value = "insert into stats_revenue_daily (stat_date, location_id, revenue, payments) values (:day, :locationId, :revenue, :payments) " +
+            "on duplicate key update revenue = revenue + values(revenue), payments = payments + values(payments)", nativeQuery = true)
+    int add(@Param("day") LocalDate day, @Param("locationId") Long locationId, @Param("revenue") BigDecimal revenue, @Param("payments") long payments);
+
+    @Modifying
+    @Query(value = "insert into stats_revenue_daily (stat_date, location_id, revenue, payments) " +
+            "select date(p.payment_date), v.location_id, sum(p.amount), count(*) from payments p " +
+            "join rentals r on r.id = p.rental_id join vehicles v on v.id = r.vehicle_id " +
+            "where upper(p.status) in (:statuses) group by date(p.payment_date), v.location_id", nativeQuery = true)
+    int rebuild(@Param("statuses") Collection<String> revenueStatuses);
+}
@@ -1,14 +1,32 @@
 package com.rimmelasghar.boilerplate.springboot.repository;
 
 import com.rimmelasghar.boilerplate.springboot.model.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecificationExecutor<Review> {
     List<Review> findByUserId(Long userId);
     List<Review> findByRentalId(Long rentalId);
+
+    // Keyset batches over the primary key, for loading the search index
+    @Query("select r.id as id, r.user.id as userId, r.rental.id as rentalId, r.rating as rating, r.comment as comment, r.createdAt as createdAt " +
+            "from Review r where r.id > :after order by r.id")
+    List<ReviewText> findTextsAfter(@Param("after") Long after, Pageable pageable);
+
+    interface ReviewText {
+        Long getId();
+        Long getUserId();
+        Long getRentalId();
+        Integer getRating();
+        String getComment();
+        LocalDateTime getCreatedAt();
+    }
 }
@@ -1,9 +1,15 @@
 package com.rimmelasghar.boilerplate.springboot.repository;
 
 import com.rimmelasghar.boilerplate.springboot.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 // rimmel asghar
@@ -12,12 +18,33 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
 
 	
+	// Authentication and token issuing read the role, often outside the request's persistence context
+	@EntityGraph(attributePaths = "role")
 	Optional<User> findByEmail(String email);
 
+	// Users are serialised with their role
+	@Override
+	@EntityGraph(attributePaths = "role")
+	Optional<User> findById(Long id);
+
 	boolean existsByEmail(String email);
 
 
 	
 	boolean existsByPhoneNumber(String phoneNumber);
 
+	@Query("select u.id from User u where u.id in :ids")
+	List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+	@Query("select coalesce(u.tokenVersion, 0) from User u where u.id = :id")
+	Optional<Long> findTokenVersionById(@Param("id") Long id);
+
+	@Modifying
+	@Query("update User u set u.password = :password where u.email = :email")
+	int updatePasswordByEmail(@Param("email") String email, @Param("password") String password);
+
+	@Modifying
+	@Query("update User u set u.tokenVersion = coalesce(u.tokenVersion, 0) + 1 where u.role.id = :roleId")
+	int incrementTokenVersionByRoleId(@Param("roleId") Long roleId);
+
 }
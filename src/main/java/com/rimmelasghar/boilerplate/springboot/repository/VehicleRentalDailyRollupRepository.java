@@ -0,0 +1,29 @@
+package com.rimmelasghar.boilerplate.springboot.repository;
+
+import com.rimmelasghar.boilerplate.springboot.model.VehicleRentalDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VehicleRentalDailyRollupRepository extends JpaRepository<VehicleRentalDailyRollup, VehicleRentalDailyRollup.Key> {
+    List<VehicleRentalDailyRollup> findByVehicleIdAndDayBetweenOrderByDayAsc(Long vehicleId, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query(value = "insert into stats_vehicle_rentals_daily (stat_date, vehicle_id, rentals, revenue) values (:day, :vehicleId, :rentals, :revenue) " +
+            "on duplicate key update rentals = rentals + values(rentals), revenue = revenue + values(revenue)", nativeQuery = true)
+    int add(@Param("day") LocalDate day, @Param("vehicleId") Long vehicleId, @Param("rentals") long rentals, @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query(value = "insert into stats_vehicle_rentals_daily (stat_date, vehicle_id, rentals, revenue) " +
+            "select date(r.start_time), r.vehicle_id, count(*), sum(r.total_price) from rentals r " +
+            "where upper(r.status) not in (:statuses) group by date(r.start_time), r.vehicle_id", nativeQuery = true)
+    int rebuild(@Param("statuses") Collection<String> nonBlockingStatuses);
+}
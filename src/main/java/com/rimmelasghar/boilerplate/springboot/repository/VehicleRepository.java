@@ -2,12 +2,49 @@ package com.rimmelasghar.boilerplate.springboot.repository;
 
 import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
     boolean existsByLicensePlate(String licensePlate);
     Optional<Vehicle> findByLicensePlate(String licensePlate);
+
+    // Row-locks the vehicle until commit so concurrent bookings of it are serialised across nodes
+    @Modifying
+    @Query("update Vehicle v set v.bookingVersion = coalesce(v.bookingVersion, 0) + 1 where v.id = :id")
+    int lockForBooking(@Param("id") Long id);
+
+    List<VehicleTariffView> findTariffsByIdIn(Collection<Long> ids);
+
+    @Query("select v.id as id, v.location.id as locationId, v.latitude as latitude, v.longitude as longitude, v.status as status from Vehicle v")
+    List<VehiclePoint> findPoints();
+
+    @Query("select v.id from Vehicle v where v.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select v.licensePlate from Vehicle v where v.licensePlate in :licensePlates")
+    List<String> findExistingLicensePlates(@Param("licensePlates") Collection<String> licensePlates);
+
+    interface VehicleTariffView {
+        Long getId();
+        BigDecimal getPricePerDay();
+        BigDecimal getPricePerMonth();
+        BigDecimal getPricePerYear();
+    }
+
+    interface VehiclePoint {
+        Long getId();
+        Long getLocationId();
+        Double getLatitude();
+        Double getLongitude();
+        String getStatus();
+    }
 }
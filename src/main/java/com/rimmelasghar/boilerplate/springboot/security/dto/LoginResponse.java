@@ -1,5 +1,6 @@
 package com.rimmelasghar.boilerplate.springboot.security.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.rimmelasghar.boilerplate.springboot.dto.UserProfileDto;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,10 +22,15 @@ public class LoginResponse {
 	
 	@Schema(description = "User profile information")
 	private UserProfileDto user;
+
+	@JsonProperty("refresh_token")
+	@Schema(description = "Opaque single-use token for POST /login/refresh")
+	private String refreshToken;
 	
 	// Constructor for backward compatibility
 	public LoginResponse(String token) {
 		this.token = token;
 		this.user = null;
+		this.refreshToken = null;
 	}
 }
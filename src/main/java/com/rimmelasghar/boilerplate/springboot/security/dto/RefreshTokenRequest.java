@@ -0,0 +1,22 @@
+package com.rimmelasghar.boilerplate.springboot.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.constraints.NotEmpty;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Schema(description = "Refresh token request payload")
+public class RefreshTokenRequest {
+
+	@NotEmpty(message = "Refresh token is required")
+	@JsonProperty("refresh_token")
+	@Schema(description = "Refresh token returned by the last login or refresh", required = true)
+	private String refreshToken;
+
+}
@@ -1,10 +1,13 @@
 package com.rimmelasghar.boilerplate.springboot.security.jwt;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.rimmelasghar.boilerplate.springboot.security.service.TokenRevocationService;
 import com.rimmelasghar.boilerplate.springboot.security.service.UserDetailsServiceImpl;
+import com.rimmelasghar.boilerplate.springboot.security.service.UserTokenVersionService;
+import com.rimmelasghar.boilerplate.springboot.security.utils.PublicRoutes;
 import com.rimmelasghar.boilerplate.springboot.security.utils.SecurityConstants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -30,27 +33,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 	private final UserDetailsServiceImpl userDetailsService;
 
+	private final UserTokenVersionService userTokenVersionService;
+
+	private final TokenRevocationService tokenRevocationService;
+
+	private final JwtProperties jwtProperties;
+
+	// Stateless and thread safe, so one instance serves every request
+	private final WebAuthenticationDetailsSource authenticationDetailsSource = new WebAuthenticationDetailsSource();
+
 	@Override
-	protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws IOException, ServletException {
+	protected boolean shouldNotFilter(HttpServletRequest req) {
 
-		final String requestURI = req.getRequestURI();
+		return PublicRoutes.matches(req.getRequestURI(), req.getContextPath().length());
+	}
 
-		if (requestURI.contains(SecurityConstants.LOGIN_REQUEST_URI) || requestURI.contains(SecurityConstants.REGISTRATION_REQUEST_URI)) {
-			chain.doFilter(req, res);
-			return;
-		}
+	@Override
+	protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws IOException, ServletException {
 
 		final String header = req.getHeader(SecurityConstants.HEADER_STRING);
 		String username = null;
-		String authToken = null;
+		DecodedJWT decodedJWT = null;
 		if (Objects.nonNull(header) && header.startsWith(SecurityConstants.TOKEN_PREFIX)) {
 
-			authToken = header.replace(SecurityConstants.TOKEN_PREFIX, StringUtils.EMPTY);
+			final String authToken = header.substring(SecurityConstants.TOKEN_PREFIX.length());
 			try {
-				username = jwtTokenManager.getUsernameFromToken(authToken);
+				decodedJWT = jwtTokenManager.verifyToken(authToken);
+				username = tokenRevocationService.isRevoked(decodedJWT) ? null : decodedJWT.getSubject();
 			}
 			catch (Exception e) {
-				log.error("Authentication Exception : {}", e.getMessage());
+				log.debug("Authentication Exception : {}", e.getMessage());
 			}
 		}
 
@@ -58,17 +70,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 		if (Objects.nonNull(username) && Objects.isNull(securityContext.getAuthentication())) {
 
-			final UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+			final UserDetails userDetails = resolveUserDetails(decodedJWT, username);
 
-			if (jwtTokenManager.validateToken(authToken, userDetails.getUsername())) {
+			if (Objects.nonNull(userDetails) && jwtTokenManager.validateToken(decodedJWT, userDetails.getUsername())) {
 
 				final UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-				authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
-				log.info("Authentication successful. Logged in username : {} ", username);
+				authentication.setDetails(authenticationDetailsSource.buildDetails(req));
+				log.debug("Authentication successful. Logged in username : {} ", username);
 				securityContext.setAuthentication(authentication);
 			}
 		}
 
 		chain.doFilter(req, res);
 	}
+
+	/**
+	 * In stateless mode the principal comes from the verified claims and only the (cached) token version is checked;
+	 * tokens issued before stateless claims existed still go through the user lookup.
+	 */
+	private UserDetails resolveUserDetails(DecodedJWT decodedJWT, String username) {
+
+		if (jwtProperties.isStateless() && jwtTokenManager.isStatelessToken(decodedJWT)) {
+
+			final JwtUserDetails jwtUserDetails = jwtTokenManager.toUserDetails(decodedJWT);
+			final long tokenVersion = jwtTokenManager.getTokenVersion(decodedJWT);
+
+			if (!userTokenVersionService.isCurrent(jwtUserDetails.getId(), tokenVersion)) {
+				log.debug("Rejected revoked token of {}", username);
+				return null;
+			}
+
+			return jwtUserDetails;
+		}
+
+		return userDetailsService.loadUserByUsername(username);
+	}
 }
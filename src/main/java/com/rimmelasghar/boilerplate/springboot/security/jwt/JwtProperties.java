@@ -23,4 +23,15 @@ public class JwtProperties {
 
 	private long expirationMinute;
 
+	private long verificationCacheSize = 10_000;
+
+	/**
+	 * Authenticate requests from token claims alone instead of loading the user on every request.
+	 */
+	private boolean stateless;
+
+	private long tokenVersionTtlSeconds = 30;
+
+	private long refreshExpirationDays = 30;
+
 }
@@ -4,20 +4,70 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.rimmelasghar.boilerplate.springboot.model.User;
 import com.rimmelasghar.boilerplate.springboot.model.Role;
-import lombok.RequiredArgsConstructor;
+import com.rimmelasghar.boilerplate.springboot.security.service.UserTokenVersionService;
+import com.rimmelasghar.boilerplate.springboot.security.utils.TokenHashUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 // rimmel asghar
 @Component
-@RequiredArgsConstructor
 public class JwtTokenManager {
 
+	public static final String CLAIM_ROLE = "role";
+
+	public static final String CLAIM_USER_ID = "uid";
+
+	public static final String CLAIM_TOKEN_VERSION = "ver";
+
+	private static final String VERIFICATION_CACHE_NAME = "jwtVerification";
+
 	private final JwtProperties jwtProperties;
 
+	private final Algorithm algorithm;
+
+	private final JWTVerifier jwtVerifier;
+
+	/**
+	 * Verified tokens keyed by the SHA-256 digest of the raw token. Each entry lives until the token's own expiry,
+	 * so a repeated bearer token skips HMAC verification entirely.
+	 */
+	private final Cache<String, DecodedJWT> verifiedTokenCache;
+
+	private final Timer verificationTimer;
+
+	public JwtTokenManager(JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+
+		this.jwtProperties = jwtProperties;
+		this.algorithm = Algorithm.HMAC256(jwtProperties.getSecretKey().getBytes());
+		this.jwtVerifier = JWT.require(algorithm).build();
+
+		//@formatter:off
+		this.verifiedTokenCache = Caffeine.newBuilder()
+				.maximumSize(jwtProperties.getVerificationCacheSize())
+				.expireAfter(new TokenExpiry())
+				.recordStats()
+				.build();
+		//@formatter:on
+
+		this.verificationTimer = Timer.builder("jwt.verification.latency")
+				.description("Time spent verifying JWT signatures on cache misses")
+				.register(meterRegistry);
+
+		CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokenCache, VERIFICATION_CACHE_NAME);
+	}
+
 	public String generateToken(User user) {
 
 		final String email = user.getEmail();
@@ -25,50 +75,115 @@ public class JwtTokenManager {
 
 		//@formatter:off
 		return JWT.create()
+				.withJWTId(UUID.randomUUID().toString())
 				.withSubject(email)
 				.withIssuer(jwtProperties.getIssuer())
-				.withClaim("role", role.getRoleName())
+				.withClaim(CLAIM_ROLE, role.getRoleName())
+				.withClaim(CLAIM_USER_ID, user.getId())
+				.withClaim(CLAIM_TOKEN_VERSION, UserTokenVersionService.versionOf(user))
 				.withIssuedAt(new Date())
 				.withExpiresAt(new Date(System.currentTimeMillis() + jwtProperties.getExpirationMinute() * 60 * 1000))
-				.sign(Algorithm.HMAC256(jwtProperties.getSecretKey().getBytes()));
+				.sign(algorithm);
 		//@formatter:on
 	}
 
+	/**
+	 * Verifies the token signature once and caches the decoded claims until the token expires.
+	 *
+	 * @throws com.auth0.jwt.exceptions.JWTVerificationException if the token is malformed, tampered or expired
+	 */
+	public DecodedJWT verifyToken(String token) {
+
+		final String tokenDigest = TokenHashUtils.sha256(token);
+		final DecodedJWT cachedJWT = verifiedTokenCache.getIfPresent(tokenDigest);
+
+		if (Objects.nonNull(cachedJWT)) {
+			return cachedJWT;
+		}
+
+		final DecodedJWT decodedJWT = verificationTimer.record(() -> jwtVerifier.verify(token));
+		verifiedTokenCache.put(tokenDigest, decodedJWT);
+
+		return decodedJWT;
+	}
+
 	public String getUsernameFromToken(String token) {
 
-		final DecodedJWT decodedJWT = getDecodedJWT(token);
+		final DecodedJWT decodedJWT = verifyToken(token);
 
 		return decodedJWT.getSubject();
 	}
 
 	public boolean validateToken(String token, String authenticatedUsername) {
 
-		final String usernameFromToken = getUsernameFromToken(token);
+		return validateToken(verifyToken(token), authenticatedUsername);
+	}
 
-		final boolean equalsUsername = usernameFromToken.equals(authenticatedUsername);
-		final boolean tokenExpired = isTokenExpired(token);
+	public boolean validateToken(DecodedJWT decodedJWT, String authenticatedUsername) {
+
+		final boolean equalsUsername = decodedJWT.getSubject().equals(authenticatedUsername);
+		final boolean tokenExpired = isTokenExpired(decodedJWT);
 
 		return equalsUsername && !tokenExpired;
 	}
 
-	private boolean isTokenExpired(String token) {
+	/**
+	 * @return true if the token carries every claim needed to build a principal without a user lookup
+	 */
+	public boolean isStatelessToken(DecodedJWT decodedJWT) {
+
+		return !decodedJWT.getClaim(CLAIM_USER_ID).isNull() && !decodedJWT.getClaim(CLAIM_TOKEN_VERSION).isNull() && !decodedJWT.getClaim(CLAIM_ROLE).isNull();
+	}
+
+	public JwtUserDetails toUserDetails(DecodedJWT decodedJWT) {
+
+		final Long userId = decodedJWT.getClaim(CLAIM_USER_ID).asLong();
+		final String role = decodedJWT.getClaim(CLAIM_ROLE).asString();
 
-		final Date expirationDateFromToken = getExpirationDateFromToken(token);
-		return expirationDateFromToken.before(new Date());
+		return new JwtUserDetails(userId, decodedJWT.getSubject(), role);
 	}
 
-	private Date getExpirationDateFromToken(String token) {
+	public long getTokenVersion(DecodedJWT decodedJWT) {
+
+		return decodedJWT.getClaim(CLAIM_TOKEN_VERSION).asLong();
+	}
 
-		final DecodedJWT decodedJWT = getDecodedJWT(token);
+	private boolean isTokenExpired(DecodedJWT decodedJWT) {
 
-		return decodedJWT.getExpiresAt();
+		final Date expirationDateFromToken = decodedJWT.getExpiresAt();
+		return Objects.nonNull(expirationDateFromToken) && expirationDateFromToken.before(new Date());
 	}
 
-	private DecodedJWT getDecodedJWT(String token) {
+	private long defaultLifetimeNanos() {
+
+		return TimeUnit.MINUTES.toNanos(jwtProperties.getExpirationMinute());
+	}
+
+	private class TokenExpiry implements Expiry<String, DecodedJWT> {
+
+		@Override
+		public long expireAfterCreate(String key, DecodedJWT decodedJWT, long currentTime) {
+
+			final Date expiresAt = decodedJWT.getExpiresAt();
+
+			if (Objects.isNull(expiresAt)) {
+				return defaultLifetimeNanos();
+			}
+
+			return Math.max(0, TimeUnit.MILLISECONDS.toNanos(expiresAt.getTime() - System.currentTimeMillis()));
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, DecodedJWT decodedJWT, long currentTime, long currentDuration) {
+
+			return currentDuration;
+		}
 
-		final JWTVerifier jwtVerifier = JWT.require(Algorithm.HMAC256(jwtProperties.getSecretKey().getBytes())).build();
+		@Override
+		public long expireAfterRead(String key, DecodedJWT decodedJWT, long currentTime, long currentDuration) {
 
-		return jwtVerifier.verify(token);
+			return currentDuration;
+		}
 	}
 
 }
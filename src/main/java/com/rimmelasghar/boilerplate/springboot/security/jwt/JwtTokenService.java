@@ -8,12 +8,19 @@ import com.rimmelasghar.boilerplate.springboot.model.User;
 import com.rimmelasghar.boilerplate.springboot.security.dto.AuthenticatedUserDto;
 import com.rimmelasghar.boilerplate.springboot.security.dto.LoginRequest;
 import com.rimmelasghar.boilerplate.springboot.security.dto.LoginResponse;
+import com.rimmelasghar.boilerplate.springboot.security.dto.RefreshTokenRequest;
+import com.rimmelasghar.boilerplate.springboot.security.service.RefreshTokenService;
+import com.rimmelasghar.boilerplate.springboot.security.service.TokenRevocationService;
+import com.rimmelasghar.boilerplate.springboot.security.utils.SecurityConstants;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Service;
 
+import java.util.Objects;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -25,6 +32,10 @@ public class JwtTokenService {
 
 	private final AuthenticationManager authenticationManager;
 
+	private final RefreshTokenService refreshTokenService;
+
+	private final TokenRevocationService tokenRevocationService;
+
 	public LoginResponse getLoginResponse(LoginRequest loginRequest) {
 
 		final String email = loginRequest.getEmail();
@@ -37,6 +48,7 @@ public class JwtTokenService {
 		// Get the user directly from the database
 		final User user = userService.findByEmail(email);
 		final String token = jwtTokenManager.generateToken(user);
+		final String refreshToken = refreshTokenService.issue(user);
 
 		// Convert user to UserProfileDto
 		final UserProfileDto userProfileDto = UserProfileMapper.toUserProfileDto(user);
@@ -46,7 +58,45 @@ public class JwtTokenService {
 		return LoginResponse.builder()
 			.token(token)
 			.user(userProfileDto)
+			.refreshToken(refreshToken)
+			.build();
+	}
+
+	/**
+	 * Issues a new access token and rotates the refresh token without touching the password encoder.
+	 */
+	public LoginResponse getRefreshResponse(RefreshTokenRequest refreshTokenRequest) {
+
+		final RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshTokenRequest.getRefreshToken());
+		final User user = rotation.getUser();
+		final String token = jwtTokenManager.generateToken(user);
+
+		return LoginResponse.builder()
+			.token(token)
+			.user(UserProfileMapper.toUserProfileDto(user))
+			.refreshToken(rotation.getRefreshToken())
 			.build();
 	}
 
+	/**
+	 * Revokes the refresh token and, when the caller sends its bearer token, the access token as well.
+	 */
+	public void logout(RefreshTokenRequest refreshTokenRequest, String authorizationHeader) {
+
+		refreshTokenService.revoke(refreshTokenRequest.getRefreshToken());
+
+		if (Objects.isNull(authorizationHeader) || !authorizationHeader.startsWith(SecurityConstants.TOKEN_PREFIX)) {
+			return;
+		}
+
+		try {
+			final String accessToken = authorizationHeader.substring(SecurityConstants.TOKEN_PREFIX.length());
+			tokenRevocationService.revoke(jwtTokenManager.verifyToken(accessToken));
+		}
+		catch (JWTVerificationException e) {
+			// An invalid or expired access token has nothing left to revoke
+			log.debug("Skipped access token revocation on logout : {}", e.getMessage());
+		}
+	}
+
 }
@@ -0,0 +1,63 @@
+package com.rimmelasghar.boilerplate.springboot.security.jwt;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Principal built straight from verified JWT claims, so authenticated requests do not need a user lookup.
+ */
+@Getter
+public class JwtUserDetails implements UserDetails {
+
+	private final Long id;
+
+	private final String username;
+
+	private final String role;
+
+	private final Collection<? extends GrantedAuthority> authorities;
+
+	public JwtUserDetails(Long id, String username, String role) {
+
+		this.id = id;
+		this.username = username;
+		this.role = role;
+		this.authorities = Collections.singletonList(new SimpleGrantedAuthority(role));
+	}
+
+	@Override
+	public String getPassword() {
+
+		return null;
+	}
+
+	@Override
+	public boolean isAccountNonExpired() {
+
+		return true;
+	}
+
+	@Override
+	public boolean isAccountNonLocked() {
+
+		return true;
+	}
+
+	@Override
+	public boolean isCredentialsNonExpired() {
+
+		return true;
+	}
+
+	@Override
+	public boolean isEnabled() {
+
+		return true;
+	}
+
+}
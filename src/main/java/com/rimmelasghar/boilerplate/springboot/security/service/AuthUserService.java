@@ -14,4 +14,6 @@ public interface AuthUserService {
 
 	AuthenticatedUserDto findAuthenticatedUserByEmail(String email);
 
+	void updatePasswordHash(String email, String encodedPassword);
+
 }
@@ -14,6 +14,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -75,4 +76,13 @@ public class AuthUserServiceImpl implements AuthUserService {
 
 		return UserMapper.INSTANCE.convertToAuthenticatedUserDto(user);
 	}
+
+	@Override
+	@Transactional
+	public void updatePasswordHash(String email, String encodedPassword) {
+
+		userRepository.updatePasswordByEmail(email, encodedPassword);
+
+		log.info("Upgraded password hash of {}", email);
+	}
 }
@@ -0,0 +1,37 @@
+package com.rimmelasghar.boilerplate.springboot.security.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * {@link BCryptPasswordEncoder} that records how long each hash and verification takes.
+ */
+public class MeteredBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+	private final Timer encodeTimer;
+
+	private final Timer matchesTimer;
+
+	public MeteredBCryptPasswordEncoder(int strength, MeterRegistry meterRegistry) {
+
+		super(strength);
+		this.encodeTimer = Timer.builder("bcrypt.hash.latency").tag("operation", "encode").tag("strength", String.valueOf(strength)).register(meterRegistry);
+		this.matchesTimer = Timer.builder("bcrypt.hash.latency").tag("operation", "matches").tag("strength", String.valueOf(strength)).register(meterRegistry);
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+
+		return encodeTimer.record(() -> super.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+
+		final Boolean matches = matchesTimer.record(() -> super.matches(rawPassword, encodedPassword));
+
+		return Boolean.TRUE.equals(matches);
+	}
+
+}
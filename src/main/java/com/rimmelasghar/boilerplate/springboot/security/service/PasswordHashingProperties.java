@@ -0,0 +1,36 @@
+package com.rimmelasghar.boilerplate.springboot.security.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "security.password-hashing")
+public class PasswordHashingProperties {
+
+	/**
+	 * Worker threads dedicated to BCrypt; defaults to the number of available processors.
+	 */
+	private int poolSize = Runtime.getRuntime().availableProcessors();
+
+	private int queueCapacity = 100;
+
+	private int maxConcurrentPerIp = 4;
+
+	private int maxConcurrentPerEmail = 2;
+
+	/**
+	 * BCrypt cost used when calibration is disabled, and the lower bound when it is enabled.
+	 */
+	private int strength = 10;
+
+	private boolean calibrate;
+
+	private long targetHashMillis = 250;
+
+	private int maxStrength = 16;
+
+}
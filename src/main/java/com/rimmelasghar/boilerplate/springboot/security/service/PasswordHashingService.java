@@ -0,0 +1,148 @@
+package com.rimmelasghar.boilerplate.springboot.security.service;
+
+import com.rimmelasghar.boilerplate.springboot.exceptions.ServiceUnavailableException;
+import com.rimmelasghar.boilerplate.springboot.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing work (login, registration) on a dedicated, bounded pool instead of Tomcat request threads.
+ * <p>
+ * Admission is decided up front: a client IP or email over its concurrency cap gets a 429, and a full queue gets a 503,
+ * so a burst of logins can never occupy more than {@code poolSize} cores or starve other endpoints.
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+	private static final String IP_KEY_PREFIX = "ip:";
+
+	private static final String EMAIL_KEY_PREFIX = "email:";
+
+	private final PasswordHashingProperties properties;
+
+	private final ThreadPoolExecutor executor;
+
+	private final ConcurrentHashMap<String, Integer> inFlight = new ConcurrentHashMap<>();
+
+	private final Timer queueWaitTimer;
+
+	private final Counter throttledCounter;
+
+	private final Counter rejectedCounter;
+
+	public PasswordHashingService(PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+
+		this.properties = properties;
+
+		//@formatter:off
+		this.executor = new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(), 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+				new CustomizableThreadFactory("bcrypt-"),
+				new ThreadPoolExecutor.AbortPolicy());
+		//@formatter:on
+
+		Gauge.builder("bcrypt.pool.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+		Gauge.builder("bcrypt.pool.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+		this.queueWaitTimer = Timer.builder("bcrypt.pool.queue.wait").register(meterRegistry);
+		this.throttledCounter = Counter.builder("bcrypt.pool.rejected").tag("reason", "concurrency_cap").register(meterRegistry);
+		this.rejectedCounter = Counter.builder("bcrypt.pool.rejected").tag("reason", "queue_full").register(meterRegistry);
+	}
+
+	/**
+	 * @throws TooManyRequestsException    if the client IP or email already has too many hashing requests in flight
+	 * @throws ServiceUnavailableException if the hashing queue is full
+	 */
+	public <T> CompletableFuture<T> submit(String clientIp, String email, Supplier<T> task) {
+
+		final String ipKey = Objects.isNull(clientIp) ? null : IP_KEY_PREFIX + clientIp;
+		final String emailKey = Objects.isNull(email) ? null : EMAIL_KEY_PREFIX + email.toLowerCase();
+
+		if (!tryAcquire(ipKey, properties.getMaxConcurrentPerIp())) {
+			throttledCounter.increment();
+			throw new TooManyRequestsException("Too many concurrent authentication requests from this address");
+		}
+
+		if (!tryAcquire(emailKey, properties.getMaxConcurrentPerEmail())) {
+			release(ipKey);
+			throttledCounter.increment();
+			throw new TooManyRequestsException("Too many concurrent authentication requests for this account");
+		}
+
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		final long enqueuedAt = System.nanoTime();
+
+		try {
+			executor.execute(() -> {
+				queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+				try {
+					future.complete(task.get());
+				}
+				catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+				finally {
+					release(emailKey);
+					release(ipKey);
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			release(emailKey);
+			release(ipKey);
+			rejectedCounter.increment();
+			log.warn("Password hashing queue is full, rejecting request");
+			throw new ServiceUnavailableException("Authentication service is busy, please retry");
+		}
+
+		return future;
+	}
+
+	private boolean tryAcquire(String key, int limit) {
+
+		if (Objects.isNull(key)) {
+			return true;
+		}
+
+		final int concurrent = inFlight.merge(key, 1, Integer::sum);
+
+		if (concurrent > limit) {
+			release(key);
+			return false;
+		}
+
+		return true;
+	}
+
+	private void release(String key) {
+
+		if (Objects.isNull(key)) {
+			return;
+		}
+
+		// Drop idle counters so the map only holds keys with work in flight
+		inFlight.computeIfPresent(key, (k, concurrent) -> concurrent > 1 ? concurrent - 1 : null);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+
+		executor.shutdown();
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.rimmelasghar.boilerplate.springboot.security.service;
+
+import com.rimmelasghar.boilerplate.springboot.model.RefreshToken;
+import com.rimmelasghar.boilerplate.springboot.model.User;
+import com.rimmelasghar.boilerplate.springboot.repository.RefreshTokenRepository;
+import com.rimmelasghar.boilerplate.springboot.security.jwt.JwtProperties;
+import com.rimmelasghar.boilerplate.springboot.security.utils.TokenHashUtils;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Opaque, rotating refresh tokens. Each refresh consumes the presented token and issues a new one in the same family;
+ * presenting an already consumed token is treated as theft and revokes the whole family.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+	private static final int TOKEN_BYTES = 32;
+
+	private static final String INVALID_REFRESH_TOKEN = "Invalid refresh token.";
+
+	private final RefreshTokenRepository refreshTokenRepository;
+
+	private final JwtProperties jwtProperties;
+
+	@Transactional
+	public String issue(User user) {
+
+		return issue(user, UUID.randomUUID().toString());
+	}
+
+	/**
+	 * @throws BadCredentialsException if the token is unknown, expired, revoked or has already been used
+	 */
+	@Transactional(noRollbackFor = BadCredentialsException.class)
+	public Rotation rotate(String rawToken) {
+
+		final RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(TokenHashUtils.sha256(rawToken))
+				.orElseThrow(() -> new BadCredentialsException(INVALID_REFRESH_TOKEN));
+
+		final LocalDateTime now = LocalDateTime.now();
+
+		if (refreshToken.getExpiresAt().isBefore(now)) {
+			throw new BadCredentialsException(INVALID_REFRESH_TOKEN);
+		}
+
+		final boolean consumed = Objects.isNull(refreshToken.getRevokedAt()) && refreshTokenRepository.markUsed(refreshToken.getId(), now) == 1;
+
+		if (!consumed) {
+			final int revoked = refreshTokenRepository.revokeFamily(refreshToken.getFamilyId(), now);
+			log.warn("Refresh token reuse detected for user {}, revoked {} tokens of family {}", refreshToken.getUser().getId(), revoked, refreshToken.getFamilyId());
+			throw new BadCredentialsException(INVALID_REFRESH_TOKEN);
+		}
+
+		final User user = refreshToken.getUser();
+
+		return new Rotation(user, issue(user, refreshToken.getFamilyId()));
+	}
+
+	@Transactional
+	public void revoke(String rawToken) {
+
+		refreshTokenRepository.findByTokenHash(TokenHashUtils.sha256(rawToken))
+				.ifPresent(refreshToken -> refreshTokenRepository.revokeFamily(refreshToken.getFamilyId(), LocalDateTime.now()));
+	}
+
+	@Transactional
+	public void revokeAllForUser(Long userId) {
+
+		final int revoked = refreshTokenRepository.revokeAllByUserId(userId, LocalDateTime.now());
+
+		log.info("Revoked {} refresh tokens of user {}", revoked, userId);
+	}
+
+	@Transactional
+	public void deleteAllForUser(Long userId) {
+
+		refreshTokenRepository.deleteAllByUserId(userId);
+	}
+
+	@Transactional
+	@Scheduled(fixedDelayString = "${jwt.refreshPurgeIntervalMillis:3600000}")
+	public void purgeExpired() {
+
+		final int purged = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+
+		if (purged > 0) {
+			log.info("Purged {} expired refresh tokens", purged);
+		}
+	}
+
+	private String issue(User user, String familyId) {
+
+		final String rawToken = TokenHashUtils.randomToken(TOKEN_BYTES);
+		final LocalDateTime now = LocalDateTime.now();
+
+		//@formatter:off
+		final RefreshToken refreshToken = RefreshToken.builder()
+				.user(user)
+				.tokenHash(TokenHashUtils.sha256(rawToken))
+				.familyId(familyId)
+				.createdAt(now)
+				.expiresAt(now.plusDays(jwtProperties.getRefreshExpirationDays()))
+				.build();
+		//@formatter:on
+
+		refreshTokenRepository.save(refreshToken);
+
+		return rawToken;
+	}
+
+	@Getter
+	@RequiredArgsConstructor
+	public static class Rotation {
+
+		private final User user;
+
+		private final String refreshToken;
+
+	}
+
+}
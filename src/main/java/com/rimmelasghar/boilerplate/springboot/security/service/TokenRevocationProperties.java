@@ -0,0 +1,25 @@
+package com.rimmelasghar.boilerplate.springboot.security.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "security.token-revocation")
+public class TokenRevocationProperties {
+
+	private long expectedInsertions = 100_000;
+
+	private double falsePositiveProbability = 0.01;
+
+	private int syncBatchSize = 1_000;
+
+	/**
+	 * How far below the last seen id each sync looks again, to catch rows committed out of id order.
+	 */
+	private long syncLookbackMillis = 30_000;
+
+}
@@ -0,0 +1,212 @@
+package com.rimmelasghar.boilerplate.springboot.security.service;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.rimmelasghar.boilerplate.springboot.model.RevokedToken;
+import com.rimmelasghar.boilerplate.springboot.repository.RevokedTokenRepository;
+import com.rimmelasghar.boilerplate.springboot.security.utils.BloomFilter;
+import com.rimmelasghar.boilerplate.springboot.utils.TimeOrderedIds;
+import com.rimmelasghar.boilerplate.springboot.utils.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the revoked {@code jti} list in memory so the authentication filter never queries the database.
+ * <p>
+ * Lookups go through a Bloom filter first; only a positive answer touches the exact set. New rows are picked up
+ * incrementally by id, and expired ones are purged periodically, at which point the filter is rebuilt from the exact
+ * set because a Bloom filter cannot forget.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+	// Rough per-entry heap cost of a ConcurrentHashMap node holding a 36 char UUID and a boxed Long
+	private static final long EXACT_ENTRY_BYTES = 160;
+
+	private final RevokedTokenRepository revokedTokenRepository;
+
+	private final TokenRevocationProperties properties;
+
+	// Own transaction for the insert, so a duplicate jti cannot mark the caller's transaction rollback-only
+	private final TransactionTemplate insertTransaction;
+
+	/** Revoked jti to its expiry in epoch millis. */
+	private final ConcurrentHashMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+	private final Object writeLock = new Object();
+
+	private volatile BloomFilter bloomFilter;
+
+	private volatile long lastSeenId;
+
+	private final Counter bloomPositiveCounter;
+
+	private final Counter falsePositiveCounter;
+
+	public TokenRevocationService(RevokedTokenRepository revokedTokenRepository, TokenRevocationProperties properties,
+								  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+
+		this.revokedTokenRepository = revokedTokenRepository;
+		this.properties = properties;
+		this.insertTransaction = new TransactionTemplate(transactionManager);
+		this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.bloomFilter = BloomFilter.create(properties.getExpectedInsertions(), properties.getFalsePositiveProbability());
+
+		Gauge.builder("jwt.revocation.entries", revokedTokens, ConcurrentHashMap::size).register(meterRegistry);
+		Gauge.builder("jwt.revocation.memory", this, TokenRevocationService::estimatedMemoryBytes).baseUnit("bytes").register(meterRegistry);
+		Gauge.builder("jwt.revocation.bloom.fpp", this, TokenRevocationService::expectedFalsePositiveProbability)
+				.description("False positive probability of the Bloom filter at its current fill")
+				.register(meterRegistry);
+		this.bloomPositiveCounter = Counter.builder("jwt.revocation.bloom.positives").register(meterRegistry);
+		this.falsePositiveCounter = Counter.builder("jwt.revocation.bloom.false.positives").register(meterRegistry);
+	}
+
+	public boolean isRevoked(DecodedJWT decodedJWT) {
+
+		final String jti = decodedJWT.getId();
+
+		if (Objects.isNull(jti) || !bloomFilter.mightContain(jti)) {
+			return false;
+		}
+
+		bloomPositiveCounter.increment();
+
+		if (revokedTokens.containsKey(jti)) {
+			return true;
+		}
+
+		falsePositiveCounter.increment();
+		return false;
+	}
+
+	/**
+	 * Revokes a single access token until it expires. Tokens without a jti cannot be revoked individually. Revoking the
+	 * same token twice, concurrently or not, is a no-op.
+	 */
+	public void revoke(DecodedJWT decodedJWT) {
+
+		final String jti = decodedJWT.getId();
+		final Date expiresAt = decodedJWT.getExpiresAt();
+
+		if (Objects.isNull(jti) || Objects.isNull(expiresAt) || expiresAt.before(new Date())) {
+			return;
+		}
+		if (revokedTokenRepository.existsByJti(jti)) {
+			// Possibly recorded by another node since this one last synced; still has to be visible here at once
+			add(jti, expiresAt.getTime());
+			return;
+		}
+
+		final RevokedToken revokedToken = RevokedToken.builder()
+				.jti(jti)
+				.expiresAt(LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault()))
+				.revokedAt(LocalDateTime.now())
+				.build();
+
+		try {
+			// Ids are assigned in the application, so only the flush sends the insert and raises a duplicate jti
+			insertTransaction.executeWithoutResult(status -> revokedTokenRepository.saveAndFlush(revokedToken));
+		}
+		catch (DataIntegrityViolationException e) {
+			log.debug("Token {} was already revoked", jti);
+		}
+
+		// Visible on this node once the caller commits, other nodes pick the row up on their next sync
+		TransactionUtils.afterCommit(() -> add(jti, expiresAt.getTime()));
+	}
+
+	/**
+	 * Loads revocations recorded since the last sync, including those made by other instances. The first run loads the
+	 * whole table.
+	 * <p>
+	 * Ids are assigned before commit and by several nodes, so a row can become visible after one with a larger id. Each
+	 * sync therefore re-reads a short lookback window below the last id seen; re-adding a revocation is harmless.
+	 */
+	@Scheduled(fixedDelayString = "${security.token-revocation.sync-interval-millis:5000}")
+	public void sync() {
+
+		final LocalDateTime now = LocalDateTime.now();
+		final PageRequest batch = PageRequest.ofSize(properties.getSyncBatchSize());
+
+		long afterId = TimeOrderedIds.rewind(lastSeenId, properties.getSyncLookbackMillis());
+		List<RevokedToken> revokedBatch;
+		do {
+			revokedBatch = revokedTokenRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(afterId, now, batch);
+			for (RevokedToken revokedToken : revokedBatch) {
+				add(revokedToken.getJti(), toEpochMillis(revokedToken.getExpiresAt()));
+				afterId = revokedToken.getId();
+			}
+		}
+		while (revokedBatch.size() == batch.getPageSize());
+
+		lastSeenId = Math.max(lastSeenId, afterId);
+	}
+
+	@Transactional
+	@Scheduled(fixedDelayString = "${security.token-revocation.purge-interval-millis:600000}")
+	public void purgeExpired() {
+
+		final int purgedRows = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+		final long now = System.currentTimeMillis();
+
+		synchronized (writeLock) {
+
+			final int sizeBefore = revokedTokens.size();
+			revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+
+			if (revokedTokens.size() == sizeBefore) {
+				return;
+			}
+
+			// Grow the filter if the live set outgrew the configured size, so the false positive rate stays bounded
+			final long expectedInsertions = Math.max(properties.getExpectedInsertions(), 2L * revokedTokens.size());
+			final BloomFilter rebuiltFilter = BloomFilter.create(expectedInsertions, properties.getFalsePositiveProbability());
+			revokedTokens.keySet().forEach(rebuiltFilter::put);
+			bloomFilter = rebuiltFilter;
+		}
+
+		log.info("Purged {} expired token revocations", purgedRows);
+	}
+
+	private void add(String jti, long expiresAt) {
+
+		synchronized (writeLock) {
+			// Exact set first: a Bloom positive must always be answerable by the exact set
+			revokedTokens.put(jti, expiresAt);
+			bloomFilter.put(jti);
+		}
+	}
+
+	private double estimatedMemoryBytes() {
+
+		return bloomFilter.bitSize() / 8.0 + revokedTokens.size() * EXACT_ENTRY_BYTES;
+	}
+
+	private double expectedFalsePositiveProbability() {
+
+		return bloomFilter.expectedFalsePositiveProbability(revokedTokens.size());
+	}
+
+	private static long toEpochMillis(LocalDateTime dateTime) {
+
+		return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+}
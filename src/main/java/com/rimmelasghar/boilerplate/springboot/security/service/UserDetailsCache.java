@@ -0,0 +1,99 @@
+package com.rimmelasghar.boilerplate.springboot.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rimmelasghar.boilerplate.springboot.utils.TransactionUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of the email, password hash and authorities that {@link UserDetailsServiceImpl} would otherwise read
+ * from the database on every call.
+ * <p>
+ * Evictions run after the surrounding transaction commits, so a concurrent request can not reload and re-cache the
+ * pre-commit row; the next request after commit always sees the change.
+ */
+@Slf4j
+@Component
+public class UserDetailsCache {
+
+	private static final String CACHE_NAME = "userDetails";
+
+	private final UserDetailsCacheProperties properties;
+
+	private final Cache<String, CachedUserDetails> cache;
+
+	public UserDetailsCache(UserDetailsCacheProperties properties, MeterRegistry meterRegistry) {
+
+		this.properties = properties;
+
+		//@formatter:off
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(properties.getMaximumSize())
+				.expireAfterWrite(Duration.ofSeconds(properties.getTtlSeconds()))
+				.recordStats()
+				.build();
+		//@formatter:on
+
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+		Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate()).tag("cache", CACHE_NAME).register(meterRegistry);
+	}
+
+	/**
+	 * @return a fresh {@link UserDetails} copy, or null if the loader found no user
+	 */
+	public UserDetails get(String email, Function<String, CachedUserDetails> loader) {
+
+		final CachedUserDetails cachedUserDetails = properties.isEnabled() ? cache.get(email, loader) : loader.apply(email);
+
+		return Objects.isNull(cachedUserDetails) ? null : cachedUserDetails.toUserDetails();
+	}
+
+	public void evict(String... emails) {
+
+		TransactionUtils.afterCommit(() -> Arrays.stream(emails).filter(Objects::nonNull).forEach(cache::invalidate));
+	}
+
+	public void evictAll() {
+
+		TransactionUtils.afterCommit(cache::invalidateAll);
+	}
+
+	/**
+	 * Immutable snapshot; the authentication manager erases credentials on the returned {@link User}, so every caller
+	 * gets its own copy.
+	 */
+	public static final class CachedUserDetails {
+
+		private final String email;
+
+		private final String passwordHash;
+
+		private final Collection<? extends GrantedAuthority> authorities;
+
+		public CachedUserDetails(String email, String passwordHash, Collection<? extends GrantedAuthority> authorities) {
+
+			this.email = email;
+			this.passwordHash = passwordHash;
+			this.authorities = authorities;
+		}
+
+		UserDetails toUserDetails() {
+
+			return new User(email, passwordHash, authorities);
+		}
+	}
+
+}
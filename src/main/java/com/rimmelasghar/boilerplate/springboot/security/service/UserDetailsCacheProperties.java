@@ -0,0 +1,20 @@
+package com.rimmelasghar.boilerplate.springboot.security.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "security.user-details-cache")
+public class UserDetailsCacheProperties {
+
+	private boolean enabled = true;
+
+	private long maximumSize = 10_000;
+
+	private long ttlSeconds = 300;
+
+}
@@ -5,8 +5,9 @@ import com.rimmelasghar.boilerplate.springboot.security.dto.AuthenticatedUserDto
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -18,19 +19,46 @@ import java.util.Objects;
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
 	private static final String EMAIL_OR_PASSWORD_INVALID = "Invalid email or password.";
 
 	private final AuthUserService userService;
 
+	private final UserDetailsCache userDetailsCache;
+
 	@Override
 	public UserDetails loadUserByUsername(String email) {
 
+		final UserDetails userDetails = userDetailsCache.get(email, this::loadCachedUserDetails);
+
+		if (Objects.isNull(userDetails)) {
+			throw new UsernameNotFoundException(EMAIL_OR_PASSWORD_INVALID);
+		}
+
+		return userDetails;
+	}
+
+	/**
+	 * Called by the authentication provider after a successful login whose stored hash uses a lower BCrypt cost than
+	 * the current encoder, so old hashes are transparently rehashed.
+	 */
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+
+		final String email = user.getUsername();
+		userService.updatePasswordHash(email, newPassword);
+		userDetailsCache.evict(email);
+
+		return new User(email, newPassword, user.getAuthorities());
+	}
+
+	private UserDetailsCache.CachedUserDetails loadCachedUserDetails(String email) {
+
 		final AuthenticatedUserDto authenticatedUser = userService.findAuthenticatedUserByEmail(email);
 
 		if (Objects.isNull(authenticatedUser)) {
-			throw new UsernameNotFoundException(EMAIL_OR_PASSWORD_INVALID);
+			return null;
 		}
 
 		final String authenticatedEmail = authenticatedUser.getEmail();
@@ -38,6 +66,6 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 		final Role role = authenticatedUser.getRole();
 		final SimpleGrantedAuthority grantedAuthority = new SimpleGrantedAuthority(role.getRoleName());
 
-		return new User(authenticatedEmail, authenticatedPassword, Collections.singletonList(grantedAuthority));
+		return new UserDetailsCache.CachedUserDetails(authenticatedEmail, authenticatedPassword, Collections.singletonList(grantedAuthority));
 	}
 }
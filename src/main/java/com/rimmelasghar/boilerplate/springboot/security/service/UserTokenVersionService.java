@@ -0,0 +1,83 @@
+package com.rimmelasghar.boilerplate.springboot.security.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.rimmelasghar.boilerplate.springboot.model.User;
+import com.rimmelasghar.boilerplate.springboot.repository.UserRepository;
+import com.rimmelasghar.boilerplate.springboot.security.jwt.JwtProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Keeps track of the token version of each user. Stateless tokens carry the version they were issued with and are
+ * rejected once the user's version has been bumped (password, email or role change, deletion).
+ * <p>
+ * Versions are cached for {@code jwt.tokenVersionTtlSeconds}, which bounds how long another node may keep accepting
+ * a revoked token while still avoiding a user lookup per request.
+ */
+@Slf4j
+@Service
+public class UserTokenVersionService {
+
+	private static final long UNKNOWN_USER_VERSION = -1L;
+
+	private final UserRepository userRepository;
+
+	private final LoadingCache<Long, Long> tokenVersionCache;
+
+	public UserTokenVersionService(UserRepository userRepository, JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+
+		this.userRepository = userRepository;
+
+		//@formatter:off
+		this.tokenVersionCache = Caffeine.newBuilder()
+				.maximumSize(jwtProperties.getVerificationCacheSize())
+				.expireAfterWrite(Duration.ofSeconds(jwtProperties.getTokenVersionTtlSeconds()))
+				.recordStats()
+				.build(userId -> userRepository.findTokenVersionById(userId).orElse(UNKNOWN_USER_VERSION));
+		//@formatter:on
+
+		CaffeineCacheMetrics.monitor(meterRegistry, tokenVersionCache, "jwtTokenVersion");
+	}
+
+	public static long versionOf(User user) {
+
+		return Objects.isNull(user.getTokenVersion()) ? 0L : user.getTokenVersion();
+	}
+
+	public boolean isCurrent(Long userId, long tokenVersion) {
+
+		final Long currentVersion = tokenVersionCache.get(userId);
+
+		return Objects.nonNull(currentVersion) && currentVersion == tokenVersion;
+	}
+
+	/**
+	 * Bumps the version on the given (managed or about to be saved) user so that previously issued tokens stop working.
+	 */
+	public void revoke(User user) {
+
+		user.setTokenVersion(versionOf(user) + 1);
+	}
+
+	public void evict(Long userId) {
+
+		tokenVersionCache.invalidate(userId);
+	}
+
+	@Transactional
+	public void revokeRole(Long roleId) {
+
+		final int revokedUsers = userRepository.incrementTokenVersionByRoleId(roleId);
+		tokenVersionCache.invalidateAll();
+
+		log.info("Revoked tokens of {} users with role id {}", revokedUsers, roleId);
+	}
+
+}
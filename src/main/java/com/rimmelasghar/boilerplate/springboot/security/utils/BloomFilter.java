@@ -0,0 +1,123 @@
+package com.rimmelasghar.boilerplate.springboot.security.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size, thread safe Bloom filter over strings. Lookups never block; a negative answer is exact and a positive one
+ * is wrong with the configured false positive probability.
+ */
+public final class BloomFilter {
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final AtomicLongArray words;
+
+	private final long bitSize;
+
+	private final int hashFunctions;
+
+	private BloomFilter(long bitSize, int hashFunctions) {
+
+		this.words = new AtomicLongArray((int) ((bitSize + 63) >>> 6));
+		this.bitSize = (long) words.length() << 6;
+		this.hashFunctions = hashFunctions;
+	}
+
+	/**
+	 * Sizes the filter for the expected number of insertions at the requested false positive probability.
+	 */
+	public static BloomFilter create(long expectedInsertions, double falsePositiveProbability) {
+
+		final long insertions = Math.max(1, expectedInsertions);
+		final long bits = Math.max(64, (long) (-insertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2))));
+		final int hashes = Math.max(1, (int) Math.round((double) bits / insertions * Math.log(2)));
+
+		return new BloomFilter(bits, hashes);
+	}
+
+	public void put(String value) {
+
+		final long hash64 = hash(value);
+		final int hash1 = (int) hash64;
+		final int hash2 = (int) (hash64 >>> 32);
+
+		for (int i = 1; i <= hashFunctions; i++) {
+			final long bitIndex = index(hash1 + i * hash2);
+			final int wordIndex = (int) (bitIndex >>> 6);
+			final long mask = 1L << bitIndex;
+
+			long word;
+			do {
+				word = words.get(wordIndex);
+				if ((word & mask) != 0) {
+					break;
+				}
+			}
+			while (!words.compareAndSet(wordIndex, word, word | mask));
+		}
+	}
+
+	public boolean mightContain(String value) {
+
+		final long hash64 = hash(value);
+		final int hash1 = (int) hash64;
+		final int hash2 = (int) (hash64 >>> 32);
+
+		for (int i = 1; i <= hashFunctions; i++) {
+			final long bitIndex = index(hash1 + i * hash2);
+			if ((words.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public long bitSize() {
+
+		return bitSize;
+	}
+
+	public int hashFunctions() {
+
+		return hashFunctions;
+	}
+
+	/**
+	 * @return the false positive probability once the given number of distinct values has been inserted
+	 */
+	public double expectedFalsePositiveProbability(long insertions) {
+
+		return Math.pow(1 - Math.exp(-(double) hashFunctions * insertions / bitSize), hashFunctions);
+	}
+
+	private long index(int combinedHash) {
+
+		// Flip negative hashes instead of taking abs(), which is not safe for Integer.MIN_VALUE
+		final int positiveHash = combinedHash < 0 ? ~combinedHash : combinedHash;
+
+		return positiveHash % bitSize;
+	}
+
+	private static long hash(String value) {
+
+		long hash = FNV_OFFSET_BASIS;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b;
+			hash *= FNV_PRIME;
+		}
+
+		// MurmurHash3 finalizer to spread FNV output over both halves
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb93fe1a85ec5L;
+		hash ^= hash >>> 33;
+
+		return hash;
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.rimmelasghar.boilerplate.springboot.security.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Endpoints that never need an authenticated principal. {@code SecurityConfiguration} permits these ant patterns and
+ * the JWT filter skips them, so both always agree on what is public.
+ * <p>
+ * Only exact paths and trailing {@code /**} patterns are supported; they are split once into plain strings so a lookup
+ * is a handful of {@link String#startsWith(String, int)} calls and allocates nothing.
+ */
+public final class PublicRoutes {
+
+	private static final String ANY_SUFFIX = "/**";
+
+	//@formatter:off
+	public static final String[] PATTERNS = {
+			SecurityConstants.REGISTRATION_REQUEST_URI,
+			SecurityConstants.LOGIN_REQUEST_URI,
+			SecurityConstants.LOGIN_REQUEST_URI + ANY_SUFFIX,
+			"/health",
+			"/v3/api-docs/**",
+			"/swagger-ui/**",
+			"/swagger-ui.html",
+			"/actuator/**"
+	};
+	//@formatter:on
+
+	private static final String[] EXACT_PATHS;
+
+	private static final String[] PREFIXES;
+
+	static {
+
+		final List<String> exactPaths = new ArrayList<>();
+		final List<String> prefixes = new ArrayList<>();
+
+		for (String pattern : PATTERNS) {
+			if (pattern.endsWith(ANY_SUFFIX)) {
+				prefixes.add(pattern.substring(0, pattern.length() - ANY_SUFFIX.length()));
+			}
+			else if (pattern.contains("*")) {
+				throw new IllegalStateException("Unsupported public route pattern : " + pattern);
+			}
+			else {
+				exactPaths.add(pattern);
+			}
+		}
+
+		EXACT_PATHS = exactPaths.toArray(new String[0]);
+		PREFIXES = prefixes.toArray(new String[0]);
+	}
+
+	private PublicRoutes() {
+
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @param requestURI the raw request URI
+	 * @param offset     length of the context path to skip
+	 * @return true if the path after {@code offset} matches one of {@link #PATTERNS}
+	 */
+	public static boolean matches(String requestURI, int offset) {
+
+		final int pathLength = requestURI.length() - offset;
+
+		for (String exactPath : EXACT_PATHS) {
+			if (pathLength == exactPath.length() && requestURI.startsWith(exactPath, offset)) {
+				return true;
+			}
+		}
+
+		// Like AntPathMatcher, "/a/**" matches "/a" itself and anything below "/a/"
+		for (String prefix : PREFIXES) {
+			if (requestURI.startsWith(prefix, offset)) {
+				final int end = offset + prefix.length();
+				if (requestURI.length() == end || requestURI.charAt(end) == '/') {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.rimmelasghar.boilerplate.springboot.security.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+public final class TokenHashUtils {
+
+	private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(TokenHashUtils::newSha256);
+
+	private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+	private TokenHashUtils() {
+
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @return Base64 encoded SHA-256 digest of the token, used to store or look up tokens without keeping them in clear
+	 */
+	public static String sha256(String token) {
+
+		final MessageDigest messageDigest = SHA_256.get();
+		messageDigest.reset();
+
+		return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * @return Base64 encoded SHA-256 digest of the bytes
+	 */
+	public static String sha256(byte[] bytes) {
+
+		final MessageDigest messageDigest = SHA_256.get();
+		messageDigest.reset();
+
+		return Base64.getEncoder().encodeToString(messageDigest.digest(bytes));
+	}
+
+	/**
+	 * @return URL safe opaque token carrying the given number of random bytes
+	 */
+	public static String randomToken(int byteLength) {
+
+		final byte[] bytes = new byte[byteLength];
+		SECURE_RANDOM.nextBytes(bytes);
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	private static MessageDigest newSha256() {
+
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+}
@@ -0,0 +1,11 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import com.rimmelasghar.boilerplate.springboot.dto.ImportReportDto;
+
+import java.io.InputStream;
+
+public interface BulkImportService {
+    ImportReportDto importVehicles(InputStream body, String contentType);
+    ImportReportDto importLocations(InputStream body, String contentType);
+    ImportReportDto importRentals(InputStream body, String contentType);
+}
@@ -0,0 +1,37 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+public interface IdempotencyService {
+    Claim claim(String scope, String key, String requestHash);
+    void complete(Claim claim, StoredResponse response);
+    void release(Claim claim);
+
+    enum Outcome {
+        // The caller runs the request and must complete or release the claim
+        EXECUTE,
+        REPLAY,
+        KEY_REUSED,
+        IN_PROGRESS
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    final class Claim {
+        private final Outcome outcome;
+        private final String keyHash;
+        private final String requestHash;
+        // Set for REPLAY
+        private final StoredResponse response;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    final class StoredResponse {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+        private final String requestHash;
+    }
+}
@@ -0,0 +1,627 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rimmelasghar.boilerplate.springboot.configuration.ImportProperties;
+import com.rimmelasghar.boilerplate.springboot.dto.ImportErrorDto;
+import com.rimmelasghar.boilerplate.springboot.dto.ImportReportDto;
+import com.rimmelasghar.boilerplate.springboot.dto.LocationDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteItemDto;
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleDto;
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
+import com.rimmelasghar.boilerplate.springboot.exceptions.ConflictException;
+import com.rimmelasghar.boilerplate.springboot.exceptions.NotFoundException;
+import com.rimmelasghar.boilerplate.springboot.mapper.RentalMapper;
+import com.rimmelasghar.boilerplate.springboot.model.Location;
+import com.rimmelasghar.boilerplate.springboot.model.OutboxEventType;
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+import com.rimmelasghar.boilerplate.springboot.model.User;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import com.rimmelasghar.boilerplate.springboot.repository.LocationRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.UserRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.VehicleRepository;
+import com.rimmelasghar.boilerplate.springboot.service.BulkImportService;
+import com.rimmelasghar.boilerplate.springboot.service.OutboxService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalAvailabilityService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalLifecycleService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalPricingService;
+import com.rimmelasghar.boilerplate.springboot.service.StatsService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleCatalogService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleGeoIndexService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports CSV (with a header row) or NDJSON request bodies row by row; neither the body nor the parsed rows are held
+ * in memory beyond one chunk.
+ * <p>
+ * Each chunk is validated, checked against the database with one IN query per foreign key and one for duplicates, and
+ * written in a single transaction with JDBC batching. Rejected rows are reported by row number while the rest of the
+ * chunk is still imported. If the database rejects a chunk anyway (a license plate inserted concurrently, say), its
+ * rows are retried one by one so that only the offending rows fail. Ids in the input are ignored.
+ * <p>
+ * Rentals are booked the way single bookings are: the write transaction row-locks the chunk's vehicles and re-checks
+ * every blocking rental against RENTALS before inserting, so an import cannot double-book a vehicle against bookings
+ * made on any node meanwhile.
+ */
+@Slf4j
+@Service
+public class BulkImportServiceImpl implements BulkImportService {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv");
+
+    private static final MediaType NDJSON = new MediaType("application", "x-ndjson");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final CsvMapper csvMapper;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ImportProperties properties;
+
+    private final UserRepository userRepository;
+
+    private final VehicleRepository vehicleRepository;
+
+    private final LocationRepository locationRepository;
+
+    private final RentalPricingService rentalPricingService;
+
+    private final RentalAvailabilityService rentalAvailabilityService;
+
+    private final RentalLifecycleService rentalLifecycleService;
+
+    private final VehicleGeoIndexService vehicleGeoIndexService;
+
+    private final VehicleCatalogService vehicleCatalogService;
+
+    private final VehicleSearchService vehicleSearchService;
+
+    private final StatsService statsService;
+
+    private final OutboxService outboxService;
+
+    private final RentalMapper rentalMapper;
+
+    public BulkImportServiceImpl(ObjectMapper objectMapper, Validator validator, TransactionTemplate transactionTemplate, ImportProperties properties,
+                                 UserRepository userRepository, VehicleRepository vehicleRepository, LocationRepository locationRepository,
+                                 RentalPricingService rentalPricingService, RentalAvailabilityService rentalAvailabilityService,
+                                 RentalLifecycleService rentalLifecycleService, VehicleGeoIndexService vehicleGeoIndexService,
+                                 VehicleCatalogService vehicleCatalogService, VehicleSearchService vehicleSearchService, StatsService statsService,
+                                 OutboxService outboxService, RentalMapper rentalMapper) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.userRepository = userRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.locationRepository = locationRepository;
+        this.rentalPricingService = rentalPricingService;
+        this.rentalAvailabilityService = rentalAvailabilityService;
+        this.rentalLifecycleService = rentalLifecycleService;
+        this.vehicleGeoIndexService = vehicleGeoIndexService;
+        this.vehicleCatalogService = vehicleCatalogService;
+        this.vehicleSearchService = vehicleSearchService;
+        this.statsService = statsService;
+        this.outboxService = outboxService;
+        this.rentalMapper = rentalMapper;
+
+        this.csvMapper = CsvMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    @Override
+    public ImportReportDto importVehicles(InputStream body, String contentType) {
+        final Report report = new Report(properties.getMaxReportedErrors());
+        // Normalised plates of every row imported so far, so duplicates within the file are caught across chunks
+        final Set<String> seenPlates = new HashSet<>();
+        read(body, contentType, VehicleDto.class, report, chunk -> importVehicles(chunk, seenPlates, report));
+        log.info("Vehicle import: {} of {} rows imported, {} failed", report.imported, report.totalRows, report.failed);
+        return report.toDto();
+    }
+
+    @Override
+    public ImportReportDto importLocations(InputStream body, String contentType) {
+        final Report report = new Report(properties.getMaxReportedErrors());
+        final Set<String> seenKeys = new HashSet<>();
+        read(body, contentType, LocationDto.class, report, chunk -> importLocations(chunk, seenKeys, report));
+        log.info("Location import: {} of {} rows imported, {} failed", report.imported, report.totalRows, report.failed);
+        return report.toDto();
+    }
+
+    @Override
+    public ImportReportDto importRentals(InputStream body, String contentType) {
+        final Report report = new Report(properties.getMaxReportedErrors());
+        read(body, contentType, RentalDto.class, report, chunk -> importRentals(chunk, report));
+        log.info("Rental import: {} of {} rows imported, {} failed", report.imported, report.totalRows, report.failed);
+        return report.toDto();
+    }
+
+    private void importVehicles(List<Row<VehicleDto>> chunk, Set<String> seenPlates, Report report) {
+        final Set<String> existingPlates = vehicleRepository.findExistingLicensePlates(collect(chunk, VehicleDto::getLicense_plate)).stream()
+                .map(BulkImportServiceImpl::plateKey)
+                .collect(Collectors.toSet());
+        final Set<Long> locationIds = new HashSet<>(locationRepository.findExistingIds(collect(chunk, VehicleDto::getLocation_id)));
+
+        // A row repeating a plate of this chunk waits for the next round: it is a duplicate only if its twin got in
+        List<Row<VehicleDto>> candidates = chunk;
+        while (!candidates.isEmpty()) {
+            final Set<String> chunkPlates = new HashSet<>();
+            final List<Row<VehicleDto>> accepted = new ArrayList<>(candidates.size());
+            final List<Row<VehicleDto>> deferred = new ArrayList<>();
+            for (Row<VehicleDto> row : candidates) {
+                final VehicleDto vehicleDto = row.value;
+                final String plate = plateKey(vehicleDto.getLicense_plate());
+                if (existingPlates.contains(plate)) {
+                    report.reject(row.number, "Vehicle with license plate " + vehicleDto.getLicense_plate() + " already exists");
+                }
+                else if (!locationIds.contains(vehicleDto.getLocation_id())) {
+                    report.reject(row.number, "Location not found with id: " + vehicleDto.getLocation_id());
+                }
+                else if (seenPlates.contains(plate)) {
+                    report.reject(row.number, "License plate " + vehicleDto.getLicense_plate() + " appears earlier in this import");
+                }
+                else if (!chunkPlates.add(plate)) {
+                    deferred.add(row);
+                }
+                else {
+                    accepted.add(row);
+                }
+            }
+
+            persist(accepted, report, this::toVehicle, vehicleDtos -> { }, vehicles -> { }).forEach(vehicle -> {
+                seenPlates.add(plateKey(vehicle.getLicensePlate()));
+                vehicleGeoIndexService.index(vehicle);
+                vehicleCatalogService.evict(vehicle.getId());
+                vehicleSearchService.index(vehicle);
+            });
+            candidates = deferred;
+        }
+    }
+
+    private void importLocations(List<Row<LocationDto>> chunk, Set<String> seenKeys, Report report) {
+        final Set<String> existingKeys = locationRepository.findKeysByNameIn(collect(chunk, LocationDto::getName)).stream()
+                .map(key -> locationKey(key.getName(), key.getAddress()))
+                .collect(Collectors.toSet());
+
+        // As for vehicles, a repeat within the chunk is judged once its twin's write has succeeded or failed
+        List<Row<LocationDto>> candidates = chunk;
+        while (!candidates.isEmpty()) {
+            final Set<String> chunkKeys = new HashSet<>();
+            final List<Row<LocationDto>> accepted = new ArrayList<>(candidates.size());
+            final List<Row<LocationDto>> deferred = new ArrayList<>();
+            for (Row<LocationDto> row : candidates) {
+                final LocationDto locationDto = row.value;
+                final String key = locationKey(locationDto.getName(), locationDto.getAddress());
+                if (existingKeys.contains(key)) {
+                    report.reject(row.number, "Location with name '" + locationDto.getName() + "' and address '" + locationDto.getAddress() + "' already exists");
+                }
+                else if (seenKeys.contains(key)) {
+                    report.reject(row.number, "Location with name '" + locationDto.getName() + "' and address '" + locationDto.getAddress() + "' appears earlier in this import");
+                }
+                else if (!chunkKeys.add(key)) {
+                    deferred.add(row);
+                }
+                else {
+                    accepted.add(row);
+                }
+            }
+
+            persist(accepted, report, this::toLocation, locationDtos -> { }, locations -> { }).forEach(location -> {
+                seenKeys.add(locationKey(location.getName(), location.getAddress()));
+                vehicleGeoIndexService.index(location);
+            });
+            candidates = deferred;
+        }
+    }
+
+    private void importRentals(List<Row<RentalDto>> chunk, Report report) {
+        final Set<Long> userIds = new HashSet<>(userRepository.findExistingIds(collect(chunk, RentalDto::getUser_id)));
+        final Set<Long> vehicleIds = new HashSet<>(vehicleRepository.findExistingIds(collect(chunk, RentalDto::getVehicle_id)));
+
+        final List<Row<RentalDto>> resolved = new ArrayList<>(chunk.size());
+        for (Row<RentalDto> row : chunk) {
+            final RentalDto rentalDto = row.value;
+            if (!rentalDto.getStart_time().isBefore(rentalDto.getEnd_time())) {
+                report.reject(row.number, "Start time must be before end time");
+            }
+            else if (!userIds.contains(rentalDto.getUser_id())) {
+                report.reject(row.number, "User not found with id: " + rentalDto.getUser_id());
+            }
+            else if (!vehicleIds.contains(rentalDto.getVehicle_id())) {
+                report.reject(row.number, "Vehicle not found with id: " + rentalDto.getVehicle_id());
+            }
+            else {
+                resolved.add(row);
+            }
+        }
+
+        // Blocking rentals accepted earlier in this chunk; earlier chunks are already in the availability index. Both only
+        // pre-filter, the write re-checks RENTALS under the vehicle locks
+        final Map<Long, List<RentalDto>> booked = new HashMap<>();
+        final List<Row<RentalDto>> accepted = new ArrayList<>(resolved.size());
+        for (Row<RentalDto> row : price(resolved, report)) {
+            final RentalDto rentalDto = row.value;
+            if (rentalAvailabilityService.isBlocking(rentalDto.getStatus())) {
+                if (!isFree(rentalDto, booked)) {
+                    report.reject(row.number, "Vehicle " + rentalDto.getVehicle_id() + " is already booked between " + rentalDto.getStart_time() + " and " + rentalDto.getEnd_time());
+                    continue;
+                }
+                booked.computeIfAbsent(rentalDto.getVehicle_id(), vehicleId -> new ArrayList<>()).add(rentalDto);
+            }
+            accepted.add(row);
+        }
+
+        final Consumer<List<RentalDto>> lockAndCheck = rentalDtos -> {
+            final List<RentalDto> blocking = rentalDtos.stream()
+                    .filter(rentalDto -> rentalAvailabilityService.isBlocking(rentalDto.getStatus()))
+                    .collect(Collectors.toList());
+            // Always in ascending id order, so two imports sharing vehicles cannot deadlock
+            blocking.stream()
+                    .map(RentalDto::getVehicle_id)
+                    .distinct()
+                    .sorted()
+                    .forEach(vehicleRepository::lockForBooking);
+            for (RentalDto rentalDto : blocking) {
+                rentalAvailabilityService.checkAvailableInRentals(rentalDto.getVehicle_id(), rentalDto.getStart_time(), rentalDto.getEnd_time(), null);
+            }
+        };
+        final Consumer<List<Rental>> inTransaction = rentals -> {
+            statsService.rentalsChanged(List.of(), rentals.stream()
+                    .map(statsService::rentalFact)
+                    .collect(Collectors.toList()));
+            rentals.forEach(rental -> outboxService.publish(OutboxEventType.RENTAL, rental.getId(), OutboxEventType.RENTAL_CREATED,
+                    rentalMapper.toRentalDto(rental)));
+        };
+        for (Rental rental : persist(accepted, report, this::toRental, lockAndCheck, inTransaction)) {
+            rentalAvailabilityService.index(rental);
+            rentalLifecycleService.track(rental);
+        }
+    }
+
+    /**
+     * Quotes the rows sent without a total price in one batch. If any of them cannot be priced the batch is redone
+     * row by row, against tariffs the first attempt already cached, to reject just those rows.
+     */
+    private List<Row<RentalDto>> price(List<Row<RentalDto>> rows, Report report) {
+        final List<Row<RentalDto>> unpriced = rows.stream()
+                .filter(row -> row.value.getTotal_price() == null)
+                .collect(Collectors.toList());
+        if (unpriced.isEmpty()) {
+            return rows;
+        }
+
+        try {
+            final List<RentalQuoteDto> quotes = rentalPricingService.quote(unpriced.stream()
+                    .map(row -> quoteItem(row.value))
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < unpriced.size(); i++) {
+                unpriced.get(i).value.setTotal_price(quotes.get(i).getTotal_price());
+            }
+            return rows;
+        }
+        catch (BadRequestException | NotFoundException e) {
+            final List<Row<RentalDto>> priced = new ArrayList<>(rows.size());
+            for (Row<RentalDto> row : rows) {
+                if (row.value.getTotal_price() == null) {
+                    try {
+                        row.value.setTotal_price(rentalPricingService.quote(quoteItem(row.value)).getTotal_price());
+                    }
+                    catch (BadRequestException | NotFoundException rowException) {
+                        report.reject(row.number, rowException.getMessage());
+                        continue;
+                    }
+                }
+                priced.add(row);
+            }
+            return priced;
+        }
+    }
+
+    private boolean isFree(RentalDto rentalDto, Map<Long, List<RentalDto>> booked) {
+        if (!rentalAvailabilityService.isAvailable(rentalDto.getVehicle_id(), rentalDto.getStart_time(), rentalDto.getEnd_time())) {
+            return false;
+        }
+        for (RentalDto other : booked.getOrDefault(rentalDto.getVehicle_id(), List.of())) {
+            if (other.getStart_time().isBefore(rentalDto.getEnd_time()) && rentalDto.getStart_time().isBefore(other.getEnd_time())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the rows in one transaction and returns the saved, detached entities; rows the database rejects are
+     * reported instead. {@code beforeWrite} runs in the transaction ahead of the inserts and rejects the rows by throwing
+     * a {@link ConflictException}; {@code inTransaction} sees the written entities before the commit.
+     */
+    private <D, E> List<E> persist(List<Row<D>> rows, Report report, Function<D, E> toEntity, Consumer<List<D>> beforeWrite,
+                                   Consumer<List<E>> inTransaction) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            final List<E> entities = write(rows, toEntity, beforeWrite, inTransaction);
+            report.imported += entities.size();
+            return entities;
+        }
+        catch (DataAccessException | PersistenceException | ConflictException e) {
+            final String reason = e instanceof ConflictException
+                    ? e.getMessage()
+                    : "Rejected by the database: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            if (rows.size() == 1) {
+                report.reject(rows.get(0).number, reason);
+                return List.of();
+            }
+
+            log.warn("Import chunk of {} rows rolled back, retrying row by row: {}", rows.size(), reason);
+            final List<E> entities = new ArrayList<>();
+            for (Row<D> row : rows) {
+                entities.addAll(persist(List.of(row), report, toEntity, beforeWrite, inTransaction));
+            }
+            return entities;
+        }
+    }
+
+    private <D, E> List<E> write(List<Row<D>> rows, Function<D, E> toEntity, Consumer<List<D>> beforeWrite, Consumer<List<E>> inTransaction) {
+        return transactionTemplate.execute(status -> {
+            beforeWrite.accept(rows.stream()
+                    .map(row -> row.value)
+                    .collect(Collectors.toList()));
+            entityManager.unwrap(Session.class).setJdbcBatchSize(properties.getJdbcBatchSize());
+
+            final List<E> entities = new ArrayList<>(rows.size());
+            for (Row<D> row : rows) {
+                final E entity = toEntity.apply(row.value);
+                entityManager.persist(entity);
+                entities.add(entity);
+            }
+            // Sends the inserts now and detaches the chunk, so the persistence context never outgrows one chunk
+            entityManager.flush();
+            inTransaction.accept(entities);
+            // Sends what inTransaction persisted, such as outbox events, before the clear drops it
+            entityManager.flush();
+            entityManager.clear();
+            return entities;
+        });
+    }
+
+    private <D> void read(InputStream body, String contentType, Class<D> type, Report report, Consumer<List<Row<D>>> importer) {
+        final int chunkSize = Math.max(1, properties.getChunkSize());
+
+        try (MappingIterator<D> iterator = open(body, contentType, type)) {
+            List<Row<D>> chunk = new ArrayList<>(chunkSize);
+            long rowNumber = 0;
+
+            while (hasNext(iterator, rowNumber, report)) {
+                rowNumber++;
+                report.totalRows = rowNumber;
+
+                final D value;
+                try {
+                    value = iterator.nextValue();
+                }
+                catch (JsonProcessingException e) {
+                    report.reject(rowNumber, "Malformed row: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                final String violations = violations(value);
+                if (violations != null) {
+                    report.reject(rowNumber, violations);
+                    continue;
+                }
+
+                chunk.add(new Row<>(rowNumber, value));
+                if (chunk.size() == chunkSize) {
+                    importer.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                importer.accept(chunk);
+            }
+        }
+        catch (IOException e) {
+            // The client went away or the body is not text; what was read so far stays imported
+            log.warn("Import body could not be read after {} rows", report.totalRows, e);
+            report.reject(report.totalRows + 1, "Could not read the request body, import stopped: " + e.getMessage());
+        }
+    }
+
+    private <D> MappingIterator<D> open(InputStream body, String contentType, Class<D> type) throws IOException {
+        final MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        }
+        catch (InvalidMediaTypeException e) {
+            throw new BadRequestException("Content type must be text/csv or application/x-ndjson");
+        }
+
+        if (TEXT_CSV.isCompatibleWith(mediaType)) {
+            return csvMapper.readerFor(type).with(CsvSchema.emptySchema().withHeader()).readValues(body);
+        }
+        if (NDJSON.isCompatibleWith(mediaType)) {
+            return objectMapper.readerFor(type).readValues(body);
+        }
+        throw new BadRequestException("Content type must be text/csv or application/x-ndjson");
+    }
+
+    private static boolean hasNext(MappingIterator<?> iterator, long rowNumber, Report report) {
+        try {
+            return iterator.hasNextValue();
+        }
+        catch (IOException e) {
+            // The parser cannot find the next row after a syntax error, so the rest of the body is skipped
+            final String message = e instanceof JsonProcessingException ? ((JsonProcessingException) e).getOriginalMessage() : e.getMessage();
+            report.totalRows = rowNumber + 1;
+            report.reject(rowNumber + 1, "Unreadable input, import stopped: " + message);
+            return false;
+        }
+    }
+
+    private <D> String violations(D value) {
+        if (value == null) {
+            return "Empty row";
+        }
+        final Set<ConstraintViolation<D>> violations = validator.validate(value);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private Vehicle toVehicle(VehicleDto vehicleDto) {
+        return Vehicle.builder()
+                .name(vehicleDto.getName())
+                .brand(vehicleDto.getBrand())
+                .type(vehicleDto.getType())
+                .licensePlate(vehicleDto.getLicense_plate())
+                .status(vehicleDto.getStatus())
+                .location(entityManager.getReference(Location.class, vehicleDto.getLocation_id()))
+                .pricePerDay(vehicleDto.getPrice_per_day())
+                .pricePerMonth(vehicleDto.getPrice_per_month())
+                .pricePerYear(vehicleDto.getPrice_per_year())
+                .image(vehicleDto.getImage())
+                .latitude(vehicleDto.getLatitude())
+                .longitude(vehicleDto.getLongitude())
+                .build();
+    }
+
+    private Location toLocation(LocationDto locationDto) {
+        return Location.builder()
+                .name(locationDto.getName())
+                .address(locationDto.getAddress())
+                .latitude(locationDto.getLatitude())
+                .longitude(locationDto.getLongitude())
+                .build();
+    }
+
+    private Rental toRental(RentalDto rentalDto) {
+        return Rental.builder()
+                .user(entityManager.getReference(User.class, rentalDto.getUser_id()))
+                .vehicle(entityManager.getReference(Vehicle.class, rentalDto.getVehicle_id()))
+                .startTime(rentalDto.getStart_time())
+                .endTime(rentalDto.getEnd_time())
+                .totalPrice(rentalDto.getTotal_price())
+                .status(rentalDto.getStatus())
+                .createdAt(rentalDto.getCreated_at() != null ? rentalDto.getCreated_at() : LocalDateTime.now())
+                .pickupLocation(rentalDto.getPickup_location())
+                .build();
+    }
+
+    private static RentalQuoteItemDto quoteItem(RentalDto rentalDto) {
+        return RentalQuoteItemDto.builder()
+                .vehicle_id(rentalDto.getVehicle_id())
+                .start_time(rentalDto.getStart_time())
+                .end_time(rentalDto.getEnd_time())
+                .build();
+    }
+
+    private static <D, K> Set<K> collect(List<Row<D>> rows, Function<D, K> key) {
+        return rows.stream()
+                .map(row -> key.apply(row.value))
+                .collect(Collectors.toSet());
+    }
+
+    // The unique index compares with the column's case-insensitive collation
+    private static String plateKey(String licensePlate) {
+        return licensePlate.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String locationKey(String name, String address) {
+        return name.trim().toLowerCase(Locale.ROOT) + '\n' + address.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Row<D> {
+
+        private final long number;
+        private final D value;
+
+        private Row(long number, D value) {
+            this.number = number;
+            this.value = value;
+        }
+    }
+
+    private static final class Report {
+
+        private final int maxErrors;
+        private final List<ImportErrorDto> errors = new ArrayList<>();
+        private long totalRows;
+        private long imported;
+        private long failed;
+
+        private Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void reject(long row, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(ImportErrorDto.builder().row(row).message(message).build());
+            }
+        }
+
+        private ImportReportDto toDto() {
+            // Database rejections are found after the checks on the same chunk
+            errors.sort(Comparator.comparingLong(ImportErrorDto::getRow));
+            return ImportReportDto.builder()
+                    .total_rows(totalRows)
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rimmelasghar.boilerplate.springboot.configuration.IdempotencyProperties;
+import com.rimmelasghar.boilerplate.springboot.model.IdempotencyRecord;
+import com.rimmelasghar.boilerplate.springboot.repository.IdempotencyRecordRepository;
+import com.rimmelasghar.boilerplate.springboot.security.utils.TokenHashUtils;
+import com.rimmelasghar.boilerplate.springboot.service.IdempotencyService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency-Key store: a Caffeine cache of finished responses in front of IDEMPOTENCY_KEYS.
+ * <p>
+ * A first request costs a cache probe, a putIfAbsent into the in-flight map and an INSERT IGNORE, without taking any
+ * lock. A duplicate arriving while the first one runs on this node waits on its future and replays its response; one
+ * arriving at another node finds the unfinished row and gets a 409 until the response is stored. Claims whose node died
+ * are taken over once {@code idempotency.lock-seconds} have passed.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final String CACHE_NAME = "idempotencyResponses";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final IdempotencyProperties properties;
+
+    private final Cache<String, StoredResponse> responses;
+
+    // Requests executing on this node, by key hash; duplicates wait on the entry instead of executing
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executedCounter;
+
+    private final Counter replayedCounter;
+
+    private final Counter rejectedCounter;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository, TransactionTemplate transactionTemplate,
+                                  IdempotencyProperties properties, MeterRegistry meterRegistry) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+
+        //@formatter:off
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getTtlSeconds()))
+                .recordStats()
+                .build();
+        //@formatter:on
+
+        this.executedCounter = Counter.builder("idempotency.requests").tag("outcome", "executed").register(meterRegistry);
+        this.replayedCounter = Counter.builder("idempotency.requests").tag("outcome", "replayed").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("idempotency.requests").tag("outcome", "rejected").register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, CACHE_NAME);
+    }
+
+    @Override
+    public Claim claim(String scope, String key, String requestHash) {
+        final String keyHash = TokenHashUtils.sha256(scope + '\n' + key);
+
+        // A waiter whose request was released retries once; if that one fails too the client has to come back
+        for (int attempt = 0; attempt < 2; attempt++) {
+            final StoredResponse cached = responses.getIfPresent(keyHash);
+            if (cached != null) {
+                return replay(keyHash, requestHash, cached);
+            }
+
+            final InFlight mine = new InFlight(requestHash);
+            final InFlight running = inFlight.putIfAbsent(keyHash, mine);
+            if (running == null) {
+                return claimInDatabase(keyHash, requestHash);
+            }
+
+            if (!running.requestHash.equals(requestHash)) {
+                return reject(Outcome.KEY_REUSED, keyHash, requestHash);
+            }
+            final StoredResponse response = await(running);
+            if (response != null) {
+                return replay(keyHash, requestHash, response);
+            }
+            if (!running.done.isDone()) {
+                return reject(Outcome.IN_PROGRESS, keyHash, requestHash);
+            }
+        }
+        return reject(Outcome.IN_PROGRESS, keyHash, requestHash);
+    }
+
+    /**
+     * Stores the response for replay and hands it to the duplicates waiting on this node.
+     */
+    @Override
+    public void complete(Claim claim, StoredResponse response) {
+        final LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(properties.getTtlSeconds());
+        try {
+            final Integer stored = transactionTemplate.execute(status -> idempotencyRecordRepository.complete(claim.getKeyHash(), claim.getRequestHash(),
+                    response.getStatus(), response.getContentType(), response.getBody(), expiresAt));
+            if (stored == null || stored == 0) {
+                log.warn("Idempotency claim was taken over before its request finished; it took longer than {} s", properties.getLockSeconds());
+            }
+        }
+        catch (RuntimeException e) {
+            // The request itself succeeded; this node still replays it, other nodes re-execute once the claim lapses
+            log.warn("Could not store the idempotent response", e);
+        }
+        finally {
+            responses.put(claim.getKeyHash(), response);
+            finish(claim.getKeyHash(), response);
+        }
+    }
+
+    /**
+     * Drops the claim so that a retry executes the request again.
+     */
+    @Override
+    public void release(Claim claim) {
+        try {
+            transactionTemplate.execute(status -> idempotencyRecordRepository.release(claim.getKeyHash(), claim.getRequestHash()));
+        }
+        finally {
+            finish(claim.getKeyHash(), null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-millis:600000}")
+    public void purgeExpired() {
+        final LocalDateTime now = LocalDateTime.now();
+        final int batchSize = Math.max(1, properties.getPurgeBatchSize());
+
+        long purged = 0;
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> idempotencyRecordRepository.deleteExpired(now, batchSize));
+            purged += deleted == null ? 0 : deleted;
+        } while (deleted != null && deleted == batchSize);
+
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private Claim claimInDatabase(String keyHash, String requestHash) {
+        final Claim claim;
+        try {
+            claim = transactionTemplate.execute(status -> claimRow(keyHash, requestHash));
+        }
+        catch (RuntimeException e) {
+            finish(keyHash, null);
+            throw e;
+        }
+
+        if (claim.getOutcome() == Outcome.EXECUTE) {
+            executedCounter.increment();
+            return claim;
+        }
+        if (claim.getOutcome() == Outcome.REPLAY) {
+            responses.put(keyHash, claim.getResponse());
+            replayedCounter.increment();
+        }
+        else {
+            rejectedCounter.increment();
+        }
+        finish(keyHash, claim.getResponse());
+        return claim;
+    }
+
+    private Claim claimRow(String keyHash, String requestHash) {
+        final LocalDateTime now = LocalDateTime.now();
+        final LocalDateTime lockedUntil = now.plusSeconds(properties.getLockSeconds());
+        final LocalDateTime expiresAt = now.plusSeconds(properties.getTtlSeconds());
+
+        // Abandoned claims and expired responses are taken over in place
+        if (idempotencyRecordRepository.claim(keyHash, requestHash, lockedUntil, expiresAt) == 1
+                || idempotencyRecordRepository.takeOver(keyHash, requestHash, now, lockedUntil, expiresAt) == 1) {
+            return new Claim(Outcome.EXECUTE, keyHash, requestHash, null);
+        }
+
+        final IdempotencyRecord record = idempotencyRecordRepository.findById(keyHash).orElse(null);
+        if (record == null || record.getStatusCode() == null) {
+            // Running on another node, or released by it a moment ago
+            return new Claim(Outcome.IN_PROGRESS, keyHash, requestHash, null);
+        }
+        if (!record.getRequestHash().equals(requestHash)) {
+            return new Claim(Outcome.KEY_REUSED, keyHash, requestHash, null);
+        }
+        final StoredResponse response = new StoredResponse(record.getStatusCode(), record.getContentType(), record.getResponseBody(), record.getRequestHash());
+        return new Claim(Outcome.REPLAY, keyHash, requestHash, response);
+    }
+
+    private Claim replay(String keyHash, String requestHash, StoredResponse response) {
+        if (!response.getRequestHash().equals(requestHash)) {
+            return reject(Outcome.KEY_REUSED, keyHash, requestHash);
+        }
+        replayedCounter.increment();
+        return new Claim(Outcome.REPLAY, keyHash, requestHash, response);
+    }
+
+    private Claim reject(Outcome outcome, String keyHash, String requestHash) {
+        rejectedCounter.increment();
+        return new Claim(outcome, keyHash, requestHash, null);
+    }
+
+    private StoredResponse await(InFlight running) {
+        try {
+            return running.done.get(properties.getWaitMillis(), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (TimeoutException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    // Only the claim's owner calls this, so the entry under the key is its own
+    private void finish(String keyHash, StoredResponse response) {
+        final InFlight running = inFlight.remove(keyHash);
+        if (running != null) {
+            running.done.complete(response);
+        }
+    }
+
+    private static final class InFlight {
+
+        private final String requestHash;
+
+        // Completed with the response, or with null if the request was released
+        private final CompletableFuture<StoredResponse> done = new CompletableFuture<>();
+
+        private InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+}
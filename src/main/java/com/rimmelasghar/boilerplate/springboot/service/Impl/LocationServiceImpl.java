@@ -7,6 +7,7 @@ import com.rimmelasghar.boilerplate.springboot.mapper.LocationMapper;
 import com.rimmelasghar.boilerplate.springboot.model.Location;
 import com.rimmelasghar.boilerplate.springboot.repository.LocationRepository;
 import com.rimmelasghar.boilerplate.springboot.service.LocationService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleGeoIndexService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -16,6 +17,7 @@ public class LocationServiceImpl implements LocationService {
 
     private final LocationRepository locationRepository;
     private final LocationMapper locationMapper;
+    private final VehicleGeoIndexService vehicleGeoIndexService;
 
     @Override
     public LocationDto createLocation(LocationDto locationDto) {
@@ -30,6 +32,7 @@ public class LocationServiceImpl implements LocationService {
         
         // Save location
         Location savedLocation = locationRepository.save(location);
+        vehicleGeoIndexService.index(savedLocation);
         
         // Return saved location as DTO
         return locationMapper.toLocationDto(savedLocation);
@@ -63,6 +66,7 @@ public class LocationServiceImpl implements LocationService {
         
         // Save updated location
         Location updatedLocation = locationRepository.save(location);
+        vehicleGeoIndexService.index(updatedLocation);
         
         // Return updated location as DTO
         return locationMapper.toLocationDto(updatedLocation);
@@ -77,5 +81,6 @@ public class LocationServiceImpl implements LocationService {
         
         // Delete location
         locationRepository.deleteById(id);
+        vehicleGeoIndexService.removeLocation(id);
     }
 }
@@ -0,0 +1,289 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rimmelasghar.boilerplate.springboot.configuration.OutboxProperties;
+import com.rimmelasghar.boilerplate.springboot.model.OutboxEvent;
+import com.rimmelasghar.boilerplate.springboot.repository.OutboxEventRepository;
+import com.rimmelasghar.boilerplate.springboot.service.OutboxEventConsumer;
+import com.rimmelasghar.boilerplate.springboot.service.OutboxService;
+import com.rimmelasghar.boilerplate.springboot.service.SchedulerLeaseService;
+import com.rimmelasghar.boilerplate.springboot.utils.RingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox: writers add an OUTBOX_EVENTS row in their own transaction, and the node holding the
+ * {@value #LEASE_NAME} lease delivers the rows to the {@link OutboxEventConsumer} beans after commit.
+ * <p>
+ * A scheduled relay reads due rows in batches and offers them to a bounded {@link RingBuffer}; a single dispatcher
+ * thread drains it, calls the consumers, then deletes the delivered rows and pushes the failed ones back with
+ * exponential backoff, one transaction per batch. Publishing therefore costs a request one batched INSERT however
+ * many consumers there are. A row is only deleted after every consumer handled it, so delivery is at least once, and
+ * events of one aggregate are not ordered once a retry is involved.
+ */
+@Slf4j
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    private static final String LEASE_NAME = "outbox-relay";
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final SchedulerLeaseService schedulerLeaseService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final OutboxProperties properties;
+
+    private final List<OutboxEventConsumer> consumers;
+
+    private final Duration leaseDuration;
+
+    // Written by the relay, read by the dispatcher
+    private final RingBuffer<Event> ring;
+
+    // Rows in the ring or being dispatched, so the relay does not read them again meanwhile
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Timer> consumerLag = new HashMap<>();
+
+    private final Counter deliveredCounter;
+
+    private final Counter retriedCounter;
+
+    private volatile boolean leader;
+
+    private volatile boolean running;
+
+    // Age of the oldest due row at the last relay
+    private volatile long relayLagMillis;
+
+    private long leaseRenewAt;
+
+    private Thread dispatcher;
+
+    public OutboxServiceImpl(OutboxEventRepository outboxEventRepository, SchedulerLeaseService schedulerLeaseService,
+                             TransactionTemplate transactionTemplate, ObjectMapper objectMapper, OutboxProperties properties,
+                             ObjectProvider<OutboxEventConsumer> consumers, MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.schedulerLeaseService = schedulerLeaseService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.consumers = consumers.orderedStream().collect(Collectors.toList());
+        this.leaseDuration = Duration.ofSeconds(properties.getLeaseSeconds());
+        this.ring = new RingBuffer<>(properties.getRingSize());
+
+        for (OutboxEventConsumer consumer : this.consumers) {
+            consumerLag.put(consumer.name(), Timer.builder("outbox.consumer.lag")
+                    .description("Time from an event's commit to its successful handling")
+                    .tag("consumer", consumer.name())
+                    .register(meterRegistry));
+        }
+        this.deliveredCounter = Counter.builder("outbox.events").tag("result", "delivered").register(meterRegistry);
+        this.retriedCounter = Counter.builder("outbox.events").tag("result", "retried").register(meterRegistry);
+        Gauge.builder("outbox.ring.size", ring, RingBuffer::size).register(meterRegistry);
+        Gauge.builder("outbox.relay.lag", this, service -> service.relayLagMillis / 1000.0).baseUnit("seconds").register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        final String json;
+        try {
+            json = payload == null ? null : objectMapper.writeValueAsString(payload);
+        }
+        catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the " + eventType + " event", e);
+        }
+
+        final LocalDateTime now = LocalDateTime.now();
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .eventType(eventType)
+                .payload(json)
+                .createdAt(now)
+                .availableAt(now)
+                .build());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "outbox-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (dispatcher != null) {
+            LockSupport.unpark(dispatcher);
+            // Events still in the ring stay in the table and are relayed again
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        if (leader) {
+            // Lets another node take over without waiting for the lease to lapse
+            schedulerLeaseService.release(LEASE_NAME);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-millis:500}")
+    public void relay() {
+        if (!running || !holdLease()) {
+            return;
+        }
+        final int free = ring.capacity() - inFlight.size();
+        if (free <= 0) {
+            return;
+        }
+
+        // In-flight rows are still due, so they come back first and are skipped
+        final LocalDateTime now = LocalDateTime.now();
+        final List<OutboxEvent> due = outboxEventRepository.findDue(now, PageRequest.of(0, Math.min(properties.getBatchSize(), free) + inFlight.size()));
+        relayLagMillis = due.isEmpty() ? 0 : Math.max(0, Duration.between(due.get(0).getCreatedAt(), now).toMillis());
+
+        int relayed = 0;
+        for (OutboxEvent outboxEvent : due) {
+            if (!inFlight.add(outboxEvent.getId())) {
+                continue;
+            }
+            if (!ring.offer(toEvent(outboxEvent))) {
+                inFlight.remove(outboxEvent.getId());
+                break;
+            }
+            relayed++;
+        }
+        if (relayed > 0) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    private boolean holdLease() {
+        final long now = System.currentTimeMillis();
+        if (now < leaseRenewAt) {
+            return leader;
+        }
+        // Holders renew at half-life; other nodes retry at the same pace rather than every poll
+        leaseRenewAt = now + leaseDuration.toMillis() / 2;
+
+        boolean acquired;
+        try {
+            acquired = schedulerLeaseService.tryAcquire(LEASE_NAME, leaseDuration);
+        }
+        catch (RuntimeException e) {
+            log.warn("Could not renew the outbox relay lease", e);
+            acquired = false;
+        }
+
+        if (acquired != leader) {
+            leader = acquired;
+            log.info(acquired ? "Acquired the outbox relay lease" : "Lost the outbox relay lease");
+        }
+        return leader;
+    }
+
+    private void dispatchLoop() {
+        final List<Event> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            if (ring.drain(batch::add, properties.getBatchSize()) == 0) {
+                // Woken early by the relay when it hands over events
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(properties.getPollIntervalMillis()));
+                continue;
+            }
+            try {
+                dispatch(batch);
+            }
+            catch (RuntimeException e) {
+                // Rows not deleted are relayed again
+                log.error("Could not record the delivery of {} outbox events", batch.size(), e);
+            }
+            finally {
+                batch.forEach(event -> inFlight.remove(event.getId()));
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<Event> batch) {
+        final List<Long> delivered = new ArrayList<>(batch.size());
+        final Map<Long, LocalDateTime> postponed = new LinkedHashMap<>();
+        for (Event event : batch) {
+            if (deliver(event)) {
+                delivered.add(event.getId());
+            }
+            else {
+                postponed.put(event.getId(), LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(event.getAttempts()))));
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                outboxEventRepository.deleteByIds(delivered);
+            }
+            postponed.forEach(outboxEventRepository::postpone);
+        });
+        deliveredCounter.increment(delivered.size());
+        retriedCounter.increment(postponed.size());
+    }
+
+    private boolean deliver(Event event) {
+        for (OutboxEventConsumer consumer : consumers) {
+            if (!consumer.supports(event)) {
+                continue;
+            }
+            try {
+                consumer.handle(event);
+            }
+            catch (RuntimeException e) {
+                log.warn("Outbox consumer {} failed on {} {} (attempt {})", consumer.name(), event.getEventType(), event.getId(), event.getAttempts() + 1, e);
+                return false;
+            }
+            consumerLag.get(consumer.name()).record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+        }
+        return true;
+    }
+
+    private long backoffMillis(int attempts) {
+        final long backoff = properties.getRetryBaseMillis() << Math.min(attempts, 20);
+        return Math.min(properties.getRetryMaxMillis(), backoff);
+    }
+
+    private static Event toEvent(OutboxEvent outboxEvent) {
+        return new Event(outboxEvent.getId(), outboxEvent.getAggregateType(), outboxEvent.getAggregateId(), outboxEvent.getEventType(),
+                outboxEvent.getPayload(), outboxEvent.getCreatedAt(), outboxEvent.getAttempts());
+    }
+}
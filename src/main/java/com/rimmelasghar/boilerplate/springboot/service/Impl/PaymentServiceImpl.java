@@ -1,31 +1,46 @@
 package com.rimmelasghar.boilerplate.springboot.service.Impl;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.dto.PaymentDto;
 import com.rimmelasghar.boilerplate.springboot.dto.PaymentUpdateDto;
 import com.rimmelasghar.boilerplate.springboot.exceptions.NotFoundException;
 import com.rimmelasghar.boilerplate.springboot.mapper.PaymentMapper;
+import com.rimmelasghar.boilerplate.springboot.model.OutboxEventType;
 import com.rimmelasghar.boilerplate.springboot.model.Payment;
+import com.rimmelasghar.boilerplate.springboot.repository.DtoProjection;
+import com.rimmelasghar.boilerplate.springboot.repository.KeysetQuery;
 import com.rimmelasghar.boilerplate.springboot.repository.PaymentRepository;
+import com.rimmelasghar.boilerplate.springboot.service.OutboxService;
 import com.rimmelasghar.boilerplate.springboot.service.PaymentService;
+import com.rimmelasghar.boilerplate.springboot.service.StatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.criteria.Predicate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
 
+    // Column order follows the PaymentDto all-args constructor
+    static final DtoProjection<Payment, PaymentDto> PAYMENT_DTO = DtoProjection.of(Payment.class, PaymentDto.class, PaymentDto::getId,
+            "id", "rental.id", "user.id", "amount", "paymentMethod", "paymentDate", "status", "createdAt");
+
     private final PaymentRepository paymentRepository;
     private final PaymentMapper paymentMapper;
+    private final KeysetQuery keysetQuery;
+    private final StatsService statsService;
+    private final OutboxService outboxService;
 
+    // Transactional so the stats rollups and the outbox change with the payment or not at all
     @Override
+    @Transactional
     public PaymentDto createPayment(PaymentDto paymentDto) {
         // Set created_at if not provided
         if (paymentDto.getCreated_at() == null) {
@@ -42,53 +57,60 @@ public class PaymentServiceImpl implements PaymentService {
         
         // Save payment
         Payment savedPayment = paymentRepository.save(payment);
+        statsService.paymentChanged(null, statsService.paymentFact(savedPayment));
+        PaymentDto savedPaymentDto = paymentMapper.toPaymentDto(savedPayment);
+        outboxService.publish(OutboxEventType.PAYMENT, savedPayment.getId(), OutboxEventType.PAYMENT_CREATED, savedPaymentDto);
         
         // Return saved payment as DTO
-        return paymentMapper.toPaymentDto(savedPayment);
+        return savedPaymentDto;
     }
 
     @Override
     public PaymentDto getPaymentById(Long id) {
-        Payment payment = paymentRepository.findById(id)
+        // Selects the DTO columns only, without loading the associated entities
+        return keysetQuery.findById(PAYMENT_DTO, id)
                 .orElseThrow(() -> new NotFoundException("Payment not found with id: " + id));
-        
-        return paymentMapper.toPaymentDto(payment);
     }
 
     @Override
     public List<PaymentDto> getAllPayments() {
-        return paymentRepository.findAll().stream()
-                .map(paymentMapper::toPaymentDto)
-                .collect(Collectors.toList());
+        return keysetQuery.findCapped(PAYMENT_DTO, null);
     }
 
     @Override
     public List<PaymentDto> getPaymentsByUserId(Long userId) {
-        return paymentRepository.findByUserId(userId).stream()
-                .map(paymentMapper::toPaymentDto)
-                .collect(Collectors.toList());
+        return keysetQuery.findCapped(PAYMENT_DTO, paymentFilters(userId, null, null, null, null, null, null, null));
     }
 
     @Override
     public List<PaymentDto> getPaymentsByRentalId(Long rentalId) {
-        return paymentRepository.findByRentalId(rentalId).stream()
-                .map(paymentMapper::toPaymentDto)
-                .collect(Collectors.toList());
+        return keysetQuery.findCapped(PAYMENT_DTO, paymentFilters(null, rentalId, null, null, null, null, null, null));
     }
 
     @Override
     public List<PaymentDto> getPaymentsByStatus(String status) {
-        return paymentRepository.findByStatus(status).stream()
-                .map(paymentMapper::toPaymentDto)
-                .collect(Collectors.toList());
+        return keysetQuery.findCapped(PAYMENT_DTO, paymentFilters(null, null, status, null, null, null, null, null));
     }
     
     @Override
     public List<PaymentDto> getPaymentsWithFilters(Long userId, Long rentalId, String status,
                                                  String paymentMethod, BigDecimal minAmount, BigDecimal maxAmount,
                                                  LocalDateTime paymentDateFrom, LocalDateTime paymentDateTo) {
-        
-        Specification<Payment> specification = (root, query, criteriaBuilder) -> {
+        return keysetQuery.findCapped(PAYMENT_DTO, paymentFilters(userId, rentalId, status, paymentMethod, minAmount, maxAmount, paymentDateFrom, paymentDateTo));
+    }
+
+    @Override
+    public CursorPageDto<PaymentDto> getPaymentsPage(Long userId, Long rentalId, String status,
+                                                 String paymentMethod, BigDecimal minAmount, BigDecimal maxAmount,
+                                                 LocalDateTime paymentDateFrom, LocalDateTime paymentDateTo,
+                                                 String after, Integer limit) {
+        return keysetQuery.findPage(PAYMENT_DTO, paymentFilters(userId, rentalId, status, paymentMethod, minAmount, maxAmount, paymentDateFrom, paymentDateTo), after, limit);
+    }
+
+    private Specification<Payment> paymentFilters(Long userId, Long rentalId, String status,
+                                                 String paymentMethod, BigDecimal minAmount, BigDecimal maxAmount,
+                                                 LocalDateTime paymentDateFrom, LocalDateTime paymentDateTo) {
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
             
             // Filter by userId if provided
@@ -129,36 +151,41 @@ public class PaymentServiceImpl implements PaymentService {
             
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
-        
-        return paymentRepository.findAll(specification).stream()
-                .map(paymentMapper::toPaymentDto)
-                .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional
     public PaymentDto updatePayment(Long id, PaymentUpdateDto paymentUpdateDto) {
         // Find payment by id
         Payment payment = paymentRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Payment not found with id: " + id));
         
+        StatsService.PaymentFact previous = statsService.paymentFact(payment);
+
         // Update payment properties
         paymentMapper.updatePaymentFromDto(paymentUpdateDto, payment);
         
         // Save updated payment
         Payment updatedPayment = paymentRepository.save(payment);
+        statsService.paymentChanged(previous, statsService.paymentFact(updatedPayment));
+        PaymentDto updatedPaymentDto = paymentMapper.toPaymentDto(updatedPayment);
+        outboxService.publish(OutboxEventType.PAYMENT, id, OutboxEventType.PAYMENT_UPDATED, updatedPaymentDto);
         
         // Return updated payment as DTO
-        return paymentMapper.toPaymentDto(updatedPayment);
+        return updatedPaymentDto;
     }
 
     @Override
+    @Transactional
     public void deletePayment(Long id) {
-        // Check if payment exists
-        if (!paymentRepository.existsById(id)) {
-            throw new NotFoundException("Payment not found with id: " + id);
-        }
+        // Loaded rather than checked, since the rollups need what it contributed
+        Payment payment = paymentRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Payment not found with id: " + id));
+        StatsService.PaymentFact previous = statsService.paymentFact(payment);
         
         // Delete payment
-        paymentRepository.deleteById(id);
+        paymentRepository.delete(payment);
+        statsService.paymentChanged(previous, null);
+        outboxService.publish(OutboxEventType.PAYMENT, id, OutboxEventType.PAYMENT_DELETED, paymentMapper.toPaymentDto(payment));
     }
 }
@@ -0,0 +1,264 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rimmelasghar.boilerplate.springboot.configuration.RatingProperties;
+import com.rimmelasghar.boilerplate.springboot.dto.RatingDto;
+import com.rimmelasghar.boilerplate.springboot.model.RatingAggregate;
+import com.rimmelasghar.boilerplate.springboot.model.Review;
+import com.rimmelasghar.boilerplate.springboot.repository.RatingAggregateRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.RentalRepository;
+import com.rimmelasghar.boilerplate.springboot.service.RatingService;
+import com.rimmelasghar.boilerplate.springboot.service.SchedulerLeaseService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleCatalogService;
+import com.rimmelasghar.boilerplate.springboot.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Serves review counts, averages and star histograms per vehicle, location and reviewer from RATING_AGGREGATES, with
+ * a Caffeine cache in front so listing pages never touch the reviews.
+ * <p>
+ * Review writes pass the review's before and after {@link RatingFact facts}; the difference is applied as
+ * single-statement upserts in the writer's transaction, in a fixed key order, and the touched entries are evicted from
+ * this node's cache once it commits. Other nodes see the change when their entry expires. A nightly rebuild, on one
+ * node, recomputes everything from the reviews, also moving location totals after a vehicle changes location.
+ */
+@Slf4j
+@Service
+public class RatingServiceImpl implements RatingService {
+
+    private static final String LEASE_NAME = "rating-rebuild";
+
+    private static final String CACHE_NAME = "ratingAggregates";
+
+    private static final Comparator<RatingAggregate.Key> KEY_ORDER =
+            Comparator.comparing(RatingAggregate.Key::getScope).thenComparing(RatingAggregate.Key::getSubjectId);
+
+    private static final Totals NONE = new Totals(0, 0, new long[5]);
+
+    private final RatingAggregateRepository ratingAggregateRepository;
+
+    private final RentalRepository rentalRepository;
+
+    private final SchedulerLeaseService schedulerLeaseService;
+
+    private final VehicleCatalogService vehicleCatalogService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final RatingProperties properties;
+
+    // Subjects without reviews are cached as NONE, so they do not go to the database either
+    private final Cache<RatingAggregate.Key, Totals> cache;
+
+    public RatingServiceImpl(RatingAggregateRepository ratingAggregateRepository, RentalRepository rentalRepository,
+                             SchedulerLeaseService schedulerLeaseService, VehicleCatalogService vehicleCatalogService,
+                             TransactionTemplate transactionTemplate, RatingProperties properties, MeterRegistry meterRegistry) {
+        this.ratingAggregateRepository = ratingAggregateRepository;
+        this.rentalRepository = rentalRepository;
+        this.schedulerLeaseService = schedulerLeaseService;
+        this.vehicleCatalogService = vehicleCatalogService;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+
+        //@formatter:off
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getCacheTtlSeconds()))
+                .recordStats()
+                .build();
+        //@formatter:on
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public RatingDto getVehicleRating(Long vehicleId) {
+        return get(RatingAggregate.VEHICLE, List.of(vehicleId)).get(vehicleId);
+    }
+
+    @Override
+    public Map<Long, RatingDto> getVehicleRatings(Collection<Long> vehicleIds) {
+        return get(RatingAggregate.VEHICLE, vehicleIds);
+    }
+
+    @Override
+    public RatingDto getLocationRating(Long locationId) {
+        return get(RatingAggregate.LOCATION, List.of(locationId)).get(locationId);
+    }
+
+    @Override
+    public RatingDto getUserRating(Long userId) {
+        return get(RatingAggregate.USER, List.of(userId)).get(userId);
+    }
+
+    @Override
+    public RatingFact ratingFact(Review review) {
+        final RentalRepository.RentalVehicle vehicle = review.getRental() == null ? null
+                : rentalRepository.findVehicleById(review.getRental().getId()).orElse(null);
+        return new RatingFact(vehicle == null ? null : vehicle.getVehicleId(), vehicle == null ? null : vehicle.getLocationId(),
+                review.getUser() == null ? null : review.getUser().getId(), review.getRating());
+    }
+
+    @Override
+    @Transactional
+    public void reviewChanged(RatingFact before, RatingFact after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+
+        final Map<RatingAggregate.Key, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        collect(before, -1, deltas);
+        collect(after, 1, deltas);
+        deltas.values().removeIf(Delta::isZero);
+
+        deltas.forEach((key, delta) -> ratingAggregateRepository.add(key.getScope(), key.getSubjectId(), delta.ratings, delta.ratingSum,
+                delta.stars[0], delta.stars[1], delta.stars[2], delta.stars[3], delta.stars[4]));
+        TransactionUtils.afterCommit(() -> cache.invalidateAll(deltas.keySet()));
+
+        // Catalog responses embed the vehicle rating
+        deltas.keySet().stream()
+                .filter(key -> RatingAggregate.VEHICLE.equals(key.getScope()))
+                .forEach(key -> vehicleCatalogService.evict(key.getSubjectId()));
+    }
+
+    @Scheduled(cron = "${rating.rebuild-cron:0 45 3 * * *}")
+    public void scheduledRebuild() {
+        // The lease is kept until it lapses, so nodes whose schedule fires moments later skip this run
+        if (schedulerLeaseService.tryAcquire(LEASE_NAME, Duration.ofSeconds(properties.getRebuildLeaseSeconds()))) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recomputes every aggregate from the reviews. Review writes wait on its locks until it commits.
+     */
+    @Override
+    public void rebuild() {
+        final long startedAt = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            ratingAggregateRepository.deleteAllInBatch();
+            ratingAggregateRepository.rebuildVehicles();
+            ratingAggregateRepository.rebuildLocations();
+            ratingAggregateRepository.rebuildUsers();
+        });
+        cache.invalidateAll();
+        vehicleCatalogService.evictAll();
+        log.info("Rebuilt rating aggregates in {} ms", System.currentTimeMillis() - startedAt);
+    }
+
+    private Map<Long, RatingDto> get(String scope, Collection<Long> subjectIds) {
+        final Set<RatingAggregate.Key> keys = subjectIds.stream()
+                .filter(Objects::nonNull)
+                .map(subjectId -> new RatingAggregate.Key(scope, subjectId))
+                .collect(Collectors.toSet());
+
+        // Misses are loaded with one IN query
+        final Map<RatingAggregate.Key, Totals> totals = cache.getAll(keys, missing -> load(scope, missing));
+
+        final Map<Long, RatingDto> ratings = new HashMap<>(totals.size() * 2);
+        totals.forEach((key, value) -> ratings.put(key.getSubjectId(), value.toDto()));
+        return ratings;
+    }
+
+    private Map<RatingAggregate.Key, Totals> load(String scope, Iterable<? extends RatingAggregate.Key> keys) {
+        final Map<RatingAggregate.Key, Totals> loaded = new HashMap<>();
+        final List<Long> subjectIds = new ArrayList<>();
+        for (RatingAggregate.Key key : keys) {
+            loaded.put(key, NONE);
+            subjectIds.add(key.getSubjectId());
+        }
+
+        for (RatingAggregate aggregate : ratingAggregateRepository.findByScopeAndSubjectIdIn(scope, subjectIds)) {
+            loaded.put(new RatingAggregate.Key(scope, aggregate.getSubjectId()), new Totals(aggregate.getRatings(), aggregate.getRatingSum(),
+                    new long[]{aggregate.getStars1(), aggregate.getStars2(), aggregate.getStars3(), aggregate.getStars4(), aggregate.getStars5()}));
+        }
+        return loaded;
+    }
+
+    private static void collect(RatingFact fact, int sign, Map<RatingAggregate.Key, Delta> deltas) {
+        if (fact == null) {
+            return;
+        }
+        add(deltas, RatingAggregate.VEHICLE, fact.getVehicleId(), sign, fact.getRating());
+        add(deltas, RatingAggregate.LOCATION, fact.getLocationId(), sign, fact.getRating());
+        add(deltas, RatingAggregate.USER, fact.getUserId(), sign, fact.getRating());
+    }
+
+    private static void add(Map<RatingAggregate.Key, Delta> deltas, String scope, Long subjectId, int sign, int rating) {
+        if (subjectId != null) {
+            deltas.computeIfAbsent(new RatingAggregate.Key(scope, subjectId), key -> new Delta()).add(sign, rating);
+        }
+    }
+
+    private static final class Delta {
+
+        private long ratings;
+        private long ratingSum;
+        private final long[] stars = new long[5];
+
+        private void add(int sign, int rating) {
+            ratings += sign;
+            ratingSum += (long) sign * rating;
+            // Reviews are validated to 1..5; anything else still counts towards the average
+            if (rating >= 1 && rating <= 5) {
+                stars[rating - 1] += sign;
+            }
+        }
+
+        private boolean isZero() {
+            if (ratings != 0 || ratingSum != 0) {
+                return false;
+            }
+            for (long count : stars) {
+                if (count != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Totals {
+
+        private final long ratings;
+        private final long ratingSum;
+        private final long[] stars;
+
+        private Totals(long ratings, long ratingSum, long[] stars) {
+            this.ratings = ratings;
+            this.ratingSum = ratingSum;
+            this.stars = stars;
+        }
+
+        private RatingDto toDto() {
+            final Map<Integer, Long> histogram = new LinkedHashMap<>();
+            for (int star = 1; star <= 5; star++) {
+                histogram.put(star, stars[star - 1]);
+            }
+            return RatingDto.builder()
+                    .count(ratings)
+                    .average(ratings > 0 ? Math.round(ratingSum * 100.0 / ratings) / 100.0 : null)
+                    .histogram(histogram)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.RentalAvailabilityProperties;
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
+import com.rimmelasghar.boilerplate.springboot.exceptions.ConflictException;
+import com.rimmelasghar.boilerplate.springboot.exceptions.NotFoundException;
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+import com.rimmelasghar.boilerplate.springboot.repository.RentalRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.VehicleRepository;
+import com.rimmelasghar.boilerplate.springboot.service.RentalAvailabilityService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of booked {@code [startTime, endTime)} ranges per vehicle, so overlap checks and fleet-wide
+ * availability never scan the RENTALS table.
+ * <p>
+ * Each vehicle keeps its bookings in an array ordered by start time, alongside the running maximum of their end times.
+ * An overlap query binary-searches the last booking starting before the requested end and walks back only while that
+ * running maximum still reaches the requested start, so one long booking does not drag every query into a scan. Bookings
+ * of one vehicle do not overlap each other, which bounds the walk to a step or two: O(log n). Writes copy the array,
+ * keeping readers lock-free. Bookings that have already ended are loaded neither at startup nor kept afterwards.
+ * <p>
+ * The index is per node, so it only fast-rejects. {@link #reserve} is what makes bookings safe: a striped lock orders
+ * callers on this node without a global lock, and bumping the vehicle's {@code booking_version} row-locks it until
+ * commit, so bookings from other nodes queue behind the same row. Under that lock the overlap is re-checked against
+ * RENTALS, which is authoritative everywhere.
+ * <p>
+ * Bookings written on this node reach the index straight away. A periodic refresh reloads the active bookings from
+ * RENTALS to pick up those written, changed or cancelled on other nodes; changes made here while it runs are replayed
+ * onto what it loaded before the index is brought in line with it.
+ */
+@Slf4j
+@Service
+public class RentalAvailabilityServiceImpl implements RentalAvailabilityService {
+
+    private final RentalRepository rentalRepository;
+
+    private final VehicleRepository vehicleRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<String> nonBlockingStatuses;
+
+    private final ReentrantLock[] bookingLocks;
+
+    private final Timer reservationTimer;
+
+    private final ConcurrentHashMap<Long, VehicleTimeline> timelines = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, Booking> bookings = new ConcurrentHashMap<>();
+
+    // Serialises index writes against the end of a refresh
+    private final Object changeLock = new Object();
+
+    // Guarded by changeLock; changes to replay onto the bookings a refresh loaded, null when no refresh runs
+    private List<Change> pending;
+
+    public RentalAvailabilityServiceImpl(RentalRepository rentalRepository, VehicleRepository vehicleRepository, TransactionTemplate transactionTemplate,
+                                         RentalAvailabilityProperties properties, MeterRegistry meterRegistry) {
+        this.rentalRepository = rentalRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.nonBlockingStatuses = properties.getNonBlockingStatuses().stream()
+                .map(status -> status.toUpperCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+
+        this.bookingLocks = new ReentrantLock[Math.max(1, properties.getLockStripes())];
+        for (int i = 0; i < bookingLocks.length; i++) {
+            bookingLocks[i] = new ReentrantLock();
+        }
+        this.reservationTimer = Timer.builder("rental.reservation.latency").register(meterRegistry);
+
+        Gauge.builder("rental.availability.bookings", bookings, ConcurrentHashMap::size).register(meterRegistry);
+        Gauge.builder("rental.availability.vehicles", timelines, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        loadActive().values().forEach(this::add);
+        log.info("Loaded {} active bookings for {} vehicles into the availability index", bookings.size(), timelines.size());
+    }
+
+    @Scheduled(initialDelayString = "${rental.availability.refresh-interval-millis:60000}", fixedDelayString = "${rental.availability.refresh-interval-millis:60000}")
+    public void refresh() {
+        synchronized (changeLock) {
+            pending = new ArrayList<>();
+        }
+
+        final Map<Long, Booking> loaded;
+        try {
+            loaded = loadActive();
+        }
+        catch (RuntimeException e) {
+            synchronized (changeLock) {
+                pending = null;
+            }
+            log.warn("Could not refresh the availability index; keeping the current one", e);
+            return;
+        }
+
+        int changed = 0;
+        synchronized (changeLock) {
+            for (Change change : pending) {
+                if (change.booking == null) {
+                    loaded.remove(change.rentalId);
+                }
+                else {
+                    loaded.put(change.rentalId, change.booking);
+                }
+            }
+            pending = null;
+
+            // Readers stay lock-free, so only the bookings that differ are touched
+            for (Booking booking : List.copyOf(bookings.values())) {
+                if (!booking.sameAs(loaded.get(booking.rentalId))) {
+                    unindex(booking.rentalId);
+                    changed++;
+                }
+            }
+            for (Booking booking : loaded.values()) {
+                if (!bookings.containsKey(booking.rentalId)) {
+                    add(booking);
+                    changed++;
+                }
+            }
+        }
+        if (changed > 0) {
+            log.info("Refreshed the availability index with {} changed bookings", changed);
+        }
+    }
+
+    @Override
+    public boolean isAvailable(Long vehicleId, LocalDateTime from, LocalDateTime to) {
+        validateRange(from, to);
+        return isAvailable(vehicleId, toEpochSecond(from), toEpochSecond(to), null);
+    }
+
+    @Override
+    public void checkAvailable(Long vehicleId, LocalDateTime from, LocalDateTime to, Long excludedRentalId) {
+        validateRange(from, to);
+        if (!isAvailable(vehicleId, toEpochSecond(from), toEpochSecond(to), excludedRentalId)) {
+            throw new ConflictException("Vehicle " + vehicleId + " is already booked between " + from + " and " + to);
+        }
+    }
+
+    /**
+     * Checks RENTALS itself rather than this node's index. Only conclusive inside the transaction that locked the
+     * vehicle with {@link VehicleRepository#lockForBooking} and writes the booking.
+     */
+    @Override
+    public void checkAvailableInRentals(Long vehicleId, LocalDateTime from, LocalDateTime to, Long excludedRentalId) {
+        if (rentalRepository.existsOverlapping(vehicleId, from, to, excludedRentalId, nonBlockingStatusesOrPlaceholder())) {
+            throw new ConflictException("Vehicle " + vehicleId + " is already booked between " + from + " and " + to);
+        }
+    }
+
+    @Override
+    public List<Long> filterAvailable(Collection<Long> vehicleIds, LocalDateTime from, LocalDateTime to) {
+        validateRange(from, to);
+        final long fromSecond = toEpochSecond(from);
+        final long toSecond = toEpochSecond(to);
+
+        final List<Long> availableVehicleIds = new ArrayList<>(vehicleIds.size());
+        for (Long vehicleId : vehicleIds) {
+            if (isAvailable(vehicleId, fromSecond, toSecond, null)) {
+                availableVehicleIds.add(vehicleId);
+            }
+        }
+        return availableVehicleIds;
+    }
+
+    @Override
+    public boolean isBlocking(String status) {
+        return status == null || !nonBlockingStatuses.contains(status.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Adds or replaces the booking held by the rental; a rental that no longer blocks the vehicle is dropped.
+     */
+    @Override
+    public void index(Rental rental) {
+        apply(new Change(rental.getId(), isBlocking(rental.getStatus())
+                ? new Booking(rental.getId(), rental.getVehicle().getId(), toEpochSecond(rental.getStartTime()), toEpochSecond(rental.getEndTime()))
+                : null));
+    }
+
+    @Override
+    public void remove(Long rentalId) {
+        apply(new Change(rentalId, null));
+    }
+
+    private void apply(Change change) {
+        synchronized (changeLock) {
+            unindex(change.rentalId);
+            if (change.booking != null) {
+                add(change.booking);
+            }
+            if (pending != null) {
+                pending.add(change);
+            }
+        }
+    }
+
+    private void unindex(long rentalId) {
+        final Booking booking = bookings.remove(rentalId);
+        if (booking == null) {
+            return;
+        }
+        final VehicleTimeline timeline = timelines.get(booking.vehicleId);
+        if (timeline != null) {
+            timeline.remove(booking);
+        }
+    }
+
+    /**
+     * Runs {@code writer} only if the vehicle is free for {@code [from, to)}, with bookings of the same vehicle
+     * serialised across threads and nodes until the write has committed.
+     *
+     * @throws ConflictException if another booking overlaps the range
+     */
+    @Override
+    public Rental reserve(Long vehicleId, LocalDateTime from, LocalDateTime to, Long excludedRentalId, Supplier<Rental> writer) {
+        // Cheap rejection before queueing on any lock
+        checkAvailable(vehicleId, from, to, excludedRentalId);
+
+        final ReentrantLock lock = bookingLock(vehicleId);
+        final long startedAt = System.nanoTime();
+        lock.lock();
+        try {
+            final Rental rental = transactionTemplate.execute(status -> {
+                if (vehicleRepository.lockForBooking(vehicleId) == 0) {
+                    throw new NotFoundException("Vehicle not found with id: " + vehicleId);
+                }
+                checkAvailableInRentals(vehicleId, from, to, excludedRentalId);
+                return writer.get();
+            });
+
+            // Still under the lock, so the next booking on this node sees it in memory
+            index(rental);
+            return rental;
+        }
+        finally {
+            lock.unlock();
+            reservationTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Package-private so tests can pick vehicles that do not share a stripe
+    ReentrantLock bookingLock(Long vehicleId) {
+        return bookingLocks[Math.floorMod(Long.hashCode(vehicleId * 0x9E3779B97F4A7C15L), bookingLocks.length)];
+    }
+
+    @Scheduled(fixedDelayString = "${rental.availability.prune-interval-millis:3600000}")
+    public void pruneEnded() {
+        final long now = toEpochSecond(LocalDateTime.now());
+        bookings.values().stream()
+                .filter(booking -> booking.end <= now)
+                .map(booking -> booking.rentalId)
+                .collect(Collectors.toList())
+                .forEach(this::remove);
+    }
+
+    private Map<Long, Booking> loadActive() {
+        final Map<Long, Booking> active = new HashMap<>();
+        for (RentalRepository.RentalSlot slot : rentalRepository.findSlotsEndingAfter(LocalDateTime.now())) {
+            if (isBlocking(slot.getStatus())) {
+                active.put(slot.getId(), new Booking(slot.getId(), slot.getVehicleId(), toEpochSecond(slot.getStartTime()), toEpochSecond(slot.getEndTime())));
+            }
+        }
+        return active;
+    }
+
+    private boolean isAvailable(Long vehicleId, long from, long to, Long excludedRentalId) {
+        final VehicleTimeline timeline = timelines.get(vehicleId);
+        return timeline == null || !timeline.overlaps(from, to, excludedRentalId);
+    }
+
+    // "not in ()" is invalid SQL, and an empty-string status never occurs
+    private Set<String> nonBlockingStatusesOrPlaceholder() {
+        return nonBlockingStatuses.isEmpty() ? Set.of("") : nonBlockingStatuses;
+    }
+
+    private void add(Booking booking) {
+        bookings.put(booking.rentalId, booking);
+        timelines.computeIfAbsent(booking.vehicleId, id -> new VehicleTimeline()).add(booking);
+    }
+
+    private static void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new BadRequestException("Start time must be before end time");
+        }
+    }
+
+    // Wall clock values are compared as-is, so the zone only has to be consistent
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class Booking {
+
+        private final long rentalId;
+        private final long vehicleId;
+        private final long start;
+        private final long end;
+
+        private Booking(long rentalId, long vehicleId, long start, long end) {
+            this.rentalId = rentalId;
+            this.vehicleId = vehicleId;
+            this.start = start;
+            this.end = end;
+        }
+
+        private boolean sameAs(Booking other) {
+            return other != null && rentalId == other.rentalId && vehicleId == other.vehicleId && start == other.start && end == other.end;
+        }
+    }
+
+    private static final class Change {
+
+        private final long rentalId;
+        // Null once the rental no longer holds the vehicle
+        private final Booking booking;
+
+        private Change(long rentalId, Booking booking) {
+            this.rentalId = rentalId;
+            this.booking = booking;
+        }
+    }
+
+    private static final class VehicleTimeline {
+
+        private static final Comparator<Booking> BY_START = Comparator.<Booking>comparingLong(booking -> booking.start)
+                .thenComparingLong(booking -> booking.rentalId);
+
+        // Replaced on every write; the two arrays always belong to the same write
+        private volatile Snapshot snapshot = new Snapshot(new Booking[0]);
+
+        private synchronized void add(Booking booking) {
+            final Booking[] current = snapshot.bookings;
+            final int index = -Arrays.binarySearch(current, booking, BY_START) - 1;
+            if (index < 0) {
+                return;
+            }
+            final Booking[] updated = new Booking[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            updated[index] = booking;
+            System.arraycopy(current, index, updated, index + 1, current.length - index);
+            snapshot = new Snapshot(updated);
+        }
+
+        private synchronized void remove(Booking booking) {
+            final Booking[] current = snapshot.bookings;
+            final int index = Arrays.binarySearch(current, booking, BY_START);
+            if (index < 0) {
+                return;
+            }
+            final Booking[] updated = new Booking[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, updated.length - index);
+            snapshot = new Snapshot(updated);
+        }
+
+        private boolean overlaps(long from, long to, Long excludedRentalId) {
+            final Snapshot current = snapshot;
+            // Every booking from here down starts before "to"; it overlaps if it also ends after "from"
+            for (int i = current.countStartingBefore(to) - 1; i >= 0 && current.maxEnds[i] > from; i--) {
+                final Booking booking = current.bookings[i];
+                if (booking.end > from && (excludedRentalId == null || booking.rentalId != excludedRentalId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final Booking[] bookings;
+        // maxEnds[i] is the latest end among bookings[0..i]
+        private final long[] maxEnds;
+
+        private Snapshot(Booking[] bookings) {
+            this.bookings = bookings;
+            this.maxEnds = new long[bookings.length];
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < bookings.length; i++) {
+                maxEnd = Math.max(maxEnd, bookings[i].end);
+                maxEnds[i] = maxEnd;
+            }
+        }
+
+        private int countStartingBefore(long to) {
+            int low = 0;
+            int high = bookings.length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (bookings[middle].start < to) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.RentalLifecycleProperties;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalDto;
+import com.rimmelasghar.boilerplate.springboot.mapper.RentalMapper;
+import com.rimmelasghar.boilerplate.springboot.model.OutboxEventType;
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+import com.rimmelasghar.boilerplate.springboot.model.RentalStatus;
+import com.rimmelasghar.boilerplate.springboot.repository.RentalRepository;
+import com.rimmelasghar.boilerplate.springboot.service.OutboxService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalLifecycleService;
+import com.rimmelasghar.boilerplate.springboot.service.SchedulerLeaseService;
+import com.rimmelasghar.boilerplate.springboot.utils.TimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Moves rentals PENDING -> ACTIVE at their start time and ACTIVE -> COMPLETED (or OVERDUE) at their end time.
+ * <p>
+ * Only the node holding the {@value #LEASE_NAME} lease runs transitions. It loads the deadlines falling within the next
+ * window from the (status, time) indexes into a hierarchical timing wheel, so each tick only touches rentals that are
+ * actually due, and applies them as batched conditional UPDATEs. The conditions re-check status and time, so a stale
+ * wheel entry (a rental edited or deleted since it was loaded, or a failover overlap) is a no-op. Each batch first locks
+ * the rentals still due and publishes a RentalStarted or RentalEnded outbox event for each of them in the same
+ * transaction as the UPDATE.
+ * <p>
+ * Rentals written on this node are scheduled straight away; those written elsewhere are picked up by the next refresh.
+ */
+@Slf4j
+@Service
+public class RentalLifecycleServiceImpl implements RentalLifecycleService {
+
+    private static final String LEASE_NAME = "rental-lifecycle";
+
+    private final RentalRepository rentalRepository;
+
+    private final SchedulerLeaseService schedulerLeaseService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final OutboxService outboxService;
+
+    private final RentalMapper rentalMapper;
+
+    private final RentalLifecycleProperties properties;
+
+    private final Duration leaseDuration;
+
+    private final String endStatus;
+
+    private final Counter startedCounter;
+
+    private final Counter endedCounter;
+
+    // Guarded by this
+    private final TimingWheel<Transition> wheel;
+
+    // Guarded by this; the transition each rental currently has in the wheel, so refreshes do not add it twice
+    private final Map<Long, Transition> scheduled = new HashMap<>();
+
+    private volatile boolean leader;
+
+    private long leaseRenewAt;
+
+    private long loadedUntil;
+
+    public RentalLifecycleServiceImpl(RentalRepository rentalRepository, SchedulerLeaseService schedulerLeaseService,
+                                      TransactionTemplate transactionTemplate, OutboxService outboxService, RentalMapper rentalMapper,
+                                      RentalLifecycleProperties properties, MeterRegistry meterRegistry) {
+        this.rentalRepository = rentalRepository;
+        this.schedulerLeaseService = schedulerLeaseService;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxService = outboxService;
+        this.rentalMapper = rentalMapper;
+        this.properties = properties;
+        this.leaseDuration = Duration.ofSeconds(properties.getLeaseSeconds());
+        this.endStatus = properties.isCompleteOnEnd() ? RentalStatus.COMPLETED : RentalStatus.OVERDUE;
+        this.wheel = new TimingWheel<>(properties.getTickMillis(), properties.getWheelSize(), properties.getWheelLevels(), nowMillis());
+
+        this.startedCounter = Counter.builder("rental.lifecycle.transitions").tag("to", RentalStatus.ACTIVE).register(meterRegistry);
+        this.endedCounter = Counter.builder("rental.lifecycle.transitions").tag("to", endStatus).register(meterRegistry);
+        Gauge.builder("rental.lifecycle.scheduled", this, RentalLifecycleServiceImpl::scheduledCount).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${rental.lifecycle.tick-millis:1000}")
+    public void tick() {
+        if (!properties.isEnabled() || !holdLease()) {
+            return;
+        }
+
+        final List<Transition> due;
+        synchronized (this) {
+            due = wheel.advance(nowMillis());
+            due.removeIf(transition -> !scheduled.remove(transition.rentalId, transition));
+        }
+        if (!due.isEmpty()) {
+            apply(due);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rental.lifecycle.refresh-interval-millis:60000}")
+    public void refresh() {
+        if (!properties.isEnabled() || !holdLease()) {
+            return;
+        }
+        load();
+    }
+
+    /**
+     * Schedules the rental's next transition right away if it falls inside the loaded window.
+     */
+    @Override
+    public void track(Rental rental) {
+        if (!leader) {
+            return;
+        }
+        synchronized (this) {
+            schedule(rental.getId(), rental.getStatus(), toEpochMilli(rental.getStartTime()), toEpochMilli(rental.getEndTime()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (leader) {
+            // Lets another node take over without waiting for the lease to lapse
+            schedulerLeaseService.release(LEASE_NAME);
+        }
+    }
+
+    private boolean holdLease() {
+        final long now = System.currentTimeMillis();
+        if (now < leaseRenewAt) {
+            return leader;
+        }
+        // Holders renew at half-life; other nodes retry at the same pace rather than every tick
+        leaseRenewAt = now + leaseDuration.toMillis() / 2;
+
+        boolean acquired;
+        try {
+            acquired = schedulerLeaseService.tryAcquire(LEASE_NAME, leaseDuration);
+        }
+        catch (RuntimeException e) {
+            log.warn("Could not renew the rental lifecycle lease", e);
+            acquired = false;
+        }
+
+        if (acquired && !leader) {
+            reset();
+            leader = true;
+            log.info("Acquired the rental lifecycle lease");
+            load();
+        }
+        else if (!acquired && leader) {
+            stepDown();
+        }
+        return leader;
+    }
+
+    private void stepDown() {
+        leader = false;
+        reset();
+        log.info("Lost the rental lifecycle lease");
+    }
+
+    private synchronized void reset() {
+        wheel.clear(nowMillis());
+        scheduled.clear();
+        loadedUntil = 0;
+    }
+
+    private void load() {
+        final long now = nowMillis();
+        // Never beyond what the wheel can hold
+        final long until = now + Math.min(properties.getWindowMillis(), wheel.horizonMillis());
+
+        final List<RentalRepository.RentalDeadline> deadlines = rentalRepository.findLifecycleDeadlines(RentalStatus.PENDING, RentalStatus.ACTIVE,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(until), ZoneOffset.UTC));
+
+        synchronized (this) {
+            loadedUntil = until;
+            for (RentalRepository.RentalDeadline deadline : deadlines) {
+                schedule(deadline.getId(), deadline.getStatus(), toEpochMilli(deadline.getStartTime()), toEpochMilli(deadline.getEndTime()));
+            }
+        }
+        log.debug("Loaded {} rental deadlines up to {}", deadlines.size(), until);
+    }
+
+    // Caller holds this
+    private void schedule(Long rentalId, String status, long start, long end) {
+        final Transition transition;
+        if (RentalStatus.PENDING.equalsIgnoreCase(status)) {
+            transition = new Transition(rentalId, Step.START, start, end);
+        }
+        else if (RentalStatus.ACTIVE.equalsIgnoreCase(status)) {
+            transition = new Transition(rentalId, Step.END, start, end);
+        }
+        else {
+            scheduled.remove(rentalId);
+            return;
+        }
+
+        if (transition.deadline() >= loadedUntil || transition.equals(scheduled.get(rentalId))) {
+            return;
+        }
+        // A replaced entry stays in the wheel but is dropped when it fires, since it no longer matches
+        if (wheel.schedule(transition.deadline(), transition)) {
+            scheduled.put(rentalId, transition);
+        }
+    }
+
+    private void apply(List<Transition> due) {
+        final List<Long> starting = new ArrayList<>();
+        final List<Long> ending = new ArrayList<>();
+        for (Transition transition : due) {
+            (transition.step == Step.START ? starting : ending).add(transition.rentalId);
+        }
+
+        final LocalDateTime now = LocalDateTime.ofInstant(Instant.ofEpochMilli(nowMillis()), ZoneOffset.UTC);
+        int started = 0;
+        int ended = 0;
+        for (List<Long> batch : partition(starting)) {
+            started += transactionTemplate.execute(status -> {
+                final List<Rental> rentals = rentalRepository.findStartDueForUpdate(batch, RentalStatus.PENDING, now);
+                if (rentals.isEmpty()) {
+                    return 0;
+                }
+                publish(rentals, RentalStatus.ACTIVE, OutboxEventType.RENTAL_STARTED);
+                return rentalRepository.startDue(ids(rentals), RentalStatus.PENDING, RentalStatus.ACTIVE, now);
+            });
+        }
+        for (List<Long> batch : partition(ending)) {
+            ended += transactionTemplate.execute(status -> {
+                final List<Rental> rentals = rentalRepository.findEndDueForUpdate(batch, RentalStatus.ACTIVE, now);
+                if (rentals.isEmpty()) {
+                    return 0;
+                }
+                publish(rentals, endStatus, OutboxEventType.RENTAL_ENDED);
+                return rentalRepository.endDue(ids(rentals), RentalStatus.ACTIVE, endStatus, now);
+            });
+        }
+        startedCounter.increment(started);
+        endedCounter.increment(ended);
+
+        // Rentals that just started end later; the UPDATE guard skips those that did not actually start
+        synchronized (this) {
+            for (Transition transition : due) {
+                if (transition.step == Step.START) {
+                    schedule(transition.rentalId, RentalStatus.ACTIVE, transition.start, transition.end);
+                }
+            }
+        }
+        if (started + ended > 0) {
+            log.info("Rental lifecycle: {} rentals started, {} set to {}", started, ended, endStatus);
+        }
+    }
+
+    // The bulk UPDATE bypasses the loaded entities, so the new status is set on the payload only
+    private void publish(List<Rental> rentals, String newStatus, String eventType) {
+        for (Rental rental : rentals) {
+            final RentalDto payload = rentalMapper.toRentalDto(rental);
+            payload.setStatus(newStatus);
+            outboxService.publish(OutboxEventType.RENTAL, rental.getId(), eventType, payload);
+        }
+    }
+
+    private static List<Long> ids(List<Rental> rentals) {
+        return rentals.stream()
+                .map(Rental::getId)
+                .collect(Collectors.toList());
+    }
+
+    private List<List<Long>> partition(List<Long> ids) {
+        final int batchSize = Math.max(1, properties.getBatchSize());
+        final List<List<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            batches.add(ids.subList(from, Math.min(ids.size(), from + batchSize)));
+        }
+        return batches;
+    }
+
+    private synchronized int scheduledCount() {
+        return scheduled.size();
+    }
+
+    // Rental times are wall clock values; like the availability index, only the zone's consistency matters
+    private static long nowMillis() {
+        return toEpochMilli(LocalDateTime.now());
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private enum Step {
+        START, END
+    }
+
+    private static final class Transition {
+
+        private final long rentalId;
+        private final Step step;
+        private final long start;
+        private final long end;
+
+        private Transition(long rentalId, Step step, long start, long end) {
+            this.rentalId = rentalId;
+            this.step = step;
+            this.start = start;
+            this.end = end;
+        }
+
+        private long deadline() {
+            return step == Step.START ? start : end;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Transition)) {
+                return false;
+            }
+            Transition other = (Transition) o;
+            return rentalId == other.rentalId && step == other.step && start == other.start && end == other.end;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(rentalId) * 31 + step.hashCode() * 17 + Long.hashCode(start) + Long.hashCode(end);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteItemDto;
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
+import com.rimmelasghar.boilerplate.springboot.exceptions.NotFoundException;
+import com.rimmelasghar.boilerplate.springboot.repository.VehicleRepository;
+import com.rimmelasghar.boilerplate.springboot.service.RentalPricingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Prices rentals from the vehicle tariffs instead of trusting the client.
+ * <p>
+ * A rental is billed in whole days (any started day counts), and a month and a year are 30 and 365 days. The quote is
+ * the cheapest mix of year, month and day units covering that many days, so a long rental may be billed as a month
+ * when that is cheaper than its days. Tariffs are cached as immutable snapshots and loaded in one query per batch.
+ */
+@Service
+public class RentalPricingServiceImpl implements RentalPricingService {
+
+    private static final long DAYS_PER_MONTH = 30;
+    private static final long DAYS_PER_YEAR = 365;
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private final VehicleRepository vehicleRepository;
+
+    private final Cache<Long, VehicleTariff> tariffCache;
+
+    public RentalPricingServiceImpl(VehicleRepository vehicleRepository, MeterRegistry meterRegistry,
+                                    @Value("${rental.pricing.tariff-cache-size:50000}") long tariffCacheSize) {
+        this.vehicleRepository = vehicleRepository;
+        this.tariffCache = Caffeine.newBuilder()
+                .maximumSize(tariffCacheSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, tariffCache, "vehicleTariff");
+    }
+
+    @Override
+    public RentalQuoteDto quote(RentalQuoteItemDto item) {
+        return quote(Collections.singletonList(item)).get(0);
+    }
+
+    @Override
+    public List<RentalQuoteDto> quote(List<RentalQuoteItemDto> items) {
+        Set<Long> vehicleIds = items.stream().map(RentalQuoteItemDto::getVehicle_id).collect(Collectors.toSet());
+        Map<Long, VehicleTariff> tariffs = tariffCache.getAll(vehicleIds, this::loadTariffs);
+
+        return items.stream()
+                .map(item -> price(item, tariffs.get(item.getVehicle_id())))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void evictTariff(Long vehicleId) {
+        tariffCache.invalidate(vehicleId);
+    }
+
+    // Called with every cache miss of a batch at once
+    private Map<Long, VehicleTariff> loadTariffs(Iterable<? extends Long> vehicleIds) {
+        List<Long> missingIds = new ArrayList<>();
+        vehicleIds.forEach(missingIds::add);
+
+        return vehicleRepository.findTariffsByIdIn(missingIds).stream()
+                .collect(Collectors.toMap(VehicleRepository.VehicleTariffView::getId,
+                        view -> new VehicleTariff(view.getPricePerDay(), view.getPricePerMonth(), view.getPricePerYear())));
+    }
+
+    private RentalQuoteDto price(RentalQuoteItemDto item, VehicleTariff tariff) {
+        if (tariff == null) {
+            throw new NotFoundException("Vehicle not found with id: " + item.getVehicle_id());
+        }
+        if (!tariff.hasAnyPrice()) {
+            throw new BadRequestException("Vehicle " + item.getVehicle_id() + " has no tariff");
+        }
+        if (!item.getStart_time().isBefore(item.getEnd_time())) {
+            throw new BadRequestException("Start time must be before end time");
+        }
+
+        long minutes = Duration.between(item.getStart_time(), item.getEnd_time()).toMinutes();
+        long billableDays = Math.max(1, ceilDiv(minutes, MINUTES_PER_DAY));
+
+        RentalQuoteDto cheapest = null;
+        long maxYears = tariff.perYear == null ? 0 : ceilDiv(billableDays, DAYS_PER_YEAR);
+
+        // For a fixed number of years the cost is piecewise linear in months, so only the end points can be optimal
+        for (long years = 0; years <= maxYears; years++) {
+            long remainingDays = Math.max(0, billableDays - years * DAYS_PER_YEAR);
+            long[] monthOptions = tariff.perMonth == null
+                    ? new long[]{0}
+                    : new long[]{0, remainingDays / DAYS_PER_MONTH, ceilDiv(remainingDays, DAYS_PER_MONTH)};
+
+            for (long months : monthOptions) {
+                long days = Math.max(0, remainingDays - months * DAYS_PER_MONTH);
+                if (days > 0 && tariff.perDay == null) {
+                    continue;
+                }
+
+                BigDecimal total = tariff.cost(years, months, days);
+                if (cheapest == null || total.compareTo(cheapest.getTotal_price()) < 0) {
+                    cheapest = RentalQuoteDto.builder()
+                            .vehicle_id(item.getVehicle_id())
+                            .start_time(item.getStart_time())
+                            .end_time(item.getEnd_time())
+                            .years(years)
+                            .months(months)
+                            .days(days)
+                            .total_price(total)
+                            .build();
+                }
+            }
+        }
+
+        if (cheapest == null) {
+            throw new BadRequestException("Vehicle " + item.getVehicle_id() + " cannot be rented for that period with its tariff");
+        }
+        return cheapest;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    private static final class VehicleTariff {
+
+        private final BigDecimal perDay;
+        private final BigDecimal perMonth;
+        private final BigDecimal perYear;
+
+        private VehicleTariff(BigDecimal perDay, BigDecimal perMonth, BigDecimal perYear) {
+            this.perDay = perDay;
+            this.perMonth = perMonth;
+            this.perYear = perYear;
+        }
+
+        private boolean hasAnyPrice() {
+            return perDay != null || perMonth != null || perYear != null;
+        }
+
+        private BigDecimal cost(long years, long months, long days) {
+            BigDecimal total = BigDecimal.ZERO;
+            if (years > 0) {
+                total = total.add(perYear.multiply(BigDecimal.valueOf(years)));
+            }
+            if (months > 0) {
+                total = total.add(perMonth.multiply(BigDecimal.valueOf(months)));
+            }
+            if (days > 0) {
+                total = total.add(perDay.multiply(BigDecimal.valueOf(days)));
+            }
+            return total;
+        }
+    }
+}
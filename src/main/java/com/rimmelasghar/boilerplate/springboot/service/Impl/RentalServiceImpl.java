@@ -1,28 +1,52 @@
 package com.rimmelasghar.boilerplate.springboot.service.Impl;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.dto.RentalDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteItemDto;
 import com.rimmelasghar.boilerplate.springboot.dto.RentalUpdateDto;
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
 import com.rimmelasghar.boilerplate.springboot.exceptions.NotFoundException;
 import com.rimmelasghar.boilerplate.springboot.mapper.RentalMapper;
+import com.rimmelasghar.boilerplate.springboot.model.OutboxEventType;
 import com.rimmelasghar.boilerplate.springboot.model.Rental;
+import com.rimmelasghar.boilerplate.springboot.repository.DtoProjection;
+import com.rimmelasghar.boilerplate.springboot.repository.KeysetQuery;
 import com.rimmelasghar.boilerplate.springboot.repository.RentalRepository;
+import com.rimmelasghar.boilerplate.springboot.service.OutboxService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalAvailabilityService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalLifecycleService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalPricingService;
 import com.rimmelasghar.boilerplate.springboot.service.RentalService;
+import com.rimmelasghar.boilerplate.springboot.service.StatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.criteria.Predicate;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class RentalServiceImpl implements RentalService {
 
+    // Column order follows the RentalDto all-args constructor
+    static final DtoProjection<Rental, RentalDto> RENTAL_DTO = DtoProjection.of(Rental.class, RentalDto.class, RentalDto::getId,
+            "id", "user.id", "vehicle.id", "startTime", "endTime", "totalPrice", "status", "createdAt", "pickupLocation");
+
     private final RentalRepository rentalRepository;
     private final RentalMapper rentalMapper;
+    private final KeysetQuery keysetQuery;
+    private final RentalAvailabilityService rentalAvailabilityService;
+    private final RentalPricingService rentalPricingService;
+    private final RentalLifecycleService rentalLifecycleService;
+    private final StatsService statsService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public RentalDto createRental(RentalDto rentalDto) {
@@ -30,12 +54,25 @@ public class RentalServiceImpl implements RentalService {
         if (rentalDto.getCreated_at() == null) {
             rentalDto.setCreated_at(LocalDateTime.now());
         }
+
+        // Always priced from the tariff; a client price only passes if it agrees
+        rentalDto.setTotal_price(price(rentalDto.getVehicle_id(), rentalDto.getStart_time(), rentalDto.getEnd_time(), rentalDto.getTotal_price()));
         
+        // A blocking rental is only saved once the vehicle is reserved for its range
+        if (rentalAvailabilityService.isBlocking(rentalDto.getStatus())) {
+            Rental reservedRental = rentalAvailabilityService.reserve(rentalDto.getVehicle_id(), rentalDto.getStart_time(), rentalDto.getEnd_time(), null,
+                    () -> save(rentalMapper.toRental(rentalDto), null));
+            rentalLifecycleService.track(reservedRental);
+            return rentalMapper.toRentalDto(reservedRental);
+        }
+
         // Convert DTO to entity
         Rental rental = rentalMapper.toRental(rentalDto);
         
         // Save rental
-        Rental savedRental = rentalRepository.save(rental);
+        Rental savedRental = transactionTemplate.execute(status -> save(rental, null));
+        rentalAvailabilityService.index(savedRental);
+        rentalLifecycleService.track(savedRental);
         
         // Return saved rental as DTO
         return rentalMapper.toRentalDto(savedRental);
@@ -43,25 +80,35 @@ public class RentalServiceImpl implements RentalService {
 
     @Override
     public RentalDto getRentalById(Long id) {
-        Rental rental = rentalRepository.findById(id)
+        // Selects the DTO columns only, without loading the associated entities
+        return keysetQuery.findById(RENTAL_DTO, id)
                 .orElseThrow(() -> new NotFoundException("Rental not found with id: " + id));
-        
-        return rentalMapper.toRentalDto(rental);
     }
 
     @Override
     public List<RentalDto> getAllRentals() {
-        return rentalRepository.findAll().stream()
-                .map(rentalMapper::toRentalDto)
-                .collect(Collectors.toList());
+        return keysetQuery.findCapped(RENTAL_DTO, null);
     }
     
     @Override
     public List<RentalDto> getRentalsWithFilters(Long userId, Long vehicleId, String status,
                                                LocalDateTime startTimeFrom, LocalDateTime startTimeTo,
                                                LocalDateTime endTimeFrom, LocalDateTime endTimeTo) {
-        
-        Specification<Rental> specification = (root, query, criteriaBuilder) -> {
+        return keysetQuery.findCapped(RENTAL_DTO, rentalFilters(userId, vehicleId, status, startTimeFrom, startTimeTo, endTimeFrom, endTimeTo));
+    }
+
+    @Override
+    public CursorPageDto<RentalDto> getRentalsPage(Long userId, Long vehicleId, String status,
+                                               LocalDateTime startTimeFrom, LocalDateTime startTimeTo,
+                                               LocalDateTime endTimeFrom, LocalDateTime endTimeTo,
+                                               String after, Integer limit) {
+        return keysetQuery.findPage(RENTAL_DTO, rentalFilters(userId, vehicleId, status, startTimeFrom, startTimeTo, endTimeFrom, endTimeTo), after, limit);
+    }
+
+    private Specification<Rental> rentalFilters(Long userId, Long vehicleId, String status,
+                                               LocalDateTime startTimeFrom, LocalDateTime startTimeTo,
+                                               LocalDateTime endTimeFrom, LocalDateTime endTimeTo) {
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
             
             // Filter by userId if provided
@@ -97,10 +144,6 @@ public class RentalServiceImpl implements RentalService {
             
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
-        
-        return rentalRepository.findAll(specification).stream()
-                .map(rentalMapper::toRentalDto)
-                .collect(Collectors.toList());
     }
 
     @Override
@@ -109,11 +152,36 @@ public class RentalServiceImpl implements RentalService {
         Rental rental = rentalRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Rental not found with id: " + id));
         
+        StatsService.RentalFact previous = statsService.rentalFact(rental);
+        Long previousVehicleId = rental.getVehicle().getId();
+        LocalDateTime previousStartTime = rental.getStartTime();
+        LocalDateTime previousEndTime = rental.getEndTime();
+        BigDecimal previousTotalPrice = rental.getTotalPrice();
+
         // Update rental properties
         rentalMapper.updateRentalFromDto(rentalUpdateDto, rental);
+
+        // Repriced only when what is priced changes, so a status change keeps the price agreed under an older tariff
+        if (!Objects.equals(previousVehicleId, rental.getVehicle().getId()) || !Objects.equals(previousStartTime, rental.getStartTime())
+                || !Objects.equals(previousEndTime, rental.getEndTime())) {
+            rental.setTotalPrice(price(rental.getVehicle().getId(), rental.getStartTime(), rental.getEndTime(), rentalUpdateDto.getTotal_price()));
+        }
+        else if (rentalUpdateDto.getTotal_price() != null && rentalUpdateDto.getTotal_price().compareTo(previousTotalPrice) != 0) {
+            throw new BadRequestException("Total price is set from the vehicle tariff and cannot be changed on its own");
+        }
+
+        // The rental's own booking never conflicts with its new range
+        if (rentalAvailabilityService.isBlocking(rental.getStatus())) {
+            Rental reservedRental = rentalAvailabilityService.reserve(rental.getVehicle().getId(), rental.getStartTime(), rental.getEndTime(), rental.getId(),
+                    () -> save(rental, previous));
+            rentalLifecycleService.track(reservedRental);
+            return rentalMapper.toRentalDto(reservedRental);
+        }
         
         // Save updated rental
-        Rental updatedRental = rentalRepository.save(rental);
+        Rental updatedRental = transactionTemplate.execute(status -> save(rental, previous));
+        rentalAvailabilityService.index(updatedRental);
+        rentalLifecycleService.track(updatedRental);
         
         // Return updated rental as DTO
         return rentalMapper.toRentalDto(updatedRental);
@@ -121,12 +189,43 @@ public class RentalServiceImpl implements RentalService {
 
     @Override
     public void deleteRental(Long id) {
-        // Check if rental exists
-        if (!rentalRepository.existsById(id)) {
-            throw new NotFoundException("Rental not found with id: " + id);
-        }
+        // Loaded rather than checked, since the rollups need what it contributed
+        Rental rental = rentalRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Rental not found with id: " + id));
+        StatsService.RentalFact previous = statsService.rentalFact(rental);
         
         // Delete rental
-        rentalRepository.deleteById(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            rentalRepository.delete(rental);
+            statsService.rentalChanged(previous, null);
+            outboxService.publish(OutboxEventType.RENTAL, id, OutboxEventType.RENTAL_DELETED, rentalMapper.toRentalDto(rental));
+        });
+        rentalAvailabilityService.remove(id);
+    }
+
+    /**
+     * @param requestedPrice what the client sent, if anything
+     * @throws BadRequestException if the client sent a price other than the quote
+     */
+    private BigDecimal price(Long vehicleId, LocalDateTime startTime, LocalDateTime endTime, BigDecimal requestedPrice) {
+        RentalQuoteItemDto quoteItem = RentalQuoteItemDto.builder()
+                .vehicle_id(vehicleId)
+                .start_time(startTime)
+                .end_time(endTime)
+                .build();
+        BigDecimal quotedPrice = rentalPricingService.quote(quoteItem).getTotal_price();
+        if (requestedPrice != null && requestedPrice.compareTo(quotedPrice) != 0) {
+            throw new BadRequestException("Total price " + requestedPrice + " does not match the quoted price " + quotedPrice);
+        }
+        return quotedPrice;
+    }
+
+    // Callers run this in a transaction, the booking one when reserving, so the stats rollups and the outbox change with the rental or not at all
+    private Rental save(Rental rental, StatsService.RentalFact previous) {
+        Rental savedRental = rentalRepository.save(rental);
+        statsService.rentalChanged(previous, statsService.rentalFact(savedRental));
+        outboxService.publish(OutboxEventType.RENTAL, savedRental.getId(), previous == null ? OutboxEventType.RENTAL_CREATED : OutboxEventType.RENTAL_UPDATED,
+                rentalMapper.toRentalDto(savedRental));
+        return savedRental;
     }
 }
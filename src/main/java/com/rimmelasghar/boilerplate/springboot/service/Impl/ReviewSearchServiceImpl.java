@@ -0,0 +1,350 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.ReviewSearchProperties;
+import com.rimmelasghar.boilerplate.springboot.model.Review;
+import com.rimmelasghar.boilerplate.springboot.repository.ReviewRepository;
+import com.rimmelasghar.boilerplate.springboot.service.ReviewSearchService;
+import com.rimmelasghar.boilerplate.springboot.utils.InvertedIndex;
+import com.rimmelasghar.boilerplate.springboot.utils.TextTokenizer;
+import com.rimmelasghar.boilerplate.springboot.utils.TransactionUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over review comments, answered from an in-memory {@link InvertedIndex} without touching REVIEWS.
+ * <p>
+ * Review writes on this node reach the index once they commit. A periodic rebuild from the table picks up writes made
+ * on other nodes; writes arriving while it runs are replayed onto the rebuilt index before it is swapped in. Rating,
+ * date, user and rental filters are checked against a copy of those columns kept next to the index.
+ * <p>
+ * The index is written to {@code review.search.snapshot-path} on shutdown. On startup it is read back and topped up with
+ * reviews added since; edits and deletions made while the node was down show after the first rebuild.
+ */
+@Slf4j
+@Service
+public class ReviewSearchServiceImpl implements ReviewSearchService {
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final ReviewRepository reviewRepository;
+
+    private final ReviewSearchProperties properties;
+
+    private final Timer searchTimer;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private InvertedIndex index = new InvertedIndex();
+
+    // Guarded by lock; the filterable columns of every indexed review
+    private Map<Long, Document> documents = new HashMap<>();
+
+    // Guarded by lock; changes to replay onto the index being rebuilt, null when no rebuild runs
+    private List<Change> pending;
+
+    public ReviewSearchServiceImpl(ReviewRepository reviewRepository, ReviewSearchProperties properties, MeterRegistry meterRegistry) {
+        this.reviewRepository = reviewRepository;
+        this.properties = properties;
+        this.searchTimer = Timer.builder("review.search.latency").register(meterRegistry);
+
+        Gauge.builder("review.search.documents", this, service -> service.read(() -> service.index.size())).register(meterRegistry);
+        Gauge.builder("review.search.terms", this, service -> service.read(() -> service.index.terms())).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        if (restore()) {
+            catchUp();
+        }
+        else {
+            rebuild();
+        }
+    }
+
+    @Override
+    public List<Hit> search(String query, Long userId, Long rentalId, Integer minRating, Integer maxRating,
+                            LocalDateTime createdAtFrom, LocalDateTime createdAtTo, int limit) {
+        final List<String> terms = TextTokenizer.tokenize(query).stream()
+                .distinct()
+                .limit(properties.getMaxQueryTerms())
+                .collect(Collectors.toList());
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        return searchTimer.record(() -> read(() -> {
+            final LongPredicate filter = reviewId -> {
+                final Document document = documents.get(reviewId);
+                return document != null
+                        && (userId == null || userId.equals(document.userId))
+                        && (rentalId == null || rentalId.equals(document.rentalId))
+                        && (minRating == null || document.rating >= minRating)
+                        && (maxRating == null || document.rating <= maxRating)
+                        && (createdAtFrom == null || !document.createdAt.isBefore(createdAtFrom))
+                        && (createdAtTo == null || !document.createdAt.isAfter(createdAtTo));
+            };
+            return index.search(terms, filter, limit).stream()
+                    .map(hit -> new Hit(hit.getDocumentId(), hit.getScore()))
+                    .collect(Collectors.toList());
+        }));
+    }
+
+    @Override
+    public void index(Review review) {
+        // Captured now, while the entity still holds what is being committed
+        final Document document = new Document(review.getUser().getId(), review.getRental().getId(), review.getRating(), review.getCreatedAt());
+        final Change change = new Change(review.getId(), document, TextTokenizer.tokenize(review.getComment()));
+        TransactionUtils.afterCommit(() -> apply(change));
+    }
+
+    @Override
+    public void remove(Long reviewId) {
+        final Change change = new Change(reviewId, null, List.of());
+        TransactionUtils.afterCommit(() -> apply(change));
+    }
+
+    @Scheduled(initialDelayString = "${review.search.rebuild-interval-millis:3600000}", fixedDelayString = "${review.search.rebuild-interval-millis:3600000}")
+    public void rebuild() {
+        final long startedAt = System.currentTimeMillis();
+        write(() -> pending = new ArrayList<>());
+
+        final InvertedIndex rebuiltIndex = new InvertedIndex();
+        final Map<Long, Document> rebuiltDocuments = new HashMap<>();
+        try {
+            loadAfter(Long.MIN_VALUE, change -> applyTo(rebuiltIndex, rebuiltDocuments, change));
+        }
+        catch (RuntimeException e) {
+            write(() -> pending = null);
+            log.warn("Could not rebuild the review search index; keeping the current one", e);
+            return;
+        }
+
+        write(() -> {
+            pending.forEach(change -> applyTo(rebuiltIndex, rebuiltDocuments, change));
+            pending = null;
+            index = rebuiltIndex;
+            documents = rebuiltDocuments;
+        });
+        log.info("Rebuilt the review search index with {} reviews in {} ms", rebuiltDocuments.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    @PreDestroy
+    public void snapshot() {
+        final Path path = snapshotPath();
+        if (path == null) {
+            return;
+        }
+
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            read(() -> {
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    writeSnapshot(output);
+                }
+                return null;
+            });
+            // Readers never see a half-written snapshot
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote the review search index snapshot to {}", path);
+        }
+        catch (IOException | RuntimeException e) {
+            log.warn("Could not write the review search index snapshot to {}", path, e);
+        }
+    }
+
+    private boolean restore() {
+        final Path path = snapshotPath();
+        if (path == null || !Files.isReadable(path)) {
+            return false;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            readSnapshot(input);
+            log.info("Restored the review search index with {} reviews from {}", documents.size(), path);
+            return true;
+        }
+        catch (IOException | RuntimeException e) {
+            log.warn("Could not read the review search index snapshot {}; rebuilding", path, e);
+            return false;
+        }
+    }
+
+    // Reviews get time-ordered ids, so those added since the snapshot all sort after its newest one
+    private void catchUp() {
+        final long after = read(() -> index.maxDocumentId());
+        final int[] added = {0};
+        loadAfter(after, change -> {
+            apply(change);
+            added[0]++;
+        });
+        if (added[0] > 0) {
+            log.info("Added {} reviews written since the search index snapshot", added[0]);
+        }
+    }
+
+    private void loadAfter(long after, Consumer<Change> sink) {
+        final int batchSize = Math.max(1, properties.getLoadBatchSize());
+        long lastId = after;
+        List<ReviewRepository.ReviewText> batch;
+        do {
+            batch = reviewRepository.findTextsAfter(lastId, PageRequest.of(0, batchSize));
+            for (ReviewRepository.ReviewText text : batch) {
+                final Document document = new Document(text.getUserId(), text.getRentalId(), text.getRating(), text.getCreatedAt());
+                sink.accept(new Change(text.getId(), document, TextTokenizer.tokenize(text.getComment())));
+                lastId = text.getId();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private void apply(Change change) {
+        write(() -> {
+            applyTo(index, documents, change);
+            if (pending != null) {
+                pending.add(change);
+            }
+        });
+    }
+
+    private static void applyTo(InvertedIndex index, Map<Long, Document> documents, Change change) {
+        if (change.document == null) {
+            index.remove(change.reviewId);
+            documents.remove(change.reviewId);
+        }
+        else {
+            index.put(change.reviewId, change.terms);
+            documents.put(change.reviewId, change.document);
+        }
+    }
+
+    // Caller holds the read lock
+    private void writeSnapshot(DataOutputStream output) throws IOException {
+        output.writeInt(SNAPSHOT_VERSION);
+        output.writeInt(documents.size());
+        for (Map.Entry<Long, Document> entry : documents.entrySet()) {
+            final Document document = entry.getValue();
+            output.writeLong(entry.getKey());
+            output.writeLong(document.userId);
+            output.writeLong(document.rentalId);
+            output.writeInt(document.rating);
+            output.writeLong(document.createdAt.toEpochSecond(ZoneOffset.UTC));
+            output.writeInt(document.createdAt.getNano());
+        }
+        index.writeTo(output);
+    }
+
+    private void readSnapshot(DataInputStream input) throws IOException {
+        if (input.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported snapshot version");
+        }
+        final int count = input.readInt();
+        final Map<Long, Document> restoredDocuments = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            final long reviewId = input.readLong();
+            final long userId = input.readLong();
+            final long rentalId = input.readLong();
+            final int rating = input.readInt();
+            final LocalDateTime createdAt = LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC);
+            restoredDocuments.put(reviewId, new Document(userId, rentalId, rating, createdAt));
+        }
+        final InvertedIndex restoredIndex = InvertedIndex.readFrom(input);
+
+        write(() -> {
+            index = restoredIndex;
+            documents = restoredDocuments;
+        });
+    }
+
+    private Path snapshotPath() {
+        final String snapshotPath = properties.getSnapshotPath();
+        return snapshotPath == null || snapshotPath.isBlank() ? null : Paths.get(snapshotPath);
+    }
+
+    private <T> T read(IoSupplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable writer) {
+        lock.writeLock().lock();
+        try {
+            writer.run();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+
+    private static final class Document {
+
+        private final long userId;
+        private final long rentalId;
+        private final int rating;
+        private final LocalDateTime createdAt;
+
+        private Document(long userId, long rentalId, int rating, LocalDateTime createdAt) {
+            this.userId = userId;
+            this.rentalId = rentalId;
+            this.rating = rating;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static final class Change {
+
+        private final long reviewId;
+        // Null for a deleted review
+        private final Document document;
+        private final List<String> terms;
+
+        private Change(long reviewId, Document document, List<String> terms) {
+            this.reviewId = reviewId;
+            this.document = document;
+            this.terms = terms;
+        }
+    }
+}
@@ -1,30 +1,54 @@
 package com.rimmelasghar.boilerplate.springboot.service.Impl;
 
+import com.rimmelasghar.boilerplate.springboot.configuration.PaginationProperties;
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.dto.ReviewDto;
+import com.rimmelasghar.boilerplate.springboot.dto.ReviewSearchHitDto;
 import com.rimmelasghar.boilerplate.springboot.dto.ReviewUpdateDto;
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
 import com.rimmelasghar.boilerplate.springboot.exceptions.NotFoundException;
 import com.rimmelasghar.boilerplate.springboot.mapper.ReviewMapper;
+import com.rimmelasghar.boilerplate.springboot.model.OutboxEventType;
 import com.rimmelasghar.boilerplate.springboot.model.Review;
+import com.rimmelasghar.boilerplate.springboot.repository.DtoProjection;
+import com.rimmelasghar.boilerplate.springboot.repository.KeysetQuery;
 import com.rimmelasghar.boilerplate.springboot.repository.ReviewRepository;
+import com.rimmelasghar.boilerplate.springboot.service.OutboxService;
+import com.rimmelasghar.boilerplate.springboot.service.RatingService;
+import com.rimmelasghar.boilerplate.springboot.service.ReviewSearchService;
 import com.rimmelasghar.boilerplate.springboot.service.ReviewService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.criteria.Predicate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ReviewServiceImpl implements ReviewService {
 
+    // Column order follows the ReviewDto all-args constructor
+    static final DtoProjection<Review, ReviewDto> REVIEW_DTO = DtoProjection.of(Review.class, ReviewDto.class, ReviewDto::getId,
+            "id", "rental.id", "user.id", "rating", "comment", "createdAt");
+
     private final ReviewRepository reviewRepository;
     private final ReviewMapper reviewMapper;
+    private final KeysetQuery keysetQuery;
+    private final OutboxService outboxService;
+    private final RatingService ratingService;
+    private final ReviewSearchService reviewSearchService;
+    private final PaginationProperties paginationProperties;
 
+    // Transactional so the rating aggregates and the outbox change with the review or not at all
     @Override
+    @Transactional
     public ReviewDto createReview(ReviewDto reviewDto) {
         // Set created_at if not provided
         if (reviewDto.getCreated_at() == null) {
@@ -36,71 +60,119 @@ public class ReviewServiceImpl implements ReviewService {
         
         // Save review
         Review savedReview = reviewRepository.save(review);
+        ratingService.reviewChanged(null, ratingService.ratingFact(savedReview));
+        reviewSearchService.index(savedReview);
+        ReviewDto savedReviewDto = reviewMapper.toReviewDto(savedReview);
+        outboxService.publish(OutboxEventType.REVIEW, savedReview.getId(), OutboxEventType.REVIEW_CREATED, savedReviewDto);
         
         // Return saved review as DTO
-        return reviewMapper.toReviewDto(savedReview);
+        return savedReviewDto;
     }
 
     @Override
     public ReviewDto getReviewById(Long id) {
-        Review review = reviewRepository.findById(id)
+        // Selects the DTO columns only, without loading the associated entities
+        return keysetQuery.findById(REVIEW_DTO, id)
                 .orElseThrow(() -> new NotFoundException("Review not found with id: " + id));
-        
-        return reviewMapper.toReviewDto(review);
     }
 
     @Override
     public List<ReviewDto> getAllReviews() {
-        return reviewRepository.findAll().stream()
-                .map(reviewMapper::toReviewDto)
-                .collect(Collectors.toList());
+        return keysetQuery.findCapped(REVIEW_DTO, null);
     }
 
     @Override
     public List<ReviewDto> getReviewsByUserId(Long userId) {
-        return reviewRepository.findByUserId(userId).stream()
-                .map(reviewMapper::toReviewDto)
-                .collect(Collectors.toList());
+        return keysetQuery.findCapped(REVIEW_DTO, reviewFilters(userId, null, null, null, null, null));
     }
 
     @Override
     public List<ReviewDto> getReviewsByRentalId(Long rentalId) {
-        return reviewRepository.findByRentalId(rentalId).stream()
-                .map(reviewMapper::toReviewDto)
-                .collect(Collectors.toList());
+        return keysetQuery.findCapped(REVIEW_DTO, reviewFilters(null, rentalId, null, null, null, null));
     }
 
     @Override
+    @Transactional
     public ReviewDto updateReview(Long id, ReviewUpdateDto reviewUpdateDto) {
         // Find review by id
         Review review = reviewRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Review not found with id: " + id));
         
+        RatingService.RatingFact previous = ratingService.ratingFact(review);
+
         // Update review properties
         reviewMapper.updateReviewFromDto(reviewUpdateDto, review);
         
         // Save updated review
         Review updatedReview = reviewRepository.save(review);
+        ratingService.reviewChanged(previous, ratingService.ratingFact(updatedReview));
+        reviewSearchService.index(updatedReview);
+        ReviewDto updatedReviewDto = reviewMapper.toReviewDto(updatedReview);
+        outboxService.publish(OutboxEventType.REVIEW, id, OutboxEventType.REVIEW_UPDATED, updatedReviewDto);
         
         // Return updated review as DTO
-        return reviewMapper.toReviewDto(updatedReview);
+        return updatedReviewDto;
     }
 
     @Override
+    @Transactional
     public void deleteReview(Long id) {
-        // Check if review exists
-        if (!reviewRepository.existsById(id)) {
-            throw new NotFoundException("Review not found with id: " + id);
-        }
+        // Loaded rather than checked, since the aggregates and the event need what it contributed
+        Review review = reviewRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Review not found with id: " + id));
+        RatingService.RatingFact previous = ratingService.ratingFact(review);
         
         // Delete review
-        reviewRepository.deleteById(id);
+        reviewRepository.delete(review);
+        ratingService.reviewChanged(previous, null);
+        reviewSearchService.remove(id);
+        outboxService.publish(OutboxEventType.REVIEW, id, OutboxEventType.REVIEW_DELETED, reviewMapper.toReviewDto(review));
     }
     
     @Override
     public List<ReviewDto> getReviewsWithFilters(Long userId, Long rentalId, Integer minRating, Integer maxRating,
                                                LocalDateTime createdAtFrom, LocalDateTime createdAtTo) {
-        Specification<Review> specification = (root, query, criteriaBuilder) -> {
+        return keysetQuery.findCapped(REVIEW_DTO, reviewFilters(userId, rentalId, minRating, maxRating, createdAtFrom, createdAtTo));
+    }
+
+    @Override
+    public CursorPageDto<ReviewDto> getReviewsPage(Long userId, Long rentalId, Integer minRating, Integer maxRating,
+                                               LocalDateTime createdAtFrom, LocalDateTime createdAtTo,
+                                               String after, Integer limit) {
+        return keysetQuery.findPage(REVIEW_DTO, reviewFilters(userId, rentalId, minRating, maxRating, createdAtFrom, createdAtTo), after, limit);
+    }
+
+    @Override
+    public List<ReviewSearchHitDto> searchReviews(String query, Long userId, Long rentalId, Integer minRating, Integer maxRating,
+                                               LocalDateTime createdAtFrom, LocalDateTime createdAtTo, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Query is required");
+        }
+        int size = limit == null ? paginationProperties.getDefaultLimit() : limit;
+        if (size < 1 || size > paginationProperties.getMaxLimit()) {
+            throw new BadRequestException("Limit must be between 1 and " + paginationProperties.getMaxLimit());
+        }
+
+        // Matching, filtering and ranking happen in the search index; only the hits are read from the table
+        List<ReviewSearchService.Hit> hits = reviewSearchService.search(query, userId, rentalId, minRating, maxRating, createdAtFrom, createdAtTo, size);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = hits.stream().map(ReviewSearchService.Hit::getReviewId).collect(Collectors.toList());
+        Map<Long, ReviewDto> reviewsById = keysetQuery.findAll(REVIEW_DTO, (root, criteriaQuery, criteriaBuilder) -> root.get("id").in(ids)).stream()
+                .collect(Collectors.toMap(ReviewDto::getId, Function.identity()));
+
+        // Hits are best first; a review deleted on another node since it was indexed is skipped
+        return hits.stream()
+                .filter(hit -> reviewsById.containsKey(hit.getReviewId()))
+                .map(hit -> new ReviewSearchHitDto(reviewsById.get(hit.getReviewId()), hit.getScore()))
+                .collect(Collectors.toList());
+    }
+
+    private Specification<Review> reviewFilters(Long userId, Long rentalId, Integer minRating, Integer maxRating,
+                                               LocalDateTime createdAtFrom, LocalDateTime createdAtTo) {
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
             
             // Filter by user_id if provided
@@ -134,9 +206,5 @@ public class ReviewServiceImpl implements ReviewService {
             
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
-        
-        return reviewRepository.findAll(specification).stream()
-                .map(reviewMapper::toReviewDto)
-                .collect(Collectors.toList());
     }
 }
@@ -1,7 +1,11 @@
 package com.rimmelasghar.boilerplate.springboot.service.Impl;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.model.Role;
+import com.rimmelasghar.boilerplate.springboot.repository.KeysetQuery;
 import com.rimmelasghar.boilerplate.springboot.repository.RoleRepository;
+import com.rimmelasghar.boilerplate.springboot.security.service.UserDetailsCache;
+import com.rimmelasghar.boilerplate.springboot.security.service.UserTokenVersionService;
 import com.rimmelasghar.boilerplate.springboot.service.RoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,15 +17,27 @@ import java.util.Optional;
 public class RoleServiceImpl implements RoleService {
 
     private final RoleRepository roleRepository;
+    private final UserTokenVersionService userTokenVersionService;
+    private final UserDetailsCache userDetailsCache;
+    private final KeysetQuery keysetQuery;
 
     @Autowired
-    public RoleServiceImpl(RoleRepository roleRepository) {
+    public RoleServiceImpl(RoleRepository roleRepository, UserTokenVersionService userTokenVersionService,
+                           UserDetailsCache userDetailsCache, KeysetQuery keysetQuery) {
         this.roleRepository = roleRepository;
+        this.userTokenVersionService = userTokenVersionService;
+        this.userDetailsCache = userDetailsCache;
+        this.keysetQuery = keysetQuery;
     }
 
     @Override
     public List<Role> getAllRoles() {
-        return roleRepository.findAll();
+        return keysetQuery.findCapped(Role.class, null);
+    }
+
+    @Override
+    public CursorPageDto<Role> getRolesPage(String after, Integer limit) {
+        return keysetQuery.findPage(Role.class, null, after, limit);
     }
 
     @Override
@@ -40,8 +56,16 @@ public class RoleServiceImpl implements RoleService {
         
         if (roleOptional.isPresent()) {
             Role existingRole = roleOptional.get();
+            boolean renamed = !existingRole.getRoleName().equals(roleDetails.getRoleName());
             existingRole.setRoleName(roleDetails.getRoleName());
-            return Optional.of(roleRepository.save(existingRole));
+            Role savedRole = roleRepository.save(existingRole);
+
+            // The role name is embedded in issued tokens
+            if (renamed) {
+                userTokenVersionService.revokeRole(id);
+                userDetailsCache.evictAll();
+            }
+            return Optional.of(savedRole);
         }
         
         return Optional.empty();
@@ -49,7 +73,9 @@ public class RoleServiceImpl implements RoleService {
 
     @Override
     public void deleteRole(Long id) {
+        userTokenVersionService.revokeRole(id);
         roleRepository.deleteById(id);
+        userDetailsCache.evictAll();
     }
 
     @Override
@@ -0,0 +1,55 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.repository.SchedulerLeaseRepository;
+import com.rimmelasghar.boilerplate.springboot.service.SchedulerLeaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Time-bound leases in SCHEDULER_LEASES that elect one node to run a background job. A holder renews well before
+ * expiry; if it dies, another node takes over once the lease lapses.
+ */
+@Slf4j
+@Service
+public class SchedulerLeaseServiceImpl implements SchedulerLeaseService {
+
+    private final SchedulerLeaseRepository schedulerLeaseRepository;
+
+    // Unique per process, readable in the table when debugging who holds what
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    public SchedulerLeaseServiceImpl(SchedulerLeaseRepository schedulerLeaseRepository) {
+        this.schedulerLeaseRepository = schedulerLeaseRepository;
+    }
+
+    /**
+     * Acquires or renews the lease for {@code ttl}.
+     *
+     * @return true if this node holds the lease until now + ttl
+     */
+    @Override
+    @Transactional
+    public boolean tryAcquire(String name, Duration ttl) {
+        final LocalDateTime now = LocalDateTime.now();
+        if (schedulerLeaseRepository.acquire(name, owner, now.plus(ttl), now) == 1) {
+            return true;
+        }
+        if (schedulerLeaseRepository.createIfAbsent(name) == 0) {
+            return false;
+        }
+        log.info("Created scheduler lease {}", name);
+        return schedulerLeaseRepository.acquire(name, owner, now.plus(ttl), now) == 1;
+    }
+
+    @Override
+    @Transactional
+    public void release(String name) {
+        schedulerLeaseRepository.release(name, owner, LocalDateTime.now());
+    }
+}
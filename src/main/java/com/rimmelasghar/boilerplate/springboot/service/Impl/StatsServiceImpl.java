@@ -0,0 +1,287 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.RentalAvailabilityProperties;
+import com.rimmelasghar.boilerplate.springboot.configuration.StatsProperties;
+import com.rimmelasghar.boilerplate.springboot.dto.PaymentStatusStatDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RevenueStatDto;
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleRentalStatDto;
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
+import com.rimmelasghar.boilerplate.springboot.model.Payment;
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+import com.rimmelasghar.boilerplate.springboot.model.RevenueDailyRollup;
+import com.rimmelasghar.boilerplate.springboot.model.VehicleRentalDailyRollup;
+import com.rimmelasghar.boilerplate.springboot.repository.PaymentStatusRollupRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.RentalRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.RevenueDailyRollupRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.VehicleRentalDailyRollupRepository;
+import com.rimmelasghar.boilerplate.springboot.service.RentalAvailabilityService;
+import com.rimmelasghar.boilerplate.springboot.service.SchedulerLeaseService;
+import com.rimmelasghar.boilerplate.springboot.service.StatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Serves fleet and revenue figures from rollup tables instead of scanning payments and rentals.
+ * <p>
+ * Payment and rental writes pass the row's before and after {@link PaymentFact facts}; the difference is applied as
+ * single-statement upserts in the writer's transaction, so a rollup never counts a write that rolled back. Rows are
+ * touched in a fixed key order to keep concurrent writers from deadlocking each other. Reads are primary-key range
+ * scans over at most {@code stats.max-days} days. A nightly rebuild, on one node, recomputes everything from the base
+ * tables in one transaction, correcting writes made outside the services and revenue attributed to a vehicle's
+ * former location.
+ */
+@Slf4j
+@Service
+public class StatsServiceImpl implements StatsService {
+
+    private static final String LEASE_NAME = "stats-rebuild";
+
+    private static final Comparator<RevenueDailyRollup.Key> REVENUE_ORDER =
+            Comparator.comparing(RevenueDailyRollup.Key::getDay).thenComparing(RevenueDailyRollup.Key::getLocationId);
+
+    private static final Comparator<VehicleRentalDailyRollup.Key> VEHICLE_RENTAL_ORDER =
+            Comparator.comparing(VehicleRentalDailyRollup.Key::getDay).thenComparing(VehicleRentalDailyRollup.Key::getVehicleId);
+
+    private final RevenueDailyRollupRepository revenueDailyRollupRepository;
+
+    private final VehicleRentalDailyRollupRepository vehicleRentalDailyRollupRepository;
+
+    private final PaymentStatusRollupRepository paymentStatusRollupRepository;
+
+    private final RentalRepository rentalRepository;
+
+    private final RentalAvailabilityService rentalAvailabilityService;
+
+    private final SchedulerLeaseService schedulerLeaseService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final StatsProperties properties;
+
+    private final Set<String> revenueStatuses;
+
+    private final Set<String> nonBlockingStatuses;
+
+    public StatsServiceImpl(RevenueDailyRollupRepository revenueDailyRollupRepository, VehicleRentalDailyRollupRepository vehicleRentalDailyRollupRepository,
+                            PaymentStatusRollupRepository paymentStatusRollupRepository, RentalRepository rentalRepository,
+                            RentalAvailabilityService rentalAvailabilityService, SchedulerLeaseService schedulerLeaseService,
+                            TransactionTemplate transactionTemplate, StatsProperties properties, RentalAvailabilityProperties availabilityProperties) {
+        this.revenueDailyRollupRepository = revenueDailyRollupRepository;
+        this.vehicleRentalDailyRollupRepository = vehicleRentalDailyRollupRepository;
+        this.paymentStatusRollupRepository = paymentStatusRollupRepository;
+        this.rentalRepository = rentalRepository;
+        this.rentalAvailabilityService = rentalAvailabilityService;
+        this.schedulerLeaseService = schedulerLeaseService;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.revenueStatuses = upperCase(properties.getRevenueStatuses());
+        this.nonBlockingStatuses = upperCase(availabilityProperties.getNonBlockingStatuses());
+    }
+
+    @Override
+    public List<RevenueStatDto> getRevenue(LocalDate from, LocalDate to, Long locationId) {
+        final LocalDate end = to != null ? to : LocalDate.now();
+        final LocalDate start = from != null ? from : end.minusDays(properties.getDefaultDays() - 1L);
+        checkRange(start, end);
+
+        final List<RevenueDailyRollup> rollups = locationId == null
+                ? revenueDailyRollupRepository.findByDayBetweenOrderByDayAscLocationIdAsc(start, end)
+                : revenueDailyRollupRepository.findByLocationIdAndDayBetweenOrderByDayAsc(locationId, start, end);
+
+        return rollups.stream()
+                .map(rollup -> RevenueStatDto.builder()
+                        .day(rollup.getDay())
+                        .location_id(rollup.getLocationId())
+                        .revenue(rollup.getRevenue())
+                        .payments(rollup.getPayments())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<VehicleRentalStatDto> getVehicleRentals(Long vehicleId, LocalDate from, LocalDate to) {
+        final LocalDate end = to != null ? to : LocalDate.now();
+        final LocalDate start = from != null ? from : end.minusDays(properties.getDefaultDays() - 1L);
+        checkRange(start, end);
+
+        return vehicleRentalDailyRollupRepository.findByVehicleIdAndDayBetweenOrderByDayAsc(vehicleId, start, end).stream()
+                .map(rollup -> VehicleRentalStatDto.builder()
+                        .day(rollup.getDay())
+                        .vehicle_id(rollup.getVehicleId())
+                        .rentals(rollup.getRentals())
+                        .revenue(rollup.getRevenue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<PaymentStatusStatDto> getPaymentStatusTotals() {
+        return paymentStatusRollupRepository.findAllByOrderByStatusAsc().stream()
+                .map(rollup -> PaymentStatusStatDto.builder()
+                        .status(rollup.getStatus())
+                        .payments(rollup.getPayments())
+                        .amount(rollup.getAmount())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public PaymentFact paymentFact(Payment payment) {
+        final Long locationId = payment.getRental() == null ? null
+                : rentalRepository.findVehicleLocationIdById(payment.getRental().getId()).orElse(null);
+        return new PaymentFact(payment.getPaymentDate().toLocalDate(), locationId, upperCase(payment.getStatus()), payment.getAmount());
+    }
+
+    @Override
+    public RentalFact rentalFact(Rental rental) {
+        return new RentalFact(rental.getStartTime().toLocalDate(), rental.getVehicle().getId(),
+                rentalAvailabilityService.isBlocking(rental.getStatus()), rental.getTotalPrice());
+    }
+
+    @Override
+    @Transactional
+    public void paymentChanged(PaymentFact before, PaymentFact after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+
+        final Map<RevenueDailyRollup.Key, Delta> revenue = new TreeMap<>(REVENUE_ORDER);
+        final Map<String, Delta> statuses = new TreeMap<>();
+        collect(before, -1, revenue, statuses);
+        collect(after, 1, revenue, statuses);
+
+        revenue.forEach((key, delta) -> {
+            if (!delta.isZero()) {
+                revenueDailyRollupRepository.add(key.getDay(), key.getLocationId(), delta.amount, delta.count);
+            }
+        });
+        statuses.forEach((status, delta) -> {
+            if (!delta.isZero()) {
+                paymentStatusRollupRepository.add(status, delta.count, delta.amount);
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public void rentalChanged(RentalFact before, RentalFact after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        rentalsChanged(before == null ? List.of() : List.of(before), after == null ? List.of() : List.of(after));
+    }
+
+    @Override
+    @Transactional
+    public void rentalsChanged(Collection<RentalFact> before, Collection<RentalFact> after) {
+        final Map<VehicleRentalDailyRollup.Key, Delta> rentals = new TreeMap<>(VEHICLE_RENTAL_ORDER);
+        before.forEach(fact -> collect(fact, -1, rentals));
+        after.forEach(fact -> collect(fact, 1, rentals));
+
+        rentals.forEach((key, delta) -> {
+            if (!delta.isZero()) {
+                vehicleRentalDailyRollupRepository.add(key.getDay(), key.getVehicleId(), delta.count, delta.amount);
+            }
+        });
+    }
+
+    @Scheduled(cron = "${stats.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        // The lease is kept until it lapses, so nodes whose schedule fires moments later skip this run
+        if (schedulerLeaseService.tryAcquire(LEASE_NAME, Duration.ofSeconds(properties.getRebuildLeaseSeconds()))) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recomputes every rollup from the base tables. Payment and rental writes wait on its locks until it commits.
+     */
+    @Override
+    public void rebuild() {
+        final long startedAt = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            revenueDailyRollupRepository.deleteAllInBatch();
+            revenueDailyRollupRepository.rebuild(orPlaceholder(revenueStatuses));
+            vehicleRentalDailyRollupRepository.deleteAllInBatch();
+            vehicleRentalDailyRollupRepository.rebuild(orPlaceholder(nonBlockingStatuses));
+            paymentStatusRollupRepository.deleteAllInBatch();
+            paymentStatusRollupRepository.rebuild();
+        });
+        log.info("Rebuilt stats rollups in {} ms", System.currentTimeMillis() - startedAt);
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("From must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= properties.getMaxDays()) {
+            throw new BadRequestException("Range must not exceed " + properties.getMaxDays() + " days");
+        }
+    }
+
+    private void collect(PaymentFact fact, int sign, Map<RevenueDailyRollup.Key, Delta> revenue, Map<String, Delta> statuses) {
+        if (fact == null) {
+            return;
+        }
+        statuses.computeIfAbsent(fact.getStatus(), status -> new Delta()).add(sign, fact.getAmount());
+        if (fact.getLocationId() != null && revenueStatuses.contains(fact.getStatus())) {
+            revenue.computeIfAbsent(new RevenueDailyRollup.Key(fact.getDay(), fact.getLocationId()), key -> new Delta()).add(sign, fact.getAmount());
+        }
+    }
+
+    private static void collect(RentalFact fact, int sign, Map<VehicleRentalDailyRollup.Key, Delta> rentals) {
+        if (fact == null || !fact.isCounted()) {
+            return;
+        }
+        rentals.computeIfAbsent(new VehicleRentalDailyRollup.Key(fact.getDay(), fact.getVehicleId()), key -> new Delta()).add(sign, fact.getTotalPrice());
+    }
+
+    private static Set<String> upperCase(Collection<String> statuses) {
+        return statuses.stream()
+                .map(StatsServiceImpl::upperCase)
+                .collect(Collectors.toSet());
+    }
+
+    private static String upperCase(String status) {
+        return status == null ? "" : status.toUpperCase(Locale.ROOT);
+    }
+
+    // An empty IN list is not valid SQL
+    private static Set<String> orPlaceholder(Set<String> statuses) {
+        return statuses.isEmpty() ? Set.of("") : statuses;
+    }
+
+    private static final class Delta {
+
+        private long count;
+        private BigDecimal amount = BigDecimal.ZERO;
+
+        private void add(int sign, BigDecimal value) {
+            count += sign;
+            if (value != null) {
+                amount = sign > 0 ? amount.add(value) : amount.subtract(value);
+            }
+        }
+
+        private boolean isZero() {
+            return count == 0 && amount.signum() == 0;
+        }
+    }
+}
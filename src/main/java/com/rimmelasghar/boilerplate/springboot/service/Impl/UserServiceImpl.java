@@ -1,7 +1,12 @@
 package com.rimmelasghar.boilerplate.springboot.service.Impl;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.model.User;
+import com.rimmelasghar.boilerplate.springboot.repository.KeysetQuery;
 import com.rimmelasghar.boilerplate.springboot.repository.UserRepository;
+import com.rimmelasghar.boilerplate.springboot.security.service.RefreshTokenService;
+import com.rimmelasghar.boilerplate.springboot.security.service.UserDetailsCache;
+import com.rimmelasghar.boilerplate.springboot.security.service.UserTokenVersionService;
 import com.rimmelasghar.boilerplate.springboot.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -15,16 +20,31 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserTokenVersionService userTokenVersionService;
+    private final UserDetailsCache userDetailsCache;
+    private final RefreshTokenService refreshTokenService;
+    private final KeysetQuery keysetQuery;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           UserTokenVersionService userTokenVersionService, UserDetailsCache userDetailsCache,
+                           RefreshTokenService refreshTokenService, KeysetQuery keysetQuery) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userTokenVersionService = userTokenVersionService;
+        this.userDetailsCache = userDetailsCache;
+        this.refreshTokenService = refreshTokenService;
+        this.keysetQuery = keysetQuery;
     }
 
     @Override
     public List<User> getAllUsers() {
-        return userRepository.findAll();
+        return keysetQuery.findCapped(User.class, null, "role");
+    }
+
+    @Override
+    public CursorPageDto<User> getUsersPage(String after, Integer limit) {
+        return keysetQuery.findPage(User.class, null, after, limit, "role");
     }
 
     @Override
@@ -38,7 +58,20 @@ public class UserServiceImpl implements UserService {
         if (user.getPassword() != null && !user.getPassword().isEmpty()) {
             user.setPassword(passwordEncoder.encode(user.getPassword()));
         }
-        return userRepository.save(user);
+
+        // Saving an existing user may change credentials or role, so issued tokens must be re-checked
+        if (user.getId() == null) {
+            return userRepository.save(user);
+        }
+
+        userTokenVersionService.revoke(user);
+        User savedUser = userRepository.save(user);
+        userTokenVersionService.evict(savedUser.getId());
+        refreshTokenService.revokeAllForUser(savedUser.getId());
+
+        // The previous email of an already modified entity is unknown here, so drop every cached entry
+        userDetailsCache.evictAll();
+        return savedUser;
     }
 
     @Override
@@ -47,6 +80,7 @@ public class UserServiceImpl implements UserService {
         
         if (userOptional.isPresent()) {
             User existingUser = userOptional.get();
+            String previousEmail = existingUser.getEmail();
             
             // Update only non-null fields
             if (userDetails.getFullName() != null) {
@@ -70,8 +104,21 @@ public class UserServiceImpl implements UserService {
             if (userDetails.getRole() != null) {
                 existingUser.setRole(userDetails.getRole());
             }
-            
-            return Optional.of(userRepository.save(existingUser));
+
+            // Email, password and role are baked into issued tokens
+            boolean credentialsChanged = userDetails.getEmail() != null || userDetails.getRole() != null
+                    || (userDetails.getPassword() != null && !userDetails.getPassword().isEmpty());
+            if (credentialsChanged) {
+                userTokenVersionService.revoke(existingUser);
+            }
+
+            User updatedUser = userRepository.save(existingUser);
+            if (credentialsChanged) {
+                refreshTokenService.revokeAllForUser(id);
+            }
+            userTokenVersionService.evict(id);
+            userDetailsCache.evict(previousEmail, updatedUser.getEmail());
+            return Optional.of(updatedUser);
         }
         
         return Optional.empty();
@@ -79,7 +126,11 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void deleteUser(Long id) {
+        Optional<String> email = userRepository.findById(id).map(User::getEmail);
+        refreshTokenService.deleteAllForUser(id);
         userRepository.deleteById(id);
+        userTokenVersionService.evict(id);
+        email.ifPresent(userDetailsCache::evict);
     }
 
     @Override
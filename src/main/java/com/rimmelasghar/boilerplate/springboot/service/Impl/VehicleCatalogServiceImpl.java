@@ -0,0 +1,127 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rimmelasghar.boilerplate.springboot.configuration.VehicleCatalogProperties;
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleDto;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleCatalogService;
+import com.rimmelasghar.boilerplate.springboot.utils.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Keeps {@code GET /vehicles} and {@code GET /vehicles/{id}} bodies as JSON bytes, serialized once by the same
+ * {@link ObjectMapper} Spring MVC uses, so a hit neither queries the database nor runs Jackson.
+ * <p>
+ * The ETag is an MD5 of the bytes rather than a counter, so every node hands out the same tag for the same catalog
+ * and a client switching nodes still gets its 304. Entries are evicted once a vehicle or one of its reviews is
+ * written here; other nodes pick the change up when their entry expires.
+ */
+@Service
+public class VehicleCatalogServiceImpl implements VehicleCatalogService {
+
+    private static final String CACHE_NAME = "vehicleCatalog";
+
+    // Vehicle entries are keyed by id; the full listing sits next to them under its own key
+    private static final Object ALL_VEHICLES = "all";
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<Object, Entry> cache;
+
+    private final Counter notModifiedResponses;
+
+    private final Counter fullResponses;
+
+    public VehicleCatalogServiceImpl(ObjectMapper objectMapper, VehicleCatalogProperties properties, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+
+        //@formatter:off
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getCacheTtlSeconds()))
+                .recordStats()
+                .build();
+        //@formatter:on
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+
+        // 304 rate = status 304 / all catalog responses
+        this.notModifiedResponses = Counter.builder("vehicle.catalog.responses")
+                .description("Catalog responses by status")
+                .tag("status", "304")
+                .register(meterRegistry);
+        this.fullResponses = Counter.builder("vehicle.catalog.responses")
+                .description("Catalog responses by status")
+                .tag("status", "200")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Entry getVehicle(Long vehicleId, Supplier<VehicleDto> loader) {
+        // A miss for an unknown id throws from the loader and caches nothing
+        return cache.get(vehicleId, key -> serialize(loader.get()));
+    }
+
+    @Override
+    public Entry getAllVehicles(Supplier<List<VehicleDto>> loader) {
+        return cache.get(ALL_VEHICLES, key -> serialize(loader.get()));
+    }
+
+    @Override
+    public boolean notModified(Entry entry, String ifNoneMatch) {
+        final boolean notModified = ifNoneMatch != null && matches(entry.getEtag(), ifNoneMatch);
+        (notModified ? notModifiedResponses : fullResponses).increment();
+        return notModified;
+    }
+
+    /**
+     * Drops the vehicle and the full listing once the current transaction commits. Invalidation waits for a load of the
+     * same key already in flight and then drops its result, so a read that started before the commit cannot keep old bytes.
+     */
+    @Override
+    public void evict(Long vehicleId) {
+        TransactionUtils.afterCommit(() -> cache.invalidateAll(List.of(vehicleId, ALL_VEHICLES)));
+    }
+
+    @Override
+    public void evictAll() {
+        TransactionUtils.afterCommit(cache::invalidateAll);
+    }
+
+    private Entry serialize(Object body) {
+        final byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        }
+        catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the vehicle catalog", e);
+        }
+        return new Entry("\"" + DigestUtils.md5DigestAsHex(json) + "\"", json);
+    }
+
+    // If-None-Match uses the weak comparison, so a W/ prefix added by a proxy still matches
+    private static boolean matches(String etag, String ifNoneMatch) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
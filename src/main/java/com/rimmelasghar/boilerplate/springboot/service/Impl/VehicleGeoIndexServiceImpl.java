@@ -0,0 +1,335 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.VehicleGeoIndexProperties;
+import com.rimmelasghar.boilerplate.springboot.model.Location;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import com.rimmelasghar.boilerplate.springboot.repository.LocationRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.VehicleRepository;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleGeoIndexService;
+import com.rimmelasghar.boilerplate.springboot.utils.GeoUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory grid of vehicle positions for k-nearest searches.
+ * <p>
+ * The globe is cut into {@code cellDegrees}-sized cells and each vehicle sits in the cell of its own coordinates, or of
+ * its location's when it has none. A search visits rings of cells around the query point, nearest first, and keeps the
+ * best {@code limit} hits in a bounded heap. It stops as soon as no unvisited cell can be closer than the current k-th
+ * hit or the radius, so a dense city answers from a handful of cells however large the fleet is.
+ * <p>
+ * Writes are serialised on the index and are rare; searches are lock-free over concurrent maps.
+ */
+@Slf4j
+@Service
+public class VehicleGeoIndexServiceImpl implements VehicleGeoIndexService {
+
+    private static final long NO_CELL = -1;
+
+    private static final Comparator<Hit> FARTHEST_FIRST = Comparator.comparingDouble(Hit::getDistanceMeters).reversed();
+
+    private final LocationRepository locationRepository;
+
+    private final VehicleRepository vehicleRepository;
+
+    private final double cellDegrees;
+
+    private final int latitudeCells;
+
+    private final int longitudeCells;
+
+    private final Set<String> availableStatuses;
+
+    private final Timer searchTimer;
+
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Long, IndexedVehicle>> cells = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, IndexedVehicle> vehicles = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, double[]> locationCoordinates = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, Set<Long>> vehiclesByLocation = new ConcurrentHashMap<>();
+
+    public VehicleGeoIndexServiceImpl(LocationRepository locationRepository, VehicleRepository vehicleRepository,
+                                      VehicleGeoIndexProperties properties, MeterRegistry meterRegistry) {
+        this.locationRepository = locationRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.cellDegrees = properties.getCellDegrees();
+        this.latitudeCells = (int) Math.ceil(180 / cellDegrees);
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+        this.availableStatuses = properties.getAvailableStatuses().stream()
+                .map(status -> status.toUpperCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.searchTimer = Timer.builder("vehicle.geo.search.latency").register(meterRegistry);
+
+        Gauge.builder("vehicle.geo.vehicles", vehicles, ConcurrentHashMap::size).register(meterRegistry);
+        Gauge.builder("vehicle.geo.cells", cells, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        for (LocationRepository.LocationPoint point : locationRepository.findPoints()) {
+            locationCoordinates.put(point.getId(), new double[]{point.getLatitude(), point.getLongitude()});
+        }
+        for (VehicleRepository.VehiclePoint point : vehicleRepository.findPoints()) {
+            put(point.getId(), point.getLocationId(), point.getLatitude(), point.getLongitude(), point.getStatus());
+        }
+        log.info("Indexed {} vehicles in {} cells for nearby search", vehicles.size(), cells.size());
+    }
+
+    /**
+     * @param accept extra check on vehicles that are close enough and have an available status, e.g. bookings
+     * @return up to {@code limit} vehicles within {@code radiusMeters}, nearest first
+     */
+    @Override
+    public List<Hit> nearest(double latitude, double longitude, double radiusMeters, int limit, LongPredicate accept) {
+        // NaN compares false everywhere, so it would neither match a vehicle's distance nor stop the rings
+        if (!GeoUtils.isValid(latitude, longitude) || !(radiusMeters >= 0) || limit < 1) {
+            throw new IllegalArgumentException("Coordinates, radius or limit out of range");
+        }
+        final long startedAt = System.nanoTime();
+        final double queryLongitude = longitude >= 180 ? longitude - 360 : longitude;
+        final int centerLatitude = latitudeIndex(latitude);
+        final int centerLongitude = longitudeIndex(queryLongitude);
+        // Cells shrink east-west towards the poles, so widen rings in longitude to keep them roughly square on the ground
+        final double aspect = 1 / Math.max(Math.cos(Math.toRadians(Math.abs(latitude))), 0.01);
+
+        final PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, FARTHEST_FIRST);
+        for (int ring = 0; ; ring++) {
+            final int reach = (int) Math.ceil(ring * aspect);
+            final int westReach = westReach(reach);
+            final int eastReach = eastReach(reach);
+            final int innerReach = ring == 0 ? -1 : (int) Math.ceil((ring - 1) * aspect);
+            final int innerWestReach = ring == 0 ? -1 : westReach(innerReach);
+            final int innerEastReach = ring == 0 ? -1 : eastReach(innerReach);
+
+            for (int latitudeOffset = -ring; latitudeOffset <= ring; latitudeOffset++) {
+                final int latitudeIndex = centerLatitude + latitudeOffset;
+                if (latitudeIndex < 0 || latitudeIndex >= latitudeCells) {
+                    continue;
+                }
+                final boolean edgeRow = Math.abs(latitudeOffset) == ring;
+                for (int longitudeOffset = -westReach; longitudeOffset <= eastReach; longitudeOffset++) {
+                    // Interior rows only add the columns the previous ring did not reach
+                    if (!edgeRow && longitudeOffset >= -innerWestReach && longitudeOffset <= innerEastReach) {
+                        longitudeOffset = innerEastReach;
+                        continue;
+                    }
+                    final int longitudeIndex = Math.floorMod(centerLongitude + longitudeOffset, longitudeCells);
+                    scan(cells.get(cellKey(latitudeIndex, longitudeIndex)), latitude, queryLongitude, radiusMeters, limit, accept, best);
+                }
+            }
+
+            // Every cell has been visited once the rings span all rows and wrap all the way round
+            final boolean allRows = centerLatitude - ring <= 0 && centerLatitude + ring >= latitudeCells - 1;
+            if (allRows && westReach + eastReach + 1 >= longitudeCells) {
+                break;
+            }
+            final double bound = best.size() == limit ? Math.min(radiusMeters, best.peek().getDistanceMeters()) : radiusMeters;
+            if (distanceOutside(latitude, queryLongitude, centerLatitude, centerLongitude, ring, westReach, eastReach) > bound) {
+                break;
+            }
+        }
+
+        final List<Hit> hits = new ArrayList<>(best);
+        hits.sort(FARTHEST_FIRST.reversed());
+        searchTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        return hits;
+    }
+
+    @Override
+    public synchronized void index(Location location) {
+        if (GeoUtils.isValid(location.getLatitude(), location.getLongitude())) {
+            locationCoordinates.put(location.getId(), new double[]{location.getLatitude(), location.getLongitude()});
+        }
+        else {
+            locationCoordinates.remove(location.getId());
+        }
+        replaceVehiclesAt(location.getId());
+    }
+
+    @Override
+    public synchronized void removeLocation(Long locationId) {
+        locationCoordinates.remove(locationId);
+        replaceVehiclesAt(locationId);
+    }
+
+    @Override
+    public synchronized void index(Vehicle vehicle) {
+        final Long locationId = vehicle.getLocation() == null ? null : vehicle.getLocation().getId();
+        put(vehicle.getId(), locationId, vehicle.getLatitude(), vehicle.getLongitude(), vehicle.getStatus());
+    }
+
+    @Override
+    public synchronized void removeVehicle(Long vehicleId) {
+        final IndexedVehicle previous = vehicles.remove(vehicleId);
+        if (previous != null) {
+            unlink(previous);
+        }
+    }
+
+    private void scan(ConcurrentHashMap<Long, IndexedVehicle> cell, double latitude, double longitude, double radiusMeters,
+                      int limit, LongPredicate accept, PriorityQueue<Hit> best) {
+        if (cell == null) {
+            return;
+        }
+        for (IndexedVehicle vehicle : cell.values()) {
+            final double distance = GeoUtils.distanceMeters(latitude, longitude, vehicle.latitude, vehicle.longitude);
+            if (distance > radiusMeters || (best.size() == limit && distance >= best.peek().getDistanceMeters())) {
+                continue;
+            }
+            // Filters run last, only for vehicles that would make the cut
+            if (!vehicle.available || !accept.test(vehicle.id)) {
+                continue;
+            }
+            best.add(new Hit(vehicle.id, distance));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+    }
+
+    /**
+     * Lower bound on the distance from the query point to any cell outside the rings searched so far.
+     */
+    private double distanceOutside(double latitude, double longitude, int centerLatitude, int centerLongitude, int ring,
+                                   int westReach, int eastReach) {
+        final double south = (centerLatitude - ring) * cellDegrees - 90;
+        final double north = (centerLatitude + ring + 1) * cellDegrees - 90;
+        final double southGap = south <= -90 ? Double.POSITIVE_INFINITY : latitude - south;
+        final double northGap = north >= 90 ? Double.POSITIVE_INFINITY : north - latitude;
+        final double latitudeGap = Math.min(southGap, northGap) * GeoUtils.METERS_PER_DEGREE;
+
+        if (westReach + eastReach + 1 >= longitudeCells) {
+            return latitudeGap;
+        }
+        final double west = (centerLongitude - westReach) * cellDegrees - 180;
+        final double east = (centerLongitude + eastReach + 1) * cellDegrees - 180;
+        final double longitudeGap = Math.toRadians(Math.min(longitude - west, east - longitude));
+        // Points beyond the east/west edges lie within [south, north], where meridians are at most this close together
+        final double poleward = Math.toRadians(Math.min(90, Math.max(Math.abs(south), Math.abs(north))));
+        final double sinHalfGap = Math.sin(longitudeGap / 2);
+        final double haversine = Math.cos(Math.toRadians(latitude)) * Math.cos(poleward) * sinHalfGap * sinHalfGap;
+
+        return Math.min(latitudeGap, 2 * GeoUtils.EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(haversine))));
+    }
+
+    // West and east reach together never exceed one lap, so no column is visited twice
+    private int westReach(int reach) {
+        return Math.min(reach, (longitudeCells - 1) / 2);
+    }
+
+    private int eastReach(int reach) {
+        return Math.min(reach, longitudeCells / 2);
+    }
+
+    private void replaceVehiclesAt(Long locationId) {
+        final Set<Long> vehicleIds = vehiclesByLocation.get(locationId);
+        if (vehicleIds == null) {
+            return;
+        }
+        for (Long vehicleId : List.copyOf(vehicleIds)) {
+            final IndexedVehicle vehicle = vehicles.get(vehicleId);
+            if (vehicle != null) {
+                put(vehicle.id, vehicle.locationId, vehicle.ownLatitude, vehicle.ownLongitude, vehicle.status);
+            }
+        }
+    }
+
+    private synchronized void put(Long vehicleId, Long locationId, Double ownLatitude, Double ownLongitude, String status) {
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        if (GeoUtils.isValid(ownLatitude, ownLongitude)) {
+            latitude = ownLatitude;
+            longitude = ownLongitude;
+        }
+        else if (locationId != null && locationCoordinates.containsKey(locationId)) {
+            final double[] coordinates = locationCoordinates.get(locationId);
+            latitude = coordinates[0];
+            longitude = coordinates[1];
+        }
+
+        final long cellKey = Double.isNaN(latitude) ? NO_CELL : cellKey(latitudeIndex(latitude), longitudeIndex(longitude));
+        final boolean available = availableStatuses.isEmpty() || (status != null && availableStatuses.contains(status.toUpperCase(Locale.ROOT)));
+        final IndexedVehicle vehicle = new IndexedVehicle(vehicleId, locationId, ownLatitude, ownLongitude, status, available, latitude, longitude, cellKey);
+
+        final IndexedVehicle previous = vehicles.put(vehicleId, vehicle);
+        if (previous != null) {
+            unlink(previous);
+        }
+        if (locationId != null) {
+            vehiclesByLocation.computeIfAbsent(locationId, id -> ConcurrentHashMap.newKeySet()).add(vehicleId);
+        }
+        if (cellKey != NO_CELL) {
+            cells.computeIfAbsent(cellKey, key -> new ConcurrentHashMap<>()).put(vehicleId, vehicle);
+        }
+    }
+
+    private void unlink(IndexedVehicle vehicle) {
+        if (vehicle.locationId != null) {
+            vehiclesByLocation.computeIfPresent(vehicle.locationId, (id, vehicleIds) -> {
+                vehicleIds.remove(vehicle.id);
+                return vehicleIds.isEmpty() ? null : vehicleIds;
+            });
+        }
+        if (vehicle.cellKey != NO_CELL) {
+            cells.computeIfPresent(vehicle.cellKey, (key, cell) -> {
+                cell.remove(vehicle.id, vehicle);
+                return cell.isEmpty() ? null : cell;
+            });
+        }
+    }
+
+    private int latitudeIndex(double latitude) {
+        return Math.min(latitudeCells - 1, Math.max(0, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+
+    private int longitudeIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), longitudeCells);
+    }
+
+    private static long cellKey(int latitudeIndex, int longitudeIndex) {
+        return ((long) latitudeIndex << 32) | longitudeIndex;
+    }
+
+    private static final class IndexedVehicle {
+
+        private final long id;
+        private final Long locationId;
+        private final Double ownLatitude;
+        private final Double ownLongitude;
+        private final String status;
+        private final boolean available;
+        private final double latitude;
+        private final double longitude;
+        private final long cellKey;
+
+        private IndexedVehicle(long id, Long locationId, Double ownLatitude, Double ownLongitude, String status, boolean available,
+                               double latitude, double longitude, long cellKey) {
+            this.id = id;
+            this.locationId = locationId;
+            this.ownLatitude = ownLatitude;
+            this.ownLongitude = ownLongitude;
+            this.status = status;
+            this.available = available;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cellKey = cellKey;
+        }
+    }
+}
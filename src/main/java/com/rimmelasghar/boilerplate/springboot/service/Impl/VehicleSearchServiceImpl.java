@@ -0,0 +1,182 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleDto;
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleSearchDto;
+import com.rimmelasghar.boilerplate.springboot.mapper.VehicleMapper;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import com.rimmelasghar.boilerplate.springboot.repository.KeysetQuery;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleSearchService;
+import com.rimmelasghar.boilerplate.springboot.utils.FacetIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Faceted vehicle search over type, brand, status and location, answered from an in-memory {@link FacetIndex} without
+ * touching VEHICLES.
+ * <p>
+ * Vehicle writes on this node reach the index straight away. A periodic rebuild from the table picks up writes made on
+ * other nodes; writes arriving while it runs are replayed onto the rebuilt index before it is swapped in.
+ */
+@Slf4j
+@Service
+public class VehicleSearchServiceImpl implements VehicleSearchService {
+
+    private static final String TYPE = "type";
+
+    private static final String BRAND = "brand";
+
+    private static final String STATUS = "status";
+
+    private static final String LOCATION = "location_id";
+
+    private final KeysetQuery keysetQuery;
+
+    private final VehicleMapper vehicleMapper;
+
+    private final Timer searchTimer;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private FacetIndex<VehicleDto> index = newIndex();
+
+    // Guarded by lock; changes to replay onto the index being rebuilt, null when no rebuild runs
+    private List<Change> pending;
+
+    public VehicleSearchServiceImpl(KeysetQuery keysetQuery, VehicleMapper vehicleMapper, MeterRegistry meterRegistry) {
+        this.keysetQuery = keysetQuery;
+        this.vehicleMapper = vehicleMapper;
+        this.searchTimer = Timer.builder("vehicle.search.latency").register(meterRegistry);
+
+        Gauge.builder("vehicle.search.vehicles", this, service -> service.read(() -> service.index.size())).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        rebuild();
+    }
+
+    @Override
+    public VehicleSearchDto search(List<String> types, List<String> brands, List<String> statuses, List<Long> locationIds,
+                                   double minPricePerDay, double maxPricePerDay, int limit) {
+        final Map<String, List<String>> filters = new LinkedHashMap<>();
+        filters.put(TYPE, types);
+        filters.put(BRAND, brands);
+        filters.put(STATUS, statuses);
+        filters.put(LOCATION, locationIds == null ? null : locationIds.stream().map(String::valueOf).collect(Collectors.toList()));
+
+        final FacetIndex.Result<VehicleDto> result = searchTimer.record(() -> read(() -> index.search(filters, minPricePerDay, maxPricePerDay, limit)));
+        return VehicleSearchDto.builder()
+                .total(result.getTotal())
+                .items(result.getDocuments())
+                .facets(result.getFacets())
+                .build();
+    }
+
+    @Override
+    public void index(Vehicle vehicle) {
+        apply(new Change(vehicle.getId(), vehicleMapper.toVehicleDto(vehicle)));
+    }
+
+    @Override
+    public void remove(Long vehicleId) {
+        apply(new Change(vehicleId, null));
+    }
+
+    @Scheduled(initialDelayString = "${vehicle.search.rebuild-interval-millis:600000}", fixedDelayString = "${vehicle.search.rebuild-interval-millis:600000}")
+    public void rebuild() {
+        final long startedAt = System.currentTimeMillis();
+        write(() -> pending = new ArrayList<>());
+
+        final FacetIndex<VehicleDto> rebuiltIndex = newIndex();
+        try {
+            for (VehicleDto vehicle : keysetQuery.findAll(VehicleServiceImpl.VEHICLE_DTO, null)) {
+                applyTo(rebuiltIndex, new Change(vehicle.getId(), vehicle));
+            }
+        }
+        catch (RuntimeException e) {
+            write(() -> pending = null);
+            log.warn("Could not rebuild the vehicle search index; keeping the current one", e);
+            return;
+        }
+
+        write(() -> {
+            pending.forEach(change -> applyTo(rebuiltIndex, change));
+            pending = null;
+            index = rebuiltIndex;
+        });
+        log.info("Rebuilt the vehicle search index with {} vehicles in {} ms", rebuiltIndex.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    private void apply(Change change) {
+        write(() -> {
+            applyTo(index, change);
+            if (pending != null) {
+                pending.add(change);
+            }
+        });
+    }
+
+    private static void applyTo(FacetIndex<VehicleDto> index, Change change) {
+        if (change.vehicle == null) {
+            index.remove(change.vehicleId);
+            return;
+        }
+
+        final VehicleDto vehicle = change.vehicle;
+        final String[] values = {vehicle.getType(), vehicle.getBrand(), vehicle.getStatus(),
+                vehicle.getLocation_id() == null ? null : String.valueOf(vehicle.getLocation_id())};
+        final double pricePerDay = vehicle.getPrice_per_day() == null ? Double.NaN : vehicle.getPrice_per_day().doubleValue();
+        index.put(change.vehicleId, values, pricePerDay, vehicle);
+    }
+
+    // Field order is the order facets are reported in
+    private static FacetIndex<VehicleDto> newIndex() {
+        return new FacetIndex<>(TYPE, BRAND, STATUS, LOCATION);
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable writer) {
+        lock.writeLock().lock();
+        try {
+            writer.run();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Change {
+
+        private final long vehicleId;
+        // Null for a deleted vehicle
+        private final VehicleDto vehicle;
+
+        private Change(long vehicleId, VehicleDto vehicle) {
+            this.vehicleId = vehicleId;
+            this.vehicle = vehicle;
+        }
+    }
+}
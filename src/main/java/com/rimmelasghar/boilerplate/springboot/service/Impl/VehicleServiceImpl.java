@@ -1,25 +1,62 @@
 package com.rimmelasghar.boilerplate.springboot.service.Impl;
 
+import com.rimmelasghar.boilerplate.springboot.configuration.PaginationProperties;
+import com.rimmelasghar.boilerplate.springboot.configuration.VehicleGeoIndexProperties;
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
+import com.rimmelasghar.boilerplate.springboot.dto.NearbyVehicleDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RatingDto;
 import com.rimmelasghar.boilerplate.springboot.dto.VehicleDto;
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleSearchDto;
 import com.rimmelasghar.boilerplate.springboot.dto.VehicleUpdateDto;
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
 import com.rimmelasghar.boilerplate.springboot.exceptions.NotFoundException;
 import com.rimmelasghar.boilerplate.springboot.exceptions.ConflictException;
 import com.rimmelasghar.boilerplate.springboot.mapper.VehicleMapper;
 import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import com.rimmelasghar.boilerplate.springboot.repository.DtoProjection;
+import com.rimmelasghar.boilerplate.springboot.repository.KeysetQuery;
 import com.rimmelasghar.boilerplate.springboot.repository.VehicleRepository;
+import com.rimmelasghar.boilerplate.springboot.service.RatingService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalAvailabilityService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalPricingService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleCatalogService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleGeoIndexService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleSearchService;
 import com.rimmelasghar.boilerplate.springboot.service.VehicleService;
+import com.rimmelasghar.boilerplate.springboot.utils.GeoUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class VehicleServiceImpl implements VehicleService {
 
+    // Column order follows the VehicleDto projection constructor; also loads the vehicle search index
+    static final DtoProjection<Vehicle, VehicleDto> VEHICLE_DTO = DtoProjection.of(Vehicle.class, VehicleDto.class, VehicleDto::getId,
+            "id", "name", "brand", "type", "licensePlate", "status", "location.id", "pricePerDay", "pricePerMonth", "pricePerYear", "image",
+            "latitude", "longitude");
+
     private final VehicleRepository vehicleRepository;
     private final VehicleMapper vehicleMapper;
+    private final RentalAvailabilityService rentalAvailabilityService;
+    private final RentalPricingService rentalPricingService;
+    private final KeysetQuery keysetQuery;
+    private final VehicleGeoIndexService vehicleGeoIndexService;
+    private final VehicleGeoIndexProperties vehicleGeoIndexProperties;
+    private final RatingService ratingService;
+    private final VehicleCatalogService vehicleCatalogService;
+    private final VehicleSearchService vehicleSearchService;
+    private final PaginationProperties paginationProperties;
 
     @Override
     public VehicleDto createVehicle(VehicleDto vehicleDto) {
@@ -33,6 +70,9 @@ public class VehicleServiceImpl implements VehicleService {
         
         // Save vehicle
         Vehicle savedVehicle = vehicleRepository.save(vehicle);
+        vehicleGeoIndexService.index(savedVehicle);
+        vehicleCatalogService.evict(savedVehicle.getId());
+        vehicleSearchService.index(savedVehicle);
         
         // Return saved vehicle as DTO
         return vehicleMapper.toVehicleDto(savedVehicle);
@@ -40,10 +80,11 @@ public class VehicleServiceImpl implements VehicleService {
 
     @Override
     public VehicleDto getVehicleById(Long id) {
-        Vehicle vehicle = vehicleRepository.findById(id)
+        // Selects the DTO columns only, without loading the location
+        VehicleDto vehicleDto = keysetQuery.findById(VEHICLE_DTO, id)
                 .orElseThrow(() -> new NotFoundException("Vehicle not found with id: " + id));
-        
-        return vehicleMapper.toVehicleDto(vehicle);
+        vehicleDto.setRating(ratingService.getVehicleRating(id));
+        return vehicleDto;
     }
 
     @Override
@@ -64,6 +105,10 @@ public class VehicleServiceImpl implements VehicleService {
         
         // Save updated vehicle
         Vehicle updatedVehicle = vehicleRepository.save(vehicle);
+        rentalPricingService.evictTariff(id);
+        vehicleGeoIndexService.index(updatedVehicle);
+        vehicleCatalogService.evict(id);
+        vehicleSearchService.index(updatedVehicle);
         
         // Return updated vehicle as DTO
         return vehicleMapper.toVehicleDto(updatedVehicle);
@@ -78,16 +123,123 @@ public class VehicleServiceImpl implements VehicleService {
         
         // Delete vehicle
         vehicleRepository.deleteById(id);
+        rentalPricingService.evictTariff(id);
+        vehicleGeoIndexService.removeVehicle(id);
+        vehicleCatalogService.evict(id);
+        vehicleSearchService.remove(id);
     }
     
     @Override
     public List<VehicleDto> getAllVehicles() {
-        // Retrieve all vehicles from the repository
-        List<Vehicle> vehicles = vehicleRepository.findAll();
-        
-        // Convert all vehicle entities to DTOs and return as a list
-        return vehicles.stream()
-                .map(vehicleMapper::toVehicleDto)
+        // Retrieve vehicle DTOs straight from the repository, capped for unpaginated callers
+        return withRatings(keysetQuery.findCapped(VEHICLE_DTO, null));
+    }
+
+    @Override
+    public VehicleCatalogService.Entry getVehicleJson(Long id) {
+        // Served from the catalog; only a miss reaches the database
+        return vehicleCatalogService.getVehicle(id, () -> getVehicleById(id));
+    }
+
+    @Override
+    public VehicleCatalogService.Entry getAllVehiclesJson() {
+        return vehicleCatalogService.getAllVehicles(this::getAllVehicles);
+    }
+
+    @Override
+    public CursorPageDto<VehicleDto> getVehiclesPage(String after, Integer limit) {
+        CursorPageDto<VehicleDto> page = keysetQuery.findPage(VEHICLE_DTO, null, after, limit);
+        withRatings(page.getItems());
+        return page;
+    }
+
+    @Override
+    public List<VehicleDto> getAvailableVehicles(LocalDateTime from, LocalDateTime to, Long locationId) {
+        Specification<Vehicle> atLocation = locationId == null ? null
+                : (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("location").get("id"), locationId);
+
+        // Candidates are read a page at a time and only until the unpaginated cap is filled
+        int cap = paginationProperties.getLegacyMaxResults();
+        List<VehicleDto> available = new ArrayList<>();
+        String after = null;
+        do {
+            CursorPageDto<VehicleDto> page = keysetQuery.findPage(VEHICLE_DTO, atLocation, after, paginationProperties.getMaxLimit());
+
+            // Booking overlaps are answered by the in-memory index, not by the RENTALS table
+            Set<Long> availableIds = Set.copyOf(rentalAvailabilityService.filterAvailable(
+                    page.getItems().stream().map(VehicleDto::getId).collect(Collectors.toList()), from, to));
+            page.getItems().stream()
+                    .filter(vehicle -> availableIds.contains(vehicle.getId()))
+                    .limit(cap - available.size())
+                    .forEach(available::add);
+            after = page.getNext_cursor();
+        } while (after != null && available.size() < cap);
+
+        return withRatings(available);
+    }
+
+    @Override
+    public List<NearbyVehicleDto> getNearbyVehicles(double latitude, double longitude, Double radiusMeters, Integer limit,
+                                                    LocalDateTime from, LocalDateTime to) {
+        if (!GeoUtils.isValid(latitude, longitude)) {
+            throw new BadRequestException("Latitude must be between -90 and 90 and longitude between -180 and 180");
+        }
+        double radius = radiusMeters == null ? vehicleGeoIndexProperties.getDefaultRadiusMeters() : radiusMeters;
+        // Written so that NaN fails the check too
+        if (!(radius > 0 && radius <= vehicleGeoIndexProperties.getMaxRadiusMeters())) {
+            throw new BadRequestException("Radius must be greater than 0 and at most " + vehicleGeoIndexProperties.getMaxRadiusMeters() + " meters");
+        }
+        int size = limit == null ? vehicleGeoIndexProperties.getDefaultLimit() : limit;
+        if (size < 1) {
+            throw new BadRequestException("Limit must be at least 1");
+        }
+        size = Math.min(size, vehicleGeoIndexProperties.getMaxLimit());
+
+        // Without a window, "available" means not booked right now
+        LocalDateTime windowStart = from == null && to == null ? LocalDateTime.now() : from;
+        LocalDateTime windowEnd = from == null && to == null ? windowStart.plusSeconds(1) : to;
+        if (windowStart == null || windowEnd == null || !windowStart.isBefore(windowEnd)) {
+            throw new BadRequestException("Start time must be before end time");
+        }
+
+        List<VehicleGeoIndexService.Hit> hits = vehicleGeoIndexService.nearest(latitude, longitude, radius, size,
+                vehicleId -> rentalAvailabilityService.isAvailable(vehicleId, windowStart, windowEnd));
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = hits.stream().map(VehicleGeoIndexService.Hit::getVehicleId).collect(Collectors.toList());
+        Map<Long, VehicleDto> vehiclesById = withRatings(keysetQuery.findAll(VEHICLE_DTO, (root, query, criteriaBuilder) -> root.get("id").in(ids))).stream()
+                .collect(Collectors.toMap(VehicleDto::getId, Function.identity()));
+
+        // Hits are nearest first; a vehicle deleted since it was indexed is skipped
+        return hits.stream()
+                .filter(hit -> vehiclesById.containsKey(hit.getVehicleId()))
+                .map(hit -> new NearbyVehicleDto(vehiclesById.get(hit.getVehicleId()), hit.getDistanceMeters()))
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public VehicleSearchDto searchVehicles(List<String> types, List<String> brands, List<String> statuses, List<Long> locationIds,
+                                           BigDecimal minPricePerDay, BigDecimal maxPricePerDay, Integer limit) {
+        int size = limit == null ? paginationProperties.getDefaultLimit() : limit;
+        if (size < 1 || size > paginationProperties.getMaxLimit()) {
+            throw new BadRequestException("Limit must be between 1 and " + paginationProperties.getMaxLimit());
+        }
+        if (minPricePerDay != null && maxPricePerDay != null && minPricePerDay.compareTo(maxPricePerDay) > 0) {
+            throw new BadRequestException("Minimum price must not be greater than maximum price");
+        }
+
+        // Filtering and facet counting happen in the search index; the table is not queried
+        return vehicleSearchService.search(types, brands, statuses, locationIds,
+                minPricePerDay == null ? Double.NEGATIVE_INFINITY : minPricePerDay.doubleValue(),
+                maxPricePerDay == null ? Double.POSITIVE_INFINITY : maxPricePerDay.doubleValue(), size);
+    }
+
+    // Ratings come from the in-memory aggregates, never from the reviews
+    private List<VehicleDto> withRatings(List<VehicleDto> vehicles) {
+        Map<Long, RatingDto> ratings = ratingService.getVehicleRatings(vehicles.stream().map(VehicleDto::getId).collect(Collectors.toList()));
+        vehicles.forEach(vehicle -> vehicle.setRating(ratings.get(vehicle.getId())));
+        return vehicles;
+    }
 }
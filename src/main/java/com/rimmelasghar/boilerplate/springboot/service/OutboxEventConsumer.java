@@ -0,0 +1,19 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+/**
+ * Reaction to events written to the outbox. Every bean implementing this is called for every event it supports, in
+ * bean order, off the request path on the node relaying the outbox.
+ * <p>
+ * Delivery is at least once: when any consumer throws, the event is retried later for all of them, so handlers must
+ * tolerate seeing an event again.
+ */
+public interface OutboxEventConsumer {
+    // Tags the consumer's lag metrics
+    String name();
+
+    default boolean supports(OutboxService.Event event) {
+        return true;
+    }
+
+    void handle(OutboxService.Event event);
+}
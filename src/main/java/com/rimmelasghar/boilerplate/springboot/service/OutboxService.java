@@ -0,0 +1,25 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+
+public interface OutboxService {
+    // Joins the caller's transaction, so the event is written with the change or not at all
+    void publish(String aggregateType, Long aggregateId, String eventType, Object payload);
+
+    @Getter
+    @RequiredArgsConstructor
+    final class Event {
+        private final Long id;
+        private final String aggregateType;
+        private final Long aggregateId;
+        private final String eventType;
+        // JSON
+        private final String payload;
+        private final LocalDateTime createdAt;
+        // Earlier failed deliveries, to any consumer
+        private final int attempts;
+    }
+}
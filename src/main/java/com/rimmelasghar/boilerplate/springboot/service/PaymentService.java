@@ -1,5 +1,6 @@
 package com.rimmelasghar.boilerplate.springboot.service;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.dto.PaymentDto;
 import com.rimmelasghar.boilerplate.springboot.dto.PaymentUpdateDto;
 
@@ -17,6 +18,10 @@ public interface PaymentService {
     List<PaymentDto> getPaymentsWithFilters(Long userId, Long rentalId, String status,
                                            String paymentMethod, BigDecimal minAmount, BigDecimal maxAmount,
                                            LocalDateTime paymentDateFrom, LocalDateTime paymentDateTo);
+    CursorPageDto<PaymentDto> getPaymentsPage(Long userId, Long rentalId, String status,
+                                           String paymentMethod, BigDecimal minAmount, BigDecimal maxAmount,
+                                           LocalDateTime paymentDateFrom, LocalDateTime paymentDateTo,
+                                           String after, Integer limit);
     PaymentDto updatePayment(Long id, PaymentUpdateDto paymentUpdateDto);
     void deletePayment(Long id);
 }
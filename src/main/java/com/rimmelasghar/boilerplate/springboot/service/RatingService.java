@@ -0,0 +1,31 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import com.rimmelasghar.boilerplate.springboot.dto.RatingDto;
+import com.rimmelasghar.boilerplate.springboot.model.Review;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface RatingService {
+    RatingDto getVehicleRating(Long vehicleId);
+    Map<Long, RatingDto> getVehicleRatings(Collection<Long> vehicleIds);
+    RatingDto getLocationRating(Long locationId);
+    RatingDto getUserRating(Long userId);
+    RatingFact ratingFact(Review review);
+    void reviewChanged(RatingFact before, RatingFact after);
+    void rebuild();
+
+    // What one review adds to the aggregates; writers capture it before and after a change
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    final class RatingFact {
+        private final Long vehicleId;
+        private final Long locationId;
+        private final Long userId;
+        private final int rating;
+    }
+}
@@ -0,0 +1,19 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+public interface RentalAvailabilityService {
+    boolean isAvailable(Long vehicleId, LocalDateTime from, LocalDateTime to);
+    void checkAvailable(Long vehicleId, LocalDateTime from, LocalDateTime to, Long excludedRentalId);
+    void checkAvailableInRentals(Long vehicleId, LocalDateTime from, LocalDateTime to, Long excludedRentalId);
+    List<Long> filterAvailable(Collection<Long> vehicleIds, LocalDateTime from, LocalDateTime to);
+    boolean isBlocking(String status);
+    void index(Rental rental);
+    void remove(Long rentalId);
+    Rental reserve(Long vehicleId, LocalDateTime from, LocalDateTime to, Long excludedRentalId, Supplier<Rental> writer);
+}
@@ -0,0 +1,7 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+
+public interface RentalLifecycleService {
+    void track(Rental rental);
+}
@@ -0,0 +1,12 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteItemDto;
+
+import java.util.List;
+
+public interface RentalPricingService {
+    RentalQuoteDto quote(RentalQuoteItemDto item);
+    List<RentalQuoteDto> quote(List<RentalQuoteItemDto> items);
+    void evictTariff(Long vehicleId);
+}
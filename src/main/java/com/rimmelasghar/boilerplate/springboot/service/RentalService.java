@@ -1,5 +1,6 @@
 package com.rimmelasghar.boilerplate.springboot.service;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.dto.RentalDto;
 import com.rimmelasghar.boilerplate.springboot.dto.RentalUpdateDto;
 
@@ -13,6 +14,10 @@ public interface RentalService {
     List<RentalDto> getRentalsWithFilters(Long userId, Long vehicleId, String status, 
                                          LocalDateTime startTimeFrom, LocalDateTime startTimeTo,
                                          LocalDateTime endTimeFrom, LocalDateTime endTimeTo);
+    CursorPageDto<RentalDto> getRentalsPage(Long userId, Long vehicleId, String status, 
+                                         LocalDateTime startTimeFrom, LocalDateTime startTimeTo,
+                                         LocalDateTime endTimeFrom, LocalDateTime endTimeTo,
+                                         String after, Integer limit);
     RentalDto updateRental(Long id, RentalUpdateDto rentalUpdateDto);
     void deleteRental(Long id);
 }
@@ -0,0 +1,23 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import com.rimmelasghar.boilerplate.springboot.model.Review;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ReviewSearchService {
+    List<Hit> search(String query, Long userId, Long rentalId, Integer minRating, Integer maxRating,
+                     LocalDateTime createdAtFrom, LocalDateTime createdAtTo, int limit);
+    // Both apply once the caller's transaction commits
+    void index(Review review);
+    void remove(Long reviewId);
+
+    @Getter
+    @RequiredArgsConstructor
+    final class Hit {
+        private final Long reviewId;
+        private final double score;
+    }
+}
@@ -1,6 +1,8 @@
 package com.rimmelasghar.boilerplate.springboot.service;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.dto.ReviewDto;
+import com.rimmelasghar.boilerplate.springboot.dto.ReviewSearchHitDto;
 import com.rimmelasghar.boilerplate.springboot.dto.ReviewUpdateDto;
 
 import java.time.LocalDateTime;
@@ -14,6 +16,11 @@ public interface ReviewService {
     List<ReviewDto> getReviewsByRentalId(Long rentalId);
     List<ReviewDto> getReviewsWithFilters(Long userId, Long rentalId, Integer minRating, Integer maxRating,
                                          LocalDateTime createdAtFrom, LocalDateTime createdAtTo);
+    CursorPageDto<ReviewDto> getReviewsPage(Long userId, Long rentalId, Integer minRating, Integer maxRating,
+                                         LocalDateTime createdAtFrom, LocalDateTime createdAtTo,
+                                         String after, Integer limit);
+    List<ReviewSearchHitDto> searchReviews(String query, Long userId, Long rentalId, Integer minRating, Integer maxRating,
+                                         LocalDateTime createdAtFrom, LocalDateTime createdAtTo, Integer limit);
     ReviewDto updateReview(Long id, ReviewUpdateDto reviewUpdateDto);
     void deleteReview(Long id);
 }
@@ -1,5 +1,6 @@
 package com.rimmelasghar.boilerplate.springboot.service;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.model.Role;
 
 import java.util.List;
@@ -9,6 +10,8 @@ public interface RoleService {
 
     List<Role> getAllRoles();
 
+    CursorPageDto<Role> getRolesPage(String after, Integer limit);
+
     Optional<Role> getRoleById(Long id);
 
     Role saveRole(Role role);
@@ -0,0 +1,8 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import java.time.Duration;
+
+public interface SchedulerLeaseService {
+    boolean tryAcquire(String name, Duration ttl);
+    void release(String name);
+}
@@ -0,0 +1,48 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import com.rimmelasghar.boilerplate.springboot.dto.PaymentStatusStatDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RevenueStatDto;
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleRentalStatDto;
+import com.rimmelasghar.boilerplate.springboot.model.Payment;
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface StatsService {
+    List<RevenueStatDto> getRevenue(LocalDate from, LocalDate to, Long locationId);
+    List<VehicleRentalStatDto> getVehicleRentals(Long vehicleId, LocalDate from, LocalDate to);
+    List<PaymentStatusStatDto> getPaymentStatusTotals();
+    PaymentFact paymentFact(Payment payment);
+    RentalFact rentalFact(Rental rental);
+    void paymentChanged(PaymentFact before, PaymentFact after);
+    void rentalChanged(RentalFact before, RentalFact after);
+    void rentalsChanged(Collection<RentalFact> before, Collection<RentalFact> after);
+    void rebuild();
+
+    // What one payment adds to the rollups; writers capture it before and after a change
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    final class PaymentFact {
+        private final LocalDate day;
+        private final Long locationId;
+        private final String status;
+        private final BigDecimal amount;
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    final class RentalFact {
+        private final LocalDate day;
+        private final Long vehicleId;
+        private final boolean counted;
+        private final BigDecimal totalPrice;
+    }
+}
@@ -1,5 +1,6 @@
 package com.rimmelasghar.boilerplate.springboot.service;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
 import com.rimmelasghar.boilerplate.springboot.model.User;
 
 import java.util.List;
@@ -9,6 +10,8 @@ public interface UserService {
 
     List<User> getAllUsers();
 
+    CursorPageDto<User> getUsersPage(String after, Integer limit);
+
     Optional<User> getUserById(Long id);
 
     User saveUser(User user);
@@ -0,0 +1,26 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleDto;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+public interface VehicleCatalogService {
+    Entry getVehicle(Long vehicleId, Supplier<VehicleDto> loader);
+    Entry getAllVehicles(Supplier<List<VehicleDto>> loader);
+    boolean notModified(Entry entry, String ifNoneMatch);
+    void evict(Long vehicleId);
+    void evictAll();
+
+    /**
+     * A response body serialized once, with the strong ETag of exactly those bytes.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    final class Entry {
+        private final String etag;
+        private final byte[] body;
+    }
+}
@@ -0,0 +1,24 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import com.rimmelasghar.boilerplate.springboot.model.Location;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.function.LongPredicate;
+
+public interface VehicleGeoIndexService {
+    List<Hit> nearest(double latitude, double longitude, double radiusMeters, int limit, LongPredicate accept);
+    void index(Location location);
+    void removeLocation(Long locationId);
+    void index(Vehicle vehicle);
+    void removeVehicle(Long vehicleId);
+
+    @Getter
+    @RequiredArgsConstructor
+    final class Hit {
+        private final long vehicleId;
+        private final double distanceMeters;
+    }
+}
@@ -0,0 +1,13 @@
+package com.rimmelasghar.boilerplate.springboot.service;
+
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleSearchDto;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+
+import java.util.List;
+
+public interface VehicleSearchService {
+    VehicleSearchDto search(List<String> types, List<String> brands, List<String> statuses, List<Long> locationIds,
+                            double minPricePerDay, double maxPricePerDay, int limit);
+    void index(Vehicle vehicle);
+    void remove(Long vehicleId);
+}
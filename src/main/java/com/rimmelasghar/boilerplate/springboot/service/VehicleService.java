@@ -1,8 +1,13 @@
 package com.rimmelasghar.boilerplate.springboot.service;
 
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
+import com.rimmelasghar.boilerplate.springboot.dto.NearbyVehicleDto;
 import com.rimmelasghar.boilerplate.springboot.dto.VehicleDto;
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleSearchDto;
 import com.rimmelasghar.boilerplate.springboot.dto.VehicleUpdateDto;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface VehicleService {
@@ -11,4 +16,12 @@ public interface VehicleService {
     VehicleDto updateVehicle(Long id, VehicleUpdateDto vehicleUpdateDto);
     void deleteVehicle(Long id);
     List<VehicleDto> getAllVehicles();
+    VehicleCatalogService.Entry getVehicleJson(Long id);
+    VehicleCatalogService.Entry getAllVehiclesJson();
+    CursorPageDto<VehicleDto> getVehiclesPage(String after, Integer limit);
+    List<VehicleDto> getAvailableVehicles(LocalDateTime from, LocalDateTime to, Long locationId);
+    List<NearbyVehicleDto> getNearbyVehicles(double latitude, double longitude, Double radiusMeters, Integer limit,
+                                             LocalDateTime from, LocalDateTime to);
+    VehicleSearchDto searchVehicles(List<String> types, List<String> brands, List<String> statuses, List<Long> locationIds,
+                                    BigDecimal minPricePerDay, BigDecimal maxPricePerDay, Integer limit);
 }
@@ -0,0 +1,49 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Encodes keyset positions as opaque cursors so clients cannot come to rely on their format.
+ */
+public final class CursorUtils {
+
+	private static final String ID_CURSOR_PREFIX = "id:";
+
+	private CursorUtils() {
+
+		throw new UnsupportedOperationException();
+	}
+
+	public static String encode(Object id) {
+
+		final String position = ID_CURSOR_PREFIX + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the id after which the next page starts, or null for the first page
+	 * @throws BadRequestException if the cursor was not produced by {@link #encode(Object)}
+	 */
+	public static Long decode(String cursor) {
+
+		if (Objects.isNull(cursor) || cursor.isEmpty()) {
+			return null;
+		}
+
+		try {
+			final String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (!position.startsWith(ID_CURSOR_PREFIX)) {
+				throw new BadRequestException("Invalid cursor");
+			}
+			return Long.valueOf(position.substring(ID_CURSOR_PREFIX.length()));
+		}
+		catch (IllegalArgumentException e) {
+			throw new BadRequestException("Invalid cursor");
+		}
+	}
+
+}
@@ -0,0 +1,345 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+
+/**
+ * Faceted filter over documents with a few keyword fields and one number, answered from bitmaps.
+ * <p>
+ * Documents get dense ordinals, reused after removal. Every distinct value of every field has a {@link RoaringBitmap} of
+ * the ordinals holding it. A search ORs the bitmaps of the values asked for within a field and ANDs the fields, then
+ * walks the matching ordinals once: the number is range-checked against a primitive column, and the same pass counts
+ * each field's values and keeps the lowest document ids. Facet counts are over the full match, so they show how the
+ * current result splits and how far each value would narrow it.
+ * <p>
+ * Values match case-insensitively and are reported as last written. A value no document holds any more keeps its slot
+ * until the index is rebuilt. Not thread-safe; callers serialise writes against reads. Concurrent reads are safe.
+ */
+public final class FacetIndex<T> {
+
+	private final String[] fields;
+
+	private final Facet[] facets;
+
+	private final Map<Long, Integer> ordinals = new HashMap<>();
+
+	private final RoaringBitmap live = new RoaringBitmap();
+
+	private long[] documentIds = new long[1024];
+
+	private double[] numbers = new double[1024];
+
+	private Object[] documents = new Object[1024];
+
+	// valueIds[field][ordinal] is the document's value slot in that field, -1 for none
+	private final int[][] valueIds;
+
+	private int[] freeOrdinals = new int[64];
+
+	private int freeCount;
+
+	private int nextOrdinal;
+
+	public FacetIndex(String... fields) {
+
+		this.fields = fields.clone();
+		this.facets = new Facet[fields.length];
+		this.valueIds = new int[fields.length][];
+		for (int field = 0; field < fields.length; field++) {
+			facets[field] = new Facet();
+			valueIds[field] = new int[documentIds.length];
+		}
+	}
+
+	/**
+	 * Indexes the document under {@code documentId}, replacing whatever was indexed under it before.
+	 *
+	 * @param values one per field, in constructor order; null where the document has none
+	 * @param number NaN when the document has none; it then fails every range
+	 */
+	public void put(long documentId, String[] values, double number, T document) {
+
+		if (values.length != fields.length) {
+			throw new IllegalArgumentException("Expected " + fields.length + " values, got " + values.length);
+		}
+		remove(documentId);
+
+		final int ordinal = freeCount > 0 ? freeOrdinals[--freeCount] : nextOrdinal++;
+		ensureCapacity(ordinal + 1);
+		ordinals.put(documentId, ordinal);
+		documentIds[ordinal] = documentId;
+		numbers[ordinal] = number;
+		documents[ordinal] = document;
+		for (int field = 0; field < fields.length; field++) {
+			valueIds[field][ordinal] = facets[field].add(values[field], ordinal);
+		}
+		live.add(ordinal);
+	}
+
+	/**
+	 * @return false if nothing was indexed under {@code documentId}
+	 */
+	public boolean remove(long documentId) {
+
+		final Integer ordinal = ordinals.remove(documentId);
+		if (ordinal == null) {
+			return false;
+		}
+
+		for (int field = 0; field < fields.length; field++) {
+			facets[field].remove(valueIds[field][ordinal], ordinal);
+		}
+		live.remove(ordinal);
+		documents[ordinal] = null;
+		if (freeCount == freeOrdinals.length) {
+			freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+		}
+		freeOrdinals[freeCount++] = ordinal;
+		return true;
+	}
+
+	public int size() {
+
+		return ordinals.size();
+	}
+
+	/**
+	 * @param filters per field, the values any of which a document must hold; fields left out or empty are not filtered
+	 * @param minNumber inclusive; negative infinity for no lower bound
+	 * @param maxNumber inclusive; positive infinity for no upper bound
+	 * @return up to {@code limit} matching documents, lowest id first, with the total and the facet counts of every match
+	 */
+	public Result<T> search(Map<String, ? extends Collection<String>> filters, double minNumber, double maxNumber, int limit) {
+
+		RoaringBitmap matches = live;
+		for (Map.Entry<String, ? extends Collection<String>> filter : filters.entrySet()) {
+			final Collection<String> values = filter.getValue();
+			if (values == null || values.isEmpty()) {
+				continue;
+			}
+
+			final Facet facet = facets[fieldIndex(filter.getKey())];
+			RoaringBitmap any = new RoaringBitmap();
+			for (String value : values) {
+				final RoaringBitmap holding = facet.bitmap(value);
+				if (holding != null) {
+					any = RoaringBitmap.or(any, holding);
+				}
+			}
+			matches = RoaringBitmap.and(matches, any);
+			if (matches.isEmpty()) {
+				break;
+			}
+		}
+
+		final Pass pass = new Pass(minNumber, maxNumber, limit);
+		matches.forEach(pass);
+		return pass.result();
+	}
+
+	private int fieldIndex(String field) {
+
+		for (int i = 0; i < fields.length; i++) {
+			if (fields[i].equals(field)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unknown field: " + field);
+	}
+
+	private void ensureCapacity(int capacity) {
+
+		if (capacity <= documentIds.length) {
+			return;
+		}
+
+		final int length = Math.max(capacity, documentIds.length * 2);
+		documentIds = Arrays.copyOf(documentIds, length);
+		numbers = Arrays.copyOf(numbers, length);
+		documents = Arrays.copyOf(documents, length);
+		for (int field = 0; field < fields.length; field++) {
+			valueIds[field] = Arrays.copyOf(valueIds[field], length);
+		}
+	}
+
+	/**
+	 * One walk over the matching ordinals.
+	 */
+	private final class Pass implements IntConsumer {
+
+		private final double minNumber;
+
+		private final double maxNumber;
+
+		private final boolean ranged;
+
+		private final int limit;
+
+		private final int[][] counts = new int[fields.length][];
+
+		// Highest id on top, so it is the one to drop when a lower id comes along
+		private final PriorityQueue<Integer> lowest;
+
+		private int total;
+
+		private Pass(double minNumber, double maxNumber, int limit) {
+
+			this.minNumber = minNumber;
+			this.maxNumber = maxNumber;
+			this.ranged = minNumber != Double.NEGATIVE_INFINITY || maxNumber != Double.POSITIVE_INFINITY;
+			this.limit = limit;
+			this.lowest = new PriorityQueue<>(Math.max(1, limit + 1), (left, right) -> Long.compare(documentIds[right], documentIds[left]));
+			for (int field = 0; field < fields.length; field++) {
+				counts[field] = new int[facets[field].labels.size()];
+			}
+		}
+
+		@Override
+		public void accept(int ordinal) {
+
+			// NaN fails both comparisons
+			if (ranged && !(numbers[ordinal] >= minNumber && numbers[ordinal] <= maxNumber)) {
+				return;
+			}
+
+			total++;
+			for (int field = 0; field < fields.length; field++) {
+				final int valueId = valueIds[field][ordinal];
+				if (valueId >= 0) {
+					counts[field][valueId]++;
+				}
+			}
+			if (limit > 0 && (lowest.size() < limit || documentIds[ordinal] < documentIds[lowest.peek()])) {
+				lowest.add(ordinal);
+				if (lowest.size() > limit) {
+					lowest.poll();
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private Result<T> result() {
+
+			final List<Integer> ordered = new ArrayList<>(lowest);
+			ordered.sort(Comparator.comparingLong(ordinal -> documentIds[ordinal]));
+			final List<T> matched = new ArrayList<>(ordered.size());
+			for (int ordinal : ordered) {
+				matched.add((T) documents[ordinal]);
+			}
+
+			final Map<String, Map<String, Integer>> facetCounts = new LinkedHashMap<>();
+			for (int field = 0; field < fields.length; field++) {
+				facetCounts.put(fields[field], facets[field].counts(counts[field]));
+			}
+			return new Result<>(total, matched, facetCounts);
+		}
+	}
+
+	private static final class Facet {
+
+		private final Map<String, Integer> idsByKey = new HashMap<>();
+
+		// Indexed by value id
+		private final List<String> labels = new ArrayList<>();
+
+		private final List<RoaringBitmap> bitmaps = new ArrayList<>();
+
+		private int add(String value, int ordinal) {
+
+			if (value == null || value.isBlank()) {
+				return -1;
+			}
+
+			final Integer id = idsByKey.computeIfAbsent(key(value), key -> {
+				labels.add(value);
+				bitmaps.add(new RoaringBitmap());
+				return labels.size() - 1;
+			});
+			labels.set(id, value);
+			bitmaps.get(id).add(ordinal);
+			return id;
+		}
+
+		private void remove(int id, int ordinal) {
+
+			if (id >= 0) {
+				bitmaps.get(id).remove(ordinal);
+			}
+		}
+
+		private RoaringBitmap bitmap(String value) {
+
+			final Integer id = value == null ? null : idsByKey.get(key(value));
+			return id == null ? null : bitmaps.get(id);
+		}
+
+		// Most common first; values no match holds are left out
+		private Map<String, Integer> counts(int[] counts) {
+
+			final List<Integer> ids = new ArrayList<>();
+			for (int id = 0; id < counts.length; id++) {
+				if (counts[id] > 0) {
+					ids.add(id);
+				}
+			}
+			ids.sort(Comparator.<Integer>comparingInt(id -> counts[id]).reversed().thenComparing(labels::get));
+
+			final Map<String, Integer> result = new LinkedHashMap<>();
+			for (int id : ids) {
+				result.put(labels.get(id), counts[id]);
+			}
+			return result;
+		}
+
+		private static String key(String value) {
+
+			return value.trim().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	public static final class Result<T> {
+
+		private final int total;
+
+		private final List<T> documents;
+
+		private final Map<String, Map<String, Integer>> facets;
+
+		private Result(int total, List<T> documents, Map<String, Map<String, Integer>> facets) {
+
+			this.total = total;
+			this.documents = documents;
+			this.facets = facets;
+		}
+
+		/**
+		 * Every match, not just the documents returned.
+		 */
+		public int getTotal() {
+
+			return total;
+		}
+
+		public List<T> getDocuments() {
+
+			return documents;
+		}
+
+		/**
+		 * Per field, in constructor order, each value's number of matches.
+		 */
+		public Map<String, Map<String, Integer>> getFacets() {
+
+			return facets;
+		}
+	}
+}
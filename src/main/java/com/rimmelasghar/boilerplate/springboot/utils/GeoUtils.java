@@ -0,0 +1,33 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+/**
+ * Great-circle distances on a spherical Earth; accurate to about 0.5%, which is plenty for "what's near me".
+ */
+public final class GeoUtils {
+
+	public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+	public static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180;
+
+	private GeoUtils() {
+
+		throw new UnsupportedOperationException();
+	}
+
+	public static double distanceMeters(double latitude1, double longitude1, double latitude2, double longitude2) {
+
+		final double deltaLatitude = Math.toRadians(latitude2 - latitude1);
+		final double deltaLongitude = Math.toRadians(longitude2 - longitude1);
+		final double sinLatitude = Math.sin(deltaLatitude / 2);
+		final double sinLongitude = Math.sin(deltaLongitude / 2);
+
+		final double a = sinLatitude * sinLatitude + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * sinLongitude * sinLongitude;
+		return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	public static boolean isValid(Double latitude, Double longitude) {
+
+		return latitude != null && longitude != null && latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+	}
+
+}
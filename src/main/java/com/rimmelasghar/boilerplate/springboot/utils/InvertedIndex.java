@@ -0,0 +1,406 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongPredicate;
+
+/**
+ * Full-text index from terms to documents, ranked with BM25.
+ * <p>
+ * Documents get dense ordinals in the order they are added. Each term's posting list is a byte array of
+ * (ordinal delta, term frequency) pairs in variable-length encoding, usually two or three bytes per entry, appended to as
+ * documents arrive. Removing or replacing a document only marks its ordinal dead; once dead ordinals make up a quarter
+ * of the index the posting lists are rewritten without them.
+ * <p>
+ * Not thread-safe; callers serialise writes against reads. Concurrent reads are safe.
+ */
+public final class InvertedIndex {
+
+	private static final int SNAPSHOT_VERSION = 1;
+
+	private static final double K1 = 1.2;
+
+	private static final double B = 0.75;
+
+	private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+	private final Map<String, Postings> postings = new HashMap<>();
+
+	private final Map<Long, Integer> ordinals = new HashMap<>();
+
+	private long[] documentIds = new long[1024];
+
+	private int[] lengths = new int[1024];
+
+	private final BitSet live = new BitSet();
+
+	private int nextOrdinal;
+
+	private int liveCount;
+
+	private long liveLength;
+
+	/**
+	 * Indexes the document's terms under {@code documentId}, replacing whatever was indexed under it before.
+	 */
+	public void put(long documentId, List<String> terms) {
+
+		remove(documentId);
+
+		final Map<String, Integer> frequencies = new HashMap<>();
+		for (String term : terms) {
+			frequencies.merge(term, 1, Integer::sum);
+		}
+
+		final int ordinal = nextOrdinal++;
+		if (ordinal == documentIds.length) {
+			documentIds = Arrays.copyOf(documentIds, ordinal * 2);
+			lengths = Arrays.copyOf(lengths, ordinal * 2);
+		}
+		documentIds[ordinal] = documentId;
+		lengths[ordinal] = terms.size();
+		live.set(ordinal);
+		ordinals.put(documentId, ordinal);
+		liveCount++;
+		liveLength += terms.size();
+
+		frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, key -> new Postings()).append(ordinal, frequency));
+	}
+
+	public void remove(long documentId) {
+
+		final Integer ordinal = ordinals.remove(documentId);
+		if (ordinal == null) {
+			return;
+		}
+		live.clear(ordinal);
+		liveCount--;
+		liveLength -= lengths[ordinal];
+
+		if (nextOrdinal - liveCount >= MIN_DEAD_TO_COMPACT && nextOrdinal - liveCount > nextOrdinal / 4) {
+			compact();
+		}
+	}
+
+	public boolean contains(long documentId) {
+
+		return ordinals.containsKey(documentId);
+	}
+
+	public int size() {
+
+		return liveCount;
+	}
+
+	public int terms() {
+
+		return postings.size();
+	}
+
+	/**
+	 * Highest indexed document id, or {@link Long#MIN_VALUE} when empty.
+	 */
+	public long maxDocumentId() {
+
+		long max = Long.MIN_VALUE;
+		for (long documentId : ordinals.keySet()) {
+			max = Math.max(max, documentId);
+		}
+		return max;
+	}
+
+	/**
+	 * Ranks the documents containing any of the terms, best first.
+	 *
+	 * @param filter applied to the document ids of matching documents before they are scored; documents it rejects still
+	 *               count towards each term's document frequency, so it narrows the result without changing the ranking
+	 */
+	public List<Hit> search(Collection<String> terms, LongPredicate filter, int limit) {
+
+		if (liveCount == 0 || limit <= 0) {
+			return List.of();
+		}
+		final double averageLength = Math.max(1.0, (double) liveLength / liveCount);
+
+		// Scores accumulate in ordinal order, so adding each term's postings is a linear merge
+		int[] matched = new int[0];
+		double[] scores = new double[0];
+
+		for (String term : new LinkedHashSet<>(terms)) {
+			final Postings termPostings = postings.get(term);
+			if (termPostings == null) {
+				continue;
+			}
+
+			final int[] termOrdinals = new int[termPostings.count];
+			final int[] frequencies = new int[termPostings.count];
+			final int found = termPostings.decode(live, termOrdinals, frequencies);
+			if (found == 0) {
+				continue;
+			}
+
+			final double idf = Math.log(1 + (liveCount - found + 0.5) / (found + 0.5));
+
+			int kept = 0;
+			for (int i = 0; i < found; i++) {
+				if (filter.test(documentIds[termOrdinals[i]])) {
+					termOrdinals[kept] = termOrdinals[i];
+					frequencies[kept++] = frequencies[i];
+				}
+			}
+			if (kept == 0) {
+				continue;
+			}
+
+			final double[] termScores = new double[kept];
+			for (int i = 0; i < kept; i++) {
+				final double frequency = frequencies[i];
+				final double norm = K1 * (1 - B + B * lengths[termOrdinals[i]] / averageLength);
+				termScores[i] = idf * frequency * (K1 + 1) / (frequency + norm);
+			}
+
+			final int[] mergedOrdinals = new int[matched.length + kept];
+			final double[] mergedScores = new double[matched.length + kept];
+			int i = 0;
+			int j = 0;
+			int k = 0;
+			while (i < matched.length || j < kept) {
+				if (j == kept || (i < matched.length && matched[i] < termOrdinals[j])) {
+					mergedOrdinals[k] = matched[i];
+					mergedScores[k++] = scores[i++];
+				}
+				else if (i == matched.length || termOrdinals[j] < matched[i]) {
+					mergedOrdinals[k] = termOrdinals[j];
+					mergedScores[k++] = termScores[j++];
+				}
+				else {
+					mergedOrdinals[k] = matched[i];
+					mergedScores[k++] = scores[i++] + termScores[j++];
+				}
+			}
+			matched = Arrays.copyOf(mergedOrdinals, k);
+			scores = Arrays.copyOf(mergedScores, k);
+		}
+
+		// Keeps the best `limit` in a min-heap; ties go to the newer document
+		final PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1);
+		for (int i = 0; i < matched.length; i++) {
+			best.add(new Hit(documentIds[matched[i]], scores[i]));
+			if (best.size() > limit) {
+				best.poll();
+			}
+		}
+
+		final List<Hit> hits = new ArrayList<>(best);
+		hits.sort(Collections.reverseOrder());
+		return hits;
+	}
+
+	public void writeTo(DataOutput output) throws IOException {
+
+		output.writeInt(SNAPSHOT_VERSION);
+		output.writeInt(nextOrdinal);
+		for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+			output.writeLong(documentIds[ordinal]);
+			output.writeInt(lengths[ordinal]);
+			output.writeBoolean(live.get(ordinal));
+		}
+
+		output.writeInt(postings.size());
+		for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+			final Postings termPostings = entry.getValue();
+			output.writeUTF(entry.getKey());
+			output.writeInt(termPostings.count);
+			output.writeInt(termPostings.lastOrdinal);
+			output.writeInt(termPostings.size);
+			output.write(termPostings.bytes, 0, termPostings.size);
+		}
+	}
+
+	/**
+	 * @throws IOException also when the snapshot was written by an incompatible version
+	 */
+	public static InvertedIndex readFrom(DataInput input) throws IOException {
+
+		if (input.readInt() != SNAPSHOT_VERSION) {
+			throw new IOException("Unsupported index snapshot version");
+		}
+
+		final InvertedIndex index = new InvertedIndex();
+		final int ordinalCount = input.readInt();
+		index.documentIds = new long[Math.max(1024, ordinalCount)];
+		index.lengths = new int[Math.max(1024, ordinalCount)];
+		for (int ordinal = 0; ordinal < ordinalCount; ordinal++) {
+			index.documentIds[ordinal] = input.readLong();
+			index.lengths[ordinal] = input.readInt();
+			if (input.readBoolean()) {
+				index.live.set(ordinal);
+				index.ordinals.put(index.documentIds[ordinal], ordinal);
+				index.liveCount++;
+				index.liveLength += index.lengths[ordinal];
+			}
+		}
+		index.nextOrdinal = ordinalCount;
+
+		final int termCount = input.readInt();
+		for (int i = 0; i < termCount; i++) {
+			final String term = input.readUTF();
+			final Postings termPostings = new Postings();
+			termPostings.count = input.readInt();
+			termPostings.lastOrdinal = input.readInt();
+			termPostings.size = input.readInt();
+			termPostings.bytes = new byte[Math.max(8, termPostings.size)];
+			input.readFully(termPostings.bytes, 0, termPostings.size);
+			index.postings.put(term, termPostings);
+		}
+		return index;
+	}
+
+	private void compact() {
+
+		final int[] remap = new int[nextOrdinal];
+		int next = 0;
+		for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+			if (live.get(ordinal)) {
+				remap[ordinal] = next;
+				documentIds[next] = documentIds[ordinal];
+				lengths[next] = lengths[ordinal];
+				ordinals.put(documentIds[next], next);
+				next++;
+			}
+		}
+
+		postings.values().removeIf(termPostings -> !termPostings.rewrite(live, remap));
+		live.clear();
+		live.set(0, next);
+		nextOrdinal = next;
+	}
+
+	public static final class Hit implements Comparable<Hit> {
+
+		private final long documentId;
+
+		private final double score;
+
+		private Hit(long documentId, double score) {
+
+			this.documentId = documentId;
+			this.score = score;
+		}
+
+		public long getDocumentId() {
+
+			return documentId;
+		}
+
+		public double getScore() {
+
+			return score;
+		}
+
+		@Override
+		public int compareTo(Hit other) {
+
+			final int byScore = Double.compare(score, other.score);
+			return byScore != 0 ? byScore : Long.compare(documentId, other.documentId);
+		}
+	}
+
+	private static final class Postings {
+
+		private byte[] bytes = new byte[8];
+
+		private int size;
+
+		// Entries, dead ones included
+		private int count;
+
+		private int lastOrdinal;
+
+		private void append(int ordinal, int frequency) {
+
+			writeVarInt(count == 0 ? ordinal : ordinal - lastOrdinal);
+			writeVarInt(frequency);
+			lastOrdinal = ordinal;
+			count++;
+		}
+
+		/**
+		 * @return the number of live entries written to the arrays
+		 */
+		private int decode(BitSet live, int[] ordinalsOut, int[] frequenciesOut) {
+
+			int position = 0;
+			int ordinal = 0;
+			int found = 0;
+			for (int i = 0; i < count; i++) {
+				int delta = 0;
+				for (int shift = 0; ; shift += 7) {
+					final byte b = bytes[position++];
+					delta |= (b & 0x7F) << shift;
+					if (b >= 0) {
+						break;
+					}
+				}
+				int frequency = 0;
+				for (int shift = 0; ; shift += 7) {
+					final byte b = bytes[position++];
+					frequency |= (b & 0x7F) << shift;
+					if (b >= 0) {
+						break;
+					}
+				}
+				ordinal = i == 0 ? delta : ordinal + delta;
+				if (live.get(ordinal)) {
+					ordinalsOut[found] = ordinal;
+					frequenciesOut[found++] = frequency;
+				}
+			}
+			return found;
+		}
+
+		/**
+		 * Re-encodes the live entries under their new ordinals.
+		 *
+		 * @return false if no entry is left
+		 */
+		private boolean rewrite(BitSet live, int[] remap) {
+
+			final int[] entryOrdinals = new int[count];
+			final int[] frequencies = new int[count];
+			final int found = decode(live, entryOrdinals, frequencies);
+
+			bytes = new byte[Math.max(8, size)];
+			size = 0;
+			count = 0;
+			for (int i = 0; i < found; i++) {
+				append(remap[entryOrdinals[i]], frequencies[i]);
+			}
+			return count > 0;
+		}
+
+		private void writeVarInt(int value) {
+
+			if (size + 5 > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + 5));
+			}
+			while ((value & ~0x7F) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+	}
+
+}
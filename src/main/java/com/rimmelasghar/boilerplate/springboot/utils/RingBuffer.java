@@ -0,0 +1,109 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer thread.
+ * <p>
+ * Each side only writes its own sequence and reads the other's, so neither offer nor poll takes a lock or retries a
+ * CAS. Sequences are published with ordered writes, which is enough for a slot's contents to be visible to the other
+ * side once it sees the sequence move past it.
+ */
+public final class RingBuffer<T> {
+
+	private final Object[] entries;
+
+	private final int mask;
+
+	// Next sequence to read; written by the consumer only
+	private final AtomicLong head = new AtomicLong();
+
+	// Next sequence to write; written by the producer only
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * @param capacity rounded up to a power of two
+	 */
+	public RingBuffer(int capacity) {
+
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+		}
+
+		this.entries = new Object[Math.max(2, Integer.highestOneBit(capacity - 1) << 1)];
+		this.mask = entries.length - 1;
+	}
+
+	/**
+	 * Producer side.
+	 *
+	 * @return false if the buffer is full
+	 */
+	public boolean offer(T item) {
+
+		final long sequence = tail.get();
+		if (sequence - head.get() == entries.length) {
+			return false;
+		}
+
+		entries[(int) (sequence & mask)] = item;
+		tail.lazySet(sequence + 1);
+		return true;
+	}
+
+	/**
+	 * Consumer side.
+	 *
+	 * @return null if the buffer is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public T poll() {
+
+		final long sequence = head.get();
+		if (sequence == tail.get()) {
+			return null;
+		}
+
+		final int slot = (int) (sequence & mask);
+		final T item = (T) entries[slot];
+		entries[slot] = null;
+		head.lazySet(sequence + 1);
+		return item;
+	}
+
+	/**
+	 * Consumer side: hands up to {@code limit} items to {@code sink} and frees their slots in one step.
+	 *
+	 * @return the number of items drained
+	 */
+	@SuppressWarnings("unchecked")
+	public int drain(Consumer<T> sink, int limit) {
+
+		final long from = head.get();
+		final int count = (int) Math.min(limit, tail.get() - from);
+
+		for (int i = 0; i < count; i++) {
+			final int slot = (int) ((from + i) & mask);
+			final T item = (T) entries[slot];
+			entries[slot] = null;
+			sink.accept(item);
+		}
+		head.lazySet(from + count);
+		return count;
+	}
+
+	/**
+	 * Approximate when called while either side is running.
+	 */
+	public int size() {
+
+		return (int) Math.max(0, Math.min(entries.length, tail.get() - head.get()));
+	}
+
+	public int capacity() {
+
+		return entries.length;
+	}
+
+}
@@ -0,0 +1,452 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of ints in the Roaring layout.
+ * <p>
+ * Values are split by their high 16 bits into chunks of up to 65536. A sparse chunk is a sorted array of its low 16 bits,
+ * two bytes per value; once it holds more than 4096 values it becomes a fixed 8 KB bitmap, which is then the smaller of
+ * the two. Intersections and unions work chunk by chunk and pick the cheapest loop for each pair of containers, so
+ * dense ordinals cost about a bit each and a rare value only what it holds.
+ * <p>
+ * Values are ordered as unsigned ints. Not thread-safe; callers serialise writes against reads. Concurrent reads are
+ * safe.
+ */
+public final class RoaringBitmap {
+
+	private static final int ARRAY_LIMIT = 4096;
+
+	private static final int BITMAP_WORDS = 1024;
+
+	private char[] keys = new char[4];
+
+	private Container[] containers = new Container[4];
+
+	private int size;
+
+	public void add(int value) {
+
+		final char key = (char) (value >>> 16);
+		int index = indexOf(key);
+		if (index < 0) {
+			index = -index - 1;
+			insert(index, key, new ArrayContainer());
+		}
+		containers[index] = containers[index].add((char) value);
+	}
+
+	public void remove(int value) {
+
+		final int index = indexOf((char) (value >>> 16));
+		if (index < 0) {
+			return;
+		}
+
+		final Container container = containers[index].remove((char) value);
+		if (container.cardinality() == 0) {
+			delete(index);
+		}
+		else {
+			containers[index] = container;
+		}
+	}
+
+	public boolean contains(int value) {
+
+		final int index = indexOf((char) (value >>> 16));
+		return index >= 0 && containers[index].contains((char) value);
+	}
+
+	public int cardinality() {
+
+		int cardinality = 0;
+		for (int i = 0; i < size; i++) {
+			cardinality += containers[i].cardinality();
+		}
+		return cardinality;
+	}
+
+	public boolean isEmpty() {
+
+		return size == 0;
+	}
+
+	/**
+	 * Calls {@code action} with every value, in ascending order.
+	 */
+	public void forEach(IntConsumer action) {
+
+		for (int i = 0; i < size; i++) {
+			containers[i].forEach(keys[i] << 16, action);
+		}
+	}
+
+	/**
+	 * @return a new bitmap; neither argument is changed
+	 */
+	public static RoaringBitmap and(RoaringBitmap left, RoaringBitmap right) {
+
+		final RoaringBitmap result = new RoaringBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < left.size && j < right.size) {
+			final char leftKey = left.keys[i];
+			final char rightKey = right.keys[j];
+			if (leftKey < rightKey) {
+				i++;
+			}
+			else if (leftKey > rightKey) {
+				j++;
+			}
+			else {
+				final Container container = left.containers[i].and(right.containers[j]);
+				if (container.cardinality() > 0) {
+					result.append(leftKey, container);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return a new bitmap; neither argument is changed
+	 */
+	public static RoaringBitmap or(RoaringBitmap left, RoaringBitmap right) {
+
+		final RoaringBitmap result = new RoaringBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < left.size || j < right.size) {
+			final char leftKey = i < left.size ? left.keys[i] : Character.MAX_VALUE;
+			final char rightKey = j < right.size ? right.keys[j] : Character.MAX_VALUE;
+			if (j == right.size || (i < left.size && leftKey < rightKey)) {
+				result.append(leftKey, left.containers[i++].copy());
+			}
+			else if (i == left.size || rightKey < leftKey) {
+				result.append(rightKey, right.containers[j++].copy());
+			}
+			else {
+				result.append(leftKey, left.containers[i++].or(right.containers[j++]));
+			}
+		}
+		return result;
+	}
+
+	private int indexOf(char key) {
+
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+	private void insert(int index, char key, Container container) {
+
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			containers = Arrays.copyOf(containers, size * 2);
+		}
+		System.arraycopy(keys, index, keys, index + 1, size - index);
+		System.arraycopy(containers, index, containers, index + 1, size - index);
+		keys[index] = key;
+		containers[index] = container;
+		size++;
+	}
+
+	private void delete(int index) {
+
+		System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+		System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+		containers[--size] = null;
+	}
+
+	// Keys arrive in ascending order
+	private void append(char key, Container container) {
+
+		insert(size, key, container);
+	}
+
+	/**
+	 * One chunk of 65536 values. Writes return the container that holds the result, which is a new one when the chunk
+	 * crosses between the sparse and dense forms.
+	 */
+	private abstract static class Container {
+
+		abstract Container add(char value);
+
+		abstract Container remove(char value);
+
+		abstract boolean contains(char value);
+
+		abstract int cardinality();
+
+		abstract Container and(Container other);
+
+		abstract Container or(Container other);
+
+		abstract Container copy();
+
+		abstract void forEach(int high, IntConsumer action);
+	}
+
+	private static final class ArrayContainer extends Container {
+
+		private char[] values;
+
+		private int cardinality;
+
+		private ArrayContainer() {
+
+			this(new char[4], 0);
+		}
+
+		private ArrayContainer(char[] values, int cardinality) {
+
+			this.values = values;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		Container add(char value) {
+
+			final int index = Arrays.binarySearch(values, 0, cardinality, value);
+			if (index >= 0) {
+				return this;
+			}
+			if (cardinality == ARRAY_LIMIT) {
+				return toBitmap().add(value);
+			}
+
+			final int insertAt = -index - 1;
+			if (cardinality == values.length) {
+				values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, Math.max(4, cardinality * 2)));
+			}
+			System.arraycopy(values, insertAt, values, insertAt + 1, cardinality - insertAt);
+			values[insertAt] = value;
+			cardinality++;
+			return this;
+		}
+
+		@Override
+		Container remove(char value) {
+
+			final int index = Arrays.binarySearch(values, 0, cardinality, value);
+			if (index >= 0) {
+				System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+				cardinality--;
+			}
+			return this;
+		}
+
+		@Override
+		boolean contains(char value) {
+
+			return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+		}
+
+		@Override
+		int cardinality() {
+
+			return cardinality;
+		}
+
+		@Override
+		Container and(Container other) {
+
+			final char[] result = new char[Math.min(cardinality, other.cardinality())];
+			int count = 0;
+			if (other instanceof ArrayContainer) {
+				final ArrayContainer array = (ArrayContainer) other;
+				int i = 0;
+				int j = 0;
+				while (i < cardinality && j < array.cardinality) {
+					if (values[i] < array.values[j]) {
+						i++;
+					}
+					else if (values[i] > array.values[j]) {
+						j++;
+					}
+					else {
+						result[count++] = values[i];
+						i++;
+						j++;
+					}
+				}
+			}
+			else {
+				for (int i = 0; i < cardinality; i++) {
+					if (other.contains(values[i])) {
+						result[count++] = values[i];
+					}
+				}
+			}
+			return new ArrayContainer(result, count);
+		}
+
+		@Override
+		Container or(Container other) {
+
+			if (!(other instanceof ArrayContainer)) {
+				return other.or(this);
+			}
+
+			final ArrayContainer array = (ArrayContainer) other;
+			final char[] result = new char[cardinality + array.cardinality];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while (i < cardinality || j < array.cardinality) {
+				if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+					result[count++] = values[i++];
+				}
+				else if (i == cardinality || array.values[j] < values[i]) {
+					result[count++] = array.values[j++];
+				}
+				else {
+					result[count++] = values[i++];
+					j++;
+				}
+			}
+
+			final ArrayContainer union = new ArrayContainer(result, count);
+			return count > ARRAY_LIMIT ? union.toBitmap() : union;
+		}
+
+		@Override
+		Container copy() {
+
+			return new ArrayContainer(Arrays.copyOf(values, Math.max(4, cardinality)), cardinality);
+		}
+
+		@Override
+		void forEach(int high, IntConsumer action) {
+
+			for (int i = 0; i < cardinality; i++) {
+				action.accept(high | values[i]);
+			}
+		}
+
+		private BitmapContainer toBitmap() {
+
+			final BitmapContainer bitmap = new BitmapContainer(new long[BITMAP_WORDS], 0);
+			for (int i = 0; i < cardinality; i++) {
+				bitmap.add(values[i]);
+			}
+			return bitmap;
+		}
+	}
+
+	private static final class BitmapContainer extends Container {
+
+		private final long[] words;
+
+		private int cardinality;
+
+		private BitmapContainer(long[] words, int cardinality) {
+
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		Container add(char value) {
+
+			final long bit = 1L << value;
+			if ((words[value >>> 6] & bit) == 0) {
+				words[value >>> 6] |= bit;
+				cardinality++;
+			}
+			return this;
+		}
+
+		@Override
+		Container remove(char value) {
+
+			final long bit = 1L << value;
+			if ((words[value >>> 6] & bit) == 0) {
+				return this;
+			}
+			words[value >>> 6] &= ~bit;
+			cardinality--;
+			// Switch back well below the limit, so a chunk hovering around it does not convert on every write
+			return cardinality < ARRAY_LIMIT / 2 ? toArray() : this;
+		}
+
+		@Override
+		boolean contains(char value) {
+
+			return (words[value >>> 6] & (1L << value)) != 0;
+		}
+
+		@Override
+		int cardinality() {
+
+			return cardinality;
+		}
+
+		@Override
+		Container and(Container other) {
+
+			if (!(other instanceof BitmapContainer)) {
+				return other.and(this);
+			}
+
+			final long[] otherWords = ((BitmapContainer) other).words;
+			final long[] result = new long[BITMAP_WORDS];
+			int count = 0;
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				result[i] = words[i] & otherWords[i];
+				count += Long.bitCount(result[i]);
+			}
+
+			final BitmapContainer intersection = new BitmapContainer(result, count);
+			return count <= ARRAY_LIMIT ? intersection.toArray() : intersection;
+		}
+
+		@Override
+		Container or(Container other) {
+
+			final BitmapContainer union = new BitmapContainer(words.clone(), cardinality);
+			if (other instanceof BitmapContainer) {
+				final long[] otherWords = ((BitmapContainer) other).words;
+				int count = 0;
+				for (int i = 0; i < BITMAP_WORDS; i++) {
+					union.words[i] |= otherWords[i];
+					count += Long.bitCount(union.words[i]);
+				}
+				union.cardinality = count;
+			}
+			else {
+				other.forEach(0, value -> union.add((char) value));
+			}
+			return union;
+		}
+
+		@Override
+		Container copy() {
+
+			return new BitmapContainer(words.clone(), cardinality);
+		}
+
+		@Override
+		void forEach(int high, IntConsumer action) {
+
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+
+		private ArrayContainer toArray() {
+
+			final char[] values = new char[Math.max(4, cardinality)];
+			final int[] count = {0};
+			forEach(0, value -> values[count[0]++] = (char) value);
+			return new ArrayContainer(values, cardinality);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits free text into search terms: lower-cased, with Vietnamese tone marks and other diacritics folded away (so
+ * text typed without accents matches text typed with them), English stop words dropped and English plurals reduced to
+ * the singular. Vietnamese syllables never end in "s" once folded, so the plural rule leaves them alone.
+ */
+public final class TextTokenizer {
+
+	public static final int MAX_TERM_LENGTH = 64;
+
+	private static final Set<String> STOP_WORDS = Set.of(
+			"a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "if", "in", "into", "is", "it", "its", "of", "on", "or",
+			"so", "that", "the", "their", "then", "there", "these", "they", "this", "to", "was", "were", "will", "with");
+
+	private TextTokenizer() {
+
+		throw new UnsupportedOperationException();
+	}
+
+	public static List<String> tokenize(String text) {
+
+		final List<String> terms = new ArrayList<>();
+		if (text == null || text.isEmpty()) {
+			return terms;
+		}
+
+		final String folded = fold(text);
+		final int length = folded.length();
+		int start = -1;
+		for (int i = 0; i <= length; i++) {
+			final boolean wordChar = i < length && Character.isLetterOrDigit(folded.charAt(i));
+			if (wordChar && start < 0) {
+				start = i;
+			}
+			else if (!wordChar && start >= 0) {
+				addTerm(terms, folded.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+				start = -1;
+			}
+		}
+		return terms;
+	}
+
+	private static String fold(String text) {
+
+		// d with stroke has no decomposition, so it is mapped before the combining marks are stripped
+		final String lowerCase = text.toLowerCase(Locale.ROOT).replace('\u0111', 'd');
+		final String decomposed = Normalizer.normalize(lowerCase, Normalizer.Form.NFD);
+
+		final StringBuilder folded = new StringBuilder(decomposed.length());
+		for (int i = 0; i < decomposed.length(); i++) {
+			final char c = decomposed.charAt(i);
+			if (Character.getType(c) != Character.NON_SPACING_MARK) {
+				folded.append(c);
+			}
+		}
+		return folded.toString();
+	}
+
+	private static void addTerm(List<String> terms, String term) {
+
+		if (STOP_WORDS.contains(term)) {
+			return;
+		}
+		if (term.length() > 3 && term.endsWith("s") && !term.endsWith("ss")) {
+			term = term.endsWith("ies") ? term.substring(0, term.length() - 3) + "y" : term.substring(0, term.length() - 1);
+		}
+		terms.add(term);
+	}
+
+}
@@ -0,0 +1,184 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: O(1) scheduling and expiry for deadlines up to {@link #horizonMillis()} ahead.
+ * <p>
+ * Level 0 has one slot per tick; each higher level has slots {@code wheelSize} times wider. A deadline goes into the
+ * coarsest level that can tell it apart from now and cascades down a level each time its slot comes round, so
+ * advancing the clock only ever touches the slots that are due. Not thread-safe; callers serialise access.
+ */
+public final class TimingWheel<T> {
+
+	private final long tickMillis;
+
+	private final int wheelBits;
+
+	private final int mask;
+
+	private final List<Entry<T>>[][] slots;
+
+	private final List<T> overdue = new ArrayList<>();
+
+	private long currentTick;
+
+	private int size;
+
+	/**
+	 * @param wheelSize slots per level, rounded up to a power of two
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheel(long tickMillis, int wheelSize, int levels, long nowMillis) {
+
+		if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+			throw new IllegalArgumentException("Tick, wheel size and levels must be positive");
+		}
+
+		this.tickMillis = tickMillis;
+		this.wheelBits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+		this.mask = (1 << wheelBits) - 1;
+
+		if ((long) wheelBits * levels >= 62) {
+			throw new IllegalArgumentException("Wheel size and levels overflow the tick range");
+		}
+
+		this.slots = new List[levels][1 << wheelBits];
+		this.currentTick = nowMillis / tickMillis;
+	}
+
+	/**
+	 * @return false if the deadline is beyond the horizon and must be scheduled again later
+	 */
+	public boolean schedule(long deadlineMillis, T item) {
+
+		final long tick = deadlineMillis / tickMillis;
+
+		if (tick <= currentTick) {
+			overdue.add(item);
+			size++;
+			return true;
+		}
+
+		if (!place(new Entry<>(tick, item))) {
+			return false;
+		}
+		size++;
+		return true;
+	}
+
+	/**
+	 * Moves the clock to {@code nowMillis} and returns everything that fell due, in no particular order.
+	 */
+	public List<T> advance(long nowMillis) {
+
+		final List<T> due = new ArrayList<>();
+		final long targetTick = nowMillis / tickMillis;
+
+		while (currentTick < targetTick) {
+			currentTick++;
+
+			// Cascade from the coarsest level whose slot boundary was just crossed
+			for (int level = slots.length - 1; level > 0; level--) {
+				if ((currentTick & ((1L << (wheelBits * level)) - 1)) == 0) {
+					cascade(level);
+				}
+			}
+
+			final int slot = (int) (currentTick & mask);
+			final List<Entry<T>> entries = slots[0][slot];
+			if (entries != null) {
+				slots[0][slot] = null;
+				for (Entry<T> entry : entries) {
+					due.add(entry.item);
+				}
+			}
+		}
+
+		// Includes entries scheduled in the past and those a cascade found already due
+		due.addAll(overdue);
+		overdue.clear();
+
+		size -= due.size();
+		return due;
+	}
+
+	/**
+	 * Latest deadline, relative to the wheel's clock, that {@link #schedule} still accepts.
+	 */
+	public long horizonMillis() {
+
+		return ((1L << (wheelBits * slots.length)) - 1) * tickMillis;
+	}
+
+	public int size() {
+
+		return size;
+	}
+
+	/**
+	 * Drops every entry and restarts the clock at {@code nowMillis}.
+	 */
+	public void clear(long nowMillis) {
+
+		for (List<Entry<T>>[] level : slots) {
+			Arrays.fill(level, null);
+		}
+		overdue.clear();
+		size = 0;
+		currentTick = nowMillis / tickMillis;
+	}
+
+	private void cascade(int level) {
+
+		final int slot = (int) ((currentTick >>> (wheelBits * level)) & mask);
+		final List<Entry<T>> entries = slots[level][slot];
+
+		if (entries == null) {
+			return;
+		}
+
+		slots[level][slot] = null;
+		for (Entry<T> entry : entries) {
+			if (entry.tick <= currentTick) {
+				overdue.add(entry.item);
+			}
+			else {
+				place(entry);
+			}
+		}
+	}
+
+	private boolean place(Entry<T> entry) {
+
+		final long delta = entry.tick - currentTick;
+
+		for (int level = 0; level < slots.length; level++) {
+			if (delta < (1L << (wheelBits * (level + 1)))) {
+				final int slot = (int) ((entry.tick >>> (wheelBits * level)) & mask);
+				if (slots[level][slot] == null) {
+					slots[level][slot] = new ArrayList<>();
+				}
+				slots[level][slot].add(entry);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static final class Entry<T> {
+
+		private final long tick;
+
+		private final T item;
+
+		private Entry(long tick, T item) {
+
+			this.tick = tick;
+			this.item = item;
+		}
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory side effects of a write, such as cache evictions, until the write is visible to other readers.
+ */
+public final class TransactionUtils {
+
+	private TransactionUtils() {
+
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Runs {@code action} once the current transaction commits, and not at all if it rolls back. Without a transaction
+	 * the write has already committed, so {@code action} runs straight away.
+	 */
+	public static void afterCommit(Runnable action) {
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCommit() {
+
+				action.run();
+			}
+		});
+	}
+
+}
@@ -0,0 +1,7 @@
+-- Bookings of a vehicle are serialised by bumping booking_version, which row-locks the vehicle until commit;
+-- the overlap re-check under that lock reads the vehicle's rentals by time range.
+
+alter table vehicles
+    add column booking_version bigint;
+
+create index idx_rentals_vehicle_time on rentals (vehicle_id, start_time, end_time);
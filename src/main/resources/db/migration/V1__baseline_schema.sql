@@ -0,0 +1,86 @@
+-- Schema as previously generated by Hibernate (ddl-auto: update).
+-- Databases created that way are baselined at this version and skip this script.
+
+create table roles (
+    id bigint not null auto_increment,
+    role_name varchar(255) not null,
+    primary key (id),
+    constraint uk_roles_role_name unique (role_name)
+) engine=InnoDB;
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255),
+    full_name varchar(255),
+    password varchar(255),
+    phone_number varchar(255),
+    role_id bigint,
+    primary key (id),
+    constraint uk_users_email unique (email),
+    constraint fk_users_role foreign key (role_id) references roles (id)
+) engine=InnoDB;
+
+create table locations (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    address varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table vehicles (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    brand varchar(255) not null,
+    type varchar(255) not null,
+    license_plate varchar(255) not null,
+    status varchar(255) not null,
+    location_id bigint not null,
+    price_per_day decimal(19,2),
+    price_per_month decimal(19,2),
+    price_per_year decimal(19,2),
+    image varchar(255) not null,
+    primary key (id),
+    constraint uk_vehicles_license_plate unique (license_plate),
+    constraint fk_vehicles_location foreign key (location_id) references locations (id)
+) engine=InnoDB;
+
+create table rentals (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    vehicle_id bigint not null,
+    start_time datetime not null,
+    end_time datetime not null,
+    total_price decimal(19,2) not null,
+    status varchar(255) not null,
+    created_at datetime not null,
+    pickup_location longtext character set utf8mb4 collate utf8mb4_unicode_ci,
+    primary key (id),
+    constraint fk_rentals_user foreign key (user_id) references users (id),
+    constraint fk_rentals_vehicle foreign key (vehicle_id) references vehicles (id)
+) engine=InnoDB;
+
+create table payments (
+    id bigint not null auto_increment,
+    rental_id bigint not null,
+    user_id bigint not null,
+    amount decimal(19,2) not null,
+    payment_method varchar(255) not null,
+    payment_date datetime not null,
+    status varchar(255) not null,
+    created_at datetime not null,
+    primary key (id),
+    constraint fk_payments_rental foreign key (rental_id) references rentals (id),
+    constraint fk_payments_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table reviews (
+    id bigint not null auto_increment,
+    rental_id bigint not null,
+    user_id bigint not null,
+    rating integer not null,
+    comment varchar(1000),
+    created_at datetime not null,
+    primary key (id),
+    constraint fk_reviews_rental foreign key (rental_id) references rentals (id),
+    constraint fk_reviews_user foreign key (user_id) references users (id)
+) engine=InnoDB;
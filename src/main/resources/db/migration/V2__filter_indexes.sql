@@ -0,0 +1,16 @@
+-- Composite indexes for the rental, payment and review filter Specifications.
+-- Equality columns lead, the range column follows; InnoDB appends the primary key,
+-- so keyset pages (id > :after order by id) stay on the same index for equality-only filters.
+
+create index idx_rentals_user_start on rentals (user_id, start_time);
+create index idx_rentals_status_start on rentals (status, start_time);
+create index idx_rentals_end_time on rentals (end_time);
+
+create index idx_payments_user_date on payments (user_id, payment_date);
+create index idx_payments_rental_date on payments (rental_id, payment_date);
+create index idx_payments_status_date on payments (status, payment_date);
+create index idx_payments_date on payments (payment_date);
+
+create index idx_reviews_user_created on reviews (user_id, created_at);
+create index idx_reviews_rental_created on reviews (rental_id, created_at);
+create index idx_reviews_created on reviews (created_at);
@@ -0,0 +1,7 @@
+-- WGS84 coordinates for the nearby-vehicle search; a vehicle without its own falls back to its location's.
+
+alter table locations
+    add column (latitude double, longitude double);
+
+alter table vehicles
+    add column (latitude double, longitude double);
@@ -0,0 +1,10 @@
+-- Lease rows elect the node that runs a background job; created on first use.
+create table scheduler_leases (
+    name varchar(64) not null,
+    owner varchar(128),
+    expires_at datetime not null,
+    primary key (name)
+) engine=InnoDB;
+
+-- Active rentals reaching their end time; pending ones use idx_rentals_status_start.
+create index idx_rentals_status_end on rentals (status, end_time);
@@ -0,0 +1,49 @@
+-- Rollups behind GET /stats, kept current by the payment and rental writes and rebuilt nightly.
+
+create table stats_revenue_daily (
+    stat_date date not null,
+    location_id bigint not null,
+    revenue decimal(19,2) not null,
+    payments bigint not null,
+    primary key (stat_date, location_id)
+) engine=InnoDB;
+
+create index idx_stats_revenue_location_date on stats_revenue_daily (location_id, stat_date);
+
+create table stats_vehicle_rentals_daily (
+    stat_date date not null,
+    vehicle_id bigint not null,
+    rentals bigint not null,
+    revenue decimal(19,2) not null,
+    primary key (stat_date, vehicle_id)
+) engine=InnoDB;
+
+create index idx_stats_vehicle_rentals_vehicle_date on stats_vehicle_rentals_daily (vehicle_id, stat_date);
+
+create table stats_payment_status (
+    status varchar(255) not null,
+    payments bigint not null,
+    amount decimal(19,2) not null,
+    primary key (status)
+) engine=InnoDB;
+
+-- Backfill with the default stats.revenue-statuses and rental.availability.non-blocking-statuses;
+-- the first rebuild applies whatever is configured.
+insert into stats_revenue_daily (stat_date, location_id, revenue, payments)
+select date(p.payment_date), v.location_id, sum(p.amount), count(*)
+from payments p
+    join rentals r on r.id = p.rental_id
+    join vehicles v on v.id = r.vehicle_id
+where upper(p.status) in ('COMPLETED', 'PAID')
+group by date(p.payment_date), v.location_id;
+
+insert into stats_vehicle_rentals_daily (stat_date, vehicle_id, rentals, revenue)
+select date(r.start_time), r.vehicle_id, count(*), sum(r.total_price)
+from rentals r
+where upper(r.status) not in ('CANCELLED', 'CANCELED', 'REJECTED')
+group by date(r.start_time), r.vehicle_id;
+
+insert into stats_payment_status (status, payments, amount)
+select upper(p.status), count(*), sum(p.amount)
+from payments p
+group by upper(p.status);
@@ -0,0 +1,14 @@
+-- Responses of POST requests sent with an Idempotency-Key, replayed to retries until they expire.
+-- A row without status_code is a claim on a request still executing.
+create table idempotency_keys (
+    key_hash varchar(64) not null,
+    request_hash varchar(64) not null,
+    status_code integer,
+    content_type varchar(255),
+    response_body mediumblob,
+    locked_until datetime not null,
+    expires_at datetime not null,
+    primary key (key_hash)
+) engine=InnoDB;
+
+create index idx_idempotency_keys_expires on idempotency_keys (expires_at);
@@ -0,0 +1,15 @@
+-- Domain events written in the same transaction as the change they describe, and deleted once every consumer has
+-- handled them. available_at holds back events whose delivery failed until their retry is due.
+create table outbox_events (
+    id bigint not null,
+    aggregate_type varchar(32) not null,
+    aggregate_id bigint not null,
+    event_type varchar(64) not null,
+    payload mediumtext,
+    created_at datetime(3) not null,
+    available_at datetime(3) not null,
+    attempts integer not null default 0,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_outbox_events_available on outbox_events (available_at, id);
@@ -0,0 +1,35 @@
+-- Review counts, rating sums and star histograms per vehicle, location (of the reviewed rental's vehicle) and reviewer,
+-- kept current by the review writes and rebuilt nightly.
+create table rating_aggregates (
+    scope varchar(16) not null,
+    subject_id bigint not null,
+    ratings bigint not null,
+    rating_sum bigint not null,
+    stars_1 bigint not null,
+    stars_2 bigint not null,
+    stars_3 bigint not null,
+    stars_4 bigint not null,
+    stars_5 bigint not null,
+    primary key (scope, subject_id)
+) engine=InnoDB;
+
+insert into rating_aggregates (scope, subject_id, ratings, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5)
+select 'VEHICLE', r.vehicle_id, count(*), sum(v.rating),
+       sum(v.rating = 1), sum(v.rating = 2), sum(v.rating = 3), sum(v.rating = 4), sum(v.rating = 5)
+from reviews v
+    join rentals r on r.id = v.rental_id
+group by r.vehicle_id;
+
+insert into rating_aggregates (scope, subject_id, ratings, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5)
+select 'LOCATION', h.location_id, count(*), sum(v.rating),
+       sum(v.rating = 1), sum(v.rating = 2), sum(v.rating = 3), sum(v.rating = 4), sum(v.rating = 5)
+from reviews v
+    join rentals r on r.id = v.rental_id
+    join vehicles h on h.id = r.vehicle_id
+group by h.location_id;
+
+insert into rating_aggregates (scope, subject_id, ratings, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5)
+select 'USER', v.user_id, count(*), sum(v.rating),
+       sum(v.rating = 1), sum(v.rating = 2), sum(v.rating = 3), sum(v.rating = 4), sum(v.rating = 5)
+from reviews v
+group by v.user_id;
@@ -0,0 +1,33 @@
+-- Server-side token state: the per-user version that invalidates every token issued before it,
+-- rotating refresh tokens grouped by family, and the denylist of revoked access token ids.
+
+alter table users
+    add column token_version bigint;
+
+create table refresh_tokens (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    token_hash varchar(64) not null,
+    family_id varchar(36) not null,
+    expires_at datetime not null,
+    revoked_at datetime,
+    created_at datetime not null,
+    primary key (id),
+    constraint uk_refresh_tokens_token_hash unique (token_hash),
+    constraint fk_refresh_tokens_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create index idx_refresh_tokens_user_id on refresh_tokens (user_id);
+create index idx_refresh_tokens_family_id on refresh_tokens (family_id);
+create index idx_refresh_tokens_expires_at on refresh_tokens (expires_at);
+
+create table revoked_tokens (
+    id bigint not null auto_increment,
+    jti varchar(36) not null,
+    expires_at datetime not null,
+    revoked_at datetime not null,
+    primary key (id),
+    constraint uk_revoked_tokens_jti unique (jti)
+) engine=InnoDB;
+
+create index idx_revoked_tokens_expires_at on revoked_tokens (expires_at);
@@ -0,0 +1,246 @@
+package com.rimmelasghar.boilerplate.springboot.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rimmelasghar.boilerplate.springboot.repository.IdempotencyRecordRepository;
+import com.rimmelasghar.boilerplate.springboot.service.Impl.IdempotencyServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The filter in front of a stub endpoint, with the real key store on the test database. Claims commit on their own, as
+ * they do in front of the controllers.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({IdempotencyServiceImpl.class, IdempotencyProperties.class, SimpleMeterRegistry.class, JacksonAutoConfiguration.class})
+class IdempotencyFilterTest {
+
+    private static final int THREADS = 8;
+
+    // Not ASCII and no trailing newline, so any re-encoding or reformatting on replay shows
+    private static final byte[] CREATED_BODY = "{\"id\":42,\"comment\":\"Zoë’s rental\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private IdempotencyServiceImpl idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private IdempotencyProperties properties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private IdempotencyFilter filter;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        properties.setMaxBodyBytes(1_048_576);
+        filter = new IdempotencyFilter(idempotencyService, properties, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyRecordRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentDuplicatesExecuteOnceAndAllGetTheSameResponse() throws Exception {
+        final String key = "concurrent";
+        final CountDownLatch ready = new CountDownLatch(THREADS);
+        final CountDownLatch go = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final List<MockHttpServletResponse> responses = new ArrayList<>();
+        try {
+            final List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    go.await();
+                    // Slow enough that the duplicates arrive while the first request still runs
+                    return post(key, "{\"vehicle_id\":1}", created(200));
+                }));
+            }
+            ready.await();
+            go.countDown();
+            for (Future<MockHttpServletResponse> future : futures) {
+                responses.add(future.get(30, TimeUnit.SECONDS));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(executions).hasValue(1);
+        assertThat(responses).allSatisfy(response -> {
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+            assertThat(response.getContentAsByteArray()).isEqualTo(CREATED_BODY);
+        });
+        assertThat(responses).filteredOn(response -> response.getHeader(IdempotencyFilter.REPLAYED_HEADER) == null).hasSize(1);
+    }
+
+    @Test
+    void replayIsByteIdenticalFromTheCacheAndFromTheTable() throws Exception {
+        final MockHttpServletResponse first = post("replay", "{\"vehicle_id\":1}", created(0));
+        final MockHttpServletResponse cached = post("replay", "{\"vehicle_id\":1}", created(0));
+        // Another node has nothing cached and reads the stored row
+        final IdempotencyFilter otherNode = new IdempotencyFilter(
+                new IdempotencyServiceImpl(idempotencyRecordRepository, transactionTemplate, properties, new SimpleMeterRegistry()), properties, objectMapper);
+        final MockHttpServletResponse stored = post(otherNode, "replay", "{\"vehicle_id\":1}", created(0));
+
+        assertThat(executions).hasValue(1);
+        assertThat(first.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        for (MockHttpServletResponse replay : List.of(cached, stored)) {
+            assertThat(replay.getStatus()).isEqualTo(first.getStatus());
+            assertThat(replay.getContentType()).isEqualTo(first.getContentType());
+            assertThat(replay.getContentAsByteArray()).isEqualTo(first.getContentAsByteArray()).isEqualTo(CREATED_BODY);
+            assertThat(replay.getContentLength()).isEqualTo(CREATED_BODY.length);
+            assertThat(replay.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        }
+    }
+
+    @Test
+    void sameKeyWithADifferentBodyGets422() throws Exception {
+        post("reused", "{\"vehicle_id\":1}", created(0));
+
+        final MockHttpServletResponse response = post("reused", "{\"vehicle_id\":2}", created(0));
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY.value());
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void serverErrorReleasesTheKeySoARetryExecutes() throws Exception {
+        final MockHttpServletResponse failed = post("retry", "{\"vehicle_id\":1}", (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        });
+        final MockHttpServletResponse retried = post("retry", "{\"vehicle_id\":1}", created(0));
+
+        assertThat(failed.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(retried.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(retried.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void exceptionReleasesTheKeySoARetryExecutes() throws Exception {
+        try {
+            post("thrown", "{\"vehicle_id\":1}", (request, response) -> {
+                executions.incrementAndGet();
+                throw new IllegalStateException("Endpoint failed");
+            });
+        }
+        catch (IllegalStateException e) {
+            // Left to the container, which answers 500
+        }
+        final MockHttpServletResponse retried = post("thrown", "{\"vehicle_id\":1}", created(0));
+
+        assertThat(retried.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void bodyOverTheLimitGets413WithoutClaimingTheKey() throws Exception {
+        properties.setMaxBodyBytes(16);
+
+        final MockHttpServletResponse tooLarge = post("large", "{\"vehicle_id\":1234567890}", created(0));
+        final MockHttpServletResponse atLimit = post("large", "{\"vehicle_id\":1}", created(0));
+
+        assertThat(tooLarge.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(atLimit.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void bodyOverTheLimitWithoutContentLengthGets413() throws Exception {
+        properties.setMaxBodyBytes(16);
+        // As with chunked transfer encoding: the length is only known once the body is read
+        final MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/rentals") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "chunked");
+        chunked.setContent("{\"vehicle_id\":1234567890}".getBytes(StandardCharsets.UTF_8));
+
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(chunked, response, created(0));
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(executions).hasValue(0);
+    }
+
+    private MockHttpServletResponse post(String key, String body, FilterChain endpoint) throws Exception {
+        return post(filter, key, body, endpoint);
+    }
+
+    private static MockHttpServletResponse post(IdempotencyFilter filter, String key, String body, FilterChain endpoint) throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(key, body), response, endpoint);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String key, String body) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/rentals");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    // The endpoint: reads the body as a controller would, then answers 201 after the given delay
+    private FilterChain created(long delayMillis) {
+        return (request, response) -> {
+            executions.incrementAndGet();
+            request.getInputStream().readAllBytes();
+            try {
+                Thread.sleep(delayMillis);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ((HttpServletResponse) response).setStatus(HttpStatus.CREATED.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(CREATED_BODY);
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.rimmelasghar.boilerplate.springboot.model;
+
+import com.rimmelasghar.boilerplate.springboot.utils.TimeOrderedIds;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.service.ServiceRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void idsCarryTheConfiguredNodeId() {
+        final TimeOrderedIdGenerator generator = configured(" 17 ");
+
+        final long id = (Long) generator.generate(null, null);
+
+        assertThat((id >>> TimeOrderedIds.SEQUENCE_BITS) & TimeOrderedIds.MAX_NODE_ID).isEqualTo(17);
+    }
+
+    @Test
+    void missingNodeIdFailsStartup() {
+        assertThatThrownBy(() -> configured(null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(TimeOrderedIdGenerator.NODE_ID_SETTING);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", " ", "64", "-1", "node-1"})
+    void blankOrInvalidNodeIdFailsStartup(String nodeId) {
+        assertThatThrownBy(() -> configured(nodeId))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(TimeOrderedIdGenerator.NODE_ID_SETTING);
+    }
+
+    private static TimeOrderedIdGenerator configured(String nodeId) {
+        final Map<String, Object> settings = new HashMap<>();
+        if (nodeId != null) {
+            settings.put(TimeOrderedIdGenerator.NODE_ID_SETTING, nodeId);
+        }
+        final ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getSettings()).thenReturn(settings);
+        final ServiceRegistry serviceRegistry = mock(ServiceRegistry.class);
+        when(serviceRegistry.getService(ConfigurationService.class)).thenReturn(configurationService);
+
+        final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        generator.configure(null, new Properties(), serviceRegistry);
+        return generator;
+    }
+}
@@ -0,0 +1,129 @@
+package com.rimmelasghar.boilerplate.springboot.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Applies the Flyway migrations to an empty MySQL schema, seeds enough rows for the optimiser to cost its options, and
+ * checks with EXPLAIN that the filter, overlap and purge predicates run on the indexes the migrations add.
+ * <p>
+ * Needs a real MySQL; H2 plans differently. Point MYSQL_TEST_URL at a scratch database, which is wiped first, or run
+ * {@code mvn -Pmysql-it test -Dtest=MigrationIndexTest}, which starts one with Testcontainers.
+ */
+@EnabledIfEnvironmentVariable(named = "MYSQL_TEST_URL", matches = ".+")
+class MigrationIndexTest {
+
+    private static final int ROWS = 4_000;
+
+    /*
+     * Each predicate below matches at most a few dozen rows through its index, and clearly more through any other:
+     * rentals are mostly running now, with one in a hundred starting later and one in a hundred already over; a
+     * tenth of them are pending. Payments and reviews are mostly in the past, payments mostly refunded.
+     */
+    private static final String[] SEED = {
+            "set session cte_max_recursion_depth = " + ROWS,
+            "set foreign_key_checks = 0",
+            "create table seed (n int not null, primary key (n))",
+            "insert into seed (n) with recursive seq (n) as (select 1 union all select n + 1 from seq where n < " + ROWS + ") select n from seq",
+            "insert into rentals (user_id, vehicle_id, start_time, end_time, total_price, status, created_at) "
+                    + "select n % 250 + 1, n % 200 + 1, "
+                    + "if(n % 100 = 0, now() + interval (1 + n % 30) day, now() - interval (1 + n % 30) day), "
+                    + "if(n % 100 = 1, now() - interval 1 hour, now() + interval (31 + n % 30) day), "
+                    + "10, if(n % 10 = 0, 'PENDING', 'CONFIRMED'), now() from seed",
+            "insert into payments (rental_id, user_id, amount, payment_method, payment_date, status, created_at) "
+                    + "select n % 2000 + 1, n % 250 + 1, 10, 'CARD', "
+                    + "if(n % 50 = 0, now() + interval 1 day, now() - interval (1 + n % 365) day), "
+                    + "if(n % 100 = 0, 'PAID', 'REFUNDED'), now() from seed",
+            "insert into reviews (rental_id, user_id, rating, comment, created_at) "
+                    + "select n % 2000 + 1, n % 250 + 1, 1 + n % 5, 'Fine', "
+                    + "if(n % 50 = 0, now() + interval 1 day, now() - interval (1 + n % 365) day) from seed",
+            "insert into refresh_tokens (user_id, token_hash, family_id, expires_at, created_at) "
+                    + "select n % 250 + 1, concat('hash-', n), concat('family-', n % 500), "
+                    + "if(n % 100 = 1, now() - interval 1 day, now() + interval 30 day), now() from seed",
+            "insert into revoked_tokens (jti, expires_at, revoked_at) "
+                    + "select concat('jti-', n), if(n % 100 = 1, now() - interval 1 day, now() + interval 1 day), now() from seed",
+            "drop table seed",
+            "set foreign_key_checks = 1",
+            "analyze table rentals, payments, reviews, refresh_tokens, revoked_tokens",
+    };
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void migrate() throws SQLException {
+        final String url = System.getenv("MYSQL_TEST_URL");
+        final String user = System.getenv().getOrDefault("MYSQL_TEST_USER", "root");
+        final String password = System.getenv().getOrDefault("MYSQL_TEST_PASSWORD", "");
+
+        final Flyway flyway = Flyway.configure()
+                .dataSource(url, user, password)
+                .locations("classpath:db/migration")
+                .cleanDisabled(false)
+                .load();
+        flyway.clean();
+        flyway.migrate();
+
+        connection = DriverManager.getConnection(url, user, password);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SEED) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    @AfterAll
+    static void close() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "select id from rentals where vehicle_id = 1 and start_time < now() and end_time > now()   | idx_rentals_vehicle_time",
+            "select id from rentals where user_id = 1 and start_time >= now()                          | idx_rentals_user_start",
+            "select id from rentals where status = 'PENDING' and start_time >= now()                   | idx_rentals_status_start",
+            "select id from rentals where end_time < now()                                             | idx_rentals_end_time",
+            "select id from payments where user_id = 1 and payment_date >= now()                       | idx_payments_user_date",
+            "select id from payments where rental_id = 1 and payment_date >= now()                     | idx_payments_rental_date",
+            "select id from payments where status = 'PAID' and payment_date >= now()                   | idx_payments_status_date",
+            "select id from reviews where user_id = 1 and created_at >= now()                          | idx_reviews_user_created",
+            "select id from reviews where rental_id = 1 and created_at >= now()                        | idx_reviews_rental_created",
+            "select id from refresh_tokens where user_id = 1                                           | idx_refresh_tokens_user_id",
+            "select id from refresh_tokens where family_id = 'family'                                  | idx_refresh_tokens_family_id",
+            "select id from refresh_tokens where expires_at < now()                                    | idx_refresh_tokens_expires_at",
+            "select id from revoked_tokens where expires_at < now()                                    | idx_revoked_tokens_expires_at",
+    })
+    void predicateUsesIndex(String query, String index) throws SQLException {
+        final List<String[]> plan = explain(query);
+
+        assertThat(plan).as("plan of %s", query).hasSize(1);
+        assertThat(plan.get(0)[1]).as("possible keys of %s", query).contains(index);
+        assertThat(plan.get(0)[0]).as("key chosen for %s", query).isEqualTo(index);
+    }
+
+    // The chosen key and the candidates, per table in the plan
+    private static List<String[]> explain(String query) throws SQLException {
+        final List<String[]> plan = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery("explain " + query)) {
+            while (rows.next()) {
+                plan.add(new String[] {rows.getString("key"), String.valueOf(rows.getString("possible_keys"))});
+            }
+        }
+        return plan;
+    }
+}
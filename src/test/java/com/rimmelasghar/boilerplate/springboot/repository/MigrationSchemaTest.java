@@ -0,0 +1,70 @@
+package com.rimmelasghar.boilerplate.springboot.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Applies every Flyway migration to an empty H2 database in MySQL mode and compares the result with the schema Hibernate
+ * generates from the entities for the other tests, so a migration that is missing, does not parse, or drifts from the
+ * entity mapping fails the normal build. Index choice is MySQL-specific and checked by {@link MigrationIndexTest}.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MigrationSchemaTest {
+
+    private static final String MIGRATED_URL = "jdbc:h2:mem:migrations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final String COLUMNS = "select table_name, column_name, data_type, is_nullable, character_maximum_length "
+            + "from information_schema.columns "
+            + "where table_schema = 'public' and table_name <> 'flyway_schema_history' "
+            + "order by table_name, column_name";
+
+    // Named indexes only; primary key, foreign key and unique constraint indexes get generated names
+    private static final String INDEXES = "select table_name, index_name, column_name "
+            + "from information_schema.index_columns "
+            + "where table_schema = 'public' and index_name like 'idx\\_%' "
+            + "order by table_name, index_name, ordinal_position";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrationsBuildTheSchemaTheEntitiesMap() {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource(MIGRATED_URL, "sa", "");
+        final MigrateResult result = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        final JdbcTemplate migrated = new JdbcTemplate(dataSource);
+
+        assertThat(result.success).isTrue();
+        assertThat(migrated.queryForObject("select count(*) from flyway_schema_history where type = 'SQL' and success", Integer.class))
+                .isEqualTo(result.migrationsExecuted)
+                .isGreaterThanOrEqualTo(10);
+        assertThat(rows(migrated, COLUMNS)).isNotEmpty().containsExactlyElementsOf(rows(jdbcTemplate, COLUMNS));
+        assertThat(rows(migrated, INDEXES)).isNotEmpty().containsExactlyElementsOf(rows(jdbcTemplate, INDEXES));
+    }
+
+    private static List<String> rows(JdbcTemplate jdbcTemplate, String query) {
+        return jdbcTemplate.query(query, (resultSet, rowNum) -> {
+            final StringBuilder row = new StringBuilder();
+            for (int i = 1; i <= resultSet.getMetaData().getColumnCount(); i++) {
+                row.append(i == 1 ? "" : " ").append(resultSet.getString(i));
+            }
+            return row.toString();
+        });
+    }
+}
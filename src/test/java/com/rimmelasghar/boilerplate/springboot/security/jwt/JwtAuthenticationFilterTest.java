@@ -0,0 +1,34 @@
+package com.rimmelasghar.boilerplate.springboot.security.jwt;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtAuthenticationFilterTest {
+
+	// Deciding whether to filter touches none of the collaborators
+	private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(null, null, null, null, null);
+
+	@ParameterizedTest
+	@CsvSource({
+			"'', /login, true",
+			"'', /login/refresh, true",
+			"'', /actuator/prometheus, true",
+			"'', /vehicles, false",
+			"'', /users/1, false",
+			"/app, /app/login, true",
+			"/app, /app/swagger-ui/index.html, true",
+			"/app, /app/vehicles, false",
+			"/app, /app, false",
+	})
+	void skipsPublicRoutesAfterTheContextPath(String contextPath, String requestURI, boolean skipped) {
+
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", requestURI);
+		request.setContextPath(contextPath);
+
+		assertThat(filter.shouldNotFilter(request)).isEqualTo(skipped);
+	}
+
+}
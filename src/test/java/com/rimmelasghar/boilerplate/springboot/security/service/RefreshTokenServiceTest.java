@@ -0,0 +1,130 @@
+package com.rimmelasghar.boilerplate.springboot.security.service;
+
+import com.rimmelasghar.boilerplate.springboot.model.RefreshToken;
+import com.rimmelasghar.boilerplate.springboot.model.User;
+import com.rimmelasghar.boilerplate.springboot.repository.RefreshTokenRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.UserRepository;
+import com.rimmelasghar.boilerplate.springboot.security.jwt.JwtProperties;
+import com.rimmelasghar.boilerplate.springboot.security.utils.TokenHashUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({RefreshTokenService.class, JwtProperties.class})
+// Each call commits or rolls back on its own, as it does behind the login controller
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTest {
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Autowired
+	private RefreshTokenRepository refreshTokenRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+
+		user = userRepository.save(User.builder().email("refresh@example.com").fullName("Refresh").build());
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		refreshTokenRepository.deleteAll();
+		userRepository.deleteAll();
+	}
+
+	@Test
+	void rotationConsumesThePresentedTokenAndIssuesOneInTheSameFamily() {
+
+		final String issued = refreshTokenService.issue(user);
+		final RefreshTokenService.Rotation rotation = refreshTokenService.rotate(issued);
+
+		assertThat(rotation.getUser().getId()).isEqualTo(user.getId());
+		assertThat(rotation.getRefreshToken()).isNotEqualTo(issued);
+
+		final RefreshToken consumed = find(issued);
+		final RefreshToken current = find(rotation.getRefreshToken());
+		assertThat(consumed.getRevokedAt()).isNotNull();
+		assertThat(current.getRevokedAt()).isNull();
+		assertThat(current.getFamilyId()).isEqualTo(consumed.getFamilyId());
+	}
+
+	@Test
+	void reusingARotatedTokenRevokesTheWholeFamilyAndTheRevocationIsCommitted() {
+
+		final String first = refreshTokenService.issue(user);
+		final String second = refreshTokenService.rotate(first).getRefreshToken();
+		final String third = refreshTokenService.rotate(second).getRefreshToken();
+		// Another login, a family of its own
+		final String otherLogin = refreshTokenService.issue(user);
+
+		assertThatThrownBy(() -> refreshTokenService.rotate(first)).isInstanceOf(BadCredentialsException.class);
+
+		// Read back outside the failed call: the exception must not have rolled the family revocation back
+		assertThat(find(third).getRevokedAt()).isNotNull();
+		assertThat(find(otherLogin).getRevokedAt()).isNull();
+		assertThatThrownBy(() -> refreshTokenService.rotate(third)).isInstanceOf(BadCredentialsException.class);
+		assertThat(refreshTokenService.rotate(otherLogin).getRefreshToken()).isNotBlank();
+	}
+
+	@Test
+	void unknownAndExpiredTokensAreRejected() {
+
+		final String expired = refreshTokenService.issue(user);
+		expire(expired);
+
+		assertThatThrownBy(() -> refreshTokenService.rotate("unknown")).isInstanceOf(BadCredentialsException.class);
+		assertThatThrownBy(() -> refreshTokenService.rotate(expired)).isInstanceOf(BadCredentialsException.class);
+		// An expired token is not reuse, so it is left alone for the purge
+		assertThat(find(expired).getRevokedAt()).isNull();
+	}
+
+	@Test
+	void purgeDeletesOnlyExpiredTokens() {
+
+		final String expired = refreshTokenService.issue(user);
+		final String live = refreshTokenService.issue(user);
+		expire(expired);
+
+		refreshTokenService.purgeExpired();
+
+		final List<RefreshToken> remaining = refreshTokenRepository.findAll();
+		assertThat(remaining).extracting(RefreshToken::getTokenHash).containsExactly(TokenHashUtils.sha256(live));
+	}
+
+	private RefreshToken find(String rawToken) {
+
+		return refreshTokenRepository.findByTokenHash(TokenHashUtils.sha256(rawToken)).orElseThrow();
+	}
+
+	private void expire(String rawToken) {
+
+		final RefreshToken refreshToken = find(rawToken);
+		refreshToken.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+		refreshTokenRepository.save(refreshToken);
+	}
+
+}
@@ -0,0 +1,208 @@
+package com.rimmelasghar.boilerplate.springboot.security.service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.rimmelasghar.boilerplate.springboot.repository.RevokedTokenRepository;
+import com.rimmelasghar.boilerplate.springboot.security.utils.BloomFilter;
+import com.rimmelasghar.boilerplate.springboot.utils.TimeOrderedIds;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// Revocations commit on their own, as they do behind the logout endpoint
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenRevocationServiceTest {
+
+	private static final Algorithm ALGORITHM = Algorithm.HMAC256("test-secret");
+
+	private static final int THREADS = 8;
+
+	@Autowired
+	private RevokedTokenRepository revokedTokenRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private TokenRevocationProperties properties;
+
+	@BeforeEach
+	void setUp() {
+
+		properties = new TokenRevocationProperties();
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		revokedTokenRepository.deleteAll();
+	}
+
+	@Test
+	void concurrentRevocationsOfTheSameTokenStoreOneRowAndAllSucceed() throws Exception {
+
+		final TokenRevocationService[] nodes = {newService(), newService()};
+		final DecodedJWT token = token(UUID.randomUUID().toString(), 600);
+
+		final CountDownLatch ready = new CountDownLatch(THREADS);
+		final CountDownLatch go = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				final TokenRevocationService node = nodes[i % nodes.length];
+				futures.add(executor.submit(() -> {
+					ready.countDown();
+					go.await();
+					node.revoke(token);
+					return null;
+				}));
+			}
+			ready.await();
+			go.countDown();
+			for (Future<?> future : futures) {
+				// Throws if any revocation failed
+				future.get(30, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(revokedTokenRepository.count()).isEqualTo(1);
+		assertThat(nodes[0].isRevoked(token)).isTrue();
+		assertThat(nodes[1].isRevoked(token)).isTrue();
+	}
+
+	@Test
+	void tokensWithoutJtiOrAlreadyExpiredAreNotStored() {
+
+		final TokenRevocationService service = newService();
+
+		service.revoke(JWT.decode(JWT.create().withExpiresAt(new Date(System.currentTimeMillis() + 60_000)).sign(ALGORITHM)));
+		service.revoke(token(UUID.randomUUID().toString(), -60));
+
+		assertThat(revokedTokenRepository.count()).isZero();
+	}
+
+	@Test
+	void syncPicksUpRowsCommittedBelowTheLastSeenIdWithinTheLookback() {
+
+		final TokenRevocationService node = newService();
+		final TimeOrderedIds ids = new TimeOrderedIds(1);
+
+		final long lateId = ids.next();
+		final long earlyId = TimeOrderedIds.rewind(lateId, properties.getSyncLookbackMillis() / 2);
+		final long tooEarlyId = TimeOrderedIds.rewind(lateId, properties.getSyncLookbackMillis() * 2);
+
+		final String late = insert(lateId, 600);
+		node.sync();
+		assertThat(node.isRevoked(token(late, 600))).isTrue();
+
+		// Committed by other nodes after the sync above, under smaller ids
+		final String early = insert(earlyId, 600);
+		final String tooEarly = insert(tooEarlyId, 600);
+		node.sync();
+
+		assertThat(node.isRevoked(token(early, 600))).isTrue();
+		// Out of order by more than the lookback is the documented limit of the incremental sync
+		assertThat(node.isRevoked(token(tooEarly, 600))).isFalse();
+
+		// A fresh node loads the whole table
+		final TokenRevocationService freshNode = newService();
+		freshNode.sync();
+		assertThat(freshNode.isRevoked(token(tooEarly, 600))).isTrue();
+	}
+
+	@Test
+	void purgeForgetsExpiredTokensAndRebuildsTheFilter() throws Exception {
+
+		// Sized for fewer entries than are live, so the rebuild has to grow it
+		properties.setExpectedInsertions(4);
+		final TokenRevocationService service = newService();
+
+		final DecodedJWT expiring = token(UUID.randomUUID().toString(), 2);
+		service.revoke(expiring);
+		final List<DecodedJWT> live = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			final DecodedJWT token = token(UUID.randomUUID().toString(), 600);
+			service.revoke(token);
+			live.add(token);
+		}
+		final BloomFilter before = bloomFilter(service);
+
+		while (!expiring.getExpiresAt().before(new Date())) {
+			Thread.sleep(100);
+		}
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> service.purgeExpired());
+
+		final BloomFilter after = bloomFilter(service);
+		assertThat(after).isNotSameAs(before);
+		assertThat(after.bitSize()).isGreaterThan(before.bitSize());
+		assertThat(after.mightContain(expiring.getId())).isFalse();
+		assertThat(service.isRevoked(expiring)).isFalse();
+		assertThat(live).allMatch(service::isRevoked);
+		assertThat(revokedTokenRepository.count()).isEqualTo(live.size());
+	}
+
+	private TokenRevocationService newService() {
+
+		return new TokenRevocationService(revokedTokenRepository, properties, transactionManager, new SimpleMeterRegistry());
+	}
+
+	private String insert(long id, long expiresInSeconds) {
+
+		final String jti = UUID.randomUUID().toString();
+		final LocalDateTime now = LocalDateTime.now();
+		jdbcTemplate.update("insert into revoked_tokens (id, jti, expires_at, revoked_at) values (?, ?, ?, ?)",
+				id, jti, Timestamp.valueOf(now.plusSeconds(expiresInSeconds)), Timestamp.valueOf(now));
+		return jti;
+	}
+
+	private static DecodedJWT token(String jti, long expiresInSeconds) {
+
+		return JWT.decode(JWT.create()
+				.withJWTId(jti)
+				.withExpiresAt(new Date(System.currentTimeMillis() + expiresInSeconds * 1000))
+				.sign(ALGORITHM));
+	}
+
+	private static BloomFilter bloomFilter(TokenRevocationService service) throws ReflectiveOperationException {
+
+		final Field field = TokenRevocationService.class.getDeclaredField("bloomFilter");
+		field.setAccessible(true);
+		return (BloomFilter) field.get(service);
+	}
+
+}
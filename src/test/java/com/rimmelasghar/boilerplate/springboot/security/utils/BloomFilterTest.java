@@ -0,0 +1,105 @@
+package com.rimmelasghar.boilerplate.springboot.security.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Percentage.withPercentage;
+
+class BloomFilterTest {
+
+	/**
+	 * Filled to the size it was created for, the filter must still answer every inserted value and stay close to the
+	 * configured false positive probability on values it never saw.
+	 */
+	@ParameterizedTest
+	@CsvSource({"100000, 0.01", "10000, 0.001", "1000, 0.05"})
+	void hasNoFalseNegativesAndKeepsTheConfiguredFalsePositiveRate(long insertions, double falsePositiveProbability) {
+
+		final BloomFilter bloomFilter = BloomFilter.create(insertions, falsePositiveProbability);
+		final List<String> inserted = new ArrayList<>();
+		for (long i = 0; i < insertions; i++) {
+			final String jti = UUID.randomUUID().toString();
+			bloomFilter.put(jti);
+			inserted.add(jti);
+		}
+
+		assertThat(inserted).allMatch(bloomFilter::mightContain);
+
+		final int probes = 200_000;
+		int falsePositives = 0;
+		for (int i = 0; i < probes; i++) {
+			if (bloomFilter.mightContain(UUID.randomUUID().toString())) {
+				falsePositives++;
+			}
+		}
+		final double observed = (double) falsePositives / probes;
+		assertThat(observed).isLessThan(falsePositiveProbability * 1.5);
+		assertThat(bloomFilter.expectedFalsePositiveProbability(insertions)).isCloseTo(falsePositiveProbability, withPercentage(25));
+	}
+
+	@Test
+	void emptyFilterContainsNothing() {
+
+		final BloomFilter bloomFilter = BloomFilter.create(1_000, 0.01);
+
+		assertThat(bloomFilter.mightContain("")).isFalse();
+		assertThat(bloomFilter.mightContain(UUID.randomUUID().toString())).isFalse();
+		assertThat(bloomFilter.expectedFalsePositiveProbability(0)).isZero();
+	}
+
+	@Test
+	void degenerateSizesStillWork() {
+
+		final BloomFilter bloomFilter = BloomFilter.create(0, 0.5);
+		bloomFilter.put("jti");
+
+		assertThat(bloomFilter.bitSize()).isEqualTo(64);
+		assertThat(bloomFilter.hashFunctions()).isPositive();
+		assertThat(bloomFilter.mightContain("jti")).isTrue();
+	}
+
+	@Test
+	void concurrentPutsLoseNoBits() throws Exception {
+
+		final int threads = 4;
+		final int perThread = 20_000;
+		final BloomFilter bloomFilter = BloomFilter.create((long) threads * perThread, 0.01);
+		final List<List<String>> values = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			final List<String> batch = new ArrayList<>(perThread);
+			for (int i = 0; i < perThread; i++) {
+				batch.add(t + ":" + i);
+			}
+			values.add(batch);
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (List<String> batch : values) {
+				futures.add(executor.submit(() -> batch.forEach(bloomFilter::put)));
+			}
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		for (List<String> batch : values) {
+			assertThat(batch).allMatch(bloomFilter::mightContain);
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.rimmelasghar.boilerplate.springboot.security.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublicRoutesTest {
+
+	private static final AntPathMatcher ANT_PATH_MATCHER = new AntPathMatcher();
+
+	@ParameterizedTest
+	@CsvSource({
+			"/register, true",
+			"/login, true",
+			"/login/refresh, true",
+			"/health, true",
+			"/swagger-ui.html, true",
+			"/swagger-ui/index.html, true",
+			"/v3/api-docs, true",
+			"/v3/api-docs/swagger-config, true",
+			"/actuator, true",
+			"/actuator/prometheus, true",
+			"/registers, false",
+			"/register/, false",
+			"/loginx, false",
+			"/healthz, false",
+			"/actuatorx, false",
+			"/swagger-ui.htm, false",
+			"/vehicles, false",
+			"/, false",
+			"'', false",
+	})
+	void matchesExactPathsAndPrefixes(String path, boolean expected) {
+
+		assertThat(PublicRoutes.matches(path, 0)).isEqualTo(expected);
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"/api, /api/login, true",
+			"/api, /api/actuator/health, true",
+			"/api, /api/vehicles, false",
+			// The context path is skipped, not matched, so a public route only counts after it
+			"/api, /api, false",
+			"/login, /login/vehicles, false",
+			"/login, /login/login, true",
+	})
+	void skipsTheContextPath(String contextPath, String requestURI, boolean expected) {
+
+		assertThat(PublicRoutes.matches(requestURI, contextPath.length())).isEqualTo(expected);
+	}
+
+	/**
+	 * {@code SecurityConfiguration} hands the same patterns to Spring's ant matcher, so the two must never disagree.
+	 */
+	@Test
+	void agreesWithAntPathMatcher() {
+
+		final List<String> paths = Arrays.asList("", "/", "/register", "/register/", "/registers", "/login", "/login/",
+				"/login/refresh", "/login/refresh/deep", "/log", "/health", "/health/", "/v3/api-docs", "/v3/api-docs/",
+				"/v3/api-docs/x/y", "/v3/api-docsx", "/swagger-ui", "/swagger-ui/", "/swagger-ui/index.html", "/swagger-ui.html",
+				"/swagger-ui.htmlx", "/actuator", "/actuator/health", "/actuatorhealth", "/vehicles", "/vehicles/1");
+
+		for (String path : paths) {
+			final boolean antMatches = Arrays.stream(PublicRoutes.PATTERNS).anyMatch(pattern -> ANT_PATH_MATCHER.match(pattern, path));
+			assertThat(PublicRoutes.matches(path, 0)).as(path).isEqualTo(antMatches);
+		}
+	}
+
+}
@@ -0,0 +1,241 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.ImportProperties;
+import com.rimmelasghar.boilerplate.springboot.dto.ImportErrorDto;
+import com.rimmelasghar.boilerplate.springboot.dto.ImportReportDto;
+import com.rimmelasghar.boilerplate.springboot.mapper.RentalMapperImpl;
+import com.rimmelasghar.boilerplate.springboot.model.Location;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import com.rimmelasghar.boilerplate.springboot.repository.LocationRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.VehicleRepository;
+import com.rimmelasghar.boilerplate.springboot.service.OutboxService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalAvailabilityService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalLifecycleService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalPricingService;
+import com.rimmelasghar.boilerplate.springboot.service.StatsService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleCatalogService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleGeoIndexService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleSearchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Imports against the test database, with the indexes and caches the import updates mocked. Chunks commit on their
+ * own, so the tests do too and clean up afterwards.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BulkImportServiceImpl.class, ImportProperties.class, RentalMapperImpl.class, JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+class BulkImportServiceImplTest {
+
+    private static final String CSV = "text/csv";
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final String VEHICLE_HEADER = "name,brand,type,license_plate,status,location_id,price_per_day,image\n";
+
+    @Autowired
+    private BulkImportServiceImpl bulkImportService;
+
+    @Autowired
+    private ImportProperties importProperties;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @SpyBean
+    private VehicleRepository vehicleRepository;
+
+    @MockBean
+    private RentalPricingService rentalPricingService;
+
+    @MockBean
+    private RentalAvailabilityService rentalAvailabilityService;
+
+    @MockBean
+    private RentalLifecycleService rentalLifecycleService;
+
+    @MockBean
+    private VehicleGeoIndexService vehicleGeoIndexService;
+
+    @MockBean
+    private VehicleCatalogService vehicleCatalogService;
+
+    @MockBean
+    private VehicleSearchService vehicleSearchService;
+
+    @MockBean
+    private StatsService statsService;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    private Location location;
+
+    @BeforeEach
+    void setUp() {
+        importProperties.setChunkSize(1000);
+        importProperties.setMaxReportedErrors(1000);
+        location = locationRepository.save(Location.builder().name("Depot").address("1 Main Street").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        vehicleRepository.deleteAll();
+        locationRepository.deleteAll();
+    }
+
+    @Test
+    void reportListsEachRejectedRowWithItsReasonAndImportsTheRest() {
+        final ImportReportDto report = importVehicles(VEHICLE_HEADER
+                + vehicleRow("Ok 1", "AB-1", location.getId())
+                + ",Toyota,Sedan,AB-2,AVAILABLE," + location.getId() + ",10,car.png\n"
+                + vehicleRow("Nowhere", "AB-3", 999_999L)
+                + "Bad price,Toyota,Sedan,AB-4,AVAILABLE," + location.getId() + ",abc,car.png\n"
+                + vehicleRow("Ok 2", "AB-5", location.getId()));
+
+        assertThat(report.getTotal_rows()).isEqualTo(5);
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(3);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getRow).containsExactly(2L, 3L, 4L);
+        assertThat(report.getErrors().get(0).getMessage()).isEqualTo("Name is required");
+        assertThat(report.getErrors().get(1).getMessage()).isEqualTo("Location not found with id: 999999");
+        assertThat(report.getErrors().get(2).getMessage()).startsWith("Malformed row");
+        assertThat(plates()).containsExactlyInAnyOrder("AB-1", "AB-5");
+    }
+
+    @Test
+    void errorsBeyondTheReportedMaximumAreStillCounted() {
+        importProperties.setMaxReportedErrors(1);
+
+        final ImportReportDto report = importVehicles(VEHICLE_HEADER
+                + vehicleRow("Nowhere 1", "AB-1", 999_998L)
+                + vehicleRow("Nowhere 2", "AB-2", 999_999L));
+
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getRow).containsExactly(1L);
+    }
+
+    @Test
+    void chunkRejectedByTheDatabaseIsRetriedRowByRowSoOnlyTheOffendingRowFails() {
+        vehicleRepository.save(vehicle("Existing", "AB-2"));
+        // As if AB-2 had been inserted by someone else between the duplicate check and the write
+        doReturn(List.of()).when(vehicleRepository).findExistingLicensePlates(anyCollection());
+
+        final ImportReportDto report = importVehicles(VEHICLE_HEADER
+                + vehicleRow("Ok 1", "AB-1", location.getId())
+                + vehicleRow("Clash", "AB-2", location.getId())
+                + vehicleRow("Ok 2", "AB-3", location.getId()));
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(2);
+            assertThat(error.getMessage()).startsWith("Rejected by the database");
+        });
+        assertThat(plates()).containsExactlyInAnyOrder("AB-1", "AB-2", "AB-3");
+        assertThat(vehicleRepository.findAll()).filteredOn(vehicle -> vehicle.getLicensePlate().equals("AB-2"))
+                .extracting(Vehicle::getName).containsExactly("Existing");
+        // Only rows that were committed reach the indexes
+        verify(vehicleSearchService, times(2)).index(any(Vehicle.class));
+    }
+
+    @Test
+    void duplicatesWithinTheFileAreRejectedAcrossAndWithinChunks() {
+        importProperties.setChunkSize(2);
+
+        final ImportReportDto report = importVehicles(VEHICLE_HEADER
+                + vehicleRow("One", "AB-1", location.getId())
+                + vehicleRow("Two", "AB-2", location.getId())
+                + vehicleRow("Three", "AB-3", location.getId())
+                // Repeats row 1 in the next chunk
+                + vehicleRow("One again", "AB-1", location.getId())
+                // Repeats row 2 in another spelling, two chunks later
+                + vehicleRow("Two again", " ab-2 ", location.getId())
+                + vehicleRow("Four", "AB-4", location.getId())
+                // Twins within one chunk
+                + vehicleRow("Five", "AB-5", location.getId())
+                + vehicleRow("Five again", "AB-5", location.getId()));
+
+        assertThat(report.getTotal_rows()).isEqualTo(8);
+        assertThat(report.getImported()).isEqualTo(5);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getRow).containsExactly(4L, 5L, 8L);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getMessage).containsExactly(
+                // Its twin's chunk has committed, so the lookup finds it
+                "Vehicle with license plate AB-1 already exists",
+                // The lookup compares exactly on this database; the plates seen so far compare like the unique index
+                "License plate ab-2 appears earlier in this import",
+                "License plate AB-5 appears earlier in this import");
+        assertThat(plates()).containsExactlyInAnyOrder("AB-1", "AB-2", "AB-3", "AB-4", "AB-5");
+    }
+
+    @Test
+    void locationDuplicatesAcrossChunksAreRejectedInNdjson() {
+        importProperties.setChunkSize(1);
+
+        final ImportReportDto report = bulkImportService.importLocations(body(""
+                + "{\"name\":\"North\",\"address\":\"2 High Street\"}\n"
+                + "{\"name\":\"Depot\",\"address\":\"1 Main Street\"}\n"
+                + "{\"name\":\"north\",\"address\":\"2 high street\"}\n"
+                + "{\"name\":\"South\"}\n"), NDJSON);
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getRow).containsExactly(2L, 3L, 4L);
+        assertThat(report.getErrors()).extracting(ImportErrorDto::getMessage).containsExactly(
+                "Location with name 'Depot' and address '1 Main Street' already exists",
+                "Location with name 'north' and address '2 high street' appears earlier in this import",
+                "Address is required");
+    }
+
+    private ImportReportDto importVehicles(String csv) {
+        return bulkImportService.importVehicles(body(csv), CSV);
+    }
+
+    private List<String> plates() {
+        return vehicleRepository.findAll().stream()
+                .map(Vehicle::getLicensePlate)
+                .collect(Collectors.toList());
+    }
+
+    private Vehicle vehicle(String name, String licensePlate) {
+        return Vehicle.builder()
+                .name(name).brand("Toyota").type("Sedan").licensePlate(licensePlate).status("AVAILABLE")
+                .location(location).pricePerDay(BigDecimal.TEN).image("car.png")
+                .build();
+    }
+
+    private static String vehicleRow(String name, String licensePlate, Long locationId) {
+        return name + ",Toyota,Sedan," + licensePlate + ",AVAILABLE," + locationId + ",10,car.png\n";
+    }
+
+    private static ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,192 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.PaginationProperties;
+import com.rimmelasghar.boilerplate.springboot.mapper.PaymentMapper;
+import com.rimmelasghar.boilerplate.springboot.mapper.PaymentMapperImpl;
+import com.rimmelasghar.boilerplate.springboot.mapper.RentalMapper;
+import com.rimmelasghar.boilerplate.springboot.mapper.RentalMapperImpl;
+import com.rimmelasghar.boilerplate.springboot.mapper.ReviewMapper;
+import com.rimmelasghar.boilerplate.springboot.mapper.ReviewMapperImpl;
+import com.rimmelasghar.boilerplate.springboot.model.Location;
+import com.rimmelasghar.boilerplate.springboot.model.Payment;
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+import com.rimmelasghar.boilerplate.springboot.model.Review;
+import com.rimmelasghar.boilerplate.springboot.model.Role;
+import com.rimmelasghar.boilerplate.springboot.model.User;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import com.rimmelasghar.boilerplate.springboot.repository.KeysetQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The list reads before and after {@link com.rimmelasghar.boilerplate.springboot.repository.DtoProjection}: the old path
+ * loaded entities and mapped them with MapStruct, the new one selects the DTO columns. Both must answer the same; the
+ * projection must issue no more statements, leave nothing managed in the persistence context and allocate less.
+ */
+@Slf4j
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({KeysetQuery.class, PaginationProperties.class, PaymentMapperImpl.class, RentalMapperImpl.class, ReviewMapperImpl.class})
+class DtoProjectionFootprintTest {
+
+    private static final int ROWS = 300;
+
+    // Best of several runs, so JIT warm-up and TLAB refills do not decide the comparison
+    private static final int RUNS = 5;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private KeysetQuery keysetQuery;
+
+    @Autowired
+    private PaymentMapper paymentMapper;
+
+    @Autowired
+    private RentalMapper rentalMapper;
+
+    @Autowired
+    private ReviewMapper reviewMapper;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        final Location location = testEntityManager.persist(Location.builder().name("Depot").address("1 Main Street").build());
+        final Role role = testEntityManager.persist(new Role("ROLE_USER"));
+        for (int i = 0; i < ROWS; i++) {
+            final User user = testEntityManager.persist(User.builder().email("user" + i + "@example.com").fullName("User " + i).role(role).build());
+            final Vehicle vehicle = testEntityManager.persist(Vehicle.builder()
+                    .name("Vehicle " + i).brand("Toyota").type("Sedan").licensePlate("51A-" + i).status("AVAILABLE")
+                    .location(location).pricePerDay(BigDecimal.TEN).image("vehicle.png")
+                    .build());
+            final Rental rental = testEntityManager.persist(Rental.builder()
+                    .user(user).vehicle(vehicle)
+                    .startTime(LocalDateTime.now().plusDays(i)).endTime(LocalDateTime.now().plusDays(i + 1))
+                    .totalPrice(BigDecimal.TEN).status("PENDING").createdAt(LocalDateTime.now())
+                    .build());
+            testEntityManager.persist(Payment.builder()
+                    .rental(rental).user(user).amount(BigDecimal.TEN).paymentMethod("CARD").paymentDate(LocalDateTime.now())
+                    .status("PAID").createdAt(LocalDateTime.now())
+                    .build());
+            testEntityManager.persist(Review.builder()
+                    .rental(rental).user(user).rating(1 + i % 5).comment("Review " + i).createdAt(LocalDateTime.now())
+                    .build());
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void paymentProjectionMatchesTheEntityPathAndCostsLess() {
+        compare("payments",
+                () -> keysetQuery.findCapped(Payment.class, null).stream().map(paymentMapper::toPaymentDto).collect(Collectors.toList()),
+                () -> keysetQuery.findCapped(PaymentServiceImpl.PAYMENT_DTO, null));
+    }
+
+    @Test
+    void rentalProjectionMatchesTheEntityPathAndCostsLess() {
+        compare("rentals",
+                () -> keysetQuery.findCapped(Rental.class, null).stream().map(rentalMapper::toRentalDto).collect(Collectors.toList()),
+                () -> keysetQuery.findCapped(RentalServiceImpl.RENTAL_DTO, null));
+    }
+
+    @Test
+    void reviewProjectionMatchesTheEntityPathAndCostsLess() {
+        compare("reviews",
+                () -> keysetQuery.findCapped(Review.class, null).stream().map(reviewMapper::toReviewDto).collect(Collectors.toList()),
+                () -> keysetQuery.findCapped(ReviewServiceImpl.REVIEW_DTO, null));
+    }
+
+    private <D> void compare(String name, Supplier<List<D>> entityPath, Supplier<List<D>> projectionPath) {
+        final Footprint<D> before = measure(entityPath);
+        final Footprint<D> after = measure(projectionPath);
+        log.info("{} x {}: entity mapping {} statements, {} entities loaded, {} managed, {} bytes allocated; "
+                        + "projection {} statements, {} entities loaded, {} managed, {} bytes allocated",
+                ROWS, name, before.statements, before.entitiesLoaded, before.managed, before.allocatedBytes,
+                after.statements, after.entitiesLoaded, after.managed, after.allocatedBytes);
+
+        assertThat(after.result).hasSize(ROWS).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(before.result);
+        assertThat(after.statements).isEqualTo(1).isLessThanOrEqualTo(before.statements);
+        assertThat(before.entitiesLoaded).isGreaterThanOrEqualTo(ROWS);
+        assertThat(after.entitiesLoaded).isZero();
+        assertThat(before.managed).isGreaterThanOrEqualTo(ROWS);
+        assertThat(after.managed).isZero();
+        if (before.allocatedBytes >= 0) {
+            assertThat(after.allocatedBytes).isLessThan(before.allocatedBytes);
+        }
+    }
+
+    private <D> Footprint<D> measure(Supplier<List<D>> read) {
+        final Session session = testEntityManager.getEntityManager().unwrap(Session.class);
+        final Footprint<D> footprint = new Footprint<>();
+        footprint.allocatedBytes = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            testEntityManager.clear();
+            statistics.clear();
+            final long allocatedBefore = allocatedBytes();
+            final List<D> result = read.get();
+            final long allocated = allocatedBytes() - allocatedBefore;
+
+            footprint.result = result;
+            footprint.statements = statistics.getPrepareStatementCount();
+            footprint.entitiesLoaded = statistics.getEntityLoadCount();
+            footprint.managed = session.getStatistics().getEntityCount();
+            footprint.allocatedBytes = allocatedBefore < 0 ? -1 : Math.min(footprint.allocatedBytes, allocated);
+        }
+        return footprint;
+    }
+
+    // Bytes this thread has allocated so far, or -1 where the JVM does not track it
+    private static long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled()
+                ? threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId())
+                : -1;
+    }
+
+    private static final class Footprint<D> {
+
+        private List<D> result;
+
+        private long statements;
+
+        private long entitiesLoaded;
+
+        private int managed;
+
+        private long allocatedBytes;
+    }
+}
@@ -0,0 +1,345 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.PaginationProperties;
+import com.rimmelasghar.boilerplate.springboot.configuration.RatingProperties;
+import com.rimmelasghar.boilerplate.springboot.configuration.VehicleGeoIndexProperties;
+import com.rimmelasghar.boilerplate.springboot.dto.CursorPageDto;
+import com.rimmelasghar.boilerplate.springboot.dto.PaymentDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalDto;
+import com.rimmelasghar.boilerplate.springboot.dto.ReviewDto;
+import com.rimmelasghar.boilerplate.springboot.dto.VehicleDto;
+import com.rimmelasghar.boilerplate.springboot.mapper.PaymentMapper;
+import com.rimmelasghar.boilerplate.springboot.mapper.PaymentMapperImpl;
+import com.rimmelasghar.boilerplate.springboot.mapper.RentalMapperImpl;
+import com.rimmelasghar.boilerplate.springboot.mapper.ReviewMapper;
+import com.rimmelasghar.boilerplate.springboot.mapper.ReviewMapperImpl;
+import com.rimmelasghar.boilerplate.springboot.mapper.VehicleMapperImpl;
+import com.rimmelasghar.boilerplate.springboot.model.Location;
+import com.rimmelasghar.boilerplate.springboot.model.Payment;
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+import com.rimmelasghar.boilerplate.springboot.model.Review;
+import com.rimmelasghar.boilerplate.springboot.model.Role;
+import com.rimmelasghar.boilerplate.springboot.model.User;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import com.rimmelasghar.boilerplate.springboot.repository.KeysetQuery;
+import com.rimmelasghar.boilerplate.springboot.repository.PaymentRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.ReviewRepository;
+import com.rimmelasghar.boilerplate.springboot.security.service.RefreshTokenService;
+import com.rimmelasghar.boilerplate.springboot.security.service.UserDetailsCache;
+import com.rimmelasghar.boilerplate.springboot.security.service.UserTokenVersionService;
+import com.rimmelasghar.boilerplate.springboot.service.OutboxService;
+import com.rimmelasghar.boilerplate.springboot.service.PaymentService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalAvailabilityService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalLifecycleService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalPricingService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalService;
+import com.rimmelasghar.boilerplate.springboot.service.ReviewSearchService;
+import com.rimmelasghar.boilerplate.springboot.service.ReviewService;
+import com.rimmelasghar.boilerplate.springboot.service.SchedulerLeaseService;
+import com.rimmelasghar.boilerplate.springboot.service.StatsService;
+import com.rimmelasghar.boilerplate.springboot.service.UserService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleCatalogService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleGeoIndexService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleSearchService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements behind the list and detail reads, so a lazy association touched per row shows up as a
+ * failure instead of as N+1 queries in production.
+ * <p>
+ * The services, mappers and rating lookups are the real beans; only collaborators the reads never call are mocked.
+ * Everything a controller serialises is touched inside the same persistence context, as open-in-view allows.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({UserServiceImpl.class, RentalServiceImpl.class, PaymentServiceImpl.class, ReviewServiceImpl.class, VehicleServiceImpl.class,
+        RatingServiceImpl.class, KeysetQuery.class, RentalMapperImpl.class, PaymentMapperImpl.class, ReviewMapperImpl.class,
+        VehicleMapperImpl.class, PaginationProperties.class, RatingProperties.class, VehicleGeoIndexProperties.class,
+        SimpleMeterRegistry.class})
+class ReadQueryCountTest {
+
+    private static final int ROWS = 5;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private UserTokenVersionService userTokenVersionService;
+
+    @MockBean
+    private UserDetailsCache userDetailsCache;
+
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
+    @MockBean
+    private RentalAvailabilityService rentalAvailabilityService;
+
+    @MockBean
+    private RentalPricingService rentalPricingService;
+
+    @MockBean
+    private RentalLifecycleService rentalLifecycleService;
+
+    @MockBean
+    private StatsService statsService;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    @MockBean
+    private ReviewSearchService reviewSearchService;
+
+    @MockBean
+    private VehicleGeoIndexService vehicleGeoIndexService;
+
+    @MockBean
+    private VehicleCatalogService vehicleCatalogService;
+
+    @MockBean
+    private VehicleSearchService vehicleSearchService;
+
+    @MockBean
+    private SchedulerLeaseService schedulerLeaseService;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RentalService rentalService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private PaymentMapper paymentMapper;
+
+    @Autowired
+    private ReviewMapper reviewMapper;
+
+    private Statistics statistics;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    private final List<Long> vehicleIds = new ArrayList<>();
+
+    private final List<Long> rentalIds = new ArrayList<>();
+
+    private final List<Long> paymentIds = new ArrayList<>();
+
+    private final List<Long> reviewIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        final Location location = testEntityManager.persist(Location.builder().name("Depot").address("1 Main Street").build());
+        User payer = null;
+        for (int i = 0; i < ROWS; i++) {
+            // One role each, so a per-row role lookup cannot hide behind the persistence context
+            final Role role = testEntityManager.persist(new Role("ROLE_" + i));
+            final User user = testEntityManager.persist(User.builder().email("user" + i + "@example.com").fullName("User " + i).role(role).build());
+            final Vehicle vehicle = testEntityManager.persist(Vehicle.builder()
+                    .name("Vehicle " + i).brand("Toyota").type("Sedan").licensePlate("51A-0000" + i).status("AVAILABLE")
+                    .location(location).pricePerDay(BigDecimal.TEN).image("vehicle.png")
+                    .build());
+            final Rental rental = testEntityManager.persist(Rental.builder()
+                    .user(user).vehicle(vehicle)
+                    .startTime(LocalDateTime.now().plusDays(i)).endTime(LocalDateTime.now().plusDays(i + 1))
+                    .totalPrice(BigDecimal.TEN).status("PENDING").createdAt(LocalDateTime.now())
+                    .build());
+            // Two payments and a review per rental, all by the first user, so the per-user reads span several rentals
+            payer = payer == null ? user : payer;
+            for (int j = 0; j < 2; j++) {
+                paymentIds.add(testEntityManager.persist(Payment.builder()
+                        .rental(rental).user(payer)
+                        .amount(BigDecimal.TEN).paymentMethod("CARD").paymentDate(LocalDateTime.now()).status("PAID")
+                        .createdAt(LocalDateTime.now())
+                        .build()).getId());
+            }
+            reviewIds.add(testEntityManager.persist(Review.builder()
+                    .rental(rental).user(payer)
+                    .rating(1 + i).comment("Review " + i).createdAt(LocalDateTime.now())
+                    .build()).getId());
+            userIds.add(user.getId());
+            vehicleIds.add(vehicle.getId());
+            rentalIds.add(rental.getId());
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void userListIsOneStatement() {
+        final List<User> users = userService.getAllUsers();
+
+        assertThat(users).hasSize(ROWS);
+        assertThat(users).allSatisfy(user -> assertThat(user.getRole().getRoleName()).startsWith("ROLE_"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void userPageIsOneStatement() {
+        final CursorPageDto<User> page = userService.getUsersPage(null, ROWS);
+
+        assertThat(page.getItems()).hasSize(ROWS);
+        assertThat(page.getItems()).allSatisfy(user -> assertThat(user.getRole().getRoleName()).startsWith("ROLE_"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void userDetailIsOneStatement() {
+        final User user = userService.getUserById(userIds.get(0)).orElseThrow();
+
+        assertThat(user.getRole().getRoleName()).isEqualTo("ROLE_0");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rentalListIsOneStatement() {
+        final List<RentalDto> rentals = rentalService.getAllRentals();
+
+        assertThat(rentals).extracting(RentalDto::getId).containsExactlyElementsOf(rentalIds);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rentalDetailIsOneStatement() {
+        final RentalDto rental = rentalService.getRentalById(rentalIds.get(0));
+
+        assertThat(rental.getVehicle_id()).isEqualTo(vehicleIds.get(0));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void paymentListsAreOneStatementEach() {
+        assertThat(paymentService.getAllPayments()).extracting(PaymentDto::getId).containsExactlyElementsOf(paymentIds);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        final List<PaymentDto> byUser = paymentService.getPaymentsByUserId(userIds.get(0));
+        assertThat(byUser).hasSize(2 * ROWS).allSatisfy(payment -> assertThat(payment.getUser_id()).isEqualTo(userIds.get(0)));
+        assertThat(byUser).extracting(PaymentDto::getRental_id).containsAll(rentalIds);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        assertThat(paymentService.getPaymentsPage(null, rentalIds.get(1), null, null, null, null, null, null, null, ROWS).getItems()).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void paymentDetailIsOneStatement() {
+        final PaymentDto payment = paymentService.getPaymentById(paymentIds.get(0));
+
+        assertThat(payment.getRental_id()).isEqualTo(rentalIds.get(0));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    /**
+     * The derived finder and the mapper used to load each payment's rental and user, and through them vehicle, location
+     * and role: N+1 per association. Mapping only reads the foreign keys now, which the lazy proxies hold.
+     */
+    @Test
+    void paymentsByUserThroughTheRepositoryAndMapperAreOneStatement() {
+        final List<PaymentDto> payments = paymentRepository.findByUserId(userIds.get(0)).stream()
+                .map(paymentMapper::toPaymentDto)
+                .collect(Collectors.toList());
+
+        assertThat(payments).hasSize(2 * ROWS);
+        assertThat(payments).extracting(PaymentDto::getRental_id).containsAll(rentalIds);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(2 * ROWS);
+    }
+
+    @Test
+    void reviewListsAreOneStatementEach() {
+        assertThat(reviewService.getAllReviews()).extracting(ReviewDto::getId).containsExactlyElementsOf(reviewIds);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        final List<ReviewDto> byUser = reviewService.getReviewsByUserId(userIds.get(0));
+        assertThat(byUser).extracting(ReviewDto::getRental_id).containsExactlyElementsOf(rentalIds);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        assertThat(reviewService.getReviewsPage(null, null, 2, null, null, null, null, ROWS).getItems()).hasSize(ROWS - 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reviewDetailIsOneStatement() {
+        final ReviewDto review = reviewService.getReviewById(reviewIds.get(0));
+
+        assertThat(review.getUser_id()).isEqualTo(userIds.get(0));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reviewsByRentalThroughTheRepositoryAndMapperAreOneStatement() {
+        final List<ReviewDto> reviews = reviewRepository.findByRentalId(rentalIds.get(0)).stream()
+                .map(reviewMapper::toReviewDto)
+                .collect(Collectors.toList());
+
+        assertThat(reviews).extracting(ReviewDto::getUser_id).containsExactly(userIds.get(0));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    // The vehicles, then every rating in one batch
+    @Test
+    void vehicleListIsTwoStatements() {
+        final List<VehicleDto> vehicles = vehicleService.getAllVehicles();
+
+        assertThat(vehicles).extracting(VehicleDto::getId).containsExactlyElementsOf(vehicleIds);
+        assertThat(vehicles).allSatisfy(vehicle -> assertThat(vehicle.getLocation_id()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        // Ratings are cached, including the vehicles without any
+        statistics.clear();
+        vehicleService.getVehiclesPage(null, ROWS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
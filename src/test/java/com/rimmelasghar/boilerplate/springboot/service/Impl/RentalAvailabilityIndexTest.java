@@ -0,0 +1,235 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.RentalAvailabilityProperties;
+import com.rimmelasghar.boilerplate.springboot.exceptions.ConflictException;
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import com.rimmelasghar.boilerplate.springboot.repository.RentalRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The in-memory index on its own: overlap answers against a brute-force scan, and how refresh and pruning keep it in line
+ * with RENTALS. Booking serialisation is covered against a database by {@link RentalAvailabilityServiceImplTest}.
+ */
+class RentalAvailabilityIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private RentalRepository rentalRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RentalAvailabilityServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        rentalRepository = mock(RentalRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new RentalAvailabilityServiceImpl(rentalRepository, null, null, new RentalAvailabilityProperties(), meterRegistry);
+    }
+
+    @Test
+    void longBookingDoesNotHideOrInventOverlaps() {
+        // A year-long booking followed by many short ones, as a yearly lease plus regular rentals would look
+        service.index(rental(1, 1, BASE, BASE.plusYears(1), "CONFIRMED"));
+        for (int i = 0; i < 1_000; i++) {
+            final LocalDateTime start = BASE.plusYears(1).plusDays(i * 2L);
+            service.index(rental(100 + i, 1, start, start.plusDays(1), "CONFIRMED"));
+        }
+
+        assertThat(service.isAvailable(1L, BASE.plusMonths(6), BASE.plusMonths(6).plusHours(1))).isFalse();
+        assertThat(service.isAvailable(1L, BASE.minusDays(1), BASE)).isTrue();
+        // Gap days between the short bookings
+        assertThat(service.isAvailable(1L, BASE.plusYears(1).plusDays(1), BASE.plusYears(1).plusDays(2))).isTrue();
+        assertThat(service.isAvailable(1L, BASE.plusYears(1).plusDays(501), BASE.plusYears(1).plusDays(502))).isTrue();
+        assertThat(service.isAvailable(1L, BASE.plusYears(1).plusDays(500).plusHours(23), BASE.plusYears(1).plusDays(501))).isFalse();
+        assertThat(service.isAvailable(1L, BASE.plusYears(10), BASE.plusYears(11))).isTrue();
+        // Other vehicles are untouched
+        assertThat(service.isAvailable(2L, BASE.plusMonths(6), BASE.plusMonths(7))).isTrue();
+    }
+
+    @Test
+    void excludedRentalDoesNotConflictWithItself() {
+        service.index(rental(1, 1, BASE, BASE.plusDays(2), "CONFIRMED"));
+        service.index(rental(2, 1, BASE.plusDays(3), BASE.plusDays(4), "CONFIRMED"));
+
+        assertThatCode(() -> service.checkAvailable(1L, BASE.plusDays(1), BASE.plusDays(3), 1L)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> service.checkAvailable(1L, BASE.plusDays(1), BASE.plusDays(4), 1L)).isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void cancellingOrMovingARentalReplacesItsBooking() {
+        service.index(rental(1, 1, BASE, BASE.plusDays(1), "CONFIRMED"));
+        service.index(rental(1, 1, BASE.plusDays(5), BASE.plusDays(6), "CONFIRMED"));
+
+        assertThat(service.isAvailable(1L, BASE, BASE.plusDays(1))).isTrue();
+        assertThat(service.isAvailable(1L, BASE.plusDays(5), BASE.plusDays(6))).isFalse();
+
+        service.index(rental(1, 1, BASE.plusDays(5), BASE.plusDays(6), "cancelled"));
+        assertThat(service.isAvailable(1L, BASE.plusDays(5), BASE.plusDays(6))).isTrue();
+        assertThat(bookingCount()).isZero();
+    }
+
+    /**
+     * Random writes, including overlapping bookings the index must still answer for correctly, checked query by query
+     * against a scan of everything indexed.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void matchesBruteForce(long seed) {
+        final Random random = new Random(seed);
+        final Map<Long, long[]> reference = new HashMap<>();
+
+        for (int step = 0; step < 3_000; step++) {
+            final long rentalId = random.nextInt(300);
+            final long vehicleId = random.nextInt(3);
+            if (random.nextInt(5) == 0) {
+                service.remove(rentalId);
+                reference.remove(rentalId);
+            }
+            else {
+                final long start = random.nextInt(2_000);
+                // Mostly short, now and then very long
+                final long length = random.nextInt(20) == 0 ? 200 + random.nextInt(1_000) : 1 + random.nextInt(10);
+                service.index(rental(rentalId, vehicleId, hour(start), hour(start + length), "CONFIRMED"));
+                reference.put(rentalId, new long[] {vehicleId, start, start + length});
+            }
+
+            final long vehicleId2 = random.nextInt(3);
+            final long from = random.nextInt(2_200);
+            final long to = from + 1 + random.nextInt(20);
+            final Long excluded = random.nextBoolean() ? null : (long) random.nextInt(300);
+            final boolean expected = reference.entrySet().stream().noneMatch(entry -> entry.getValue()[0] == vehicleId2
+                    && entry.getValue()[1] < to && entry.getValue()[2] > from && !entry.getKey().equals(excluded));
+
+            if (expected) {
+                assertThatCode(() -> service.checkAvailable(vehicleId2, hour(from), hour(to), excluded)).doesNotThrowAnyException();
+            }
+            else {
+                assertThatThrownBy(() -> service.checkAvailable(vehicleId2, hour(from), hour(to), excluded)).isInstanceOf(ConflictException.class);
+            }
+        }
+        assertThat(bookingCount()).isEqualTo(reference.size());
+    }
+
+    @Test
+    void refreshPicksUpOtherNodesAndReplaysChangesMadeWhileItLoaded() {
+        service.index(rental(1, 1, BASE, BASE.plusDays(1), "CONFIRMED"));
+        // Cancelled on another node, so no longer in the table
+        service.index(rental(2, 1, BASE.plusDays(2), BASE.plusDays(3), "CONFIRMED"));
+
+        final List<RentalRepository.RentalSlot> table = new ArrayList<>();
+        table.add(slot(1, 1, BASE, BASE.plusDays(1), "CONFIRMED"));
+        // Booked on another node
+        table.add(slot(3, 2, BASE, BASE.plusDays(1), "CONFIRMED"));
+        // In the table but cancelled here while the refresh was loading
+        table.add(slot(4, 1, BASE.plusDays(4), BASE.plusDays(5), "CONFIRMED"));
+        when(rentalRepository.findSlotsEndingAfter(any())).thenAnswer(invocation -> {
+            service.remove(4L);
+            service.index(rental(5, 3, BASE, BASE.plusDays(1), "CONFIRMED"));
+            return table;
+        });
+        service.index(rental(4, 1, BASE.plusDays(4), BASE.plusDays(5), "CONFIRMED"));
+
+        service.refresh();
+
+        assertThat(service.isAvailable(1L, BASE, BASE.plusDays(1))).isFalse();
+        assertThat(service.isAvailable(1L, BASE.plusDays(2), BASE.plusDays(3))).isTrue();
+        assertThat(service.isAvailable(2L, BASE, BASE.plusDays(1))).isFalse();
+        assertThat(service.isAvailable(1L, BASE.plusDays(4), BASE.plusDays(5))).isTrue();
+        assertThat(service.isAvailable(3L, BASE, BASE.plusDays(1))).isFalse();
+        assertThat(bookingCount()).isEqualTo(3);
+    }
+
+    @Test
+    void failedRefreshKeepsTheCurrentIndex() {
+        service.index(rental(1, 1, BASE, BASE.plusDays(1), "CONFIRMED"));
+        when(rentalRepository.findSlotsEndingAfter(any())).thenThrow(new IllegalStateException("database down"));
+
+        service.refresh();
+        service.index(rental(2, 1, BASE.plusDays(2), BASE.plusDays(3), "CONFIRMED"));
+
+        assertThat(service.isAvailable(1L, BASE, BASE.plusDays(1))).isFalse();
+        assertThat(bookingCount()).isEqualTo(2);
+    }
+
+    @Test
+    void pruneDropsOnlyEndedBookings() {
+        final LocalDateTime now = LocalDateTime.now();
+        service.index(rental(1, 1, now.minusDays(3), now.minusDays(2), "CONFIRMED"));
+        service.index(rental(2, 1, now.minusDays(1), now.plusDays(1), "CONFIRMED"));
+        service.index(rental(3, 1, now.plusDays(2), now.plusDays(3), "CONFIRMED"));
+
+        service.pruneEnded();
+
+        assertThat(bookingCount()).isEqualTo(2);
+        assertThat(service.isAvailable(1L, now.minusDays(3), now.minusDays(2))).isTrue();
+        assertThat(service.isAvailable(1L, now, now.plusHours(1))).isFalse();
+        assertThat(service.isAvailable(1L, now.plusDays(2), now.plusDays(3))).isFalse();
+    }
+
+    private double bookingCount() {
+        return meterRegistry.get("rental.availability.bookings").gauge().value();
+    }
+
+    private static LocalDateTime hour(long hours) {
+        return BASE.plusHours(hours);
+    }
+
+    private static Rental rental(long rentalId, long vehicleId, LocalDateTime start, LocalDateTime end, String status) {
+        return Rental.builder()
+                .id(rentalId)
+                .vehicle(Vehicle.builder().id(vehicleId).build())
+                .startTime(start)
+                .endTime(end)
+                .status(status)
+                .build();
+    }
+
+    private static RentalRepository.RentalSlot slot(long rentalId, long vehicleId, LocalDateTime start, LocalDateTime end, String status) {
+        return new RentalRepository.RentalSlot() {
+            @Override
+            public Long getId() {
+                return rentalId;
+            }
+
+            @Override
+            public Long getVehicleId() {
+                return vehicleId;
+            }
+
+            @Override
+            public LocalDateTime getStartTime() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEndTime() {
+                return end;
+            }
+
+            @Override
+            public String getStatus() {
+                return status;
+            }
+        };
+    }
+}
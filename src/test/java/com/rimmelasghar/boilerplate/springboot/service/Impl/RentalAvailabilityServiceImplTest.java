@@ -0,0 +1,297 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.RentalAvailabilityProperties;
+import com.rimmelasghar.boilerplate.springboot.exceptions.ConflictException;
+import com.rimmelasghar.boilerplate.springboot.model.Location;
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+import com.rimmelasghar.boilerplate.springboot.model.User;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import com.rimmelasghar.boilerplate.springboot.repository.LocationRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.RentalRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.UserRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent bookings against H2, which row-locks on update like MySQL does.
+ */
+@Slf4j
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// Each booking commits on its own, as in production
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RentalAvailabilityServiceImplTest {
+
+    private static final int THREADS = 16;
+
+    private static final int STRESS_VEHICLES = 20;
+
+    private static final int STRESS_THREADS = 8;
+
+    private static final int STRESS_ATTEMPTS = 3_000;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+
+    private Location location;
+
+    private Vehicle vehicle;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            location = locationRepository.save(Location.builder().name("Depot").address("1 Main Street").build());
+            vehicle = newVehicle("51A-12345");
+            user = userRepository.save(User.builder().email("renter@example.com").fullName("Renter").build());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        rentalRepository.deleteAll();
+        vehicleRepository.deleteAll();
+        userRepository.deleteAll();
+        locationRepository.deleteAll();
+    }
+
+    @Test
+    void reserveLetsExactlyOneOfManyOverlappingBookingsThrough() throws Exception {
+        // Two nodes: their in-memory indexes know nothing of each other's bookings, so only the row lock stops a double booking
+        final RentalAvailabilityServiceImpl[] nodes = {newNode(), newNode()};
+        final LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+
+        final CountDownLatch ready = new CountDownLatch(THREADS);
+        final CountDownLatch go = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final List<Future<Boolean>> outcomes = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                final RentalAvailabilityServiceImpl node = nodes[i % nodes.length];
+                // Every window overlaps every other one, yet none is identical
+                final LocalDateTime from = start.plusMinutes(i);
+                final LocalDateTime to = from.plusDays(1);
+                outcomes.add(executor.submit(() -> {
+                    ready.countDown();
+                    go.await();
+                    try {
+                        node.reserve(vehicle.getId(), from, to, null, () -> rentalRepository.save(newRental(vehicle, from, to)));
+                        return true;
+                    }
+                    catch (ConflictException e) {
+                        return false;
+                    }
+                }));
+            }
+            ready.await();
+            go.countDown();
+
+            int booked = 0;
+            for (Future<Boolean> outcome : outcomes) {
+                if (outcome.get(30, TimeUnit.SECONDS)) {
+                    booked++;
+                }
+            }
+            assertThat(booked).isEqualTo(1);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        assertThat(rentalRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void reserveAcceptsBackToBackBookings() {
+        final RentalAvailabilityServiceImpl node = newNode();
+        final LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+
+        node.reserve(vehicle.getId(), start, start.plusDays(1), null, () -> rentalRepository.save(newRental(vehicle, start, start.plusDays(1))));
+        node.reserve(vehicle.getId(), start.plusDays(1), start.plusDays(2), null,
+                () -> rentalRepository.save(newRental(vehicle, start.plusDays(1), start.plusDays(2))));
+
+        assertThat(rentalRepository.count()).isEqualTo(2);
+    }
+
+    /**
+     * Thousands of bookings from two nodes over a small fleet, windows drawn so that many collide and many do not. No
+     * vehicle may end up double booked, and the achieved rate is logged for comparison between runs.
+     */
+    @Test
+    void stressManyVehiclesWithoutDoubleBookings() throws Exception {
+        final List<Vehicle> fleet = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < STRESS_VEHICLES; i++) {
+                fleet.add(newVehicle("51S-" + (10_000 + i)));
+            }
+        });
+        final RentalAvailabilityServiceImpl[] nodes = {newNode(), newNode()};
+        final LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        final AtomicInteger booked = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(STRESS_THREADS);
+        final long startedAt = System.nanoTime();
+        try {
+            final List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < STRESS_THREADS; t++) {
+                final Random random = new Random(t);
+                final RentalAvailabilityServiceImpl node = nodes[t % nodes.length];
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < STRESS_ATTEMPTS / STRESS_THREADS; i++) {
+                        final Vehicle target = fleet.get(random.nextInt(fleet.size()));
+                        // About two months of one-hour slots per vehicle, bookings of one hour to three days
+                        final LocalDateTime from = base.plusHours(random.nextInt(1_500));
+                        final LocalDateTime to = from.plusHours(1 + random.nextInt(72));
+                        try {
+                            node.reserve(target.getId(), from, to, null, () -> rentalRepository.save(newRental(target, from, to)));
+                            booked.incrementAndGet();
+                        }
+                        catch (ConflictException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(5, TimeUnit.MINUTES);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        final double seconds = (System.nanoTime() - startedAt) / 1e9;
+        log.info("Stress: {} booked, {} rejected over {} vehicles in {} s, {} bookings/s, {} attempts/s", booked.get(), rejected.get(),
+                fleet.size(), String.format("%.2f", seconds), String.format("%.0f", booked.get() / seconds),
+                String.format("%.0f", (booked.get() + rejected.get()) / seconds));
+
+        assertThat(booked.get() + rejected.get()).isEqualTo(STRESS_ATTEMPTS / STRESS_THREADS * STRESS_THREADS);
+        assertThat(booked.get()).isGreaterThan(fleet.size());
+        assertThat(rejected.get()).isPositive();
+        assertThat(rentalRepository.count()).isEqualTo(booked.get());
+
+        final Map<Long, List<Rental>> byVehicle = transactionTemplate.execute(status -> rentalRepository.findAll().stream()
+                .collect(Collectors.groupingBy(rental -> rental.getVehicle().getId())));
+        byVehicle.values().forEach(rentals -> {
+            rentals.sort(Comparator.comparing(Rental::getStartTime));
+            for (int i = 1; i < rentals.size(); i++) {
+                assertThat(rentals.get(i).getStartTime()).as("double booking").isAfterOrEqualTo(rentals.get(i - 1).getEndTime());
+            }
+        });
+    }
+
+    @Test
+    void bookingsOfOtherVehiclesDoNotWaitForAnOpenBooking() throws Exception {
+        final RentalAvailabilityServiceImpl node = newNode();
+        final LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        // A vehicle on another lock stripe, so nothing but the row lock could make it wait
+        final Vehicle other = transactionTemplate.execute(status -> {
+            for (int i = 0; ; i++) {
+                final Vehicle candidate = newVehicle("51B-" + (10_000 + i));
+                if (node.bookingLock(candidate.getId()) != node.bookingLock(vehicle.getId())) {
+                    return candidate;
+                }
+            }
+        });
+
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Holds its stripe lock and the vehicle's row lock until released
+            final Future<Rental> slow = executor.submit(() -> node.reserve(vehicle.getId(), start, start.plusDays(1), null, () -> {
+                writing.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rentalRepository.save(newRental(vehicle, start, start.plusDays(1)));
+            }));
+            assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+            final Future<Rental> fast = executor.submit(() -> node.reserve(other.getId(), start, start.plusDays(1), null,
+                    () -> rentalRepository.save(newRental(other, start, start.plusDays(1)))));
+            assertThat(fast.get(10, TimeUnit.SECONDS).getVehicle().getId()).isEqualTo(other.getId());
+            assertThat(slow.isDone()).isFalse();
+
+            release.countDown();
+            assertThat(slow.get(10, TimeUnit.SECONDS).getVehicle().getId()).isEqualTo(vehicle.getId());
+        }
+        finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private RentalAvailabilityServiceImpl newNode() {
+        return new RentalAvailabilityServiceImpl(rentalRepository, vehicleRepository, transactionTemplate,
+                new RentalAvailabilityProperties(), new SimpleMeterRegistry());
+    }
+
+    private Vehicle newVehicle(String licensePlate) {
+        return vehicleRepository.save(Vehicle.builder()
+                .name("Corolla").brand("Toyota").type("Sedan").licensePlate(licensePlate).status("AVAILABLE")
+                .location(location).pricePerDay(BigDecimal.TEN).image("corolla.png")
+                .build());
+    }
+
+    private Rental newRental(Vehicle vehicle, LocalDateTime from, LocalDateTime to) {
+        return Rental.builder()
+                .user(user)
+                .vehicle(vehicle)
+                .startTime(from)
+                .endTime(to)
+                .totalPrice(BigDecimal.TEN)
+                .status("PENDING")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
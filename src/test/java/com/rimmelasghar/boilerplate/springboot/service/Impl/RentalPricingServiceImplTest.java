@@ -0,0 +1,215 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteItemDto;
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
+import com.rimmelasghar.boilerplate.springboot.exceptions.NotFoundException;
+import com.rimmelasghar.boilerplate.springboot.repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RentalPricingServiceImplTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 3, 1, 10, 0);
+
+    private final Map<Long, VehicleRepository.VehicleTariffView> tariffs = new HashMap<>();
+
+    private VehicleRepository vehicleRepository;
+
+    private RentalPricingServiceImpl pricingService;
+
+    @BeforeEach
+    void setUp() {
+        vehicleRepository = mock(VehicleRepository.class);
+        when(vehicleRepository.findTariffsByIdIn(any())).thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).stream()
+                .filter(tariffs::containsKey)
+                .map(tariffs::get)
+                .collect(Collectors.toList()));
+        pricingService = new RentalPricingServiceImpl(vehicleRepository, new SimpleMeterRegistry(), 1_000);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // minutes, billed days
+            "1, 1",
+            "1440, 1",
+            "1441, 2",
+            "4320, 3",
+            "4321, 4",
+    })
+    void startedDaysAreBilledWhole(long minutes, long days) {
+        tariff(1, "10", null, null);
+
+        final RentalQuoteDto quote = quote(1, START, START.plusMinutes(minutes));
+
+        assertThat(quote.getDays()).isEqualTo(days);
+        assertThat(quote.getTotal_price()).isEqualByComparingTo(BigDecimal.valueOf(10 * days));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // days, years, months, days, total; day 10, month 200, year 2000
+            "19, 0, 0, 19, 190",
+            // 21 days cost 210, a month covering them 200
+            "21, 0, 1, 0, 200",
+            "31, 0, 1, 1, 210",
+            "55, 0, 2, 0, 400",
+            // 10 months cost 2000 too; the first cheapest found wins, which is the one with fewer years
+            "300, 0, 10, 0, 2000",
+            "330, 1, 0, 0, 2000",
+            "366, 1, 0, 1, 2010",
+            "400, 1, 1, 5, 2250",
+    })
+    void picksTheCheapestMixOfYearsMonthsAndDays(long rentalDays, long years, long months, long days, String total) {
+        tariff(1, "10", "200", "2000");
+
+        final RentalQuoteDto quote = quote(1, START, START.plusDays(rentalDays));
+
+        assertThat(quote.getTotal_price()).isEqualByComparingTo(total);
+        assertThat(new long[] {quote.getYears(), quote.getMonths(), quote.getDays()}).containsExactly(years, months, days);
+    }
+
+    @Test
+    void missingUnitsAreCoveredByTheOthers() {
+        // No day price: a 3 day rental is billed as a month
+        tariff(1, null, "200", null);
+        assertThat(quote(1, START, START.plusDays(3)).getMonths()).isEqualTo(1);
+
+        // Only a year price
+        tariff(2, null, null, "1000");
+        final RentalQuoteDto yearOnly = quote(2, START, START.plusDays(400));
+        assertThat(yearOnly.getYears()).isEqualTo(2);
+        assertThat(yearOnly.getTotal_price()).isEqualByComparingTo("2000");
+    }
+
+    @Test
+    void rejectsUnknownVehiclesVehiclesWithoutTariffAndEmptyRanges() {
+        tariff(1, "10", null, null);
+        tariff(2, null, null, null);
+
+        assertThatThrownBy(() -> quote(99, START, START.plusDays(1))).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> quote(2, START, START.plusDays(1))).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> quote(1, START, START)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> quote(1, START, START.minusDays(1))).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void batchLoadsMissingTariffsOnceAndServesRepeatsFromCache() {
+        tariff(1, "10", null, null);
+        tariff(2, "20", null, null);
+        final List<RentalQuoteItemDto> items = List.of(item(1, START, START.plusDays(1)), item(2, START, START.plusDays(1)),
+                item(1, START, START.plusDays(2)));
+
+        final List<RentalQuoteDto> quotes = pricingService.quote(items);
+        pricingService.quote(items);
+
+        assertThat(quotes).extracting(RentalQuoteDto::getTotal_price).usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("10"), new BigDecimal("20"), new BigDecimal("20"));
+        verify(vehicleRepository, times(1)).findTariffsByIdIn(any());
+
+        // A new tariff is only seen once evicted
+        tariff(1, "15", null, null);
+        assertThat(quote(1, START, START.plusDays(1)).getTotal_price()).isEqualByComparingTo("10");
+        pricingService.evictTariff(1L);
+        assertThat(quote(1, START, START.plusDays(1)).getTotal_price()).isEqualByComparingTo("15");
+    }
+
+    /**
+     * Random tariffs, some units missing, against every mix of units that covers the rental.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4})
+    void matchesAnExhaustiveSearch(long seed) {
+        final Random random = new Random(seed);
+        for (int i = 0; i < 300; i++) {
+            final Long perDay = random.nextInt(4) == 0 ? null : (long) 1 + random.nextInt(50);
+            final Long perMonth = random.nextInt(4) == 0 ? null : (long) 1 + random.nextInt(1_000);
+            final Long perYear = random.nextInt(4) == 0 ? null : (long) 1 + random.nextInt(10_000);
+            if (perDay == null && perMonth == null && perYear == null) {
+                continue;
+            }
+            final long vehicleId = i + 1;
+            tariff(vehicleId, string(perDay), string(perMonth), string(perYear));
+            final long rentalDays = 1 + random.nextInt(900);
+
+            final RentalQuoteDto quote = quote(vehicleId, START, START.plusDays(rentalDays));
+
+            assertThat(quote.getTotal_price()).as("tariff %s/%s/%s for %s days", perDay, perMonth, perYear, rentalDays)
+                    .isEqualByComparingTo(BigDecimal.valueOf(cheapest(rentalDays, perDay, perMonth, perYear)));
+            assertThat(quote.getYears() * 365 + quote.getMonths() * 30 + quote.getDays()).isGreaterThanOrEqualTo(rentalDays);
+        }
+    }
+
+    private static long cheapest(long rentalDays, Long perDay, Long perMonth, Long perYear) {
+        long best = Long.MAX_VALUE;
+        for (long years = 0; years <= (perYear == null ? 0 : rentalDays / 365 + 1); years++) {
+            for (long months = 0; months <= (perMonth == null ? 0 : rentalDays / 30 + 1); months++) {
+                final long days = Math.max(0, rentalDays - years * 365 - months * 30);
+                if (days > 0 && perDay == null) {
+                    continue;
+                }
+                final long cost = years * (perYear == null ? 0 : perYear) + months * (perMonth == null ? 0 : perMonth)
+                        + days * (perDay == null ? 0 : perDay);
+                best = Math.min(best, cost);
+            }
+        }
+        return best;
+    }
+
+    private RentalQuoteDto quote(long vehicleId, LocalDateTime start, LocalDateTime end) {
+        return pricingService.quote(item(vehicleId, start, end));
+    }
+
+    private static RentalQuoteItemDto item(long vehicleId, LocalDateTime start, LocalDateTime end) {
+        return RentalQuoteItemDto.builder().vehicle_id(vehicleId).start_time(start).end_time(end).build();
+    }
+
+    private static String string(Long value) {
+        return value == null ? null : value.toString();
+    }
+
+    private void tariff(long vehicleId, String perDay, String perMonth, String perYear) {
+        tariffs.put(vehicleId, new VehicleRepository.VehicleTariffView() {
+            @Override
+            public Long getId() {
+                return vehicleId;
+            }
+
+            @Override
+            public BigDecimal getPricePerDay() {
+                return perDay == null ? null : new BigDecimal(perDay);
+            }
+
+            @Override
+            public BigDecimal getPricePerMonth() {
+                return perMonth == null ? null : new BigDecimal(perMonth);
+            }
+
+            @Override
+            public BigDecimal getPricePerYear() {
+                return perYear == null ? null : new BigDecimal(perYear);
+            }
+        });
+    }
+}
@@ -0,0 +1,173 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.dto.RentalDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalQuoteItemDto;
+import com.rimmelasghar.boilerplate.springboot.dto.RentalUpdateDto;
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
+import com.rimmelasghar.boilerplate.springboot.mapper.RentalMapper;
+import com.rimmelasghar.boilerplate.springboot.model.Rental;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import com.rimmelasghar.boilerplate.springboot.repository.KeysetQuery;
+import com.rimmelasghar.boilerplate.springboot.repository.RentalRepository;
+import com.rimmelasghar.boilerplate.springboot.service.OutboxService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalAvailabilityService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalLifecycleService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalPricingService;
+import com.rimmelasghar.boilerplate.springboot.service.StatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The server-side price on create and update; persistence itself is mocked away.
+ */
+class RentalServiceImplTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 3, 1, 10, 0);
+
+    private static final BigDecimal QUOTE = new BigDecimal("30.00");
+
+    private RentalRepository rentalRepository;
+
+    private RentalMapper rentalMapper;
+
+    private RentalAvailabilityService rentalAvailabilityService;
+
+    private RentalPricingService rentalPricingService;
+
+    private RentalServiceImpl rentalService;
+
+    @BeforeEach
+    void setUp() {
+        rentalRepository = mock(RentalRepository.class);
+        rentalMapper = mock(RentalMapper.class);
+        rentalAvailabilityService = mock(RentalAvailabilityService.class);
+        rentalPricingService = mock(RentalPricingService.class);
+        rentalService = new RentalServiceImpl(rentalRepository, rentalMapper, mock(KeysetQuery.class), rentalAvailabilityService,
+                rentalPricingService, mock(RentalLifecycleService.class), mock(StatsService.class), mock(OutboxService.class),
+                mock(TransactionTemplate.class));
+
+        when(rentalPricingService.quote(any(RentalQuoteItemDto.class)))
+                .thenReturn(RentalQuoteDto.builder().total_price(QUOTE).build());
+        when(rentalAvailabilityService.isBlocking(any())).thenReturn(true);
+        when(rentalAvailabilityService.reserve(anyLong(), any(), any(), any(), any())).thenReturn(new Rental());
+    }
+
+    @Test
+    void createPricesFromTheTariffWhenNoPriceIsSent() {
+        final RentalDto rentalDto = newRentalDto(null);
+
+        rentalService.createRental(rentalDto);
+
+        assertThat(rentalDto.getTotal_price()).isEqualByComparingTo(QUOTE);
+        verify(rentalAvailabilityService).reserve(eq(2L), eq(START), eq(START.plusDays(3)), any(), any());
+    }
+
+    @Test
+    void createAcceptsAPriceEqualToTheQuote() {
+        final RentalDto rentalDto = newRentalDto(new BigDecimal("30"));
+
+        rentalService.createRental(rentalDto);
+
+        assertThat(rentalDto.getTotal_price()).isEqualByComparingTo(QUOTE);
+    }
+
+    @Test
+    void createRejectsAPriceOtherThanTheQuote() {
+        final RentalDto rentalDto = newRentalDto(new BigDecimal("1.00"));
+
+        assertThatThrownBy(() -> rentalService.createRental(rentalDto)).isInstanceOf(BadRequestException.class);
+        verify(rentalAvailabilityService, never()).reserve(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void updateOfStatusAloneKeepsThePriceAgreedEarlier() {
+        final Rental rental = existingRental(new BigDecimal("25.00"));
+        applies(RentalUpdateDto.builder().status("CONFIRMED").build(), rental);
+
+        rentalService.updateRental(1L, RentalUpdateDto.builder().status("CONFIRMED").build());
+
+        assertThat(rental.getTotalPrice()).isEqualByComparingTo("25.00");
+        verify(rentalPricingService, never()).quote(any(RentalQuoteItemDto.class));
+    }
+
+    @Test
+    void updateOfTheRangeRequotes() {
+        final Rental rental = existingRental(new BigDecimal("25.00"));
+        final RentalUpdateDto update = RentalUpdateDto.builder().end_time(START.plusDays(3)).build();
+        applies(update, rental);
+
+        rentalService.updateRental(1L, update);
+
+        assertThat(rental.getTotalPrice()).isEqualByComparingTo(QUOTE);
+    }
+
+    @Test
+    void updateRejectsAChangedPriceOnItsOwnOrOneOtherThanTheNewQuote() {
+        final Rental rental = existingRental(new BigDecimal("25.00"));
+        final RentalUpdateDto priceOnly = RentalUpdateDto.builder().total_price(new BigDecimal("1.00")).build();
+        applies(priceOnly, rental);
+        assertThatThrownBy(() -> rentalService.updateRental(1L, priceOnly)).isInstanceOf(BadRequestException.class);
+
+        final Rental other = existingRental(new BigDecimal("25.00"));
+        final RentalUpdateDto rangeAndPrice = RentalUpdateDto.builder().end_time(START.plusDays(3)).total_price(new BigDecimal("25.00")).build();
+        applies(rangeAndPrice, other);
+        assertThatThrownBy(() -> rentalService.updateRental(1L, rangeAndPrice)).isInstanceOf(BadRequestException.class);
+    }
+
+    private Rental existingRental(BigDecimal totalPrice) {
+        final Rental rental = Rental.builder()
+                .id(1L)
+                .vehicle(Vehicle.builder().id(2L).build())
+                .startTime(START)
+                .endTime(START.plusDays(2))
+                .totalPrice(totalPrice)
+                .status("PENDING")
+                .build();
+        when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
+        return rental;
+    }
+
+    // Stands in for the MapStruct mapper: copies what the update sets
+    private void applies(RentalUpdateDto update, Rental rental) {
+        doAnswer(invocation -> {
+            if (update.getEnd_time() != null) {
+                rental.setEndTime(update.getEnd_time());
+            }
+            if (update.getTotal_price() != null) {
+                rental.setTotalPrice(update.getTotal_price());
+            }
+            if (update.getStatus() != null) {
+                rental.setStatus(update.getStatus());
+            }
+            return null;
+        }).when(rentalMapper).updateRentalFromDto(update, rental);
+    }
+
+    private static RentalDto newRentalDto(BigDecimal totalPrice) {
+        return RentalDto.builder()
+                .user_id(1L)
+                .vehicle_id(2L)
+                .start_time(START)
+                .end_time(START.plusDays(3))
+                .total_price(totalPrice)
+                .status("PENDING")
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.VehicleGeoIndexProperties;
+import com.rimmelasghar.boilerplate.springboot.model.Vehicle;
+import com.rimmelasghar.boilerplate.springboot.repository.LocationRepository;
+import com.rimmelasghar.boilerplate.springboot.repository.VehicleRepository;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleGeoIndexService;
+import com.rimmelasghar.boilerplate.springboot.utils.GeoUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+class VehicleGeoIndexServiceImplTest {
+
+    @Test
+    @Timeout(10)
+    void radiusLargerThanTheEarthVisitsEveryCellOnceAndStops() {
+        final VehicleGeoIndexServiceImpl index = newIndex(10);
+        final Map<Long, double[]> positions = randomFleet(index, new Random(1), 200);
+
+        final List<VehicleGeoIndexService.Hit> hits = index.nearest(0, 0, 100_000_000, 1_000, vehicleId -> true);
+
+        assertThat(hits).extracting(VehicleGeoIndexService.Hit::getVehicleId).containsExactlyInAnyOrderElementsOf(positions.keySet());
+        assertThat(hits).isSortedAccordingTo(Comparator.comparingDouble(VehicleGeoIndexService.Hit::getDistanceMeters));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "NaN, 0, 1000",
+            "0, NaN, 1000",
+            "0, 0, NaN",
+            "Infinity, 0, 1000",
+            "0, -Infinity, 1000",
+            "0, 0, -1",
+            "91, 0, 1000",
+    })
+    void rejectsNonFiniteOrOutOfRangeArguments(double latitude, double longitude, double radiusMeters) {
+        final VehicleGeoIndexServiceImpl index = newIndex(0.05);
+
+        assertThatThrownBy(() -> index.nearest(latitude, longitude, radiusMeters, 10, vehicleId -> true))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Random fleets and queries, poles and the antimeridian included, against a scan of every vehicle.
+     */
+    @ParameterizedTest
+    @CsvSource({
+            // The default cells up to the default maximum radius, coarser ones up to half way round the globe
+            "0.05, 200000",
+            "1, 2000000",
+            "7, 20000000",
+    })
+    void matchesBruteForce(double cellDegrees, double maxRadiusMeters) {
+        final Random random = new Random(Double.doubleToLongBits(cellDegrees));
+        final VehicleGeoIndexServiceImpl index = newIndex(cellDegrees);
+        final Map<Long, double[]> positions = randomFleet(index, random, 500);
+
+        int found = 0;
+        for (int i = 0; i < 200; i++) {
+            // Half the queries next to a vehicle, so small radii find something too
+            final double[] near = positions.get(1L + random.nextInt(positions.size()));
+            final boolean nearVehicle = random.nextBoolean();
+            final double latitude = nearVehicle ? Math.max(-90, Math.min(90, near[0] + 0.2 * random.nextDouble() - 0.1))
+                    : random.nextInt(10) == 0 ? 90 * (random.nextBoolean() ? 1 : -1) * random.nextDouble() : -60 + 120 * random.nextDouble();
+            final double longitude = nearVehicle ? Math.max(-180, Math.min(180, near[1] + 0.2 * random.nextDouble() - 0.1))
+                    : random.nextInt(10) == 0 ? 179.99 : -180 + 360 * random.nextDouble();
+            final double radiusMeters = Math.pow(maxRadiusMeters, 0.5 + 0.5 * random.nextDouble());
+            final int limit = 1 + random.nextInt(20);
+
+            final List<VehicleGeoIndexService.Hit> hits = index.nearest(latitude, longitude, radiusMeters, limit, vehicleId -> vehicleId % 7 != 0);
+
+            final List<Double> expected = positions.entrySet().stream()
+                    .filter(entry -> entry.getKey() % 7 != 0)
+                    .map(entry -> GeoUtils.distanceMeters(latitude, longitude, entry.getValue()[0], entry.getValue()[1]))
+                    .filter(distance -> distance <= radiusMeters)
+                    .sorted()
+                    .limit(limit)
+                    .collect(Collectors.toList());
+            found += expected.size();
+            assertThat(hits).as("%s,%s within %s", latitude, longitude, radiusMeters).hasSize(expected.size());
+            for (int j = 0; j < expected.size(); j++) {
+                assertThat(hits.get(j).getDistanceMeters()).isCloseTo(expected.get(j), within(1e-6));
+            }
+        }
+        assertThat(found).isGreaterThan(50);
+    }
+
+    private static Map<Long, double[]> randomFleet(VehicleGeoIndexServiceImpl index, Random random, int size) {
+        final Map<Long, double[]> positions = new HashMap<>();
+        for (long vehicleId = 1; vehicleId <= size; vehicleId++) {
+            final double latitude = -90 + 180 * random.nextDouble();
+            final double longitude = -180 + 360 * random.nextDouble();
+            index.index(Vehicle.builder().id(vehicleId).latitude(latitude).longitude(longitude).status("AVAILABLE").build());
+            positions.put(vehicleId, new double[] {latitude, longitude});
+        }
+        return positions;
+    }
+
+    private static VehicleGeoIndexServiceImpl newIndex(double cellDegrees) {
+        final VehicleGeoIndexProperties properties = new VehicleGeoIndexProperties();
+        properties.setCellDegrees(cellDegrees);
+        return new VehicleGeoIndexServiceImpl(mock(LocationRepository.class), mock(VehicleRepository.class), properties, new SimpleMeterRegistry());
+    }
+}
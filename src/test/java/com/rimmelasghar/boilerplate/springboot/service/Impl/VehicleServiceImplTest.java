@@ -0,0 +1,61 @@
+package com.rimmelasghar.boilerplate.springboot.service.Impl;
+
+import com.rimmelasghar.boilerplate.springboot.configuration.PaginationProperties;
+import com.rimmelasghar.boilerplate.springboot.configuration.VehicleGeoIndexProperties;
+import com.rimmelasghar.boilerplate.springboot.exceptions.BadRequestException;
+import com.rimmelasghar.boilerplate.springboot.mapper.VehicleMapper;
+import com.rimmelasghar.boilerplate.springboot.repository.KeysetQuery;
+import com.rimmelasghar.boilerplate.springboot.repository.VehicleRepository;
+import com.rimmelasghar.boilerplate.springboot.service.RatingService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalAvailabilityService;
+import com.rimmelasghar.boilerplate.springboot.service.RentalPricingService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleCatalogService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleGeoIndexService;
+import com.rimmelasghar.boilerplate.springboot.service.VehicleSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Argument checks of the nearby search, which reach the grid index only once every value is finite and in range.
+ */
+class VehicleServiceImplTest {
+
+    private VehicleGeoIndexService vehicleGeoIndexService;
+
+    private VehicleServiceImpl vehicleService;
+
+    @BeforeEach
+    void setUp() {
+        vehicleGeoIndexService = mock(VehicleGeoIndexService.class);
+        vehicleService = new VehicleServiceImpl(mock(VehicleRepository.class), mock(VehicleMapper.class), mock(RentalAvailabilityService.class),
+                mock(RentalPricingService.class), mock(KeysetQuery.class), vehicleGeoIndexService, new VehicleGeoIndexProperties(),
+                mock(RatingService.class), mock(VehicleCatalogService.class), mock(VehicleSearchService.class), new PaginationProperties());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "NaN, 0, 1000",
+            "0, NaN, 1000",
+            "Infinity, 0, 1000",
+            "0, 0, NaN",
+            "0, 0, Infinity",
+            "0, 0, -Infinity",
+            "0, 0, 0",
+            "0, 0, -1",
+            "0, 0, 200001",
+    })
+    void nearbyRejectsNonFiniteOrOutOfRangeValues(double latitude, double longitude, double radiusMeters) {
+        assertThatThrownBy(() -> vehicleService.getNearbyVehicles(latitude, longitude, radiusMeters, null, null, null))
+                .isInstanceOf(BadRequestException.class);
+        verify(vehicleGeoIndexService, never()).nearest(anyDouble(), anyDouble(), anyDouble(), anyInt(), any());
+    }
+}
@@ -0,0 +1,224 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checked against a brute-force scan of the live documents.
+ */
+class FacetIndexTest {
+
+	private static final String[] FIELDS = {"type", "brand", "status"};
+
+	private static final String[][] VALUES = {
+			{"Sedan", "SUV", "Van"},
+			{"Toyota", "Honda", "Ford", "Kia", "Tesla"},
+			{"AVAILABLE", "RENTED", "MAINTENANCE"},
+	};
+
+	@Test
+	void freedOrdinalIsReusedWithoutLeakingTheOldDocument() throws ReflectiveOperationException {
+
+		final FacetIndex<String> index = new FacetIndex<>(FIELDS);
+		index.put(1, new String[] {"Sedan", "Toyota", "AVAILABLE"}, 10, "one");
+		index.put(2, new String[] {"SUV", "Honda", "RENTED"}, 20, "two");
+
+		assertThat(index.remove(1)).isTrue();
+		assertThat(index.remove(1)).isFalse();
+		// Takes ordinal 0 back, with none of the first document's values
+		index.put(3, new String[] {"Van", null, "MAINTENANCE"}, Double.NaN, "three");
+		assertThat(nextOrdinal(index)).isEqualTo(2);
+
+		assertThat(index.size()).isEqualTo(2);
+		assertThat(search(index, Map.of("brand", List.of("Toyota"))).getTotal()).isZero();
+		assertThat(search(index, Map.of("type", List.of("Sedan"))).getTotal()).isZero();
+		final FacetIndex.Result<String> all = search(index, Map.of());
+		assertThat(all.getDocuments()).containsExactly("two", "three");
+		assertThat(all.getFacets().get("type")).containsExactly(Map.entry("SUV", 1), Map.entry("Van", 1));
+		assertThat(all.getFacets().get("brand")).containsExactly(Map.entry("Honda", 1));
+
+		// Any range drops the NaN document, no range keeps it
+		assertThat(index.search(Map.of(), 0, 100, 10).getDocuments()).containsExactly("two");
+	}
+
+	@Test
+	void reputReplacesTheDocumentInPlace() throws ReflectiveOperationException {
+
+		final FacetIndex<String> index = new FacetIndex<>(FIELDS);
+		index.put(7, new String[] {"Sedan", "Toyota", "AVAILABLE"}, 10, "before");
+		index.put(7, new String[] {"Sedan", "Toyota", "RENTED"}, 10, "after");
+
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(nextOrdinal(index)).isEqualTo(1);
+		assertThat(search(index, Map.of("status", List.of("AVAILABLE"))).getTotal()).isZero();
+		assertThat(search(index, Map.of("status", List.of("RENTED"))).getDocuments()).containsExactly("after");
+	}
+
+	@Test
+	void valuesMatchCaseInsensitivelyAndReportAsLastWritten() {
+
+		final FacetIndex<String> index = new FacetIndex<>(FIELDS);
+		index.put(1, new String[] {"sedan", "Toyota", "AVAILABLE"}, 10, "one");
+		index.put(2, new String[] {" SEDAN ", "Toyota", "AVAILABLE"}, 10, "two");
+
+		final FacetIndex.Result<String> result = search(index, Map.of("type", List.of("Sedan")));
+		assertThat(result.getDocuments()).containsExactly("one", "two");
+		assertThat(result.getFacets().get("type")).containsExactly(Map.entry(" SEDAN ", 2));
+	}
+
+	@Test
+	void rejectsUnknownFieldsAndWrongArity() {
+
+		final FacetIndex<String> index = new FacetIndex<>(FIELDS);
+		assertThatThrownBy(() -> index.put(1, new String[] {"Sedan"}, 1, "one")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> search(index, Map.of("colour", List.of("red")))).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	/**
+	 * Enough documents that the value bitmaps cross the array limit and back under churn, with removals and re-puts
+	 * cycling ordinals through the free list throughout.
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = {1, 2, 3})
+	void matchesBruteForceUnderRandomChurn(long seed) throws ReflectiveOperationException {
+
+		final Random random = new Random(seed);
+		final FacetIndex<Long> index = new FacetIndex<>(FIELDS);
+		final Map<Long, Document> reference = new HashMap<>();
+		int mostLive = 0;
+
+		for (int round = 0; round < 20; round++) {
+			for (int i = 0; i < 2_000; i++) {
+				final long id = random.nextInt(15_000);
+				if (random.nextInt(4) == 0) {
+					assertThat(index.remove(id)).isEqualTo(reference.remove(id) != null);
+				}
+				else {
+					final Document document = randomDocument(random);
+					index.put(id, document.values, document.number, id);
+					reference.put(id, document);
+				}
+				mostLive = Math.max(mostLive, reference.size());
+			}
+			assertThat(index.size()).isEqualTo(reference.size());
+			assertThat(nextOrdinal(index)).isEqualTo(mostLive);
+
+			for (int query = 0; query < 10; query++) {
+				final Map<String, List<String>> filters = randomFilters(random);
+				final double min = random.nextBoolean() ? Double.NEGATIVE_INFINITY : random.nextInt(100);
+				final double max = random.nextBoolean() ? Double.POSITIVE_INFINITY : min + random.nextInt(100);
+				final int limit = random.nextInt(30);
+				assertMatches(index.search(filters, min, max, limit), reference, filters, min, max, limit);
+			}
+		}
+	}
+
+	private static void assertMatches(FacetIndex.Result<Long> result, Map<Long, Document> reference,
+			Map<String, List<String>> filters, double min, double max, int limit) {
+
+		final boolean ranged = min != Double.NEGATIVE_INFINITY || max != Double.POSITIVE_INFINITY;
+		final TreeMap<Long, Document> matches = new TreeMap<>();
+		reference.forEach((id, document) -> {
+			if (ranged && !(document.number >= min && document.number <= max)) {
+				return;
+			}
+			for (int field = 0; field < FIELDS.length; field++) {
+				final List<String> wanted = filters.get(FIELDS[field]);
+				if (wanted != null && !wanted.isEmpty() && !wanted.contains(document.values[field])) {
+					return;
+				}
+			}
+			matches.put(id, document);
+		});
+
+		assertThat(result.getTotal()).isEqualTo(matches.size());
+		assertThat(result.getDocuments()).containsExactlyElementsOf(matches.keySet().stream().limit(limit).collect(Collectors.toList()));
+
+		assertThat(result.getFacets().keySet()).containsExactly(FIELDS);
+		for (int field = 0; field < FIELDS.length; field++) {
+			final Map<String, Integer> counts = new HashMap<>();
+			for (Document document : matches.values()) {
+				if (document.values[field] != null) {
+					counts.merge(document.values[field], 1, Integer::sum);
+				}
+			}
+			final Map<String, Integer> expected = new LinkedHashMap<>();
+			counts.entrySet().stream()
+					.sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+					.forEach(entry -> expected.put(entry.getKey(), entry.getValue()));
+			assertThat(result.getFacets().get(FIELDS[field])).containsExactlyEntriesOf(expected);
+		}
+	}
+
+	private static Document randomDocument(Random random) {
+
+		final String[] values = new String[FIELDS.length];
+		for (int field = 0; field < FIELDS.length; field++) {
+			// Skewed towards the first value, so one bitmap per field is dense and the rest sparse
+			values[field] = random.nextInt(10) == 0 ? null : VALUES[field][Math.min(random.nextInt(VALUES[field].length * 2), VALUES[field].length - 1)];
+		}
+		final double number = random.nextInt(20) == 0 ? Double.NaN : random.nextInt(200);
+		return new Document(values, number);
+	}
+
+	private static Map<String, List<String>> randomFilters(Random random) {
+
+		final Map<String, List<String>> filters = new HashMap<>();
+		for (int field = 0; field < FIELDS.length; field++) {
+			if (random.nextBoolean()) {
+				continue;
+			}
+			final List<String> wanted = new ArrayList<>();
+			for (String value : VALUES[field]) {
+				if (random.nextInt(3) == 0) {
+					wanted.add(value);
+				}
+			}
+			if (random.nextInt(5) == 0) {
+				wanted.add("Unknown");
+			}
+			filters.put(FIELDS[field], wanted);
+		}
+		return filters;
+	}
+
+	private static FacetIndex.Result<String> search(FacetIndex<String> index, Map<String, ? extends Collection<String>> filters) {
+
+		return index.search(filters, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 10);
+	}
+
+	private static int nextOrdinal(FacetIndex<?> index) throws ReflectiveOperationException {
+
+		final Field field = FacetIndex.class.getDeclaredField("nextOrdinal");
+		field.setAccessible(true);
+		return field.getInt(index);
+	}
+
+	private static final class Document {
+
+		private final String[] values;
+
+		private final double number;
+
+		private Document(String[] values, double number) {
+
+			this.values = values;
+			this.number = number;
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class InvertedIndexTest {
+
+	private static final List<String> VOCABULARY = List.of("clean", "fast", "cheap", "comfortable", "late", "friendly", "dirty", "quiet",
+			"spacious", "smooth", "noisy", "reliable", "modern", "old", "helpful", "rude", "easy", "broken", "new", "great");
+
+	/**
+	 * Random documents, replacements and removals (enough to trigger compaction) against a plain BM25 over the live
+	 * documents.
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = {1, 2, 3})
+	void searchMatchesAReferenceBm25(long seed) {
+
+		final Random random = new Random(seed);
+		final InvertedIndex index = new InvertedIndex();
+		final Map<Long, List<String>> documents = new HashMap<>();
+
+		for (long documentId = 1; documentId <= 6_000; documentId++) {
+			put(index, documents, documentId, randomTerms(random));
+		}
+		for (int i = 0; i < 3_000; i++) {
+			final long documentId = 1 + random.nextInt(6_000);
+			if (random.nextBoolean()) {
+				index.remove(documentId);
+				documents.remove(documentId);
+			}
+			else {
+				put(index, documents, documentId, randomTerms(random));
+			}
+		}
+
+		assertThat(index.size()).isEqualTo(documents.size());
+		for (int query = 0; query < 50; query++) {
+			final List<String> terms = randomTerms(random).subList(0, 1 + random.nextInt(3));
+			final LongPredicate filter = query % 2 == 0 ? documentId -> true : documentId -> documentId % 3 == 0;
+			assertMatchesReference(index, documents, terms, filter, 20);
+		}
+	}
+
+	@Test
+	void filterNarrowsTheResultWithoutChangingScores() {
+
+		final InvertedIndex index = new InvertedIndex();
+		index.put(1, List.of("clean", "car"));
+		index.put(2, List.of("clean", "clean", "car"));
+		index.put(3, List.of("dirty", "car"));
+
+		final Map<Long, Double> unfiltered = scores(index.search(List.of("clean"), documentId -> true, 10));
+		final Map<Long, Double> filtered = scores(index.search(List.of("clean"), documentId -> documentId == 1, 10));
+
+		assertThat(filtered).containsOnlyKeys(1L);
+		assertThat(filtered.get(1L)).isEqualTo(unfiltered.get(1L));
+	}
+
+	@Test
+	void equalScoresRankTheNewerDocumentFirst() {
+
+		final InvertedIndex index = new InvertedIndex();
+		index.put(10, List.of("quiet"));
+		index.put(30, List.of("quiet"));
+		index.put(20, List.of("quiet"));
+
+		assertThat(index.search(List.of("quiet"), documentId -> true, 2))
+				.extracting(InvertedIndex.Hit::getDocumentId)
+				.containsExactly(30L, 20L);
+	}
+
+	@Test
+	void putReplacesAndRemoveForgets() {
+
+		final InvertedIndex index = new InvertedIndex();
+		index.put(1, List.of("clean"));
+		index.put(1, List.of("dirty"));
+
+		assertThat(index.search(List.of("clean"), documentId -> true, 10)).isEmpty();
+		assertThat(index.search(List.of("dirty"), documentId -> true, 10)).extracting(InvertedIndex.Hit::getDocumentId).containsExactly(1L);
+		assertThat(index.size()).isEqualTo(1);
+
+		index.remove(1);
+		assertThat(index.contains(1)).isFalse();
+		assertThat(index.size()).isZero();
+		assertThat(index.search(List.of("dirty"), documentId -> true, 10)).isEmpty();
+	}
+
+	@Test
+	void snapshotRestoresTheSameIndex() throws IOException {
+
+		final Random random = new Random(7);
+		final InvertedIndex index = new InvertedIndex();
+		final Map<Long, List<String>> documents = new HashMap<>();
+		for (long documentId = 1; documentId <= 500; documentId++) {
+			put(index, documents, documentId, randomTerms(random));
+		}
+		for (long documentId = 1; documentId <= 500; documentId += 7) {
+			index.remove(documentId);
+			documents.remove(documentId);
+		}
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		index.writeTo(new DataOutputStream(bytes));
+		final InvertedIndex restored = InvertedIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertThat(restored.size()).isEqualTo(index.size());
+		assertThat(restored.terms()).isEqualTo(index.terms());
+		assertThat(restored.maxDocumentId()).isEqualTo(index.maxDocumentId());
+		for (String term : VOCABULARY) {
+			assertThat(scores(restored.search(List.of(term), documentId -> true, 1_000)))
+					.isEqualTo(scores(index.search(List.of(term), documentId -> true, 1_000)));
+		}
+		assertMatchesReference(restored, documents, List.of("clean", "fast"), documentId -> true, 50);
+	}
+
+	@Test
+	void snapshotOfAnotherVersionIsRejected() {
+
+		final byte[] otherVersion = {0, 0, 0, 99};
+
+		assertThatThrownBy(() -> InvertedIndex.readFrom(new DataInputStream(new ByteArrayInputStream(otherVersion))))
+				.isInstanceOf(IOException.class);
+	}
+
+	private static void assertMatchesReference(InvertedIndex index, Map<Long, List<String>> documents, List<String> terms, LongPredicate filter,
+											   int limit) {
+
+		final List<InvertedIndex.Hit> hits = index.search(terms, filter, limit);
+		final List<Map.Entry<Long, Double>> expected = referenceBm25(documents, terms).entrySet().stream()
+				.filter(entry -> filter.test(entry.getKey()))
+				.sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+				.limit(limit)
+				.collect(Collectors.toList());
+
+		assertThat(hits).hasSameSizeAs(expected);
+		for (int i = 0; i < hits.size(); i++) {
+			assertThat(hits.get(i).getDocumentId()).isEqualTo(expected.get(i).getKey());
+			assertThat(hits.get(i).getScore()).isCloseTo(expected.get(i).getValue(), within(1e-9));
+		}
+	}
+
+	private static Map<Long, Double> referenceBm25(Map<Long, List<String>> documents, List<String> terms) {
+
+		final double averageLength = Math.max(1.0, documents.values().stream().mapToInt(List::size).average().orElse(0));
+		final Map<Long, Double> scores = new HashMap<>();
+		for (String term : new LinkedHashSet<>(terms)) {
+			final long frequency = documents.values().stream().filter(document -> document.contains(term)).count();
+			final double idf = Math.log(1 + (documents.size() - frequency + 0.5) / (frequency + 0.5));
+			documents.forEach((documentId, document) -> {
+				final long termFrequency = document.stream().filter(term::equals).count();
+				if (termFrequency > 0) {
+					final double norm = 1.2 * (1 - 0.75 + 0.75 * document.size() / averageLength);
+					scores.merge(documentId, idf * termFrequency * 2.2 / (termFrequency + norm), Double::sum);
+				}
+			});
+		}
+		return scores;
+	}
+
+	private static Map<Long, Double> scores(List<InvertedIndex.Hit> hits) {
+
+		final Map<Long, Double> scores = new HashMap<>();
+		hits.forEach(hit -> scores.put(hit.getDocumentId(), hit.getScore()));
+		return scores;
+	}
+
+	private static void put(InvertedIndex index, Map<Long, List<String>> documents, long documentId, List<String> terms) {
+
+		index.put(documentId, terms);
+		documents.put(documentId, terms);
+	}
+
+	// Skewed towards the first words, so terms range from common to rare
+	private static List<String> randomTerms(Random random) {
+
+		final int length = 3 + random.nextInt(12);
+		final List<String> terms = new ArrayList<>(length);
+		for (int i = 0; i < length; i++) {
+			terms.add(VOCABULARY.get((int) (VOCABULARY.size() * Math.pow(random.nextDouble(), 2))));
+		}
+		return terms;
+	}
+}
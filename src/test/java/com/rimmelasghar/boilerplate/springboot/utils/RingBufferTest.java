@@ -0,0 +1,146 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RingBufferTest {
+
+	@Test
+	void capacityIsRoundedUpToAPowerOfTwo() {
+
+		assertThat(new RingBuffer<>(1).capacity()).isEqualTo(2);
+		assertThat(new RingBuffer<>(2).capacity()).isEqualTo(2);
+		assertThat(new RingBuffer<>(3).capacity()).isEqualTo(4);
+		assertThat(new RingBuffer<>(1000).capacity()).isEqualTo(1024);
+		assertThat(new RingBuffer<>(1024).capacity()).isEqualTo(1024);
+	}
+
+	@Test
+	void rejectsCapacitiesOutOfRange() {
+
+		assertThatThrownBy(() -> new RingBuffer<>(0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new RingBuffer<>((1 << 30) + 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void offerFailsOnlyWhenFullAndPollOnlyWhenEmpty() {
+
+		final RingBuffer<Integer> ring = new RingBuffer<>(4);
+
+		assertThat(ring.poll()).isNull();
+		for (int i = 0; i < 4; i++) {
+			assertThat(ring.offer(i)).isTrue();
+		}
+		assertThat(ring.offer(4)).isFalse();
+		assertThat(ring.size()).isEqualTo(4);
+
+		assertThat(ring.poll()).isEqualTo(0);
+		assertThat(ring.offer(4)).isTrue();
+		assertThat(ring.offer(5)).isFalse();
+	}
+
+	@Test
+	void itemsComeOutInOrderAcrossManyWrapArounds() {
+
+		final RingBuffer<Integer> ring = new RingBuffer<>(8);
+
+		int next = 0;
+		int expected = 0;
+		for (int round = 0; round < 1_000; round++) {
+			// Uneven batches, so head and tail wrap at different slots each time
+			final int offers = round % 7 + 1;
+			for (int i = 0; i < offers && ring.offer(next); i++) {
+				next++;
+			}
+			final int polls = round % 5 + 1;
+			for (int i = 0; i < polls; i++) {
+				final Integer item = ring.poll();
+				if (item == null) {
+					break;
+				}
+				assertThat(item).isEqualTo(expected++);
+			}
+			assertThat(ring.size()).isEqualTo(next - expected);
+		}
+	}
+
+	@Test
+	void drainHandsOverAtMostTheLimitInOrder() {
+
+		final RingBuffer<Integer> ring = new RingBuffer<>(8);
+		for (int i = 0; i < 6; i++) {
+			ring.offer(i);
+		}
+
+		final List<Integer> drained = new ArrayList<>();
+		assertThat(ring.drain(drained::add, 4)).isEqualTo(4);
+		assertThat(drained).containsExactly(0, 1, 2, 3);
+		assertThat(ring.size()).isEqualTo(2);
+
+		// Freed slots are usable straight away
+		for (int i = 6; i < 12; i++) {
+			assertThat(ring.offer(i)).isTrue();
+		}
+		assertThat(ring.offer(12)).isFalse();
+
+		drained.clear();
+		assertThat(ring.drain(drained::add, 100)).isEqualTo(8);
+		assertThat(drained).containsExactly(4, 5, 6, 7, 8, 9, 10, 11);
+		assertThat(ring.drain(drained::add, 100)).isZero();
+	}
+
+	@Test
+	void oneProducerAndOneConsumerSeeEveryItemOnceInOrder() throws InterruptedException {
+
+		final int items = 200_000;
+		final RingBuffer<Integer> ring = new RingBuffer<>(64);
+		final AtomicReference<String> failure = new AtomicReference<>();
+
+		// Waiting sides yield rather than spin, so the test also finishes quickly on a single core
+		final Thread producer = new Thread(() -> {
+			for (int i = 0; i < items; i++) {
+				while (!ring.offer(i)) {
+					Thread.yield();
+				}
+			}
+		});
+		final Thread consumer = new Thread(() -> {
+			final int[] expected = {0};
+			while (expected[0] < items && failure.get() == null) {
+				// Alternate between the two consumer paths
+				if ((expected[0] & 1) == 0) {
+					final Integer item = ring.poll();
+					if (item == null) {
+						Thread.yield();
+					}
+					else if (item != expected[0]++) {
+						failure.set("Polled " + item + ", expected " + (expected[0] - 1));
+					}
+				}
+				else if (ring.drain(item -> {
+					if (item != expected[0]++) {
+						failure.compareAndSet(null, "Drained " + item + ", expected " + (expected[0] - 1));
+					}
+				}, 16) == 0) {
+					Thread.yield();
+				}
+			}
+		});
+
+		producer.start();
+		consumer.start();
+		producer.join(60_000);
+		consumer.join(60_000);
+
+		assertThat(failure.get()).isNull();
+		assertThat(producer.isAlive()).isFalse();
+		assertThat(consumer.isAlive()).isFalse();
+		assertThat(ring.size()).isZero();
+	}
+}
@@ -0,0 +1,217 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checked against {@link BitSet}, with the container kinds read reflectively to make sure each conversion really
+ * happens where it should.
+ */
+class RoaringBitmapTest {
+
+	private static final int ARRAY_LIMIT = 4096;
+
+	private static final int CHUNK = 1 << 16;
+
+	@Test
+	void chunkBecomesABitmapPastTheArrayLimitAndAnArrayWellBelowIt() throws ReflectiveOperationException {
+
+		final RoaringBitmap bitmap = new RoaringBitmap();
+		final BitSet expected = new BitSet();
+
+		// Every third value, so the chunk is neither a run nor contiguous
+		for (int i = 0; i < ARRAY_LIMIT; i++) {
+			add(bitmap, expected, i * 3);
+		}
+		assertThat(containerKinds(bitmap)).containsExactly("ArrayContainer");
+		assertSame(bitmap, expected);
+
+		add(bitmap, expected, ARRAY_LIMIT * 3);
+		assertThat(containerKinds(bitmap)).containsExactly("BitmapContainer");
+		assertSame(bitmap, expected);
+
+		// Dropping back under the limit keeps the bitmap, so a chunk hovering around it does not flip-flop
+		remove(bitmap, expected, 0);
+		remove(bitmap, expected, 3);
+		assertThat(containerKinds(bitmap)).containsExactly("BitmapContainer");
+
+		while (expected.cardinality() > ARRAY_LIMIT / 2) {
+			remove(bitmap, expected, expected.nextSetBit(0));
+		}
+		assertThat(containerKinds(bitmap)).containsExactly("BitmapContainer");
+		assertSame(bitmap, expected);
+
+		remove(bitmap, expected, expected.nextSetBit(0));
+		assertThat(containerKinds(bitmap)).containsExactly("ArrayContainer");
+		assertSame(bitmap, expected);
+
+		// Removing an absent value changes nothing
+		remove(bitmap, expected, 1);
+		assertSame(bitmap, expected);
+	}
+
+	@Test
+	void emptiedChunkIsDropped() throws ReflectiveOperationException {
+
+		final RoaringBitmap bitmap = new RoaringBitmap();
+		bitmap.add(5);
+		bitmap.add(CHUNK + 5);
+		bitmap.remove(5);
+
+		assertThat(containerKinds(bitmap)).containsExactly("ArrayContainer");
+		assertThat(bitmap.contains(5)).isFalse();
+		assertThat(bitmap.contains(CHUNK + 5)).isTrue();
+
+		bitmap.remove(CHUNK + 5);
+		assertThat(bitmap.isEmpty()).isTrue();
+		assertThat(bitmap.cardinality()).isZero();
+	}
+
+	/**
+	 * Random adds and removes over chunks of very different density, then every pair ANDed and ORed, so each pairing of
+	 * array and bitmap containers is exercised, including results crossing the limit either way.
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = {1, 2, 3, 4, 5})
+	void matchesBitSetUnderRandomWritesAndSetOperations(long seed) throws ReflectiveOperationException {
+
+		final Random random = new Random(seed);
+		final List<RoaringBitmap> bitmaps = new ArrayList<>();
+		final List<BitSet> expected = new ArrayList<>();
+
+		for (int b = 0; b < 6; b++) {
+			final RoaringBitmap bitmap = new RoaringBitmap();
+			final BitSet bits = new BitSet();
+			// Per chunk: dense, around the limit, sparse, or empty
+			final int[] targets = {30_000, ARRAY_LIMIT + random.nextInt(200) - 100, 50, 0};
+			for (int chunk = 0; chunk < 4; chunk++) {
+				final int target = targets[(chunk + b) % targets.length];
+				for (int i = 0; i < target * 2; i++) {
+					final int value = chunk * CHUNK + random.nextInt(CHUNK);
+					// Adds outweigh removes, so cardinalities climb through the limit and back as the chunk fills
+					if (random.nextInt(3) > 0) {
+						add(bitmap, bits, value);
+					}
+					else {
+						remove(bitmap, bits, value);
+					}
+				}
+			}
+			assertSame(bitmap, bits);
+			bitmaps.add(bitmap);
+			expected.add(bits);
+		}
+
+		final List<String> kinds = new ArrayList<>();
+		for (RoaringBitmap bitmap : bitmaps) {
+			kinds.addAll(containerKinds(bitmap));
+		}
+		assertThat(kinds).contains("ArrayContainer", "BitmapContainer");
+
+		for (int i = 0; i < bitmaps.size(); i++) {
+			for (int j = 0; j < bitmaps.size(); j++) {
+				final BitSet and = (BitSet) expected.get(i).clone();
+				and.and(expected.get(j));
+				assertSame(RoaringBitmap.and(bitmaps.get(i), bitmaps.get(j)), and);
+
+				final BitSet or = (BitSet) expected.get(i).clone();
+				or.or(expected.get(j));
+				assertSame(RoaringBitmap.or(bitmaps.get(i), bitmaps.get(j)), or);
+			}
+			// Neither operand is changed
+			assertSame(bitmaps.get(i), expected.get(i));
+		}
+	}
+
+	@Test
+	void orOfTwoArraysPastTheLimitIsABitmapAndAndOfTwoBitmapsUnderItIsAnArray() throws ReflectiveOperationException {
+
+		final RoaringBitmap evens = new RoaringBitmap();
+		final RoaringBitmap odds = new RoaringBitmap();
+		for (int i = 0; i < 3_000; i++) {
+			evens.add(i * 2);
+			odds.add(i * 2 + 1);
+		}
+		final RoaringBitmap union = RoaringBitmap.or(evens, odds);
+		assertThat(containerKinds(union)).containsExactly("BitmapContainer");
+		assertThat(union.cardinality()).isEqualTo(6_000);
+
+		final RoaringBitmap low = new RoaringBitmap();
+		final RoaringBitmap high = new RoaringBitmap();
+		for (int i = 0; i < 10_000; i++) {
+			low.add(i);
+			high.add(i + 9_000);
+		}
+		final RoaringBitmap overlap = RoaringBitmap.and(low, high);
+		assertThat(containerKinds(overlap)).containsExactly("ArrayContainer");
+		assertThat(overlap.cardinality()).isEqualTo(1_000);
+	}
+
+	@Test
+	void valuesAreOrderedAsUnsignedInts() {
+
+		final RoaringBitmap bitmap = new RoaringBitmap();
+		bitmap.add(-1);
+		bitmap.add(Integer.MIN_VALUE);
+		bitmap.add(Integer.MAX_VALUE);
+		bitmap.add(0);
+
+		final List<Integer> values = new ArrayList<>();
+		bitmap.forEach(values::add);
+		assertThat(values).containsExactly(0, Integer.MAX_VALUE, Integer.MIN_VALUE, -1);
+	}
+
+	private static void add(RoaringBitmap bitmap, BitSet expected, int value) {
+
+		bitmap.add(value);
+		expected.set(value);
+	}
+
+	private static void remove(RoaringBitmap bitmap, BitSet expected, int value) {
+
+		bitmap.remove(value);
+		expected.clear(value);
+	}
+
+	private static void assertSame(RoaringBitmap bitmap, BitSet expected) {
+
+		assertThat(bitmap.cardinality()).isEqualTo(expected.cardinality());
+		assertThat(bitmap.isEmpty()).isEqualTo(expected.isEmpty());
+
+		final int[] values = new int[bitmap.cardinality()];
+		final int[] count = {0};
+		bitmap.forEach(value -> values[count[0]++] = value);
+		assertThat(values).isEqualTo(expected.stream().toArray());
+
+		boolean containsMatches = true;
+		for (int value = expected.nextSetBit(0); value >= 0; value = expected.nextSetBit(value + 1)) {
+			containsMatches &= bitmap.contains(value) && bitmap.contains(value + 1) == expected.get(value + 1);
+		}
+		assertThat(containsMatches).isTrue();
+	}
+
+	private static List<String> containerKinds(RoaringBitmap bitmap) throws ReflectiveOperationException {
+
+		final Field sizeField = RoaringBitmap.class.getDeclaredField("size");
+		final Field containersField = RoaringBitmap.class.getDeclaredField("containers");
+		sizeField.setAccessible(true);
+		containersField.setAccessible(true);
+
+		final int size = sizeField.getInt(bitmap);
+		final Object[] containers = (Object[]) containersField.get(bitmap);
+		final List<String> kinds = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			kinds.add(containers[i].getClass().getSimpleName());
+		}
+		return kinds;
+	}
+}
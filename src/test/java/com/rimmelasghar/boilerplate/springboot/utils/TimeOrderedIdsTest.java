@@ -0,0 +1,130 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedIdsTest {
+
+	private static final long NOW = TimeOrderedIds.EPOCH_MILLIS + 86_400_000L;
+
+	private static final long SEQUENCES_PER_MILLI = 1L << TimeOrderedIds.SEQUENCE_BITS;
+
+	@Test
+	void idsIncreaseStrictlyOnTheRealClock() {
+
+		final TimeOrderedIds ids = new TimeOrderedIds(7);
+
+		long previous = ids.next();
+		for (int i = 0; i < 100_000; i++) {
+			final long id = ids.next();
+			assertThat(id).isGreaterThan(previous);
+			previous = id;
+		}
+	}
+
+	@Test
+	void idsKeepIncreasingWhenTheClockStepsBack() {
+
+		final AtomicLong clock = new AtomicLong(NOW);
+		final TimeOrderedIds ids = new TimeOrderedIds(1, clock::get);
+
+		final long beforeStep = ids.next();
+		clock.set(NOW - 5_000);
+		final long afterStep = ids.next();
+
+		assertThat(afterStep).isGreaterThan(beforeStep);
+		assertThat(TimeOrderedIds.epochMillisOf(afterStep)).isEqualTo(NOW);
+	}
+
+	@Test
+	void exhaustedSequenceSpillsIntoTheNextMillisecond() {
+
+		final AtomicLong clock = new AtomicLong(NOW);
+		final TimeOrderedIds ids = new TimeOrderedIds(3, clock::get);
+
+		long last = 0;
+		for (int i = 0; i < SEQUENCES_PER_MILLI; i++) {
+			last = ids.next();
+			assertThat(TimeOrderedIds.epochMillisOf(last)).isEqualTo(NOW);
+			assertThat(sequenceOf(last)).isEqualTo(i);
+		}
+
+		final long spilled = ids.next();
+		assertThat(spilled).isGreaterThan(last);
+		assertThat(TimeOrderedIds.epochMillisOf(spilled)).isEqualTo(NOW + 1);
+		assertThat(sequenceOf(spilled)).isZero();
+		assertThat(nodeOf(spilled)).isEqualTo(3);
+
+		// The clock catching up to the borrowed millisecond continues its sequence rather than reusing it
+		clock.set(NOW + 1);
+		final long caughtUp = ids.next();
+		assertThat(TimeOrderedIds.epochMillisOf(caughtUp)).isEqualTo(NOW + 1);
+		assertThat(sequenceOf(caughtUp)).isEqualTo(1);
+
+		clock.set(NOW + 2);
+		assertThat(sequenceOf(ids.next())).isZero();
+	}
+
+	@Test
+	void layoutIsTimestampThenNodeThenSequence() {
+
+		final AtomicLong clock = new AtomicLong(NOW);
+		final long id = new TimeOrderedIds(TimeOrderedIds.MAX_NODE_ID, clock::get).next();
+
+		assertThat(id >>> TimeOrderedIds.TIMESTAMP_SHIFT).isEqualTo(NOW - TimeOrderedIds.EPOCH_MILLIS);
+		assertThat(nodeOf(id)).isEqualTo(TimeOrderedIds.MAX_NODE_ID);
+		assertThat(sequenceOf(id)).isZero();
+		assertThat(TimeOrderedIds.epochMillisOf(id)).isEqualTo(NOW);
+	}
+
+	@Test
+	void nodeIdSeparatesIdsIssuedInTheSameMillisecond() {
+
+		final AtomicLong clock = new AtomicLong(NOW);
+		final long first = new TimeOrderedIds(0, clock::get).next();
+		final long second = new TimeOrderedIds(1, clock::get).next();
+
+		assertThat(first).isNotEqualTo(second);
+		assertThat(second - first).isEqualTo(SEQUENCES_PER_MILLI);
+	}
+
+	@Test
+	void idsStayExactInJavaScript() {
+
+		// 69 years after the epoch, still within 2^53
+		final long lastMillis = TimeOrderedIds.EPOCH_MILLIS + (1L << 41) - 1;
+		final long id = new TimeOrderedIds(TimeOrderedIds.MAX_NODE_ID, () -> lastMillis).next();
+
+		assertThat(id).isLessThan(1L << 53);
+	}
+
+	@Test
+	void rewindStepsBackWholeMillisecondsAndStopsAtZero() {
+
+		final long id = new TimeOrderedIds(5, () -> NOW).next();
+
+		assertThat(TimeOrderedIds.epochMillisOf(TimeOrderedIds.rewind(id, 1_000))).isEqualTo(NOW - 1_000);
+		assertThat(TimeOrderedIds.rewind(id, Long.MAX_VALUE >>> TimeOrderedIds.TIMESTAMP_SHIFT)).isZero();
+	}
+
+	@Test
+	void rejectsNodeIdsOutsideTheNodeBits() {
+
+		assertThatThrownBy(() -> new TimeOrderedIds(-1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new TimeOrderedIds(TimeOrderedIds.MAX_NODE_ID + 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static long nodeOf(long id) {
+
+		return (id >>> TimeOrderedIds.SEQUENCE_BITS) & TimeOrderedIds.MAX_NODE_ID;
+	}
+
+	private static long sequenceOf(long id) {
+
+		return id & (SEQUENCES_PER_MILLI - 1);
+	}
+}
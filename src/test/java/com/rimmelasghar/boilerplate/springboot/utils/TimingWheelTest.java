@@ -0,0 +1,111 @@
+package com.rimmelasghar.boilerplate.springboot.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimingWheelTest {
+
+	private static final long START = 1_700_000_000_123L;
+
+	/**
+	 * Random schedules and clock jumps against a plain map of deadlines: every item comes out on the first advance whose
+	 * tick reaches its deadline's tick, never earlier, exactly once.
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = {1, 2, 3, 4, 5, 6, 7, 8})
+	void advanceReturnsExactlyTheItemsThatFellDue(long seed) {
+
+		final Random random = new Random(seed);
+		final long tickMillis = 10;
+		// Small wheels, so deadlines land on every level and cascade across slot wrap-around
+		final TimingWheel<Integer> wheel = new TimingWheel<>(tickMillis, 4, 4, START);
+		final Map<Integer, Long> pending = new HashMap<>();
+
+		long now = START;
+		int next = 0;
+		for (int round = 0; round < 2_000; round++) {
+			if (random.nextInt(3) > 0) {
+				final long deadline = now - 50 + (long) (random.nextDouble() * (wheel.horizonMillis() + 50));
+				assertThat(wheel.schedule(deadline, next)).isTrue();
+				pending.put(next++, deadline);
+			}
+			else {
+				now += random.nextInt(4) == 0 ? random.nextInt(3_000) : random.nextInt(40);
+				final long nowTick = now / tickMillis;
+
+				final List<Integer> expected = new ArrayList<>();
+				pending.forEach((item, deadline) -> {
+					if (deadline / tickMillis <= nowTick) {
+						expected.add(item);
+					}
+				});
+				expected.forEach(pending::remove);
+
+				assertThat(wheel.advance(now)).containsExactlyInAnyOrderElementsOf(expected);
+				assertThat(wheel.size()).isEqualTo(pending.size());
+			}
+		}
+	}
+
+	@Test
+	void deadlineInThePastIsDueOnTheNextAdvance() {
+
+		final TimingWheel<String> wheel = new TimingWheel<>(100, 8, 2, START);
+
+		assertThat(wheel.schedule(START - 1_000, "late")).isTrue();
+
+		assertThat(wheel.advance(START)).containsExactly("late");
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void deadlineBeyondTheHorizonIsRejected() {
+
+		final TimingWheel<String> wheel = new TimingWheel<>(100, 8, 2, START);
+
+		assertThat(wheel.schedule(START + wheel.horizonMillis() + 100, "far")).isFalse();
+		assertThat(wheel.size()).isZero();
+		assertThat(wheel.schedule(START + wheel.horizonMillis() - 100, "near")).isTrue();
+		assertThat(wheel.advance(START + wheel.horizonMillis())).containsExactly("near");
+	}
+
+	@Test
+	void wheelSizeIsRoundedUpToAPowerOfTwo() {
+
+		// 5 slots become 8, so two levels reach 63 ticks ahead
+		assertThat(new TimingWheel<>(1, 5, 2, 0).horizonMillis()).isEqualTo(63);
+	}
+
+	@Test
+	void clearDropsEverythingAndRestartsTheClock() {
+
+		final TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, START);
+		wheel.schedule(START + 50, "soon");
+		wheel.schedule(START + 5_000, "later");
+		wheel.schedule(START - 10, "overdue");
+
+		wheel.clear(START + 10_000);
+
+		assertThat(wheel.size()).isZero();
+		assertThat(wheel.advance(START + 20_000)).isEmpty();
+	}
+
+	@Test
+	void rejectsInvalidShapes() {
+
+		assertThatThrownBy(() -> new TimingWheel<>(0, 8, 2, START)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new TimingWheel<>(10, 1, 2, START)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new TimingWheel<>(10, 8, 0, START)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new TimingWheel<>(10, 1 << 16, 4, START)).isInstanceOf(IllegalArgumentException.class);
+	}
+}